@@ -0,0 +1,119 @@
+package com.alexkasko.rest.handlers.benchmark;
+
+import com.alexkasko.rest.handlers.HandlersDispatcher;
+import com.alexkasko.rest.handlers.RestHandler;
+import com.alexkasko.rest.handlers.TransportHandler;
+import com.alexkasko.rest.handlers.VirtualThreadExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares async dispatch of blocking handlers on platform threads pool
+ * (sized as typical container pool) and on {@link VirtualThreadExecutor}.
+ * Each invocation dispatches a burst of concurrent requests and waits for all of them to complete,
+ * score is requests per second. Virtual threads mode requires Java 21+ runtime.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncDispatchBenchmark {
+    private static final int BURST = 2000;
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Param({"200"})
+    public int platformThreads;
+
+    @Param({"5"})
+    public int blockMillis;
+
+    private Executor exec;
+    private HandlersDispatcher dispatcher;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        if("platform".equals(executor)) {
+            exec = Executors.newFixedThreadPool(platformThreads);
+        } else if("virtual".equals(executor)) {
+            exec = new VirtualThreadExecutor("benchmark-", BURST);
+        } else throw new IllegalArgumentException("Invalid executor: [" + executor + "]");
+        dispatcher = HandlersDispatcher.builder()
+                .addGet("^/blocking$", new BlockingTransportHandler(blockMillis), BlockingHandler.class)
+                .setExecutor(exec)
+                .build();
+        response = BenchmarkServlets.response();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if(exec instanceof ExecutorService) ((ExecutorService) exec).shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void dispatchBlocking() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(BURST);
+        BenchmarkServlets.Completion completion = new BenchmarkServlets.Completion() {
+            @Override
+            public void completed() {
+                latch.countDown();
+            }
+        };
+        for(int i = 0; i < BURST; i++) {
+            HttpServletRequest req = BenchmarkServlets.request("GET", "/blocking", completion);
+            dispatcher.dispatch(req, response, true);
+        }
+        latch.await();
+    }
+
+    /**
+     * Marker handler
+     */
+    public static class BlockingHandler implements RestHandler {
+    }
+
+    /**
+     * Transport handler, that emulates blocking JDBC or HTTP call
+     */
+    public static class BlockingTransportHandler implements TransportHandler<BlockingHandler> {
+        private final int blockMillis;
+
+        BlockingTransportHandler(int blockMillis) {
+            this.blockMillis = blockMillis;
+        }
+
+        @Override
+        public void handle(Class<? extends BlockingHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+            Thread.sleep(blockMillis);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.alexkasko.rest.handlers.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks launcher, accepts standard JMH command line options and always enables
+ * GC profiler, so allocations per operation ({@code gc.alloc.rate.norm}) are reported
+ * along with throughput.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Runs benchmarks
+     *
+     * @param args JMH command line options, e.g. benchmarks regex
+     * @throws Exception on any error
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        Options opts = new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opts).run();
+    }
+}
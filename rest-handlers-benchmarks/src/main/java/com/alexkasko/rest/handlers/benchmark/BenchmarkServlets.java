@@ -0,0 +1,215 @@
+package com.alexkasko.rest.handlers.benchmark;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-memory servlet request and response implementations for benchmarks,
+ * not mentioned methods return default values. Response body is discarded, its size may be counted.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class BenchmarkServlets {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Callback called on async request completion
+     */
+    public interface Completion {
+        /**
+         * Called on {@link AsyncContext#complete()}
+         */
+        void completed();
+    }
+
+    /**
+     * Creates request
+     *
+     * @param method HTTP method
+     * @param path path info
+     * @param body request body, may be empty
+     * @param headers request headers
+     * @param completion async completion callback, {@code null} if async mode is not supported
+     * @return request
+     */
+    public static HttpServletRequest request(String method, String path, byte[] body, Map<String, String> headers,
+                                             Completion completion) {
+        return (HttpServletRequest) Proxy.newProxyInstance(BenchmarkServlets.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, new Request(method, path, body, headers, completion));
+    }
+
+    /**
+     * Creates request without body and headers
+     *
+     * @param method HTTP method
+     * @param path path info
+     * @param completion async completion callback, {@code null} if async mode is not supported
+     * @return request
+     */
+    public static HttpServletRequest request(String method, String path, Completion completion) {
+        return request(method, path, new byte[0], new HashMap<String, String>(), completion);
+    }
+
+    /**
+     * Creates response, that discards body and headers
+     *
+     * @return response
+     */
+    public static HttpServletResponse response() {
+        return response(new AtomicLong());
+    }
+
+    /**
+     * Creates response, that discards body and headers and counts body bytes
+     *
+     * @param written counter of body bytes written to response
+     * @return response
+     */
+    public static HttpServletResponse response(AtomicLong written) {
+        return (HttpServletResponse) Proxy.newProxyInstance(BenchmarkServlets.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, new Response(written));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if(!type.isPrimitive() || void.class == type) return null;
+        if(boolean.class == type) return false;
+        if(long.class == type) return 0L;
+        if(char.class == type) return (char) 0;
+        if(byte.class == type) return (byte) 0;
+        if(short.class == type) return (short) 0;
+        if(float.class == type) return 0f;
+        if(double.class == type) return 0d;
+        return 0;
+    }
+
+    private static class Request implements InvocationHandler {
+        private final String method;
+        private final String path;
+        private final byte[] body;
+        private final Map<String, String> headers;
+        private final Completion completion;
+        private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        private Request(String method, String path, byte[] body, Map<String, String> headers, Completion completion) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+            this.headers = headers;
+            this.completion = completion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if("getMethod".equals(name)) return method;
+            if("getPathInfo".equals(name) || "getRequestURI".equals(name)) return path;
+            if("getHeader".equals(name)) return headers.get(args[0]);
+            if("getContentLength".equals(name)) return body.length;
+            if("getCharacterEncoding".equals(name)) return "UTF-8";
+            if("getInputStream".equals(name)) return new BodyStream(body);
+            if("getAttribute".equals(name)) return attributes.get(args[0]);
+            if("setAttribute".equals(name)) return attributes.put((String) args[0], args[1]);
+            if("isAsyncSupported".equals(name)) return null != completion;
+            if("startAsync".equals(name)) {
+                return Proxy.newProxyInstance(BenchmarkServlets.class.getClassLoader(),
+                        new Class<?>[]{AsyncContext.class}, new Async(completion));
+            }
+            if("hashCode".equals(name)) return System.identityHashCode(proxy);
+            if("equals".equals(name)) return proxy == args[0];
+            if("toString".equals(name)) return method + " " + path;
+            return defaultValue(m.getReturnType());
+        }
+    }
+
+    private static class Response implements InvocationHandler {
+        private final ServletOutputStream out;
+        private final PrintWriter writer;
+        private String contentType;
+
+        private Response(AtomicLong written) {
+            this.out = new DiscardingStream(written);
+            this.writer = new PrintWriter(new OutputStreamWriter(out, UTF8));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if("getOutputStream".equals(name)) return out;
+            if("getWriter".equals(name)) return writer;
+            if("getCharacterEncoding".equals(name)) return "UTF-8";
+            if("getStatus".equals(name)) return HttpServletResponse.SC_OK;
+            if("setContentType".equals(name)) contentType = (String) args[0];
+            if("getContentType".equals(name)) return contentType;
+            if("hashCode".equals(name)) return System.identityHashCode(proxy);
+            if("equals".equals(name)) return proxy == args[0];
+            return defaultValue(m.getReturnType());
+        }
+    }
+
+    private static class Async implements InvocationHandler {
+        private final Completion completion;
+
+        private Async(Completion completion) {
+            this.completion = completion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            if("complete".equals(m.getName())) completion.completed();
+            if("hashCode".equals(m.getName())) return System.identityHashCode(proxy);
+            if("equals".equals(m.getName())) return proxy == args[0];
+            return defaultValue(m.getReturnType());
+        }
+    }
+
+    private static class BodyStream extends ServletInputStream {
+        private final ByteArrayInputStream in;
+
+        private BodyStream(byte[] body) {
+            this.in = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, len);
+        }
+    }
+
+    private static class DiscardingStream extends ServletOutputStream {
+        private final AtomicLong written;
+
+        private DiscardingStream(AtomicLong written) {
+            this.written = written;
+        }
+
+        @Override
+        public void write(int b) {
+            written.lazySet(written.get() + 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // single writer, no need for atomic increment
+            written.lazySet(written.get() + len);
+        }
+    }
+}
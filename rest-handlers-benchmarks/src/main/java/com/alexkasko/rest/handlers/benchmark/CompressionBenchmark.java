@@ -0,0 +1,129 @@
+package com.alexkasko.rest.handlers.benchmark;
+
+import com.alexkasko.rest.handlers.CompressingTransportHandler;
+import com.alexkasko.rest.handlers.HandlersDispatcher;
+import com.alexkasko.rest.handlers.RestHandler;
+import com.alexkasko.rest.handlers.TransportHandler;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CPU cost against bytes saved of {@link CompressingTransportHandler}: JSON list response of different sizes
+ * sent uncompressed, with gzip and with deflate on fastest and default compression levels.
+ * Throughput shows CPU cost, {@code plainBytes} and {@code wireBytes} secondary results show
+ * body bytes per second before and after compression, their ratio is compression ratio.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Param({"1024", "16384", "262144"})
+    public int bodySize;
+
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+
+    @Param({"1", "6"})
+    public int level;
+
+    private HandlersDispatcher dispatcher;
+    private Map<String, String> headers;
+    private byte[] body;
+
+    /**
+     * Body bytes counters, reported as secondary results
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long plainBytes;
+        public long wireBytes;
+        private final AtomicLong written = new AtomicLong();
+        private HttpServletResponse response;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            plainBytes = 0;
+            wireBytes = 0;
+            written.set(0);
+            response = BenchmarkServlets.response(written);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        body = jsonList(bodySize);
+        dispatcher = HandlersDispatcher.builder()
+                .addGet("^/list$", new CompressingTransportHandler<RestHandler>(new BodyHandler(body), 1024, level, 16),
+                        RestHandler.class)
+                .build();
+        headers = new HashMap<String, String>();
+        headers.put("Accept-Encoding", encoding);
+    }
+
+    @Benchmark
+    public void list(Bytes bytes) {
+        long before = bytes.written.get();
+        dispatcher.dispatch(BenchmarkServlets.request("GET", "/list", new byte[0], headers, null), bytes.response);
+        bytes.plainBytes += body.length;
+        bytes.wireBytes += bytes.written.get() - before;
+    }
+
+    // typical list endpoint output: similar objects with varying values, approximately of specified size
+    private static byte[] jsonList(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append('[');
+        for(int i = 0; sb.length() < size - 1; i++) {
+            if(i > 0) sb.append(',');
+            sb.append("{\"id\":").append(100000 + i * 37)
+                    .append(",\"name\":\"item-").append(Integer.toHexString(i * 7919))
+                    .append("\",\"price\":").append(i % 1000).append('.').append(i % 100)
+                    .append(",\"active\":").append(0 == i % 3)
+                    .append(",\"tags\":[\"t").append(i % 17).append("\",\"t").append(i % 5).append("\"]}");
+        }
+        sb.append(']');
+        return sb.toString().getBytes(UTF8);
+    }
+
+    private static class BodyHandler implements TransportHandler<RestHandler> {
+        private final byte[] body;
+
+        private BodyHandler(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+            response.setContentType("application/json; charset=UTF-8");
+            response.getOutputStream().write(body);
+        }
+    }
+}
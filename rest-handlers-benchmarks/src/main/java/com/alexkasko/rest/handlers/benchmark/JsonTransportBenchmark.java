@@ -0,0 +1,69 @@
+package com.alexkasko.rest.handlers.benchmark;
+
+import com.alexkasko.rest.handlers.HandlersDispatcher;
+import com.alexkasko.rest.handlers.json.EchoHandler;
+import com.alexkasko.rest.handlers.json.InputMessage;
+import com.alexkasko.rest.handlers.json.JsonTransportHandler;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON round trip through dispatcher and {@link JsonTransportHandler} with {@link EchoHandler}:
+ * request body parsing, handler call and response serialization.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonTransportBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int textLength;
+
+    private HandlersDispatcher dispatcher;
+    private byte[] body;
+    private Map<String, String> headers;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        dispatcher = HandlersDispatcher.builder()
+                .addPost("^/echo$", new JsonTransportHandler(), EchoHandler.class)
+                .build();
+        StringBuilder sb = new StringBuilder(textLength);
+        for(int i = 0; i < textLength; i++) {
+            // mostly ascii with some two-byte chars
+            sb.append(0 == i % 16 ? '\u00e9' : (char) ('a' + i % 26));
+        }
+        body = new Gson().toJson(new InputMessage(sb.toString())).getBytes(Charset.forName("UTF-8"));
+        headers = new HashMap<String, String>();
+        headers.put("Content-Type", "application/json");
+        response = BenchmarkServlets.response();
+    }
+
+    @Benchmark
+    public void echo() {
+        dispatcher.dispatch(BenchmarkServlets.request("POST", "/echo", body, headers, null), response);
+    }
+}
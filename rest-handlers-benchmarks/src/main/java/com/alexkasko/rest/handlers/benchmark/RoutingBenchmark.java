@@ -0,0 +1,116 @@
+package com.alexkasko.rest.handlers.benchmark;
+
+import com.alexkasko.rest.handlers.HandlersDispatcher;
+import com.alexkasko.rest.handlers.NotFoundHandler;
+import com.alexkasko.rest.handlers.RestHandler;
+import com.alexkasko.rest.handlers.TransportHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatching through route tables of different sizes, requests hit the first registered route,
+ * the last registered route or do not match any route. Transport handler and not-found handler
+ * do nothing, so score is dominated by route matching.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int routes;
+
+    @Param({"front", "back", "miss"})
+    public String target;
+
+    @Param({"index", "combined"})
+    public String matching;
+
+    private HandlersDispatcher dispatcher;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup(Blackhole bh) {
+        NopTransportHandler th = new NopTransportHandler(bh);
+        HandlersDispatcher.Builder builder = HandlersDispatcher.builder()
+                .setCombinedMatching("combined".equals(matching))
+                .setNotFound(new NopNotFoundHandler(bh));
+        for(int i = 0; i < routes; i++) {
+            builder.addGet("^/api/v1/resource" + i + "/(?<id>\\d+)/items/(?<item>[a-z0-9]+)$", th, NopHandler.class);
+        }
+        dispatcher = builder.build();
+        final String path;
+        if("front".equals(target)) path = "/api/v1/resource0/42/items/abc1";
+        else if("back".equals(target)) path = "/api/v1/resource" + (routes - 1) + "/42/items/abc1";
+        else if("miss".equals(target)) path = "/api/v1/resource0/42/unknown/abc1";
+        else throw new IllegalArgumentException("Invalid target: [" + target + "]");
+        request = BenchmarkServlets.request("GET", path, null);
+        response = BenchmarkServlets.response();
+    }
+
+    @Benchmark
+    public void dispatch() {
+        dispatcher.dispatch(request, response);
+    }
+
+    /**
+     * Marker handler
+     */
+    public static class NopHandler implements RestHandler {
+    }
+
+    /**
+     * Transport handler, that only consumes URL parameters
+     */
+    public static class NopTransportHandler implements TransportHandler<NopHandler> {
+        private final Blackhole bh;
+
+        NopTransportHandler(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void handle(Class<? extends NopHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) {
+            bh.consume(urlParams);
+        }
+    }
+
+    /**
+     * Not-found handler, that does not write anything
+     */
+    public static class NopNotFoundHandler implements NotFoundHandler {
+        private final Blackhole bh;
+
+        NopNotFoundHandler(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void handle(HandlersDispatcher dispatcher, HttpServletRequest request, HttpServletResponse response) {
+            bh.consume(request);
+        }
+    }
+}
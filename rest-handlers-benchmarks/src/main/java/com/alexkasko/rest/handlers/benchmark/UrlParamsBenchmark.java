@@ -0,0 +1,130 @@
+package com.alexkasko.rest.handlers.benchmark;
+
+import com.alexkasko.rest.handlers.HandlersDispatcher;
+import com.alexkasko.rest.handlers.RestHandler;
+import com.alexkasko.rest.handlers.TransportHandler;
+import com.alexkasko.rest.handlers.UrlParams;
+import com.alexkasko.rest.handlers.UrlParamsTransportHandler;
+import com.google.code.regexp.NamedMatcher;
+import com.google.code.regexp.NamedPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL parameters extraction: named-regexp {@code namedGroups()} map as a baseline,
+ * dispatching to {@link TransportHandler} that receives parameters map and dispatching to
+ * {@link UrlParamsTransportHandler} that reads parameters from allocation-free view.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlParamsBenchmark {
+    private static final String PATTERN = "^/users/(?<user>\\d+)/orders/(?<order>\\d+)/lines/(?<line>[a-z]+)$";
+    private static final String PATH = "/users/12345/orders/67890/lines/abc";
+
+    private NamedPattern pattern;
+    private HandlersDispatcher mapDispatcher;
+    private HandlersDispatcher viewDispatcher;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup(Blackhole bh) {
+        pattern = NamedPattern.compile(PATTERN);
+        mapDispatcher = HandlersDispatcher.builder()
+                .addGet(PATTERN, new MapTransportHandler(bh), ParamsHandler.class)
+                .build();
+        viewDispatcher = HandlersDispatcher.builder()
+                .addGet(PATTERN, new ViewTransportHandler(bh), ParamsHandler.class)
+                .build();
+        request = BenchmarkServlets.request("GET", PATH, null);
+        response = BenchmarkServlets.response();
+    }
+
+    @Benchmark
+    public Map<String, String> namedGroups() {
+        NamedMatcher matcher = pattern.matcher(PATH);
+        if(!matcher.matches()) throw new IllegalStateException(PATH);
+        return matcher.namedGroups();
+    }
+
+    @Benchmark
+    public void dispatchMap() {
+        mapDispatcher.dispatch(request, response);
+    }
+
+    @Benchmark
+    public void dispatchView() {
+        viewDispatcher.dispatch(request, response);
+    }
+
+    /**
+     * Marker handler
+     */
+    public static class ParamsHandler implements RestHandler {
+    }
+
+    /**
+     * Transport handler, that reads parameters from map
+     */
+    public static class MapTransportHandler implements TransportHandler<ParamsHandler> {
+        private final Blackhole bh;
+
+        MapTransportHandler(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void handle(Class<? extends ParamsHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) {
+            bh.consume(Long.parseLong(urlParams.get("user")));
+            bh.consume(Long.parseLong(urlParams.get("order")));
+            bh.consume(urlParams.get("line"));
+        }
+    }
+
+    /**
+     * Transport handler, that reads parameters from view by position
+     */
+    public static class ViewTransportHandler implements UrlParamsTransportHandler<ParamsHandler> {
+        private final Blackhole bh;
+
+        ViewTransportHandler(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void handle(Class<? extends ParamsHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, UrlParams urlParams) {
+            bh.consume(urlParams.getLong(0));
+            bh.consume(urlParams.getLong(1));
+            bh.consume(urlParams.valueEquals(2, "abc"));
+        }
+
+        @Override
+        public void handle(Class<? extends ParamsHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) {
+            handle(handlerClass, request, response, UrlParams.of(urlParams));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.RestHandler;
+
+import java.util.List;
+
+/**
+ * Application handler, that processes inputs of concurrent requests to its route together,
+ * e.g. loads many entities with single query instead of query for each request.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see BatchingJsonTransportHandler
+ */
+public interface BatchingJsonHandler<I, O> extends RestHandler {
+
+    /**
+     * App specific processing of inputs of concurrent requests
+     *
+     * @param inputs input objects parsed from json, list must not be modified
+     * @return output objects in the order of inputs, list size must be the same as inputs size
+     */
+    List<O> handleBatch(List<I> inputs);
+
+    /**
+     * Returns input object class
+     *
+     * @return input object class
+     */
+    Class<I> inputClass();
+}
@@ -0,0 +1,214 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BatchLoader;
+import com.alexkasko.rest.handlers.BufferPool;
+import com.alexkasko.rest.handlers.HandlerProvider;
+import com.alexkasko.rest.handlers.HandlersMappingEntry;
+import com.alexkasko.rest.handlers.MicroBatchStats;
+import com.alexkasko.rest.handlers.MicroBatcher;
+import com.alexkasko.rest.handlers.NewInstanceHandlerProvider;
+import com.alexkasko.rest.handlers.RegistrationAware;
+import com.alexkasko.rest.handlers.RequestPhase;
+import com.alexkasko.rest.handlers.RequestTrace;
+import com.alexkasko.rest.handlers.UrlParams;
+import com.alexkasko.rest.handlers.UrlParamsTransportHandler;
+import com.google.gson.Gson;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TransportHandler implementation for {@link BatchingJsonHandler}s, collects input objects of concurrent
+ * requests to the same route with {@link MicroBatcher} and gives them to single
+ * {@link BatchingJsonHandler#handleBatch(java.util.List)} call, each output object is written to response
+ * of its request. Batch is started when it reaches max size or when max delay has passed since its first request.
+ * Input object is parsed from request body, for requests without body (e.g. {@code GET /items/(?<id>\d+)})
+ * it is built from named URL parameters. Input and output objects are read and written the same way
+ * as in {@link JsonTransportHandler}. Requests wait for batch on the thread, that called transport handler,
+ * so it may be used both for blocking and for async routes. Exception thrown by handler is rethrown
+ * for each request of the batch. Decoding, handler call (including wait for batch) and encoding phases
+ * are reported to {@link com.alexkasko.rest.handlers.RequestTracer}.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see #getStats(Class)
+ */
+public class BatchingJsonTransportHandler implements UrlParamsTransportHandler<BatchingJsonHandler>,
+        RegistrationAware {
+    private static final BufferPool DEFAULT_POOL = new BufferPool(16384, 256);
+
+    private final JsonCodec codec;
+    private final HandlerProvider provider;
+    private final int maxBatchSize;
+    private final long maxDelayMicros;
+    private final ConcurrentHashMap<Class<?>, Route> routes = new ConcurrentHashMap<Class<?>, Route>();
+
+    /**
+     * Constructor, uses default {@link Gson}, new handler instance for each request, default pool
+     * of 16KB buffers, batches of up to 100 requests and max delay of 1 millisecond
+     */
+    public BatchingJsonTransportHandler() {
+        this(100, 1000);
+    }
+
+    /**
+     * Constructor, uses default {@link Gson}, new handler instance for each request
+     * and default pool of 16KB buffers
+     *
+     * @param maxBatchSize max number of requests in batch
+     * @param maxDelayMicros max time in microseconds to wait for batch to fill after its first request
+     */
+    public BatchingJsonTransportHandler(int maxBatchSize, long maxDelayMicros) {
+        this(new Gson(), new NewInstanceHandlerProvider(), DEFAULT_POOL, maxBatchSize, maxDelayMicros);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param gson preconfigured gson instance
+     * @param provider handlers instances provider
+     * @param pool pool of I/O buffers
+     * @param maxBatchSize max number of requests in batch
+     * @param maxDelayMicros max time in microseconds to wait for batch to fill after its first request
+     */
+    public BatchingJsonTransportHandler(Gson gson, HandlerProvider provider, BufferPool pool,
+                                        int maxBatchSize, long maxDelayMicros) {
+        if(null == provider) throw new IllegalArgumentException("Provided handler provider is null");
+        if(maxBatchSize <= 0) throw new IllegalArgumentException("Invalid max batch size: [" + maxBatchSize + "]");
+        if(maxDelayMicros < 0) throw new IllegalArgumentException("Invalid max delay: [" + maxDelayMicros + "]");
+        this.codec = new JsonCodec(gson, pool);
+        this.provider = provider;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMicros = maxDelayMicros;
+    }
+
+    /**
+     * Registers handler class in provider, resolves gson adapters for its input and output types
+     *
+     * @param entry registered mapping entry
+     * @throws IllegalArgumentException if handler cannot be instantiated or its types cannot be handled by gson
+     */
+    @Override
+    public void registered(HandlersMappingEntry<?> entry) {
+        provider.register(entry.getRestHandlerClass());
+        route(entry.getRestHandlerClass().asSubclass(BatchingJsonHandler.class));
+    }
+
+    /**
+     * Delegates to {@link #handle(Class, HttpServletRequest, HttpServletResponse, UrlParams)}
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any app exception
+     */
+    @Override
+    public void handle(Class<? extends BatchingJsonHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+        handle(handlerClass, request, response, UrlParams.of(urlParams));
+    }
+
+    /**
+     * Parses input object from request body or URL parameters, adds it to current batch of handler route,
+     * waits for batch results and writes output object to response as JSON
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any app exception
+     */
+    @Override
+    public void handle(Class<? extends BatchingJsonHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, UrlParams urlParams) throws Exception {
+        response.setContentType("application/json; charset=UTF-8");
+        Route route = route(handlerClass);
+        RequestTrace trace = RequestTrace.of(request);
+        trace.begin(RequestPhase.DECODE);
+        Object in = codec.read(request, route.json.getInputAdapter());
+        if(null == in && urlParams.size() > 0) {
+            in = route.json.getInputAdapter().fromJsonTree(codec.getGson().toJsonTree(urlParams.toMap()));
+        }
+        trace.end(RequestPhase.DECODE);
+        trace.begin(RequestPhase.HANDLE);
+        Object out = route.batcher.load(in);
+        trace.end(RequestPhase.HANDLE);
+        trace.begin(RequestPhase.ENCODE);
+        codec.write(response, route.json, out);
+        trace.end(RequestPhase.ENCODE);
+    }
+
+    /**
+     * Returns batch sizes and wait latency statistics of handler route
+     *
+     * @param handlerClass registered application handler class
+     * @return statistics snapshot
+     * @throws IllegalArgumentException if handler class is not registered with this transport handler
+     */
+    public MicroBatchStats getStats(Class<? extends BatchingJsonHandler> handlerClass) {
+        Route route = routes.get(handlerClass);
+        if(null == route) throw new IllegalArgumentException("Handler class: [" + handlerClass + "] is not registered");
+        return route.batcher.getStats();
+    }
+
+    // registered handlers are resolved on dispatcher building
+    private Route route(Class<? extends BatchingJsonHandler> handlerClass) {
+        Route route = routes.get(handlerClass);
+        if(null != route) return route;
+        BatchingJsonHandler ha = provider.acquire(handlerClass);
+        try {
+            route = new Route(JsonRoute.create(codec.getGson(), handlerClass, ha.inputClass(),
+                    BatchingJsonHandler.class), handlerClass);
+        } finally {
+            provider.release(ha);
+        }
+        Route existing = routes.putIfAbsent(handlerClass, route);
+        return null != existing ? existing : route;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("BatchingJsonTransportHandler");
+        sb.append("{maxBatchSize=").append(maxBatchSize);
+        sb.append(", maxDelayMicros=").append(maxDelayMicros);
+        sb.append(", provider=").append(provider);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private class Route implements BatchLoader<Object, Object> {
+        private final JsonRoute json;
+        private final Class<? extends BatchingJsonHandler> handlerClass;
+        private final MicroBatcher<Object, Object> batcher;
+
+        private Route(JsonRoute json, Class<? extends BatchingJsonHandler> handlerClass) {
+            this.json = json;
+            this.handlerClass = handlerClass;
+            this.batcher = new MicroBatcher<Object, Object>(this, maxBatchSize, maxDelayMicros);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Object> load(List<Object> inputs) {
+            BatchingJsonHandler ha = provider.acquire(handlerClass);
+            try {
+                return ha.handleBatch(inputs);
+            } finally {
+                provider.release(ha);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return handlerClass.getName();
+        }
+    }
+}
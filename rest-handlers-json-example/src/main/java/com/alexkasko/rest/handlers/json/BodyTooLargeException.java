@@ -0,0 +1,22 @@
+package com.alexkasko.rest.handlers.json;
+
+import java.io.IOException;
+
+/**
+ * Thrown on reading request body, that exceeds configured size limit
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class BodyTooLargeException extends IOException {
+    private static final long serialVersionUID = 5186436146226383563L;
+
+    /**
+     * Constructor
+     *
+     * @param maxBytes body size limit in bytes
+     */
+    public BodyTooLargeException(long maxBytes) {
+        super("Request body exceeds limit: [" + maxBytes + "] bytes");
+    }
+}
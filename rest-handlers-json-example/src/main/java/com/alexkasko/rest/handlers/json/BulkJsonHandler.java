@@ -0,0 +1,30 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.RestHandler;
+
+/**
+ * Application handler for large inputs, that should not be parsed in memory at once:
+ * input elements are read from request body in batches through {@link JsonBatchSource}
+ * while body is still arriving.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see BulkJsonTransportHandler
+ */
+public interface BulkJsonHandler<E, O> extends RestHandler {
+
+    /**
+     * App specific request processing, should read batches from source until it returns {@code null}
+     *
+     * @param source source of input elements
+     * @return output object
+     */
+    O handle(JsonBatchSource<E> source);
+
+    /**
+     * Returns input element class
+     *
+     * @return input element class
+     */
+    Class<E> elementClass();
+}
@@ -0,0 +1,275 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BufferPool;
+import com.alexkasko.rest.handlers.HandlerProvider;
+import com.alexkasko.rest.handlers.HandlersMappingEntry;
+import com.alexkasko.rest.handlers.NewInstanceHandlerProvider;
+import com.alexkasko.rest.handlers.RegistrationAware;
+import com.alexkasko.rest.handlers.RequestPhase;
+import com.alexkasko.rest.handlers.RequestTrace;
+import com.alexkasko.rest.handlers.UrlParams;
+import com.alexkasko.rest.handlers.UrlParamsTransportHandler;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TransportHandler implementation for {@link BulkJsonHandler}s, reads input elements from request body
+ * in batches while handler processes them. Body must be a JSON array of elements, or newline delimited JSON
+ * if request has {@code application/x-ndjson} content type. Body is decoded through single pooled buffer
+ * and elements are parsed only when handler requests next batch, so memory usage is bounded by batch size and
+ * slow handler slows down reading from client. Requests with declared {@code Content-Length} over the body size limit
+ * are answered with {@code 413} without calling handler, for other requests the limit is checked as bytes
+ * are read and handler result is replaced with {@code 413} response when the limit is exceeded.
+ * Output object is written the same way as in {@link JsonTransportHandler}.
+ * Handler call (including decoding) and encoding phases are reported to
+ * {@link com.alexkasko.rest.handlers.RequestTracer}.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class BulkJsonTransportHandler implements UrlParamsTransportHandler<BulkJsonHandler>, RegistrationAware {
+    private static final BufferPool DEFAULT_POOL = new BufferPool(16384, 256);
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final JsonCodec codec;
+    private final HandlerProvider provider;
+    private final int batchSize;
+    private final long maxBodyBytes;
+    private final ConcurrentHashMap<Class<?>, JsonRoute> routes = new ConcurrentHashMap<Class<?>, JsonRoute>();
+
+    /**
+     * Constructor, uses default {@link Gson}, new handler instance for each request, default pool
+     * of 16KB buffers, batches of 1000 elements and body size limit of 256MB
+     */
+    public BulkJsonTransportHandler() {
+        this(1000, 256L * 1024 * 1024);
+    }
+
+    /**
+     * Constructor, uses default {@link Gson}, new handler instance for each request
+     * and default pool of 16KB buffers
+     *
+     * @param batchSize max number of elements in batch
+     * @param maxBodyBytes request body size limit in bytes
+     */
+    public BulkJsonTransportHandler(int batchSize, long maxBodyBytes) {
+        this(new Gson(), new NewInstanceHandlerProvider(), DEFAULT_POOL, batchSize, maxBodyBytes);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param gson preconfigured gson instance
+     * @param provider handlers instances provider
+     * @param pool pool of I/O buffers
+     * @param batchSize max number of elements in batch
+     * @param maxBodyBytes request body size limit in bytes
+     */
+    public BulkJsonTransportHandler(Gson gson, HandlerProvider provider, BufferPool pool,
+                                    int batchSize, long maxBodyBytes) {
+        if(null == provider) throw new IllegalArgumentException("Provided handler provider is null");
+        if(batchSize <= 0) throw new IllegalArgumentException("Invalid batch size: [" + batchSize + "]");
+        if(maxBodyBytes <= 0) throw new IllegalArgumentException("Invalid max body bytes: [" + maxBodyBytes + "]");
+        this.codec = new JsonCodec(gson, pool);
+        this.provider = provider;
+        this.batchSize = batchSize;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Registers handler class in provider, resolves gson adapters for its element and output types
+     *
+     * @param entry registered mapping entry
+     * @throws IllegalArgumentException if handler cannot be instantiated or its types cannot be handled by gson
+     */
+    @Override
+    public void registered(HandlersMappingEntry<?> entry) {
+        provider.register(entry.getRestHandlerClass());
+        route(entry.getRestHandlerClass().asSubclass(BulkJsonHandler.class));
+    }
+
+    /**
+     * Delegates to {@link #handle(Class, HttpServletRequest, HttpServletResponse, UrlParams)}
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any app exception
+     */
+    @Override
+    public void handle(Class<? extends BulkJsonHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+        handle(handlerClass, request, response, UrlParams.of(urlParams));
+    }
+
+    /**
+     * Gives handler source of input elements, that reads them from request body in batches,
+     * writes handler result to response as JSON
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any app exception
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Class<? extends BulkJsonHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, UrlParams urlParams) throws Exception {
+        response.setContentType("application/json; charset=UTF-8");
+        JsonRoute route = route(handlerClass);
+        if(request.getContentLength() > maxBodyBytes) {
+            tooLarge(request, response);
+            return;
+        }
+        String contentType = request.getContentType();
+        boolean ndjson = null != contentType && contentType.regionMatches(true, 0, NDJSON, 0, NDJSON.length());
+        BulkJsonHandler ha = provider.acquire(handlerClass);
+        RequestTrace trace = RequestTrace.of(request);
+        try {
+            Reader reader = codec.openReader(request, maxBodyBytes);
+            RequestSource source = new RequestSource(reader, route.getInputAdapter(), ndjson);
+            Object out;
+            trace.begin(RequestPhase.HANDLE);
+            try {
+                out = ha.handle(source);
+            } catch(RuntimeException e) {
+                if(!source.overLimit) throw e;
+                out = null;
+            } finally {
+                reader.close();
+            }
+            trace.end(RequestPhase.HANDLE);
+            // handler may have caught exception thrown by source
+            if(source.overLimit) {
+                tooLarge(request, response);
+                return;
+            }
+            trace.begin(RequestPhase.ENCODE);
+            codec.write(response, route, out);
+            trace.end(RequestPhase.ENCODE);
+        } finally {
+            provider.release(ha);
+        }
+    }
+
+    // registered handlers are resolved on dispatcher building
+    private JsonRoute route(Class<? extends BulkJsonHandler> handlerClass) {
+        JsonRoute route = routes.get(handlerClass);
+        if(null != route) return route;
+        BulkJsonHandler ha = provider.acquire(handlerClass);
+        try {
+            route = JsonRoute.create(codec.getGson(), handlerClass, ha.elementClass(), BulkJsonHandler.class);
+        } finally {
+            provider.release(ha);
+        }
+        JsonRoute existing = routes.putIfAbsent(handlerClass, route);
+        return null != existing ? existing : route;
+    }
+
+    private void tooLarge(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        response.setContentType("text/plain");
+        response.getWriter().write("Request body exceeds limit: [" + maxBodyBytes + "] bytes," +
+                " path: '" + request.getPathInfo() + "'\n");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("BulkJsonTransportHandler");
+        sb.append("{batchSize=").append(batchSize);
+        sb.append(", maxBodyBytes=").append(maxBodyBytes);
+        sb.append(", provider=").append(provider);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private class RequestSource implements JsonBatchSource<Object> {
+        private final JsonReader jr;
+        private final TypeAdapter<Object> adapter;
+        private final boolean ndjson;
+        private final List<Object> batch = new ArrayList<Object>();
+        private boolean started = false;
+        private boolean finished = false;
+        private boolean overLimit = false;
+
+        private RequestSource(Reader reader, TypeAdapter<Object> adapter, boolean ndjson) {
+            this.jr = new JsonReader(reader);
+            jr.setLenient(true);
+            this.adapter = adapter;
+            this.ndjson = ndjson;
+        }
+
+        @Override
+        public List<Object> nextBatch() {
+            if(finished) return null;
+            batch.clear();
+            try {
+                if(!started) {
+                    started = true;
+                    if(!start()) return null;
+                }
+                while(batch.size() < batchSize) {
+                    if(!hasNext()) {
+                        finished = true;
+                        break;
+                    }
+                    batch.add(adapter.read(jr));
+                }
+            } catch(BodyTooLargeException e) {
+                finished = true;
+                overLimit = true;
+                throw new JsonIOException(e.getMessage(), e);
+            } catch(EOFException e) {
+                finished = true;
+                throw new JsonSyntaxException(e);
+            } catch(IllegalStateException e) {
+                finished = true;
+                throw new JsonSyntaxException(e);
+            } catch(IOException e) {
+                finished = true;
+                throw new JsonIOException(e);
+            }
+            return batch.isEmpty() ? null : batch;
+        }
+
+        // returns false for empty body
+        private boolean start() throws IOException {
+            try {
+                jr.peek();
+            } catch(EOFException e) {
+                finished = true;
+                return false;
+            }
+            if(!ndjson) jr.beginArray();
+            return true;
+        }
+
+        private boolean hasNext() throws IOException {
+            if(ndjson) return JsonToken.END_DOCUMENT != jr.peek();
+            if(jr.hasNext()) return true;
+            jr.endArray();
+            if(JsonToken.END_DOCUMENT != jr.peek()) throw new JsonIOException("JSON document was not fully consumed.");
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.alexkasko.rest.handlers.json;
+
+import java.util.List;
+
+/**
+ * {@link BulkJsonHandler} example implementation, counts received messages
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class CountHandler implements BulkJsonHandler<InputMessage, OutputMessage> {
+
+    /**
+     * Reads all input messages batch by batch
+     *
+     * @param source source of input messages
+     * @return message with number of received messages
+     */
+    @Override
+    public OutputMessage handle(JsonBatchSource<InputMessage> source) {
+        long count = 0;
+        for(List<InputMessage> batch = source.nextBatch(); null != batch; batch = source.nextBatch()) {
+            count += batch.size();
+        }
+        return new OutputMessage("received: " + count);
+    }
+
+    /**
+     * Returns {@link InputMessage} class to be instantiated by transport handler
+     *
+     * @return {@link InputMessage} class
+     */
+    @Override
+    public Class<InputMessage> elementClass() {
+        return InputMessage.class;
+    }
+}
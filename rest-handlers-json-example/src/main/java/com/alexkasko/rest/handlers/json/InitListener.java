@@ -1,25 +1,38 @@
 package com.alexkasko.rest.handlers.json;
 
 import com.alexkasko.rest.handlers.HandlersDispatcher;
+import com.alexkasko.rest.handlers.RouteOptions;
 
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * User: alexkasko
  * Date: 11/14/12
  */
 public class InitListener implements ServletContextListener {
+    // streaming handler is called from this pool, other handlers are called on request threads
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         HandlersDispatcher dispatcher = HandlersDispatcher.builder()
                 .addPost("^/echo$", new JsonTransportHandler(), EchoHandler.class)
+                .addPost("^/repeat$", new StreamingJsonTransportHandler(JsonStreamFormat.NDJSON), RepeatHandler.class,
+                        RouteOptions.builder().setAsync(true).build())
+                .addPost("^/count$", new BulkJsonTransportHandler(), CountHandler.class)
+                .addGet("^/upper/(?<text>[^/]+)$", new BatchingJsonTransportHandler(), UpperCaseHandler.class)
+                .setExecutor(executor)
+                .setAsyncTimeout(30000)
                 .build();
         sce.getServletContext().setAttribute("dispatcher", dispatcher);
         System.out.println("HandlersDispatcher initialized");
     }
 
     @Override
-    public void contextDestroyed(ServletContextEvent sce) {}
+    public void contextDestroyed(ServletContextEvent sce) {
+        executor.shutdown();
+    }
 }
@@ -0,0 +1,24 @@
+package com.alexkasko.rest.handlers.json;
+
+import java.util.List;
+
+/**
+ * Source of input elements of {@link BulkJsonHandler}, elements are parsed from request body
+ * on demand, so request body is read only as fast as handler processes elements.
+ * Throws {@link com.google.gson.JsonIOException} on I/O errors and on exceeding of body size limit and
+ * {@link com.google.gson.JsonSyntaxException} on malformed input. Not thread-safe,
+ * must be used only during handler call.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public interface JsonBatchSource<E> {
+
+    /**
+     * Reads next batch of elements from request body, returned list is reused for next batch
+     * and must not be retained by handler
+     *
+     * @return list of elements, not empty, or {@code null} if all elements are read
+     */
+    List<E> nextBatch();
+}
@@ -0,0 +1,201 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BufferPool;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Reading and writing of JSON bodies with the same settings as configured {@link Gson} instance,
+ * shared by JSON transport handlers. Instances are immutable and thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+final class JsonCodec {
+    private static final String UTF8 = "UTF-8";
+
+    private final Gson gson;
+    private final BufferPool pool;
+    // gson does not expose its output settings, they are detected once
+    private final boolean nonExecutable;
+    private final boolean prettyPrinting;
+    private final boolean serializeNulls;
+    private final boolean htmlSafe;
+
+    /**
+     * Constructor
+     *
+     * @param gson preconfigured gson instance
+     * @param pool pool of I/O buffers
+     */
+    JsonCodec(Gson gson, BufferPool pool) {
+        if(null == gson) throw new IllegalArgumentException("Provided gson is null");
+        if(null == pool) throw new IllegalArgumentException("Provided buffer pool is null");
+        this.gson = gson;
+        this.pool = pool;
+        JsonObject probe = new JsonObject();
+        probe.add("n", JsonNull.INSTANCE);
+        probe.addProperty("h", "<");
+        String json = gson.toJson(probe);
+        this.nonExecutable = json.startsWith(")]}'");
+        this.prettyPrinting = json.indexOf('\n', nonExecutable ? 5 : 0) >= 0;
+        this.serializeNulls = json.contains("\"n\"");
+        this.htmlSafe = !json.contains("\"<\"");
+    }
+
+    /**
+     * Returns gson instance
+     *
+     * @return gson instance
+     */
+    Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * Returns pool of I/O buffers
+     *
+     * @return buffer pool
+     */
+    BufferPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Opens reader for request body, UTF-8 bodies are decoded from servlet input stream
+     * using pooled buffer, other encodings are left to container
+     *
+     * @param request request
+     * @return body reader, must be closed
+     * @throws IOException on I/O error
+     */
+    Reader openReader(HttpServletRequest request) throws IOException {
+        String enc = request.getCharacterEncoding();
+        return null == enc || UTF8.equalsIgnoreCase(enc) ?
+                new Utf8StreamReader(request.getInputStream(), pool) : request.getReader();
+    }
+
+    /**
+     * Opens reader for request body, that throws {@link BodyTooLargeException} as soon as body
+     * exceeds specified size limit
+     *
+     * @param request request
+     * @param maxBytes body size limit in bytes
+     * @return body reader, must be closed
+     * @throws IOException on I/O error
+     */
+    Reader openReader(HttpServletRequest request, long maxBytes) throws IOException {
+        String enc = request.getCharacterEncoding();
+        InputStream in = new LimitedInputStream(request.getInputStream(), maxBytes);
+        return null == enc || UTF8.equalsIgnoreCase(enc) ?
+                new Utf8StreamReader(in, pool) : new InputStreamReader(in, enc);
+    }
+
+    /**
+     * Reads single object from request body, same semantics as {@link Gson#fromJson(Reader, Class)}
+     *
+     * @param request request
+     * @param adapter adapter of object type
+     * @return object read, {@code null} for empty body
+     * @throws Exception on I/O or syntax error
+     */
+    Object read(HttpServletRequest request, TypeAdapter<Object> adapter) throws Exception {
+        Reader reader = openReader(request);
+        try {
+            JsonReader jr = new JsonReader(reader);
+            jr.setLenient(true);
+            final Object res;
+            try {
+                jr.peek();
+            } catch(EOFException e) {
+                // empty body
+                return null;
+            }
+            try {
+                res = adapter.read(jr);
+            } catch(EOFException e) {
+                throw new JsonSyntaxException(e);
+            } catch(IllegalStateException e) {
+                throw new JsonSyntaxException(e);
+            }
+            if(JsonToken.END_DOCUMENT != jr.peek()) throw new JsonIOException("JSON document was not fully consumed.");
+            return res;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Writes output object to response body, same semantics as {@link Gson#toJson(Object, Appendable)}
+     *
+     * @param response response
+     * @param route adapters of handler types
+     * @param out output object
+     * @throws Exception on I/O error
+     */
+    void write(HttpServletResponse response, JsonRoute route, Object out) throws Exception {
+        Utf8ResponseWriter writer = new Utf8ResponseWriter(response, pool);
+        boolean success = false;
+        try {
+            if(route.isOutputAdapterFor(out)) {
+                route.getOutputAdapter().write(newJsonWriter(writer), out);
+            } else {
+                // subclass of declared output type
+                gson.toJson(out, out.getClass(), newJsonWriter(writer));
+            }
+            writer.close();
+            success = true;
+        } finally {
+            if(!success) writer.discard();
+        }
+    }
+
+    /**
+     * Creates JSON writer with the same settings as {@link Gson#toJson(Object, Appendable)},
+     * writes non-executable prefix if it is enabled
+     *
+     * @param writer target writer
+     * @return JSON writer
+     * @throws IOException on I/O error
+     */
+    JsonWriter newJsonWriter(Writer writer) throws IOException {
+        if(nonExecutable) writer.write(")]}'\n");
+        JsonWriter jw = new JsonWriter(writer);
+        if(prettyPrinting) jw.setIndent("  ");
+        jw.setLenient(true);
+        jw.setSerializeNulls(serializeNulls);
+        jw.setHtmlSafe(htmlSafe);
+        return jw;
+    }
+
+    /**
+     * Creates JSON writer for single-line values: without non-executable prefix and indentation,
+     * other settings are the same as in {@link #newJsonWriter(Writer)}
+     *
+     * @param writer target writer
+     * @return JSON writer
+     */
+    JsonWriter newLineJsonWriter(Writer writer) {
+        JsonWriter jw = new JsonWriter(writer);
+        jw.setLenient(true);
+        jw.setSerializeNulls(serializeNulls);
+        jw.setHtmlSafe(htmlSafe);
+        return jw;
+    }
+}
@@ -0,0 +1,151 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gson adapters for input and output types of {@link JsonHandler} class, resolved once
+ * on handler registration. Output type is taken from handler interface type arguments
+ * declared in handler class hierarchy, not resolved type variables are treated as {@code Object}.
+ * Instances are immutable and thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+final class JsonRoute {
+    private final TypeAdapter<Object> inputAdapter;
+    private final TypeAdapter<Object> outputAdapter;
+    private final Class<?> outputClass;
+    // collections and maps adapters write elements using their runtime types
+    private final boolean outputPolymorphic;
+
+    private JsonRoute(TypeAdapter<Object> inputAdapter, TypeAdapter<Object> outputAdapter, Class<?> outputClass) {
+        this.inputAdapter = inputAdapter;
+        this.outputAdapter = outputAdapter;
+        this.outputClass = outputClass;
+        this.outputPolymorphic = Collection.class.isAssignableFrom(outputClass) ||
+                Map.class.isAssignableFrom(outputClass);
+    }
+
+    /**
+     * Resolves adapters for {@link JsonHandler} input and output types
+     *
+     * @param gson gson instance
+     * @param handlerClass handler class
+     * @param inputClass input class returned by handler instance
+     * @return route adapters
+     * @throws IllegalArgumentException if input or output type cannot be handled by gson
+     */
+    static JsonRoute create(Gson gson, Class<?> handlerClass, Class<?> inputClass) {
+        return create(gson, handlerClass, inputClass, JsonHandler.class);
+    }
+
+    /**
+     * Resolves adapters for handler input and output types, output type is the last type argument
+     * of specified handler interface
+     *
+     * @param gson gson instance
+     * @param handlerClass handler class
+     * @param inputClass input class returned by handler instance
+     * @param handlerInterface handler interface with output type as its last type parameter
+     * @return route adapters
+     * @throws IllegalArgumentException if input or output type cannot be handled by gson
+     */
+    static JsonRoute create(Gson gson, Class<?> handlerClass, Class<?> inputClass, Class<?> handlerInterface) {
+        if(null == inputClass) throw new IllegalArgumentException(
+                "Null input class returned by handler: [" + handlerClass.getName() + "]");
+        Type outputType = outputType(handlerClass, handlerInterface, new HashMap<TypeVariable<?>, Type>());
+        if(null == outputType || outputType instanceof TypeVariable) outputType = Object.class;
+        TypeToken<?> outputToken = TypeToken.get(outputType);
+        return new JsonRoute(adapter(gson, TypeToken.get(inputClass), handlerClass),
+                adapter(gson, outputToken, handlerClass), outputToken.getRawType());
+    }
+
+    /**
+     * Returns adapter for input objects
+     *
+     * @return input adapter
+     */
+    TypeAdapter<Object> getInputAdapter() {
+        return inputAdapter;
+    }
+
+    /**
+     * Returns whether precomputed output adapter may be used for provided output object,
+     * returns false for subclasses of declared output type, they must be written using their runtime type
+     *
+     * @param out output object
+     * @return {@code true} if {@link #getOutputAdapter()} may be used
+     */
+    boolean isOutputAdapterFor(Object out) {
+        if(null == out) return true;
+        Class<?> clazz = out.getClass();
+        return outputClass == clazz || (outputPolymorphic && outputClass.isAssignableFrom(clazz));
+    }
+
+    /**
+     * Returns adapter for declared output type
+     *
+     * @return output adapter
+     */
+    TypeAdapter<Object> getOutputAdapter() {
+        return outputAdapter;
+    }
+
+    /**
+     * Resolves gson adapter for type used by handler
+     *
+     * @param gson gson instance
+     * @param token type token
+     * @param handlerClass handler class, used in error message
+     * @return adapter
+     * @throws IllegalArgumentException if type cannot be handled by gson
+     */
+    @SuppressWarnings("unchecked")
+    static TypeAdapter<Object> adapter(Gson gson, TypeToken<?> token, Class<?> handlerClass) {
+        try {
+            return (TypeAdapter<Object>) gson.getAdapter(token);
+        } catch(RuntimeException e) {
+            throw new IllegalArgumentException("Type: [" + token + "] of handler: [" + handlerClass.getName() + "]" +
+                    " cannot be handled by gson: " + e.getMessage(), e);
+        }
+    }
+
+    // finds handler interface output type argument, resolving type variables on the way from handler class
+    private static Type outputType(Type type, Class<?> iface, Map<TypeVariable<?>, Type> vars) {
+        final Class<?> raw;
+        final Map<TypeVariable<?>, Type> resolved;
+        if(type instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType) type;
+            raw = (Class<?>) pt.getRawType();
+            TypeVariable<?>[] params = raw.getTypeParameters();
+            Type[] args = pt.getActualTypeArguments();
+            resolved = new HashMap<TypeVariable<?>, Type>();
+            for(int i = 0; i < params.length; i++) {
+                Type arg = args[i];
+                resolved.put(params[i], arg instanceof TypeVariable && vars.containsKey(arg) ? vars.get(arg) : arg);
+            }
+            if(iface == raw) return resolved.get(params[params.length - 1]);
+        } else if(type instanceof Class) {
+            raw = (Class<?>) type;
+            // raw handler interface
+            if(iface == raw) return Object.class;
+            resolved = Collections.emptyMap();
+        } else return null;
+        for(Type gi : raw.getGenericInterfaces()) {
+            Type res = outputType(gi, iface, resolved);
+            if(null != res) return res;
+        }
+        Type sup = raw.getGenericSuperclass();
+        return null != sup ? outputType(sup, iface, resolved) : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.alexkasko.rest.handlers.json;
+
+/**
+ * Receiver of output elements of {@link StreamingJsonHandler}, each element is serialized and written
+ * to client as soon as it is received. Not thread-safe, must be used only during handler call.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public interface JsonSink<E> {
+
+    /**
+     * Writes element to client
+     *
+     * @param element output element, may be null
+     * @return {@code true} if element was written, {@code false} if client has disconnected
+     *         and handler should stop producing elements
+     */
+    boolean write(E element);
+
+    /**
+     * Returns whether client is still connected
+     *
+     * @return {@code false} if previous write failed
+     */
+    boolean isOpen();
+}
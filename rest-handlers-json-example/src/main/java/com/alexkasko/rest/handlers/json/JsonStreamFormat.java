@@ -0,0 +1,33 @@
+package com.alexkasko.rest.handlers.json;
+
+/**
+ * Response body formats of {@link StreamingJsonTransportHandler}
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public enum JsonStreamFormat {
+    /**
+     * Single JSON array, elements are written as array items
+     */
+    JSON_ARRAY("application/json; charset=UTF-8"),
+    /**
+     * Newline delimited JSON, each element is written on separate line
+     */
+    NDJSON("application/x-ndjson; charset=UTF-8");
+
+    private final String contentType;
+
+    JsonStreamFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Returns response content type
+     *
+     * @return content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -1,24 +1,101 @@
 package com.alexkasko.rest.handlers.json;
 
-import com.alexkasko.rest.handlers.TransportHandler;
+import com.alexkasko.rest.handlers.BufferPool;
+import com.alexkasko.rest.handlers.HandlerProvider;
+import com.alexkasko.rest.handlers.HandlersMappingEntry;
+import com.alexkasko.rest.handlers.NewInstanceHandlerProvider;
+import com.alexkasko.rest.handlers.RegistrationAware;
+import com.alexkasko.rest.handlers.RequestPhase;
+import com.alexkasko.rest.handlers.RequestTrace;
+import com.alexkasko.rest.handlers.UrlParams;
+import com.alexkasko.rest.handlers.UrlParamsTransportHandler;
 import com.google.gson.Gson;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * TransportHandler implementation for JSON requests and responses
+ * TransportHandler implementation for JSON requests and responses.
+ * Handler instances are obtained from {@link HandlerProvider}, handler classes are
+ * registered in provider on dispatcher building. Request and response bodies are decoded and encoded
+ * as UTF-8 directly from/to servlet byte streams using pooled buffers. Responses, that fit into single
+ * buffer, are sent with {@code Content-Length}, larger ones are streamed as they are serialized.
+ * Gson adapters for input and output types of each handler are resolved on registration,
+ * so unsupported types are reported on dispatcher building and no adapter lookups are done on requests.
+ * Decoding, handler call and encoding phases are reported to {@link com.alexkasko.rest.handlers.RequestTracer},
+ * if it is set in dispatcher.
  *
  * @author alexkasko
  * Date: 11/14/12
  */
-public class JsonTransportHandler implements TransportHandler<JsonHandler> {
-    // may be preconfigured
-    private static final Gson gson = new Gson();
+public class JsonTransportHandler implements UrlParamsTransportHandler<JsonHandler>, RegistrationAware {
+    private static final BufferPool DEFAULT_POOL = new BufferPool(16384, 256);
+
+    private final JsonCodec codec;
+    private final HandlerProvider provider;
+    private final ConcurrentHashMap<Class<?>, JsonRoute> routes = new ConcurrentHashMap<Class<?>, JsonRoute>();
+
+    /**
+     * Constructor, uses default {@link Gson}, new handler instance for each request
+     * and default pool of 16KB buffers
+     */
+    public JsonTransportHandler() {
+        this(new NewInstanceHandlerProvider());
+    }
+
+    /**
+     * Constructor, uses default {@link Gson} and default pool of 16KB buffers
+     *
+     * @param provider handlers instances provider
+     */
+    public JsonTransportHandler(HandlerProvider provider) {
+        this(new Gson(), provider, DEFAULT_POOL);
+    }
 
     /**
-     * Instantiate handler class, got input class form it, parses input object from request,
+     * Constructor
+     *
+     * @param gson preconfigured gson instance
+     * @param provider handlers instances provider
+     * @param pool pool of I/O buffers, its buffer size is max size of response sent with {@code Content-Length}
+     */
+    public JsonTransportHandler(Gson gson, HandlerProvider provider, BufferPool pool) {
+        if(null == provider) throw new IllegalArgumentException("Provided handler provider is null");
+        this.codec = new JsonCodec(gson, pool);
+        this.provider = provider;
+    }
+
+    /**
+     * Registers handler class in provider, resolves gson adapters for its input and output types
+     *
+     * @param entry registered mapping entry
+     * @throws IllegalArgumentException if handler cannot be instantiated or its types cannot be handled by gson
+     */
+    @Override
+    public void registered(HandlersMappingEntry<?> entry) {
+        provider.register(entry.getRestHandlerClass());
+        route(entry.getRestHandlerClass().asSubclass(JsonHandler.class));
+    }
+
+    /**
+     * Delegates to {@link #handle(Class, HttpServletRequest, HttpServletResponse, UrlParams)}
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any app exception
+     */
+    @Override
+    public void handle(Class<? extends JsonHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+        handle(handlerClass, request, response, UrlParams.of(urlParams));
+    }
+
+    /**
+     * Obtains handler instance from provider, got input class form it, parses input object from request,
      * gives it to handlers, writes results to response as JSON
      *
      * @param handlerClass application handler class
@@ -30,16 +107,43 @@ public class JsonTransportHandler implements TransportHandler<JsonHandler> {
     @Override
     @SuppressWarnings("unchecked")
     public void handle(Class<? extends JsonHandler> handlerClass, HttpServletRequest request,
-                       HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+                       HttpServletResponse response, UrlParams urlParams) throws Exception {
         // set proper content-type
-        response.setContentType("application/json");
-        // obtain handler instance, may be singleton, from DI etc
-        JsonHandler ha = handlerClass.newInstance();
-        // parse input object from request body
-        Object in = gson.fromJson(request.getReader(), ha.inputClass());
-        // fire handler
-        Object out = ha.handle(in);
-        // write results to client
-        gson.toJson(out, response.getWriter());
+        response.setContentType("application/json; charset=UTF-8");
+        // obtain handler instance, may be singleton, pooled etc
+        JsonRoute route = route(handlerClass);
+        JsonHandler ha = provider.acquire(handlerClass);
+        // no-op if tracing is not enabled in dispatcher
+        RequestTrace trace = RequestTrace.of(request);
+        try {
+            // parse input object from request body
+            trace.begin(RequestPhase.DECODE);
+            Object in = codec.read(request, route.getInputAdapter());
+            trace.end(RequestPhase.DECODE);
+            // fire handler
+            trace.begin(RequestPhase.HANDLE);
+            Object out = ha.handle(in);
+            trace.end(RequestPhase.HANDLE);
+            // write results to client
+            trace.begin(RequestPhase.ENCODE);
+            codec.write(response, route, out);
+            trace.end(RequestPhase.ENCODE);
+        } finally {
+            provider.release(ha);
+        }
+    }
+
+    // registered handlers are resolved on dispatcher building
+    private JsonRoute route(Class<? extends JsonHandler> handlerClass) {
+        JsonRoute route = routes.get(handlerClass);
+        if(null != route) return route;
+        JsonHandler ha = provider.acquire(handlerClass);
+        try {
+            route = JsonRoute.create(codec.getGson(), handlerClass, ha.inputClass());
+        } finally {
+            provider.release(ha);
+        }
+        JsonRoute existing = routes.putIfAbsent(handlerClass, route);
+        return null != existing ? existing : route;
     }
 }
@@ -0,0 +1,72 @@
+package com.alexkasko.rest.handlers.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream wrapper, that throws {@link BodyTooLargeException} as soon as more than
+ * specified number of bytes is read, does not read more than one byte over the limit
+ * from underlying stream. Does not close underlying stream. Not thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class LimitedInputStream extends InputStream {
+    private final InputStream in;
+    private final long maxBytes;
+    private long count = 0;
+
+    /**
+     * Constructor
+     *
+     * @param in input stream
+     * @param maxBytes max number of bytes, that may be read
+     */
+    LimitedInputStream(InputStream in, long maxBytes) {
+        this.in = in;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        int res = in.read();
+        if(-1 != res) count(1);
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        // read at most one byte over the limit to detect it
+        int allowed = (int) Math.min(len, maxBytes - count + 1);
+        int res = in.read(b, off, allowed);
+        if(res > 0) count(res);
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+
+    /**
+     * Does nothing, underlying stream is left open
+     */
+    @Override
+    public void close() {
+        // no-op
+    }
+
+    private void count(int read) throws BodyTooLargeException {
+        count += read;
+        if(count > maxBytes) throw new BodyTooLargeException(maxBytes);
+    }
+}
@@ -0,0 +1,44 @@
+package com.alexkasko.rest.handlers.json;
+
+/**
+ * {@link StreamingJsonHandler} example implementation, streams input message back many times
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class RepeatHandler implements StreamingJsonHandler<InputMessage, OutputMessage> {
+    private static final int COUNT = 100000;
+
+    /**
+     * Writes input message to sink until count is reached or client disconnects
+     *
+     * @param input input object parsed from json
+     * @param sink receiver of output messages
+     */
+    @Override
+    public void handle(InputMessage input, JsonSink<OutputMessage> sink) {
+        for(int i = 0; i < COUNT; i++) {
+            if(!sink.write(new OutputMessage(input.getText() + " " + i))) return;
+        }
+    }
+
+    /**
+     * Returns {@link InputMessage} class to be instantiated by transport handler
+     *
+     * @return {@link InputMessage} class
+     */
+    @Override
+    public Class<InputMessage> inputClass() {
+        return InputMessage.class;
+    }
+
+    /**
+     * Returns {@link OutputMessage} class
+     *
+     * @return {@link OutputMessage} class
+     */
+    @Override
+    public Class<OutputMessage> elementClass() {
+        return OutputMessage.class;
+    }
+}
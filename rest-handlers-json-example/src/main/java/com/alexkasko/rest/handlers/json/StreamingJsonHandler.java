@@ -0,0 +1,36 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.RestHandler;
+
+/**
+ * Application handler for large results, that should not be built in memory:
+ * output elements are given to {@link JsonSink} one by one and written to client immediately.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see StreamingJsonTransportHandler
+ */
+public interface StreamingJsonHandler<I, E> extends RestHandler {
+
+    /**
+     * App specific request processing, should stop producing elements when sink returns {@code false}
+     *
+     * @param input input object parsed from json
+     * @param sink receiver of output elements
+     */
+    void handle(I input, JsonSink<E> sink);
+
+    /**
+     * Returns input object class
+     *
+     * @return input object class
+     */
+    Class<I> inputClass();
+
+    /**
+     * Returns output element class
+     *
+     * @return output element class
+     */
+    Class<E> elementClass();
+}
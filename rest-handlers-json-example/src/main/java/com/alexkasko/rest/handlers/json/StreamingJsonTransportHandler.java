@@ -0,0 +1,256 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BufferPool;
+import com.alexkasko.rest.handlers.HandlerProvider;
+import com.alexkasko.rest.handlers.HandlersMappingEntry;
+import com.alexkasko.rest.handlers.NewInstanceHandlerProvider;
+import com.alexkasko.rest.handlers.RegistrationAware;
+import com.alexkasko.rest.handlers.RequestPhase;
+import com.alexkasko.rest.handlers.RequestTrace;
+import com.alexkasko.rest.handlers.UrlParams;
+import com.alexkasko.rest.handlers.UrlParamsTransportHandler;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransportHandler implementation for {@link StreamingJsonHandler}s, writes output elements
+ * as JSON array or as newline delimited JSON while handler produces them. Elements are serialized
+ * one by one into single pooled buffer, that is sent to client when it is full, buffered bytes are also
+ * flushed to client on element write, if flush interval has passed since previous flush, so elements
+ * of slow producers are not held in buffer until it is full. Heap usage does not depend on the number
+ * of elements. Results, that are produced within flush interval and fit into buffer, are sent with
+ * {@code Content-Length}.
+ * When write to client fails (client disconnected), sink returns {@code false} to handler
+ * and I/O exception is rethrown after handler returns.
+ * Input object is read from request body the same way as in {@link JsonTransportHandler}.
+ * Decoding and handler call phases are reported to {@link com.alexkasko.rest.handlers.RequestTracer},
+ * handler call phase includes encoding of elements, encoding phase covers writing of buffered remainder.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class StreamingJsonTransportHandler implements UrlParamsTransportHandler<StreamingJsonHandler>, RegistrationAware {
+    private static final BufferPool DEFAULT_POOL = new BufferPool(16384, 256);
+
+    private final JsonCodec codec;
+    private final HandlerProvider provider;
+    private final JsonStreamFormat format;
+    private final long flushIntervalNanos;
+    private final ConcurrentHashMap<Class<?>, Route> routes = new ConcurrentHashMap<Class<?>, Route>();
+
+    /**
+     * Constructor, writes JSON arrays, uses default {@link Gson}, new handler instance for each request,
+     * default pool of 16KB buffers and flush interval of 200 milliseconds
+     */
+    public StreamingJsonTransportHandler() {
+        this(JsonStreamFormat.JSON_ARRAY);
+    }
+
+    /**
+     * Constructor, uses default {@link Gson}, new handler instance for each request,
+     * default pool of 16KB buffers and flush interval of 200 milliseconds
+     *
+     * @param format response body format
+     */
+    public StreamingJsonTransportHandler(JsonStreamFormat format) {
+        this(new Gson(), new NewInstanceHandlerProvider(), DEFAULT_POOL, format, 200);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param gson preconfigured gson instance, pretty printing and non-executable prefix are not used for
+     *             {@link JsonStreamFormat#NDJSON}
+     * @param provider handlers instances provider
+     * @param pool pool of I/O buffers, its buffer size is max size of data kept in memory for single response
+     * @param format response body format
+     * @param flushIntervalMillis max time buffered elements are kept before sending them to client, in milliseconds
+     */
+    public StreamingJsonTransportHandler(Gson gson, HandlerProvider provider, BufferPool pool,
+                                         JsonStreamFormat format, long flushIntervalMillis) {
+        if(null == provider) throw new IllegalArgumentException("Provided handler provider is null");
+        if(null == format) throw new IllegalArgumentException("Provided format is null");
+        if(flushIntervalMillis <= 0) throw new IllegalArgumentException(
+                "Invalid flush interval: [" + flushIntervalMillis + "]");
+        this.codec = new JsonCodec(gson, pool);
+        this.provider = provider;
+        this.format = format;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    }
+
+    /**
+     * Registers handler class in provider, resolves gson adapters for its input and element types
+     *
+     * @param entry registered mapping entry
+     * @throws IllegalArgumentException if handler cannot be instantiated or its types cannot be handled by gson
+     */
+    @Override
+    public void registered(HandlersMappingEntry<?> entry) {
+        provider.register(entry.getRestHandlerClass());
+        route(entry.getRestHandlerClass().asSubclass(StreamingJsonHandler.class));
+    }
+
+    /**
+     * Delegates to {@link #handle(Class, HttpServletRequest, HttpServletResponse, UrlParams)}
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any app exception
+     */
+    @Override
+    public void handle(Class<? extends StreamingJsonHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+        handle(handlerClass, request, response, UrlParams.of(urlParams));
+    }
+
+    /**
+     * Parses input object from request, gives it to handler with sink, that writes
+     * output elements to response
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any app exception, or on I/O exception, if client has disconnected
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Class<? extends StreamingJsonHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, UrlParams urlParams) throws Exception {
+        response.setContentType(format.getContentType());
+        Route route = route(handlerClass);
+        StreamingJsonHandler ha = provider.acquire(handlerClass);
+        RequestTrace trace = RequestTrace.of(request);
+        try {
+            trace.begin(RequestPhase.DECODE);
+            Object in = codec.read(request, route.inputAdapter);
+            trace.end(RequestPhase.DECODE);
+            Utf8ResponseWriter writer = new Utf8ResponseWriter(response, codec.getPool());
+            boolean success = false;
+            try {
+                ResponseSink sink = new ResponseSink(writer, route);
+                trace.begin(RequestPhase.HANDLE);
+                ha.handle(in, sink);
+                trace.end(RequestPhase.HANDLE);
+                trace.begin(RequestPhase.ENCODE);
+                sink.finish();
+                writer.close();
+                trace.end(RequestPhase.ENCODE);
+                success = true;
+            } finally {
+                if(!success) writer.discard();
+            }
+        } finally {
+            provider.release(ha);
+        }
+    }
+
+    // registered handlers are resolved on dispatcher building
+    private Route route(Class<? extends StreamingJsonHandler> handlerClass) {
+        Route route = routes.get(handlerClass);
+        if(null != route) return route;
+        StreamingJsonHandler ha = provider.acquire(handlerClass);
+        try {
+            route = new Route(codec.getGson(), handlerClass, ha.inputClass(), ha.elementClass());
+        } finally {
+            provider.release(ha);
+        }
+        Route existing = routes.putIfAbsent(handlerClass, route);
+        return null != existing ? existing : route;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("StreamingJsonTransportHandler");
+        sb.append("{format=").append(format);
+        sb.append(", flushIntervalMillis=").append(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos));
+        sb.append(", provider=").append(provider);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static final class Route {
+        private final TypeAdapter<Object> inputAdapter;
+        private final TypeAdapter<Object> elementAdapter;
+        private final Class<?> elementClass;
+
+        private Route(Gson gson, Class<?> handlerClass, Class<?> inputClass, Class<?> elementClass) {
+            if(null == inputClass) throw new IllegalArgumentException(
+                    "Null input class returned by handler: [" + handlerClass.getName() + "]");
+            if(null == elementClass) throw new IllegalArgumentException(
+                    "Null element class returned by handler: [" + handlerClass.getName() + "]");
+            this.inputAdapter = JsonRoute.adapter(gson, TypeToken.get(inputClass), handlerClass);
+            this.elementAdapter = JsonRoute.adapter(gson, TypeToken.get(elementClass), handlerClass);
+            this.elementClass = elementClass;
+        }
+    }
+
+    private class ResponseSink implements JsonSink<Object> {
+        private final Utf8ResponseWriter writer;
+        private final Route route;
+        private final JsonWriter jw;
+        private long lastFlush = System.nanoTime();
+        private IOException failure;
+
+        private ResponseSink(Utf8ResponseWriter writer, Route route) throws IOException {
+            this.writer = writer;
+            this.route = route;
+            if(JsonStreamFormat.NDJSON == format) {
+                // lenient writer accepts many top-level values, lines are separated by sink
+                this.jw = codec.newLineJsonWriter(writer);
+            } else {
+                this.jw = codec.newJsonWriter(writer);
+                jw.beginArray();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean write(Object element) {
+            if(null != failure) return false;
+            try {
+                if(null == element || route.elementClass == element.getClass()) {
+                    route.elementAdapter.write(jw, element);
+                } else {
+                    // subclass of declared element type
+                    ((TypeAdapter<Object>) codec.getGson().getAdapter(element.getClass())).write(jw, element);
+                }
+                if(JsonStreamFormat.NDJSON == format) writer.write('\n');
+                long now = System.nanoTime();
+                if(now - lastFlush >= flushIntervalNanos) {
+                    writer.flushToClient();
+                    lastFlush = now;
+                }
+                return true;
+            } catch(IOException e) {
+                failure = e;
+                return false;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return null == failure;
+        }
+
+        private void finish() throws IOException {
+            if(null != failure) throw failure;
+            if(JsonStreamFormat.JSON_ARRAY == format) jw.endArray();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.alexkasko.rest.handlers.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link BatchingJsonHandler} example implementation, converts texts of concurrent requests to upper case
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class UpperCaseHandler implements BatchingJsonHandler<InputMessage, OutputMessage> {
+
+    /**
+     * Converts all texts in one pass
+     *
+     * @param inputs input messages of concurrent requests
+     * @return messages with upper case texts
+     */
+    @Override
+    public List<OutputMessage> handleBatch(List<InputMessage> inputs) {
+        List<OutputMessage> res = new ArrayList<OutputMessage>(inputs.size());
+        for(InputMessage in : inputs) {
+            String text = null != in ? in.getText() : null;
+            res.add(new OutputMessage(null != text ? text.toUpperCase(Locale.ENGLISH) : null));
+        }
+        return res;
+    }
+
+    /**
+     * Returns {@link InputMessage} class to be instantiated by transport handler
+     *
+     * @return {@link InputMessage} class
+     */
+    @Override
+    public Class<InputMessage> inputClass() {
+        return InputMessage.class;
+    }
+}
@@ -0,0 +1,195 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BufferPool;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writer, that encodes chars into UTF-8 bytes using pooled byte buffer and writes them
+ * directly to response output stream. If the whole body fits into buffer, it is written on
+ * {@link #close()} with {@code Content-Length} header set, otherwise buffer contents are streamed
+ * to client each time buffer is full. Unpaired surrogates are written as {@code ?}.
+ * Returns buffer to pool on close, does not close response stream. Not thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class Utf8ResponseWriter extends Writer {
+    private final HttpServletResponse response;
+    private final BufferPool pool;
+    private byte[] buf;
+    private int count = 0;
+    private OutputStream out;
+    // first half of surrogate pair, that was written by previous call
+    private char pendingHigh = 0;
+
+    /**
+     * Constructor
+     *
+     * @param response response to write body to
+     * @param pool buffer pool
+     */
+    Utf8ResponseWriter(HttpServletResponse response, BufferPool pool) {
+        this.response = response;
+        this.pool = pool;
+        this.buf = pool.acquire();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        encode((char) c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        for(int i = off; i < off + len; i++) {
+            char ch = cbuf[i];
+            // ascii fast path
+            if(ch < 0x80 && 0 == pendingHigh && count < buf.length) buf[count++] = (byte) ch;
+            else encode(ch);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        for(int i = off; i < off + len; i++) {
+            char ch = str.charAt(i);
+            if(ch < 0x80 && 0 == pendingHigh && count < buf.length) buf[count++] = (byte) ch;
+            else encode(ch);
+        }
+    }
+
+    /**
+     * Does nothing while the whole body is still in buffer, otherwise writes buffered
+     * bytes to client and flushes response stream
+     *
+     * @throws IOException on I/O error
+     */
+    @Override
+    public void flush() throws IOException {
+        if(null != out) {
+            writeBuffer();
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes buffered bytes and flushes response stream, body is streamed after this call
+     *
+     * @throws IOException on I/O error
+     */
+    void flushToClient() throws IOException {
+        ensureOpen();
+        if(null == out) out = response.getOutputStream();
+        flush();
+    }
+
+    /**
+     * Writes remaining bytes to client, sets {@code Content-Length} if body was not streamed,
+     * returns buffer to pool
+     *
+     * @throws IOException on I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        if(null == buf) return;
+        try {
+            if(0 != pendingHigh) {
+                pendingHigh = 0;
+                put((byte) '?');
+            }
+            if(null == out) {
+                response.setContentLength(count);
+                out = response.getOutputStream();
+            }
+            writeBuffer();
+        } finally {
+            pool.release(buf);
+            buf = null;
+        }
+    }
+
+    /**
+     * Returns buffer to pool without writing remaining bytes, used on errors
+     */
+    void discard() {
+        if(null != buf) {
+            pool.release(buf);
+            buf = null;
+        }
+    }
+
+    /**
+     * Returns whether body was already partially sent to client
+     *
+     * @return {@code true} if body is streamed
+     */
+    boolean isStreaming() {
+        return null != out;
+    }
+
+    private void encode(char ch) throws IOException {
+        if(0 != pendingHigh) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if(Character.isLowSurrogate(ch)) {
+                int cp = Character.toCodePoint(high, ch);
+                put((byte) (0xf0 | (cp >> 18)));
+                put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                put((byte) (0x80 | (cp & 0x3f)));
+                return;
+            }
+            put((byte) '?');
+        }
+        if(ch < 0x80) {
+            put((byte) ch);
+        } else if(ch < 0x800) {
+            put((byte) (0xc0 | (ch >> 6)));
+            put((byte) (0x80 | (ch & 0x3f)));
+        } else if(Character.isHighSurrogate(ch)) {
+            pendingHigh = ch;
+        } else if(Character.isLowSurrogate(ch)) {
+            put((byte) '?');
+        } else {
+            put((byte) (0xe0 | (ch >> 12)));
+            put((byte) (0x80 | ((ch >> 6) & 0x3f)));
+            put((byte) (0x80 | (ch & 0x3f)));
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if(count == buf.length) {
+            // body does not fit into buffer, switch to streaming
+            if(null == out) out = response.getOutputStream();
+            writeBuffer();
+        }
+        buf[count++] = b;
+    }
+
+    private void writeBuffer() throws IOException {
+        if(count > 0) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if(null == buf) throw new IOException("Writer closed");
+    }
+}
@@ -0,0 +1,144 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Reader, that decodes UTF-8 bytes from input stream using pooled byte buffer.
+ * Malformed input is replaced with {@code U+FFFD}. Returns buffer to pool on close,
+ * does not close underlying stream. Not thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class Utf8StreamReader extends Reader {
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final InputStream in;
+    private final BufferPool pool;
+    private byte[] buf;
+    private int pos = 0;
+    private int limit = 0;
+    private boolean eof = false;
+    // second half of surrogate pair, that did not fit into previous read
+    private char pendingLow = 0;
+
+    /**
+     * Constructor
+     *
+     * @param in input stream
+     * @param pool buffer pool
+     */
+    Utf8StreamReader(InputStream in, BufferPool pool) {
+        this.in = in;
+        this.pool = pool;
+        this.buf = pool.acquire();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if(null == buf) throw new IOException("Reader closed");
+        if(0 == len) return 0;
+        int n = 0;
+        if(0 != pendingLow) {
+            cbuf[off] = pendingLow;
+            pendingLow = 0;
+            n = 1;
+        }
+        while(n < len) {
+            if(pos == limit) {
+                // do not block if some chars are ready
+                if(n > 0 || !fill()) break;
+            }
+            int b = buf[pos] & 0xff;
+            if(b < 0x80) {
+                cbuf[off + n++] = (char) b;
+                pos += 1;
+                continue;
+            }
+            final int need;
+            if(b >= 0xc2 && b <= 0xdf) need = 1;
+            else if(b >= 0xe0 && b <= 0xef) need = 2;
+            else if(b >= 0xf0 && b <= 0xf4) need = 3;
+            else {
+                cbuf[off + n++] = REPLACEMENT;
+                pos += 1;
+                continue;
+            }
+            if(limit - pos <= need) {
+                if(n > 0) break;
+                if(!fill()) {
+                    // truncated sequence at the end of input
+                    cbuf[off + n++] = REPLACEMENT;
+                    pos += 1;
+                }
+                continue;
+            }
+            int cp = decode(b, need);
+            if(cp < 0) {
+                cbuf[off + n++] = REPLACEMENT;
+                pos += 1;
+                continue;
+            }
+            pos += need + 1;
+            if(cp < 0x10000) {
+                cbuf[off + n++] = (char) cp;
+            } else {
+                int supp = cp - 0x10000;
+                cbuf[off + n++] = (char) ((supp >>> 10) + 0xd800);
+                char low = (char) ((supp & 0x3ff) + 0xdc00);
+                if(n < len) cbuf[off + n++] = low;
+                else pendingLow = low;
+            }
+        }
+        return 0 == n ? -1 : n;
+    }
+
+    /**
+     * Returns buffer to pool
+     */
+    @Override
+    public void close() {
+        if(null != buf) {
+            pool.release(buf);
+            buf = null;
+        }
+    }
+
+    // returns -1 on malformed sequence
+    private int decode(int b, int need) {
+        int cp = b & (0x3f >> need);
+        for(int i = 1; i <= need; i++) {
+            int cont = buf[pos + i] & 0xff;
+            if(0x80 != (cont & 0xc0)) return -1;
+            cp = (cp << 6) | (cont & 0x3f);
+        }
+        switch(need) {
+            case 1: return cp;
+            case 2: return cp < 0x800 || (cp >= 0xd800 && cp <= 0xdfff) ? -1 : cp;
+            default: return cp < 0x10000 || cp > 0x10ffff ? -1 : cp;
+        }
+    }
+
+    // keeps unread bytes, returns false if no more bytes were read
+    private boolean fill() throws IOException {
+        if(eof) return false;
+        int rem = limit - pos;
+        System.arraycopy(buf, pos, buf, 0, rem);
+        pos = 0;
+        limit = rem;
+        int read = in.read(buf, rem, buf.length - rem);
+        if(read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
@@ -0,0 +1,207 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BufferPool;
+import com.alexkasko.rest.handlers.HandlerProvider;
+import com.alexkasko.rest.handlers.SingletonHandlerProvider;
+import com.alexkasko.rest.handlers.UrlParams;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class BulkJsonTransportHandlerTest {
+    private static final long MAX_BYTES = 1000;
+
+    @Test
+    public void testArray() throws Exception {
+        Fixture fx = new Fixture();
+        MockResponse resp = fx.call(new MockRequest("[{\"text\":\"a\"}, {\"text\":\"b\"}, {\"text\":\"c\"}," +
+                " {\"text\":\"d\"}, {\"text\":\"e\"}]"));
+        assertEquals("Status fail", HttpServletResponse.SC_OK, resp.status);
+        assertEquals("Body fail", "{\"text\":\"received: 5, last: e\"}", resp.bodyString());
+        assertEquals("Batches fail", Arrays.asList(2, 2, 1), fx.handler.batches);
+    }
+
+    @Test
+    public void testNdjson() throws Exception {
+        Fixture fx = new Fixture();
+        MockRequest req = new MockRequest("{\"text\":\"a\"}\n{\"text\":\"b\"}\n{\"text\":\"c\"}\n");
+        req.contentType = "application/x-ndjson; charset=UTF-8";
+        assertEquals("Body fail", "{\"text\":\"received: 3, last: c\"}", fx.call(req).bodyString());
+        assertEquals("Batches fail", Arrays.asList(2, 1), fx.handler.batches);
+        // array is not detected for NDJSON requests
+        MockRequest array = new MockRequest("[{\"text\":\"a\"}]");
+        array.contentType = "application/x-ndjson";
+        try {
+            new Fixture().call(array);
+            fail("Array must not be read as NDJSON");
+        } catch(JsonSyntaxException e) {
+            // expected
+        }
+        // content type without charset is detected case-insensitively
+        MockRequest upper = new MockRequest("{\"text\":\"a\"}");
+        upper.contentType = "Application/X-NDJSON";
+        assertEquals("Body fail", "{\"text\":\"received: 1, last: a\"}", new Fixture().call(upper).bodyString());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        Fixture fx = new Fixture();
+        assertEquals("Body fail", "{\"text\":\"received: 0, last: null\"}", fx.call(new MockRequest("")).bodyString());
+        assertEquals("Batches fail", 0, fx.handler.batches.size());
+        Fixture array = new Fixture();
+        assertEquals("Body fail", "{\"text\":\"received: 0, last: null\"}", array.call(new MockRequest(" [ ] ")).bodyString());
+        MockRequest ndjson = new MockRequest("\n");
+        ndjson.contentType = "application/x-ndjson";
+        assertEquals("Body fail", "{\"text\":\"received: 0, last: null\"}", new Fixture().call(ndjson).bodyString());
+    }
+
+    @Test
+    public void testTrailingGarbage() throws Exception {
+        try {
+            new Fixture().call(new MockRequest("[{\"text\":\"a\"}] {\"text\":\"b\"}"));
+            fail("Trailing value must fail");
+        } catch(JsonIOException e) {
+            assertTrue("Message fail", e.getMessage().contains("not fully consumed"));
+        }
+        try {
+            new Fixture().call(new MockRequest("[{\"text\":\"a\"}, {\"text\":"));
+            fail("Truncated body must fail");
+        } catch(JsonSyntaxException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDeclaredTooLarge() throws Exception {
+        Fixture fx = new Fixture();
+        MockRequest req = new MockRequest("[]");
+        req.contentLength = (int) MAX_BYTES + 1;
+        MockResponse resp = fx.call(req);
+        assertEquals("Status fail", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, resp.status);
+        assertTrue("Body fail", resp.bodyString().contains("exceeds limit: [1000] bytes"));
+        assertEquals("Handler fail", 0, fx.handler.calls);
+        assertEquals("Read fail", 0, req.read);
+    }
+
+    @Test
+    public void testTooLargeWhileReading() throws Exception {
+        // body without declared length is cut as soon as limit is exceeded
+        Fixture fx = new Fixture();
+        MockRequest req = new MockRequest(new Endless());
+        MockResponse resp = fx.call(req);
+        assertEquals("Status fail", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, resp.status);
+        assertEquals("Content type fail", "text/plain", resp.contentType);
+        assertTrue("Body fail", resp.bodyString().startsWith("Request body exceeds limit: [1000] bytes"));
+        assertEquals("Read fail", MAX_BYTES + 1, req.read);
+        assertTrue("Batches fail", fx.handler.batches.size() > 0);
+        // handler, that swallows source exception, gets the same response
+        Fixture swallowing = new Fixture();
+        swallowing.handler.swallow = true;
+        MockResponse swallowed = swallowing.call(new MockRequest(new Endless()));
+        assertEquals("Status fail", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, swallowed.status);
+        assertTrue("Body fail", swallowed.bodyString().startsWith("Request body exceeds limit"));
+    }
+
+    @Test
+    public void testLimitedInputStream() throws Exception {
+        byte[] data = new byte[10];
+        InputStream exact = new LimitedInputStream(new ByteArrayInputStream(data), 10);
+        assertEquals("Read fail", 10, exact.read(new byte[100], 0, 100));
+        assertEquals("Eof fail", -1, exact.read(new byte[100], 0, 100));
+        assertEquals("Eof fail", -1, exact.read());
+        ByteArrayInputStream source = new ByteArrayInputStream(data);
+        InputStream limited = new LimitedInputStream(source, 5);
+        try {
+            limited.read(new byte[100], 0, 100);
+            fail("Limit must be checked");
+        } catch(BodyTooLargeException e) {
+            // expected
+        }
+        // at most one byte over the limit is read from underlying stream
+        assertEquals("Over read fail", 4, source.available());
+        InputStream single = new LimitedInputStream(new ByteArrayInputStream(data), 1);
+        assertEquals("Read fail", 0, single.read());
+        try {
+            single.read();
+            fail("Limit must be checked");
+        } catch(BodyTooLargeException e) {
+            // expected
+        }
+    }
+
+    private static class Fixture {
+        private final HandlerProvider provider = new SingletonHandlerProvider();
+        private final BulkJsonTransportHandler th;
+        private final Counting handler;
+
+        private Fixture() {
+            provider.register(Counting.class);
+            this.handler = provider.acquire(Counting.class);
+            this.th = new BulkJsonTransportHandler(new Gson(), provider, new BufferPool(64, 1), 2, MAX_BYTES);
+        }
+
+        private MockResponse call(MockRequest req) throws Exception {
+            MockResponse resp = new MockResponse();
+            th.handle(Counting.class, req.proxy(), resp.proxy(), UrlParams.empty());
+            return resp;
+        }
+    }
+
+    // array of messages, that never ends
+    private static class Endless extends InputStream {
+        private static final byte[] ELEMENT = "{\"text\":\"x\"},".getBytes();
+        private long pos = -1;
+
+        @Override
+        public int read() {
+            int res = pos < 0 ? '[' : ELEMENT[(int) (pos % ELEMENT.length)];
+            pos += 1;
+            return res;
+        }
+    }
+
+    static class Counting implements BulkJsonHandler<InputMessage, OutputMessage> {
+        private final List<Integer> batches = new ArrayList<Integer>();
+        private int calls = 0;
+        private boolean swallow = false;
+
+        @Override
+        public OutputMessage handle(JsonBatchSource<InputMessage> source) {
+            calls += 1;
+            int count = 0;
+            String last = null;
+            try {
+                for(List<InputMessage> batch = source.nextBatch(); null != batch; batch = source.nextBatch()) {
+                    batches.add(batch.size());
+                    count += batch.size();
+                    last = batch.get(batch.size() - 1).getText();
+                }
+            } catch(JsonIOException e) {
+                if(!swallow) throw e;
+            }
+            return new OutputMessage("received: " + count + ", last: " + last);
+        }
+
+        @Override
+        public Class<InputMessage> elementClass() {
+            return InputMessage.class;
+        }
+    }
+}
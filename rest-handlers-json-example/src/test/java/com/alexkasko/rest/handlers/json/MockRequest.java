@@ -0,0 +1,66 @@
+package com.alexkasko.rest.handlers.json;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+class MockRequest implements InvocationHandler {
+    final InputStream body;
+    String contentType = "application/json";
+    int contentLength = -1;
+    // number of body bytes read by handler
+    int read = 0;
+
+    MockRequest(InputStream body) {
+        this.body = body;
+    }
+
+    MockRequest(String body) throws UnsupportedEncodingException {
+        this(new ByteArrayInputStream(body.getBytes("UTF-8")));
+    }
+
+    HttpServletRequest proxy() {
+        return (HttpServletRequest) Proxy.newProxyInstance(MockRequest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method me, Object[] args) {
+        String name = me.getName();
+        if("getMethod".equals(name)) return "POST";
+        if("getPathInfo".equals(name)) return "/test";
+        if("getContentType".equals(name)) return contentType;
+        if("getContentLength".equals(name)) return contentLength;
+        if("getCharacterEncoding".equals(name)) return "UTF-8";
+        if("getAttribute".equals(name)) return null;
+        if("getInputStream".equals(name)) {
+            return new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    int res = body.read();
+                    if(-1 != res) read += 1;
+                    return res;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int res = body.read(b, off, len);
+                    if(res > 0) read += res;
+                    return res;
+                }
+            };
+        }
+        if("toString".equals(name)) return "POST /test";
+        throw new UnsupportedOperationException(name);
+    }
+}
@@ -0,0 +1,83 @@
+package com.alexkasko.rest.handlers.json;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+class MockResponse implements InvocationHandler {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    int status = HttpServletResponse.SC_OK;
+    int contentLength = -1;
+    String contentType;
+    int flushes = 0;
+    // fails all writes after this number of bytes, negative to never fail
+    int failAfter = -1;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    HttpServletResponse proxy() {
+        return (HttpServletResponse) Proxy.newProxyInstance(MockResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, this);
+    }
+
+    String bodyString() throws UnsupportedEncodingException {
+        if(null != writer) writer.flush();
+        return body.toString("UTF-8");
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method me, Object[] args) throws IOException {
+        String name = me.getName();
+        if("setStatus".equals(name)) status = (Integer) args[0];
+        else if("getStatus".equals(name)) return status;
+        else if("setContentLength".equals(name)) contentLength = (Integer) args[0];
+        else if("setContentType".equals(name)) contentType = (String) args[0];
+        else if("getContentType".equals(name)) return contentType;
+        else if("getCharacterEncoding".equals(name)) return "UTF-8";
+        else if("flushBuffer".equals(name)) flushes += 1;
+        else if("getOutputStream".equals(name)) return stream();
+        else if("getWriter".equals(name)) {
+            if(null == writer) writer = new PrintWriter(new OutputStreamWriter(stream(), "UTF-8"));
+            return writer;
+        } else if("toString".equals(name)) return "MockResponse";
+        else throw new UnsupportedOperationException(name);
+        return null;
+    }
+
+    private ServletOutputStream stream() {
+        if(null == stream) stream = new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                check(1);
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                check(len);
+                body.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                flushes += 1;
+            }
+        };
+        return stream;
+    }
+
+    private void check(int len) throws IOException {
+        if(failAfter >= 0 && body.size() + len > failAfter) throw new IOException("Broken pipe");
+    }
+}
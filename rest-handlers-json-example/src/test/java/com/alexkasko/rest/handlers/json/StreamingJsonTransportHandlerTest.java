@@ -0,0 +1,144 @@
+package com.alexkasko.rest.handlers.json;
+
+import com.alexkasko.rest.handlers.BufferPool;
+import com.alexkasko.rest.handlers.HandlerProvider;
+import com.alexkasko.rest.handlers.SingletonHandlerProvider;
+import com.alexkasko.rest.handlers.UrlParams;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class StreamingJsonTransportHandlerTest {
+
+    @Test
+    public void testArray() throws Exception {
+        MockResponse resp = new MockResponse();
+        call(JsonStreamFormat.JSON_ARRAY, 16384, 10000, "{\"count\": 3}", resp);
+        assertEquals("Content type fail", "application/json; charset=UTF-8", resp.contentType);
+        assertEquals("Body fail", "[{\"text\":\"el 0\"},{\"text\":\"el 1\"},{\"text\":\"el 2\"}]", resp.bodyString());
+        // small result is not streamed
+        assertEquals("Length fail", resp.body.size(), resp.contentLength);
+        assertEquals("Flush fail", 0, resp.flushes);
+        MockResponse empty = new MockResponse();
+        call(JsonStreamFormat.JSON_ARRAY, 16384, 10000, "{\"count\": 0}", empty);
+        assertEquals("Empty fail", "[]", empty.bodyString());
+    }
+
+    @Test
+    public void testNdjson() throws Exception {
+        MockResponse resp = new MockResponse();
+        call(JsonStreamFormat.NDJSON, 16384, 10000, "{\"count\": 3}", resp);
+        assertEquals("Content type fail", "application/x-ndjson; charset=UTF-8", resp.contentType);
+        assertEquals("Body fail", "{\"text\":\"el 0\"}\n{\"text\":\"el 1\"}\n{\"text\":\"el 2\"}\n", resp.bodyString());
+        MockResponse empty = new MockResponse();
+        call(JsonStreamFormat.NDJSON, 16384, 10000, "{\"count\": 0}", empty);
+        assertEquals("Empty fail", "", empty.bodyString());
+        assertEquals("Length fail", 0, empty.contentLength);
+    }
+
+    @Test
+    public void testLarge() throws Exception {
+        // body over buffer size is streamed without content length
+        MockResponse resp = new MockResponse();
+        call(JsonStreamFormat.NDJSON, 64, 10000, "{\"count\": 100}", resp);
+        assertEquals("Length fail", -1, resp.contentLength);
+        String[] lines = resp.bodyString().split("\n");
+        assertEquals("Lines fail", 100, lines.length);
+        assertEquals("Line fail", "{\"text\":\"el 99\"}", lines[99]);
+    }
+
+    @Test
+    public void testFlushInterval() throws Exception {
+        MockResponse resp = new MockResponse();
+        call(JsonStreamFormat.JSON_ARRAY, 16384, 1, "{\"count\": 3, \"sleepMillis\": 20}", resp);
+        // elements of slow producer are sent to client before buffer is full
+        assertTrue("Flush fail", resp.flushes >= 2);
+        assertEquals("Length fail", -1, resp.contentLength);
+        assertEquals("Body fail", "[{\"text\":\"el 0\"},{\"text\":\"el 1\"},{\"text\":\"el 2\"}]", resp.bodyString());
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        MockResponse resp = new MockResponse();
+        resp.failAfter = 0;
+        HandlerProvider provider = new SingletonHandlerProvider();
+        provider.register(Producing.class);
+        Producing ha = provider.acquire(Producing.class);
+        StreamingJsonTransportHandler th = new StreamingJsonTransportHandler(new Gson(), provider,
+                new BufferPool(64, 1), JsonStreamFormat.NDJSON, 10000);
+        try {
+            th.handle(Producing.class, new MockRequest("{\"count\": 1000}").proxy(), resp.proxy(), UrlParams.empty());
+            fail("Write failure must be rethrown");
+        } catch(IOException e) {
+            assertEquals("Exception fail", "Broken pipe", e.getMessage());
+        }
+        // handler is told to stop as soon as write fails
+        assertFalse("Result fail", ha.results.get(ha.results.size() - 1));
+        assertTrue("Stop fail", ha.results.size() < 10);
+        for(int i = 0; i < ha.results.size() - 1; i++) {
+            assertTrue("Result fail", ha.results.get(i));
+        }
+        assertFalse("Open fail", ha.open);
+        assertEquals("Body fail", 0, resp.body.size());
+    }
+
+    private static void call(JsonStreamFormat format, int bufferSize, long flushIntervalMillis, String input,
+                             MockResponse resp) throws Exception {
+        HandlerProvider provider = new SingletonHandlerProvider();
+        provider.register(Producing.class);
+        StreamingJsonTransportHandler th = new StreamingJsonTransportHandler(new Gson(), provider,
+                new BufferPool(bufferSize, 1), format, flushIntervalMillis);
+        th.handle(Producing.class, new MockRequest(input).proxy(), resp.proxy(), UrlParams.empty());
+    }
+
+    static class Params {
+        private int count;
+        private long sleepMillis;
+    }
+
+    static class Producing implements StreamingJsonHandler<Params, OutputMessage> {
+        private final List<Boolean> results = new ArrayList<Boolean>();
+        private boolean open = true;
+
+        @Override
+        public void handle(Params input, JsonSink<OutputMessage> sink) {
+            for(int i = 0; i < input.count; i++) {
+                boolean res = sink.write(new OutputMessage("el " + i));
+                results.add(res);
+                if(!res) break;
+                if(input.sleepMillis > 0) sleep(input.sleepMillis);
+            }
+            open = sink.isOpen();
+        }
+
+        @Override
+        public Class<Params> inputClass() {
+            return Params.class;
+        }
+
+        @Override
+        public Class<OutputMessage> elementClass() {
+            return OutputMessage.class;
+        }
+
+        private static void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.alexkasko.rest.handlers;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class for {@link HandlerProvider}s, resolves handler no-arg constructors once
+ * on registration and keeps per-class state in concurrent map keyed by handler class
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public abstract class AbstractHandlerProvider<S> implements HandlerProvider {
+    private final ConcurrentHashMap<Class<?>, S> registry = new ConcurrentHashMap<Class<?>, S>();
+
+    /**
+     * Creates per-class state, called once for each registered class
+     *
+     * @param constructor accessible no-arg constructor of handler class
+     * @return per-class state
+     * @throws Exception on handler instantiation error
+     */
+    protected abstract S createState(Constructor<? extends RestHandler> constructor) throws Exception;
+
+    /**
+     * Returns handler instance using per-class state
+     *
+     * @param state per-class state
+     * @return handler instance
+     * @throws Exception on handler instantiation error
+     */
+    protected abstract RestHandler acquire(S state) throws Exception;
+
+    /**
+     * Returns handler instance to provider using per-class state
+     *
+     * @param state per-class state
+     * @param handler handler instance
+     */
+    protected abstract void release(S state, RestHandler handler);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void register(Class<? extends RestHandler> handlerClass) {
+        state(handlerClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends RestHandler> T acquire(Class<T> handlerClass) {
+        try {
+            return handlerClass.cast(acquire(state(handlerClass)));
+        } catch(RuntimeException e) {
+            throw e;
+        } catch(Exception e) {
+            throw new IllegalStateException("Cannot obtain instance of handler class: '" + handlerClass.getName() + "'", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(RestHandler handler) {
+        if(null == handler) return;
+        S state = registry.get(handler.getClass());
+        if(null == state) throw new IllegalArgumentException(
+                "Handler class is not registered: '" + handler.getClass().getName() + "'");
+        release(state, handler);
+    }
+
+    private S state(Class<? extends RestHandler> handlerClass) {
+        if(null == handlerClass) throw new IllegalArgumentException("Provided handler class is null");
+        S existing = registry.get(handlerClass);
+        if(null != existing) return existing;
+        if(handlerClass.isInterface() || Modifier.isAbstract(handlerClass.getModifiers())) {
+            throw new IllegalArgumentException("Handler class is not instantiable: '" + handlerClass.getName() + "'");
+        }
+        final S created;
+        try {
+            Constructor<? extends RestHandler> co = handlerClass.getDeclaredConstructor();
+            co.setAccessible(true);
+            created = createState(co);
+        } catch(NoSuchMethodException e) {
+            throw new IllegalArgumentException("No-arg constructor not found for handler class: '" +
+                    handlerClass.getName() + "'", e);
+        } catch(Exception e) {
+            throw new IllegalArgumentException("Cannot instantiate handler class: '" + handlerClass.getName() + "'", e);
+        }
+        S raced = registry.putIfAbsent(handlerClass, created);
+        return null != raced ? raced : created;
+    }
+}
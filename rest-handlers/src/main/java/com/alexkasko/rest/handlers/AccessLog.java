@@ -0,0 +1,331 @@
+package com.alexkasko.rest.handlers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log of dispatched requests, may be set using {@link HandlersDispatcher.Builder#setAccessLog(AccessLog)}.
+ * Request records are put by request threads into preallocated bounded lock-free ring buffer,
+ * background thread drains it and appends lines to file using batched NIO writes, so request threads
+ * never do I/O or block. If buffer is full (file writes cannot keep up), records are dropped and counted.
+ * Each line contains time, method, path, matched route pattern ({@code -} if not found), response status,
+ * response content length and duration in microseconds, separated with spaces. Content length is a value
+ * of {@code Content-Length} header set on response ({@code -} if not set, e.g. for streamed responses),
+ * it is not a number of bytes actually written to client. Writer thread is started on creation,
+ * {@link #close()} writes remaining records and closes the file, records logged concurrently
+ * with closing are either written or counted as dropped.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class AccessLog implements Closeable {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final File file;
+    private final int mask;
+    private final Record[] records;
+    // sequence of each slot: equals to producer position when slot is free, position + 1 when slot is published
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(0);
+    private final StripedCounter dropped = new StripedCounter();
+    private final AtomicLong written = new AtomicLong(0);
+    private final FileChannel channel;
+    private final Thread writer;
+    private volatile boolean running = true;
+    // accessed only from writer thread
+    private long head = 0;
+
+    /**
+     * Constructor, opens file for appending and starts writer thread
+     *
+     * @param file log file, created if not exists
+     * @param capacity max number of records waiting to be written, rounded up to power of two
+     * @throws IllegalArgumentException on invalid capacity or if file cannot be opened
+     */
+    public AccessLog(File file, int capacity) {
+        this(file, capacity, true);
+    }
+
+    /**
+     * Constructor for tests, writer thread may be started later with {@link #startWriter()}
+     *
+     * @param file log file, created if not exists
+     * @param capacity max number of records waiting to be written, rounded up to power of two
+     * @param startWriter whether to start writer thread
+     */
+    AccessLog(File file, int capacity, boolean startWriter) {
+        if(null == file) throw new IllegalArgumentException("Provided file is null");
+        if(capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException(
+                "Invalid capacity: [" + capacity + "]");
+        this.file = file;
+        int size = 1;
+        while(size < capacity) size <<= 1;
+        this.mask = size - 1;
+        this.records = new Record[size];
+        this.sequences = new AtomicLongArray(size);
+        for(int i = 0; i < size; i++) {
+            records[i] = new Record();
+            sequences.set(i, i);
+        }
+        try {
+            this.channel = new FileOutputStream(file, true).getChannel();
+        } catch(IOException e) {
+            throw new IllegalArgumentException("Cannot open access log file: [" + file.getAbsolutePath() + "]", e);
+        }
+        this.writer = new Thread(new Writer(), "AccessLog-" + file.getName());
+        this.writer.setDaemon(true);
+        if(startWriter) startWriter();
+    }
+
+    /**
+     * Starts writer thread
+     */
+    void startWriter() {
+        writer.start();
+    }
+
+    /**
+     * Puts request record into buffer, does not block
+     *
+     * @param method HTTP method
+     * @param path request path
+     * @param pattern matched route pattern, {@code null} if not found
+     * @param status response status
+     * @param contentLength value of response {@code Content-Length} header, negative if not set
+     * @param durationNanos request processing time
+     * @return {@code true} if record was accepted, {@code false} if it was dropped
+     */
+    public boolean log(String method, String path, String pattern, int status, long contentLength, long durationNanos) {
+        if(!running) {
+            dropped.increment();
+            return false;
+        }
+        for(;;) {
+            long pos = tail.get();
+            int idx = (int) (pos & mask);
+            long seq = sequences.get(idx);
+            if(seq == pos) {
+                if(tail.compareAndSet(pos, pos + 1)) {
+                    records[idx].set(method, path, pattern, status, contentLength, durationNanos);
+                    sequences.lazySet(idx, pos + 1);
+                    return true;
+                }
+            } else if(seq < pos) {
+                // slot is not yet written by writer thread, buffer is full or writer thread is stopped
+                dropped.increment();
+                return false;
+            }
+            // otherwise other producer claimed this position, retry
+        }
+    }
+
+    /**
+     * Returns number of records dropped on buffer overflow, on write errors or after closing
+     *
+     * @return dropped records count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns number of records written to file
+     *
+     * @return written records count
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Stops accepting records, writes buffered records, stops writer thread and closes file
+     *
+     * @throws IOException on file closing error
+     */
+    @Override
+    public void close() throws IOException {
+        if(!running) return;
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("AccessLog");
+        sb.append("{file=").append(file);
+        sb.append(", capacity=").append(records.length);
+        sb.append(", written=").append(written.get());
+        sb.append(", dropped=").append(dropped.get());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static class Record {
+        private long timeMillis;
+        private String method;
+        private String path;
+        private String pattern;
+        private int status;
+        private long contentLength;
+        private long durationNanos;
+
+        private void set(String method, String path, String pattern, int status, long contentLength, long durationNanos) {
+            this.timeMillis = System.currentTimeMillis();
+            this.method = method;
+            this.path = path;
+            this.pattern = pattern;
+            this.status = status;
+            this.contentLength = contentLength;
+            this.durationNanos = durationNanos;
+        }
+
+        private void clear() {
+            this.method = null;
+            this.path = null;
+            this.pattern = null;
+        }
+    }
+
+    private class Writer implements Runnable {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private final CharsetEncoder encoder = UTF8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder line = new StringBuilder();
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        private long cachedSecond = -1;
+        private String cachedDate;
+        // records in buffer, that are not written yet
+        private long pending = 0;
+
+        @Override
+        public void run() {
+            long park = MIN_PARK_NANOS;
+            for(;;) {
+                boolean stopping = !running;
+                int drained = drain();
+                if(drained > 0) {
+                    park = MIN_PARK_NANOS;
+                } else {
+                    flush();
+                    // producers may still claim slots after closing, ring is closed only when it is empty,
+                    // moving tail one lap ahead makes all following claims fail as on full buffer
+                    if(stopping && tail.compareAndSet(head, head + records.length)) return;
+                    // backs off while idle, so wake ups are rare without load and buffer is drained often under load
+                    LockSupport.parkNanos(park);
+                    park = Math.min(park * 2, MAX_PARK_NANOS);
+                }
+            }
+        }
+
+        private int drain() {
+            int count = 0;
+            for(;;) {
+                int idx = (int) (head & mask);
+                if(sequences.get(idx) != head + 1) return count;
+                Record rec = records[idx];
+                format(rec);
+                rec.clear();
+                sequences.lazySet(idx, head + records.length);
+                head += 1;
+                count += 1;
+                encode();
+            }
+        }
+
+        private void format(Record rec) {
+            line.setLength(0);
+            long second = rec.timeMillis / 1000;
+            if(second != cachedSecond) {
+                cachedSecond = second;
+                cachedDate = dateFormat.format(new Date(second * 1000));
+            }
+            line.append(cachedDate).append('.');
+            int millis = (int) (rec.timeMillis % 1000);
+            if(millis < 100) line.append('0');
+            if(millis < 10) line.append('0');
+            line.append(millis).append(' ');
+            line.append(rec.method).append(' ');
+            appendEscaped(rec.path);
+            line.append(' ');
+            if(null != rec.pattern) appendEscaped(rec.pattern);
+            else line.append('-');
+            line.append(' ').append(rec.status).append(' ');
+            if(rec.contentLength >= 0) line.append(rec.contentLength);
+            else line.append('-');
+            line.append(' ').append(TimeUnit.NANOSECONDS.toMicros(rec.durationNanos)).append('\n');
+        }
+
+        // spaces and control characters would break line format
+        private void appendEscaped(String str) {
+            if(null == str) {
+                line.append('-');
+                return;
+            }
+            for(int i = 0; i < str.length(); i++) {
+                char ch = str.charAt(i);
+                if(ch <= ' ' || 0x7f == ch) {
+                    line.append('%').append(Character.forDigit(ch >> 4, 16)).append(Character.forDigit(ch & 0xf, 16));
+                } else {
+                    line.append(ch);
+                }
+            }
+        }
+
+        private void encode() {
+            CharBuffer chars = CharBuffer.wrap(line);
+            encoder.reset();
+            for(;;) {
+                encoder.encode(chars, buffer, true);
+                if(!chars.hasRemaining()) break;
+                // buffer is full, line is split between writes
+                flush();
+            }
+            pending += 1;
+            if(buffer.remaining() < 1024) flush();
+        }
+
+        private void flush() {
+            if(0 == buffer.position()) return;
+            buffer.flip();
+            try {
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                written.addAndGet(pending);
+            } catch(IOException e) {
+                dropped.add(pending);
+            } finally {
+                buffer.clear();
+                pending = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Async processing of single matched request: calls transport handler from executor and completes
+ * {@link AsyncContext} when it finishes. Timeouts and container errors are reported to {@link ExceptionHandler}.
+ * Exactly one of handler completion, timeout or error completes the request. Handler is given
+ * {@link GuardedResponse}, that shares a lock with the failing thread: failure sets completion flag
+ * under this lock after any handler write in progress finishes, all later handler writes and headers
+ * changes are discarded by the wrapper, so they cannot mix with exception handler output
+ * or reach the completed response. Metrics, trace and access log are recorded by dispatcher on completion.
+ * Route bulkhead permit is released when handler call returns, even if request was completed earlier
+ * on timeout, so timed-out handlers still running on executor are counted by the bulkhead.
+ * If handler call is not started (rejected by executor or completed before start), permit is released
+ * by whichever of completion or the task claims it first.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class AsyncDispatch implements Runnable, AsyncListener {
+    private final HandlersDispatcher dispatcher;
+    private final AsyncContext ctx;
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final GuardedResponse guarded;
+    private final RouteMatch match;
+    private final long startNanos;
+    private final RequestTrace trace;
+    // held while completion flag is set on failure and while handler touches the response
+    private final Object lock = new Object();
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+    // claimed by task on start or by failure, if task has not started yet, claimer releases bulkhead permit
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+    private AsyncDispatch(HandlersDispatcher dispatcher, AsyncContext ctx, HttpServletRequest request,
+                          HttpServletResponse response, RouteMatch match, long startNanos, RequestTrace trace) {
+        this.dispatcher = dispatcher;
+        this.ctx = ctx;
+        this.request = request;
+        this.response = response;
+        this.guarded = new GuardedResponse(response, lock, completed);
+        this.match = match;
+        this.startNanos = startNanos;
+        this.trace = trace;
+    }
+
+    /**
+     * Puts request into async mode and submits matched handler call to executor
+     *
+     * @param dispatcher dispatcher, that matched the request
+     * @param request request
+     * @param response response
+     * @param match matched route
+     * @param executor executor to call transport handler from
+     * @param timeoutMillis async timeout, container default is used for non-positive values
+     * @param startNanos request start time
+     * @param trace request trace context
+     */
+    static void start(HandlersDispatcher dispatcher, HttpServletRequest request, HttpServletResponse response,
+                      RouteMatch match, Executor executor, long timeoutMillis, long startNanos, RequestTrace trace) {
+        AsyncContext ctx = request.startAsync(request, response);
+        if(timeoutMillis > 0) ctx.setTimeout(timeoutMillis);
+        AsyncDispatch task = new AsyncDispatch(dispatcher, ctx, request, response, match, startNanos, trace);
+        ctx.addListener(task);
+        try {
+            executor.execute(task);
+        } catch(RuntimeException e) {
+            // rejected
+            task.fail(e);
+        }
+    }
+
+    /**
+     * Calls transport handler, completes request
+     */
+    @Override
+    public void run() {
+        // request was failed before start, permit is already released
+        if(!claimed.compareAndSet(false, true)) return;
+        if(completed.get()) {
+            dispatcher.releasePermit(match, startNanos, true);
+            return;
+        }
+        boolean error = true;
+        try {
+            dispatcher.invoke(request, guarded, match);
+            error = false;
+        } catch(Exception e) {
+            fail(e);
+            return;
+        } finally {
+            dispatcher.releasePermit(match, startNanos, error);
+        }
+        if(completed.compareAndSet(false, true)) {
+            dispatcher.completed(request, response, match, startNanos, trace, false, true);
+            ctx.complete();
+        }
+    }
+
+    /**
+     * Reports timeout to exception handler, completes request
+     *
+     * @param event async event
+     */
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        fail(new TimeoutException("Async request processing timed out after: [" + ctx.getTimeout() + "] ms," +
+                " path: '" + request.getPathInfo() + "'"));
+    }
+
+    /**
+     * Reports container error to exception handler, completes request
+     *
+     * @param event async event
+     */
+    @Override
+    public void onError(AsyncEvent event) {
+        Throwable th = event.getThrowable();
+        fail(th instanceof Exception ? (Exception) th : new RuntimeException(th));
+    }
+
+    /**
+     * Does nothing
+     *
+     * @param event async event
+     */
+    @Override
+    public void onComplete(AsyncEvent event) {
+        // no-op
+    }
+
+    /**
+     * Does nothing
+     *
+     * @param event async event
+     */
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // no-op
+    }
+
+    private void fail(Exception e) {
+        synchronized(lock) {
+            // handler writes started before this point are finished, later ones are discarded
+            if(!completed.compareAndSet(false, true)) return;
+        }
+        try {
+            dispatcher.handleException(e, request, response);
+        } finally {
+            // handler call will not be started
+            if(claimed.compareAndSet(false, true)) dispatcher.releasePermit(match, startNanos, true);
+            dispatcher.completed(request, response, match, startNanos, trace, true, true);
+            ctx.complete();
+        }
+    }
+}
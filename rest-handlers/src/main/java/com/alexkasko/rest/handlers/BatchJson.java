@@ -0,0 +1,236 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal JSON scanner for batch requests, core module does not depend on JSON libraries.
+ * Parses array of {@code {"method": ..., "path": ..., "body": ...}} objects, sub-request bodies
+ * are validated and kept as raw JSON text. Also escapes strings for batch responses.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+final class BatchJson {
+    private static final int MAX_DEPTH = 256;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final List<String> METHODS = Arrays.asList("GET", "HEAD", "POST", "PUT", "DELETE");
+
+    private final String json;
+    private int pos = 0;
+
+    private BatchJson(String json) {
+        this.json = json;
+    }
+
+    /**
+     * Parses batch request body
+     *
+     * @param json batch request body
+     * @return list of sub-requests, each is array of method, path and raw body (may be null)
+     * @throws IllegalArgumentException on malformed input or missing fields
+     */
+    static List<String[]> parse(String json) {
+        BatchJson sc = new BatchJson(json);
+        List<String[]> res = new ArrayList<String[]>();
+        sc.expect('[');
+        if(!sc.consume(']')) {
+            do {
+                res.add(sc.subRequest());
+            } while(sc.consume(','));
+            sc.expect(']');
+        }
+        sc.skipWhitespace();
+        if(sc.pos < json.length()) throw sc.error("Unexpected trailing content");
+        return res;
+    }
+
+    /**
+     * Appends string to builder as JSON string literal
+     *
+     * @param sb target builder
+     * @param str string to quote
+     */
+    static void quote(StringBuilder sb, String str) {
+        sb.append('"');
+        for(int i = 0; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            switch(ch) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    // u2028 and u2029 are escaped for javascript clients
+                    if(ch < 0x20 || 0x2028 == ch || 0x2029 == ch) {
+                        sb.append("\\u").append(HEX[(ch >> 12) & 0xf]).append(HEX[(ch >> 8) & 0xf])
+                                .append(HEX[(ch >> 4) & 0xf]).append(HEX[ch & 0xf]);
+                    } else sb.append(ch);
+            }
+        }
+        sb.append('"');
+    }
+
+    private String[] subRequest() {
+        String method = null;
+        String path = null;
+        String body = null;
+        expect('{');
+        if(!consume('}')) {
+            do {
+                skipWhitespace();
+                String name = string();
+                expect(':');
+                skipWhitespace();
+                if("method".equals(name)) method = string();
+                else if("path".equals(name)) path = string();
+                else if("body".equals(name)) {
+                    int start = pos;
+                    value(0);
+                    body = json.substring(start, pos);
+                } else value(0);
+            } while(consume(','));
+            expect('}');
+        }
+        if(null == method || !METHODS.contains(method.toUpperCase(Locale.ENGLISH))) throw error(
+                "Invalid sub-request method: [" + method + "]");
+        if(null == path || !path.startsWith("/")) throw error("Invalid sub-request path: [" + path + "]");
+        return new String[]{method.toUpperCase(Locale.ENGLISH), path, body};
+    }
+
+    private void value(int depth) {
+        if(depth > MAX_DEPTH) throw error("Max nesting depth exceeded");
+        skipWhitespace();
+        if(pos >= json.length()) throw error("Unexpected end of input");
+        char ch = json.charAt(pos);
+        if('{' == ch) {
+            pos++;
+            if(consume('}')) return;
+            do {
+                skipWhitespace();
+                string();
+                expect(':');
+                value(depth + 1);
+            } while(consume(','));
+            expect('}');
+        } else if('[' == ch) {
+            pos++;
+            if(consume(']')) return;
+            do {
+                value(depth + 1);
+            } while(consume(','));
+            expect(']');
+        } else if('"' == ch) {
+            string();
+        } else if(json.startsWith("true", pos)) {
+            pos += 4;
+        } else if(json.startsWith("false", pos)) {
+            pos += 5;
+        } else if(json.startsWith("null", pos)) {
+            pos += 4;
+        } else {
+            number();
+        }
+    }
+
+    private String string() {
+        if(pos >= json.length() || '"' != json.charAt(pos)) throw error("String expected");
+        pos++;
+        StringBuilder sb = null;
+        int start = pos;
+        while(pos < json.length()) {
+            char ch = json.charAt(pos);
+            if('"' == ch) {
+                String res = null != sb ? sb.append(json, start, pos).toString() : json.substring(start, pos);
+                pos++;
+                return res;
+            }
+            if(ch < 0x20) throw error("Control character in string");
+            if('\\' == ch) {
+                if(null == sb) sb = new StringBuilder();
+                sb.append(json, start, pos);
+                sb.append(escape());
+                start = pos;
+            } else pos++;
+        }
+        throw error("Unterminated string");
+    }
+
+    private char escape() {
+        // pos is at backslash
+        if(pos + 1 >= json.length()) throw error("Unterminated escape");
+        char ch = json.charAt(pos + 1);
+        pos += 2;
+        switch(ch) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                if(pos + 4 > json.length()) throw error("Invalid unicode escape");
+                try {
+                    char res = (char) Integer.parseInt(json.substring(pos, pos + 4), 16);
+                    pos += 4;
+                    return res;
+                } catch(NumberFormatException e) {
+                    throw error("Invalid unicode escape");
+                }
+            default: throw error("Invalid escape");
+        }
+    }
+
+    private void number() {
+        int start = pos;
+        if(pos < json.length() && '-' == json.charAt(pos)) pos++;
+        int digits = digits();
+        if(0 == digits) throw error("Value expected");
+        if(pos < json.length() && '.' == json.charAt(pos)) {
+            pos++;
+            if(0 == digits()) throw error("Invalid number");
+        }
+        if(pos < json.length() && ('e' == json.charAt(pos) || 'E' == json.charAt(pos))) {
+            pos++;
+            if(pos < json.length() && ('+' == json.charAt(pos) || '-' == json.charAt(pos))) pos++;
+            if(0 == digits()) throw error("Invalid number");
+        }
+        if(pos == start) throw error("Value expected");
+    }
+
+    private int digits() {
+        int start = pos;
+        while(pos < json.length() && json.charAt(pos) >= '0' && json.charAt(pos) <= '9') pos++;
+        return pos - start;
+    }
+
+    private void expect(char ch) {
+        if(!consume(ch)) throw error("'" + ch + "' expected");
+    }
+
+    private boolean consume(char ch) {
+        skipWhitespace();
+        if(pos < json.length() && ch == json.charAt(pos)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while(pos < json.length()) {
+            char ch = json.charAt(pos);
+            if(' ' != ch && '\n' != ch && '\r' != ch && '\t' != ch) return;
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid batch request: " + message + ", position: [" + pos + "]");
+    }
+}
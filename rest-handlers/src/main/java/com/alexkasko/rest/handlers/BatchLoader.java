@@ -0,0 +1,23 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.List;
+
+/**
+ * Loads results for many inputs with single call (e.g. single {@code SELECT ... WHERE id IN (...)}
+ * instead of query for each id), called by {@link MicroBatcher} with inputs of concurrent requests.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see MicroBatcher
+ */
+public interface BatchLoader<I, O> {
+
+    /**
+     * Loads results for batch of inputs
+     *
+     * @param inputs inputs collected from concurrent calls, list must not be modified
+     * @return results in the order of inputs, list size must be the same as inputs size
+     * @throws Exception on any application exception, it is rethrown to all callers of the batch
+     */
+    List<O> load(List<I> inputs) throws Exception;
+}
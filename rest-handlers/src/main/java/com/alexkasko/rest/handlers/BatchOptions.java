@@ -0,0 +1,174 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Options of batch route, that executes many sub-requests in single HTTP request.
+ * Instances are immutable and thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#addBatch(String, BatchOptions)
+ */
+public final class BatchOptions {
+    private static final BatchOptions DEFAULTS = new Builder().build();
+
+    private final Executor executor;
+    private final int maxRequests;
+    private final long timeoutMillis;
+    private final int maxBodyBytes;
+
+    private BatchOptions(Builder builder) {
+        this.executor = builder.executor;
+        this.maxRequests = builder.maxRequests;
+        this.timeoutMillis = builder.timeoutMillis;
+        this.maxBodyBytes = builder.maxBodyBytes;
+    }
+
+    /**
+     * Returns options with default values: sequential execution on request thread,
+     * up to 50 sub-requests, 10 seconds timeout, 1MB body limit
+     *
+     * @return default options
+     */
+    public static BatchOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns builder for {@code BatchOptions}
+     *
+     * @return builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns executor for parallel execution of sub-requests
+     *
+     * @return executor, {@code null} if sub-requests are executed sequentially on request thread
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns max number of sub-requests in batch
+     *
+     * @return max number of sub-requests
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * Returns max time of batch execution
+     *
+     * @return timeout in milliseconds
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Returns max size of batch request body
+     *
+     * @return max body size in bytes
+     */
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("BatchOptions");
+        sb.append("{executor=").append(executor);
+        sb.append(", maxRequests=").append(maxRequests);
+        sb.append(", timeoutMillis=").append(timeoutMillis);
+        sb.append(", maxBodyBytes=").append(maxBodyBytes);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Builder class for {@link BatchOptions}
+     */
+    public static class Builder {
+        private Executor executor;
+        private int maxRequests = 50;
+        private long timeoutMillis = 10000;
+        private int maxBodyBytes = 1024 * 1024;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+        }
+
+        /**
+         * Sets executor for parallel execution of sub-requests, should be bounded (e.g. fixed thread pool)
+         * and should not be the executor of batch route itself, sub-requests are executed sequentially
+         * on request thread if executor is not set
+         *
+         * @param executor executor for sub-requests
+         * @return builder itself
+         */
+        public Builder setExecutor(Executor executor) {
+            if(null == executor) throw new IllegalArgumentException("Provided executor is null");
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets max number of sub-requests in batch, larger batches are rejected with {@code 413}, 50 by default
+         *
+         * @param maxRequests max number of sub-requests
+         * @return builder itself
+         */
+        public Builder setMaxRequests(int maxRequests) {
+            if(maxRequests <= 0) throw new IllegalArgumentException("Invalid max requests: [" + maxRequests + "]");
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets max time of batch execution, sub-requests not completed in time are answered
+         * with {@code 504} and are interrupted, without executor sub-requests are not interrupted,
+         * but remaining ones are not started after timeout, 10 seconds by default
+         *
+         * @param timeoutMillis timeout in milliseconds
+         * @return builder itself
+         */
+        public Builder setTimeout(long timeoutMillis) {
+            if(timeoutMillis <= 0) throw new IllegalArgumentException("Invalid timeout: [" + timeoutMillis + "]");
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * Sets max size of batch request body, larger bodies are rejected with {@code 413}, 1MB by default
+         *
+         * @param maxBodyBytes max body size in bytes
+         * @return builder itself
+         */
+        public Builder setMaxBodyBytes(int maxBodyBytes) {
+            if(maxBodyBytes <= 0) throw new IllegalArgumentException("Invalid max body bytes: [" + maxBodyBytes + "]");
+            this.maxBodyBytes = maxBodyBytes;
+            return this;
+        }
+
+        /**
+         * Builds options instance
+         *
+         * @return options instance
+         */
+        public BatchOptions build() {
+            return new BatchOptions(this);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process sub-request of batch request: method, path, query string and body are taken from batch entry,
+ * headers are inherited from batch request. Attributes set on sub-request are kept separately,
+ * attributes of batch request are visible to sub-request. Async mode is not supported.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class BatchRequest extends HttpServletRequestWrapper {
+    private static final String UTF8 = "UTF-8";
+
+    private final String method;
+    private final String path;
+    private final String query;
+    private final byte[] body;
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+    private Map<String, String[]> parameters;
+
+    /**
+     * Constructor
+     *
+     * @param request batch request
+     * @param method sub-request method
+     * @param uri sub-request path with optional query string
+     * @param body sub-request body, may be null
+     */
+    BatchRequest(HttpServletRequest request, String method, String uri, String body) {
+        super(request);
+        this.method = method;
+        int qm = uri.indexOf('?');
+        this.path = qm >= 0 ? uri.substring(0, qm) : uri;
+        this.query = qm >= 0 ? uri.substring(qm + 1) : null;
+        try {
+            this.body = null != body ? body.getBytes(UTF8) : new byte[0];
+        } catch(UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return path;
+    }
+
+    @Override
+    public String getQueryString() {
+        return query;
+    }
+
+    @Override
+    public String getContentType() {
+        return body.length > 0 ? "application/json; charset=UTF-8" : null;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return UTF8;
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if("Content-Length".equalsIgnoreCase(name)) return Integer.toString(body.length);
+        if("Content-Type".equalsIgnoreCase(name)) return getContentType();
+        return super.getHeader(name);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        final ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(getInputStream(), UTF8));
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        Object res = attributes.get(name);
+        // trace of batch request must not be used by sub-requests
+        if(null != res || RequestTrace.ATTRIBUTE.equals(name)) return res;
+        return super.getAttribute(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if(null == value) attributes.remove(name);
+        else attributes.put(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters().get(name);
+        return null != values ? values[0] : null;
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters());
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters().keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters().get(name);
+        return null != values ? values.clone() : null;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    private Map<String, String[]> parameters() {
+        if(null != parameters) return parameters;
+        parameters = new LinkedHashMap<String, String[]>();
+        if(null == query) return parameters;
+        try {
+            for(String pair : query.split("&")) {
+                if(0 == pair.length()) continue;
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, UTF8);
+                String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), UTF8) : "";
+                String[] existing = parameters.get(name);
+                if(null == existing) {
+                    parameters.put(name, new String[]{value});
+                } else {
+                    String[] values = new String[existing.length + 1];
+                    System.arraycopy(existing, 0, values, 0, existing.length);
+                    values[existing.length] = value;
+                    parameters.put(name, values);
+                }
+            }
+        } catch(UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,317 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * In-memory response of batch sub-request, status, headers and body are kept in this instance
+ * and are never written to batch response. Cookies are ignored. Not thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class BatchResponse extends HttpServletResponseWrapper {
+    private int status = SC_OK;
+    private String contentType;
+    private String encoding = "UTF-8";
+    // header name in original case is kept in first value
+    private final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    /**
+     * Constructor
+     *
+     * @param response batch response
+     */
+    BatchResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Creates response with specified status and plain-text message
+     *
+     * @param response batch response
+     * @param status response status
+     * @param message response body
+     * @return response instance
+     */
+    static BatchResponse of(HttpServletResponse response, int status, String message) {
+        BatchResponse res = new BatchResponse(response);
+        res.setStatus(status);
+        res.setContentType("text/plain");
+        res.write(message);
+        return res;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        this.status = sc;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        this.status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        resetBuffer();
+        this.status = sc;
+        if(null != msg) {
+            setContentType("text/plain");
+            write(msg);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        resetBuffer();
+        this.status = SC_FOUND;
+        setHeader("Location", location);
+    }
+
+    @Override
+    public void setContentType(String type) {
+        this.contentType = type;
+        if(null == type) return;
+        int idx = type.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+        if(idx >= 0) encoding = type.substring(idx + "charset=".length()).trim();
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if(null != charset) this.encoding = charset;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // no-op
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if(skipped(name)) return;
+        if("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return;
+        }
+        remove(name);
+        if(null != value) addHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if(skipped(name) || null == value) return;
+        if("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return;
+        }
+        String key = name.toLowerCase(Locale.ENGLISH);
+        List<String> list = headers.get(key);
+        if(null == list) {
+            list = new ArrayList<String>();
+            list.add(name);
+            headers.put(key, list);
+        }
+        list.add(value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, formatDate(date));
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> list = headers.get(name.toLowerCase(Locale.ENGLISH));
+        return null != list ? list.get(1) : null;
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> list = headers.get(name.toLowerCase(Locale.ENGLISH));
+        return null != list ? new ArrayList<String>(list.subList(1, list.size())) : Collections.<String>emptyList();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        List<String> res = new ArrayList<String>(headers.size());
+        for(List<String> list : headers.values()) {
+            res.add(list.get(0));
+        }
+        return res;
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        // no-op
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if(null == stream) {
+            stream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+            };
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(null == writer) writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), encoding));
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        if(null != writer) writer.flush();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        if(null != writer) writer.flush();
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        status = SC_OK;
+        contentType = null;
+        headers.clear();
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        // no-op
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        // no-op
+    }
+
+    /**
+     * Returns response headers, values of repeated headers are joined with comma
+     *
+     * @return map of header names to values
+     */
+    Map<String, String> headersMap() {
+        Map<String, String> res = new LinkedHashMap<String, String>();
+        for(List<String> list : headers.values()) {
+            StringBuilder sb = new StringBuilder(list.get(1));
+            for(int i = 2; i < list.size(); i++) {
+                sb.append(", ").append(list.get(i));
+            }
+            res.put(list.get(0), sb.toString());
+        }
+        return res;
+    }
+
+    /**
+     * Returns response body decoded with response encoding
+     *
+     * @return response body
+     * @throws UnsupportedEncodingException if response encoding is not supported
+     */
+    String bodyString() throws UnsupportedEncodingException {
+        if(null != writer) writer.flush();
+        return body.toString(encoding);
+    }
+
+    private void write(String message) {
+        try {
+            body.write(message.getBytes(encoding));
+        } catch(IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void remove(String name) {
+        headers.remove(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    private static boolean skipped(String name) {
+        return null == name || "Content-Length".equalsIgnoreCase(name);
+    }
+
+    private static String formatDate(long date) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(date));
+    }
+}
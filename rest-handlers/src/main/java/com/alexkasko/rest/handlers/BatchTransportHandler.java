@@ -0,0 +1,235 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transport handler of batch route, registered with {@link HandlersDispatcher.Builder#addBatch(String, BatchOptions)}.
+ * Request body is a JSON array of sub-requests: {@code [{"method": "GET", "path": "/items/42"},
+ * {"method": "POST", "path": "/echo", "body": {"text": "hello"}}]}, path may contain query string,
+ * body is any JSON value and is passed to sub-request as is. Each sub-request is dispatched
+ * in-process through the same dispatcher with in-memory request and response, headers are inherited
+ * from batch request. Sub-requests must be independent, they are executed in parallel if executor is set
+ * in options. Exceptions of sub-requests are reported to dispatcher exception handler with sub-request response.
+ * Response is a JSON array of results in the order of sub-requests:
+ * {@code [{"status": 200, "headers": {...}, "body": ...}]}, JSON bodies are embedded as is, other bodies
+ * are embedded as strings. Sub-requests, that are not completed within batch timeout, are reported with
+ * {@code 504} status: with executor they are interrupted, without executor sub-requests are executed sequentially
+ * and ones not started before timeout are skipped, sub-request in progress is not interrupted. Batches over the size limits are rejected with {@code 413},
+ * malformed batches and nested batch requests are rejected with {@code 400}.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class BatchTransportHandler implements TransportHandler<RestHandler> {
+    private final BatchOptions options;
+    // set on dispatcher construction
+    private HandlersDispatcher dispatcher;
+
+    /**
+     * Constructor
+     *
+     * @param options batch options
+     */
+    BatchTransportHandler(BatchOptions options) {
+        if(null == options) throw new IllegalArgumentException("Provided batch options are null");
+        this.options = options;
+    }
+
+    /**
+     * Sets dispatcher to execute sub-requests with
+     *
+     * @param dispatcher dispatcher, that contains batch route
+     */
+    void bind(HandlersDispatcher dispatcher) {
+        if(null != this.dispatcher) throw new IllegalStateException("Batch route is already bound to dispatcher");
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Parses sub-requests, executes them and writes their results as JSON array
+     *
+     * @param handlerClass not used
+     * @param request batch request
+     * @param response batch response
+     * @param urlParams not used
+     * @throws Exception on I/O error
+     */
+    @Override
+    public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+        if(request instanceof BatchRequest) {
+            error(HttpServletResponse.SC_BAD_REQUEST, "Nested batch requests are not supported", request, response);
+            return;
+        }
+        String body = readBody(request);
+        if(null == body) {
+            error(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Batch body exceeds limit: [" +
+                    options.getMaxBodyBytes() + "] bytes", request, response);
+            return;
+        }
+        final List<String[]> subs;
+        try {
+            subs = BatchJson.parse(body);
+        } catch(IllegalArgumentException e) {
+            error(HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), request, response);
+            return;
+        }
+        if(subs.size() > options.getMaxRequests()) {
+            error(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Batch size: [" + subs.size() +
+                    "] exceeds limit: [" + options.getMaxRequests() + "]", request, response);
+            return;
+        }
+        BatchResponse[] results = execute(subs, request, response);
+        write(results, response);
+    }
+
+    private BatchResponse[] execute(List<String[]> subs, HttpServletRequest request, HttpServletResponse response) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getTimeoutMillis());
+        BatchResponse[] results = new BatchResponse[subs.size()];
+        if(null == options.getExecutor() || subs.size() < 2) {
+            for(int i = 0; i < subs.size(); i++) {
+                if(System.nanoTime() - deadline >= 0) results[i] = timeout(subs.get(i), response);
+                else results[i] = new SubRequest(subs.get(i), request, response).call();
+            }
+            return results;
+        }
+        List<FutureTask<BatchResponse>> tasks = new ArrayList<FutureTask<BatchResponse>>(subs.size());
+        for(String[] sub : subs) {
+            FutureTask<BatchResponse> task = new FutureTask<BatchResponse>(new SubRequest(sub, request, response));
+            tasks.add(task);
+            try {
+                options.getExecutor().execute(task);
+            } catch(RejectedExecutionException e) {
+                // saturated executor, sub-request is executed on request thread
+                task.run();
+            }
+        }
+        for(int i = 0; i < tasks.size(); i++) {
+            FutureTask<BatchResponse> task = tasks.get(i);
+            try {
+                results[i] = task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch(TimeoutException e) {
+                task.cancel(true);
+                results[i] = timeout(subs.get(i), response);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task.cancel(true);
+                results[i] = timeout(subs.get(i), response);
+            } catch(ExecutionException e) {
+                // exceptions are reported to exception handler by dispatcher
+                results[i] = BatchResponse.of(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                        "Sub-request failed: " + e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private BatchResponse timeout(String[] sub, HttpServletResponse response) {
+        return BatchResponse.of(response, HttpServletResponse.SC_GATEWAY_TIMEOUT, "Sub-request: [" + sub[0] + " " +
+                sub[1] + "] was not completed within batch timeout: [" + options.getTimeoutMillis() + "] ms");
+    }
+
+    // returns null if body exceeds limit
+    private String readBody(HttpServletRequest request) throws IOException {
+        int max = options.getMaxBodyBytes();
+        if(request.getContentLength() > max) return null;
+        InputStream in = request.getInputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(request.getContentLength(), 256));
+        byte[] buf = new byte[4096];
+        int read;
+        while(-1 != (read = in.read(buf))) {
+            baos.write(buf, 0, read);
+            if(baos.size() > max) return null;
+        }
+        String enc = request.getCharacterEncoding();
+        return baos.toString(null != enc ? enc : "UTF-8");
+    }
+
+    private void write(BatchResponse[] results, HttpServletResponse response) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for(int i = 0; i < results.length; i++) {
+            if(i > 0) sb.append(',');
+            BatchResponse res = results[i];
+            sb.append("{\"status\":").append(res.getStatus());
+            sb.append(",\"headers\":{");
+            boolean first = true;
+            for(Map.Entry<String, String> en : res.headersMap().entrySet()) {
+                if(!first) sb.append(',');
+                first = false;
+                BatchJson.quote(sb, en.getKey());
+                sb.append(':');
+                BatchJson.quote(sb, en.getValue());
+            }
+            sb.append('}');
+            String body = res.bodyString();
+            if(body.length() > 0) {
+                sb.append(",\"body\":");
+                String ct = res.getContentType();
+                if(null != ct && ct.toLowerCase(Locale.ENGLISH).contains("json")) sb.append(body);
+                else BatchJson.quote(sb, body);
+            }
+            sb.append('}');
+        }
+        sb.append(']');
+        response.setContentType("application/json; charset=UTF-8");
+        Writer writer = new OutputStreamWriter(response.getOutputStream(), "UTF-8");
+        writer.write(sb.toString());
+        writer.flush();
+    }
+
+    private static void error(int status, String message, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        response.setStatus(status);
+        response.setContentType("text/plain");
+        response.getWriter().write(message + ", path: '" + request.getPathInfo() + "'\n");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("BatchTransportHandler");
+        sb.append("{options=").append(options);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private class SubRequest implements Callable<BatchResponse> {
+        private final String[] sub;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        private SubRequest(String[] sub, HttpServletRequest request, HttpServletResponse response) {
+            this.sub = sub;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public BatchResponse call() {
+            BatchResponse res = new BatchResponse(response);
+            // exceptions are reported to exception handler by dispatcher
+            dispatcher.dispatch(new BatchRequest(request, sub[0], sub[1], sub[2]), res);
+            return res;
+        }
+    }
+}
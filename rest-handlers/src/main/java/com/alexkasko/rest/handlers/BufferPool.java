@@ -0,0 +1,87 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free pool of reusable byte buffers of the same size for transport handlers I/O.
+ * Threads start probing pool slots from different positions to avoid contention,
+ * new buffer is allocated if no pooled one is available, released buffers are dropped
+ * if pool is full. Instances are thread-safe and may be shared between transport handlers.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class BufferPool {
+    private final int bufferSize;
+    private final AtomicReferenceArray<byte[]> slots;
+
+    /**
+     * Constructor
+     *
+     * @param bufferSize size of each buffer in bytes
+     * @param maxPooled max number of idle buffers kept in pool
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        if(bufferSize <= 0) throw new IllegalArgumentException("Invalid buffer size: [" + bufferSize + "]");
+        if(maxPooled <= 0) throw new IllegalArgumentException("Invalid max pooled: [" + maxPooled + "]");
+        this.bufferSize = bufferSize;
+        this.slots = new AtomicReferenceArray<byte[]>(maxPooled);
+    }
+
+    /**
+     * Returns pooled buffer or allocates new one
+     *
+     * @return buffer of {@link #getBufferSize()} length, contents are undefined
+     */
+    public byte[] acquire() {
+        int len = slots.length();
+        int start = start(len);
+        for(int i = 0; i < len; i++) {
+            int idx = (start + i) % len;
+            byte[] buf = slots.get(idx);
+            if(null != buf && slots.compareAndSet(idx, buf, null)) return buf;
+        }
+        return new byte[bufferSize];
+    }
+
+    /**
+     * Returns buffer to pool, buffers of other sizes are ignored
+     *
+     * @param buf buffer obtained with {@link #acquire()}
+     */
+    public void release(byte[] buf) {
+        if(null == buf || buf.length != bufferSize) return;
+        int len = slots.length();
+        int start = start(len);
+        for(int i = 0; i < len; i++) {
+            int idx = (start + i) % len;
+            if(null == slots.get(idx) && slots.compareAndSet(idx, null, buf)) return;
+        }
+    }
+
+    /**
+     * Returns size of pooled buffers
+     *
+     * @return buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    private static int start(int len) {
+        return (int) (Thread.currentThread().getId() % len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("BufferPool");
+        sb.append("{bufferSize=").append(bufferSize);
+        sb.append(", maxPooled=").append(slots.length());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Response wrapper, that captures whole body in memory instead of sending it, so transport handler
+ * decorators may inspect it before deciding what to send. Status and headers other than
+ * {@code Content-Length} are passed to wrapped response, explicit flushes are ignored.
+ * First chunk of body is written into pooled buffer, larger bodies are copied into growing array.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class BufferingResponse extends HttpServletResponseWrapper {
+    private final BufferPool pool;
+    private byte[] buf;
+    private int count = 0;
+    private boolean pooled = false;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    /**
+     * Constructor
+     *
+     * @param response response to wrap
+     * @param pool pool of initial buffers
+     */
+    BufferingResponse(HttpServletResponse response, BufferPool pool) {
+        super(response);
+        this.pool = pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if(null == stream) stream = new Stream();
+        return stream;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(null == writer) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    /**
+     * Ignored, length of captured body is known
+     *
+     * @param len content length
+     */
+    @Override
+    public void setContentLength(int len) {
+        // no-op
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHeader(String name, String value) {
+        if(!"Content-Length".equalsIgnoreCase(name)) super.setHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(String name, String value) {
+        if(!"Content-Length".equalsIgnoreCase(name)) super.addHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setIntHeader(String name, int value) {
+        if(!"Content-Length".equalsIgnoreCase(name)) super.setIntHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addIntHeader(String name, int value) {
+        if(!"Content-Length".equalsIgnoreCase(name)) super.addIntHeader(name, value);
+    }
+
+    /**
+     * Ignored, response cannot be committed until body is captured
+     */
+    @Override
+    public void flushBuffer() {
+        // no-op
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resetBuffer() {
+        count = 0;
+        super.resetBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        count = 0;
+        super.reset();
+    }
+
+    /**
+     * Flushes writer, if it was used, into captured body
+     */
+    void finishBody() {
+        if(null != writer) writer.flush();
+    }
+
+    /**
+     * Returns array, that contains captured body from zero index
+     *
+     * @return body array, may be longer than body
+     */
+    byte[] getBody() {
+        return null != buf ? buf : new byte[0];
+    }
+
+    /**
+     * Returns length of captured body
+     *
+     * @return body length
+     */
+    int getBodyLength() {
+        return count;
+    }
+
+    /**
+     * Sends captured body with {@code Content-Length} to wrapped response
+     *
+     * @throws IOException on I/O error
+     */
+    void sendBody() throws IOException {
+        HttpServletResponse resp = (HttpServletResponse) getResponse();
+        resp.setContentLength(count);
+        if(count > 0) resp.getOutputStream().write(buf, 0, count);
+    }
+
+    /**
+     * Returns pooled buffer, captured body is not available after this call
+     */
+    void release() {
+        if(pooled) pool.release(buf);
+        buf = null;
+        pooled = false;
+        count = 0;
+    }
+
+    private void write(byte[] b, int off, int len) {
+        if(null == buf) {
+            buf = pool.acquire();
+            pooled = true;
+        }
+        if(count + len > buf.length) {
+            if(count + len < 0) throw new IllegalStateException("Response body is too large to be buffered");
+            byte[] grown = new byte[Math.max(buf.length * 2, count + len)];
+            System.arraycopy(buf, 0, grown, 0, count);
+            if(pooled) pool.release(buf);
+            buf = grown;
+            pooled = false;
+        }
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    private class Stream extends ServletOutputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) {
+            single[0] = (byte) b;
+            BufferingResponse.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            BufferingResponse.this.write(b, off, len);
+        }
+    }
+}
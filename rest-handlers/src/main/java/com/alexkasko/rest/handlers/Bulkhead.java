@@ -0,0 +1,243 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit of concurrently processed requests for routes, that have it set in {@link RouteOptions}.
+ * Single instance may be set for many routes (e.g. for all routes of {@link HandlersSubmapping}
+ * with {@link HandlersDispatcher.Builder#addList(String, HandlersSubmapping, RouteOptions)}) to limit them together.
+ * Permits are acquired and released with CAS on in-flight counter, requests over the limit are rejected
+ * immediately through {@link RejectionHandler}. Permit is held until transport handler call returns,
+ * for async requests it is held after async timeout while handler is still running.
+ * In adaptive mode limit is adjusted using AIMD: it is increased by one after limit number of requests
+ * completed within target latency and is multiplied by {@code 0.9} (at most once per target latency interval)
+ * when request takes longer than target latency, so concurrency is kept near the point, where
+ * latency starts growing. Limit stays within configured bounds.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see RouteOptions.Builder#setBulkhead(Bulkhead)
+ * @see HandlersDispatcher.Builder#setRejectionHandler(RejectionHandler)
+ */
+public class Bulkhead {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final long retryAfterSeconds;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final NanoClock clock;
+    private final AtomicLong lastDecrease;
+    private final StripedCounter rejected = new StripedCounter();
+
+    private Bulkhead(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.limit;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(builder.targetLatencyMillis);
+        this.retryAfterSeconds = builder.retryAfterSeconds;
+        this.limit = new AtomicInteger(builder.limit);
+        this.clock = builder.clock;
+        this.lastDecrease = new AtomicLong(clock.nanoTime());
+    }
+
+    /**
+     * Returns builder for {@code Bulkhead}
+     *
+     * @param limit max number of concurrent requests, initial limit in adaptive mode
+     * @return builder instance
+     */
+    public static Builder builder(int limit) {
+        return new Builder(limit);
+    }
+
+    /**
+     * Acquires permit if number of requests in flight is below the limit
+     *
+     * @return whether permit is acquired
+     */
+    boolean tryAcquire() {
+        for(;;) {
+            int cur = inFlight.get();
+            if(cur >= limit.get()) {
+                rejected.increment();
+                return false;
+            }
+            if(inFlight.compareAndSet(cur, cur + 1)) return true;
+        }
+    }
+
+    /**
+     * Releases permit, adjusts limit in adaptive mode
+     *
+     * @param startNanos request start time
+     * @param error whether request failed with exception, failed requests do not affect limit
+     */
+    void release(long startNanos, boolean error) {
+        inFlight.decrementAndGet();
+        if(0 == targetNanos || error) return;
+        long now = clock.nanoTime();
+        if(now - startNanos <= targetNanos) increase();
+        else decrease(now);
+    }
+
+    /**
+     * Returns whether limit is adjusted from observed latency
+     *
+     * @return {@code true} in adaptive mode
+     */
+    boolean isAdaptive() {
+        return targetNanos > 0;
+    }
+
+    /**
+     * Returns delay, that is suggested to rejected clients
+     *
+     * @return delay in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Returns current limit of concurrent requests
+     *
+     * @return current limit
+     */
+    public int getLimit() {
+        return limit.get();
+    }
+
+    /**
+     * Returns number of requests in flight
+     *
+     * @return number of requests in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns number of rejected requests
+     *
+     * @return number of rejected requests
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private void increase() {
+        int lim = limit.get();
+        if(lim >= maxLimit) return;
+        if(successes.incrementAndGet() < lim) return;
+        successes.set(0);
+        limit.compareAndSet(lim, lim + 1);
+    }
+
+    private void decrease(long now) {
+        long last = lastDecrease.get();
+        // let in-flight requests observe previous decrease
+        if(now - last < targetNanos || !lastDecrease.compareAndSet(last, now)) return;
+        successes.set(0);
+        for(;;) {
+            int lim = limit.get();
+            int next = Math.max(minLimit, (int) (lim * BACKOFF_RATIO));
+            if(next == lim || limit.compareAndSet(lim, next)) return;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Bulkhead");
+        sb.append("{limit=").append(getLimit());
+        sb.append(", minLimit=").append(minLimit);
+        sb.append(", maxLimit=").append(maxLimit);
+        sb.append(", targetLatencyMillis=").append(TimeUnit.NANOSECONDS.toMillis(targetNanos));
+        sb.append(", inFlight=").append(getInFlight());
+        sb.append(", rejected=").append(getRejectedCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Builder class for {@link Bulkhead}
+     */
+    public static class Builder {
+        private final int limit;
+        private int minLimit;
+        private long targetLatencyMillis = 0;
+        private long retryAfterSeconds = 1;
+        private NanoClock clock = NanoClock.SYSTEM;
+
+        /**
+         * Constructor
+         *
+         * @param limit max number of concurrent requests
+         */
+        public Builder(int limit) {
+            if(limit <= 0) throw new IllegalArgumentException("Invalid limit: [" + limit + "]");
+            this.limit = limit;
+            this.minLimit = limit;
+        }
+
+        /**
+         * Enables adaptive mode: limit is decreased down to {@code minLimit} when requests take longer
+         * than target latency and is increased back up to initial limit otherwise
+         *
+         * @param minLimit min number of concurrent requests
+         * @param targetLatencyMillis request latency, that should not be exceeded, in milliseconds
+         * @return builder itself
+         */
+        public Builder setAdaptive(int minLimit, long targetLatencyMillis) {
+            if(minLimit <= 0 || minLimit > limit) throw new IllegalArgumentException(
+                    "Invalid min limit: [" + minLimit + "], limit: [" + limit + "]");
+            if(targetLatencyMillis <= 0) throw new IllegalArgumentException(
+                    "Invalid target latency: [" + targetLatencyMillis + "]");
+            this.minLimit = minLimit;
+            this.targetLatencyMillis = targetLatencyMillis;
+            return this;
+        }
+
+        /**
+         * Sets delay suggested to rejected clients with {@code Retry-After} header, 1 second by default
+         *
+         * @param retryAfterSeconds delay in seconds, {@code 0} to not suggest delay
+         * @return builder itself
+         */
+        public Builder setRetryAfter(long retryAfterSeconds) {
+            if(retryAfterSeconds < 0) throw new IllegalArgumentException(
+                    "Invalid retry after: [" + retryAfterSeconds + "]");
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        /**
+         * Sets time source, used in tests
+         *
+         * @param clock time source
+         * @return builder itself
+         */
+        Builder setClock(NanoClock clock) {
+            if(null == clock) throw new IllegalArgumentException("Provided clock is null");
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Builds bulkhead instance
+         *
+         * @return bulkhead instance
+         */
+        public Bulkhead build() {
+            return new Bulkhead(this);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * Snapshot of cache statistics
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher#getRouteCacheStats()
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+
+    /**
+     * Constructor
+     *
+     * @param hits number of cache hits
+     * @param misses number of cache misses
+     * @param evictions number of evicted entries
+     * @param size current number of entries
+     */
+    public CacheStats(long hits, long misses, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Returns number of cache hits
+     *
+     * @return number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns number of cache misses
+     *
+     * @return number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns number of evicted entries
+     *
+     * @return number of evicted entries
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns current number of entries
+     *
+     * @return current number of entries
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns ratio of hits to all requests
+     *
+     * @return hit ratio, {@code 0} if there were no requests
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return 0 == total ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns stats sum of this and provided instances
+     *
+     * @param other other stats
+     * @return sum stats
+     */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hits + other.hits, misses + other.misses,
+                evictions + other.evictions, size + other.size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("CacheStats");
+        sb.append("{hits=").append(hits);
+        sb.append(", misses=").append(misses);
+        sb.append(", evictions=").append(evictions);
+        sb.append(", size=").append(size);
+        sb.append('}');
+        return sb.toString();
+    }
+}
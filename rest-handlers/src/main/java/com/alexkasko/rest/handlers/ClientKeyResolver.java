@@ -0,0 +1,21 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Extracts client identity from request for per-client {@link RateLimiter}s,
+ * e.g. API key header value or remote address
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see RateLimiter.Builder#setClientKeyResolver(ClientKeyResolver)
+ */
+public interface ClientKeyResolver {
+    /**
+     * Returns client key for request
+     *
+     * @param request request
+     * @return client key, {@code null} if client cannot be identified
+     */
+    String resolve(HttpServletRequest request);
+}
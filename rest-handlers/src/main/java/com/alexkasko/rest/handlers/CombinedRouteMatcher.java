@@ -0,0 +1,128 @@
+package com.alexkasko.rest.handlers;
+
+import com.google.code.regexp.NamedPattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches request path against all registry entries at once, using single regex
+ * alternation compiled from entries patterns on {@link HandlersDispatcher.Builder#build()}.
+ * Each entry pattern is wrapped into its own capturing group, so matched entry and its
+ * named groups are found from the single match. Alternatives are tried in registration order.
+ * Patterns with backreferences cannot be renumbered and, as well as path template entries,
+ * are matched separately in their registry positions.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#setCombinedMatching(boolean)
+ */
+class CombinedRouteMatcher implements RouteMatcher {
+    private final Segment[] segments;
+
+    /**
+     * Constructor
+     *
+     * @param registry entries in registration order
+     */
+    CombinedRouteMatcher(List<HandlersMappingEntry<?>> registry) {
+        List<Segment> list = new ArrayList<Segment>();
+        List<HandlersMappingEntry<?>> run = new ArrayList<HandlersMappingEntry<?>>();
+        for(HandlersMappingEntry<?> en : registry) {
+            if(en.isTemplate() || hasBackreferences(en.namedPattern().standardPattern())) {
+                if(run.size() > 0) list.add(new AlternationSegment(run));
+                run = new ArrayList<HandlersMappingEntry<?>>();
+                list.add(new EntrySegment(en));
+            } else {
+                run.add(en);
+            }
+        }
+        if(run.size() > 0) list.add(new AlternationSegment(run));
+        this.segments = list.toArray(new Segment[list.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RouteMatch match(String path) {
+        for(Segment seg : segments) {
+            RouteMatch res = seg.match(path);
+            if(null != res) return res;
+        }
+        return null;
+    }
+
+    private static boolean hasBackreferences(String regex) {
+        for(int i = 0; i < regex.length() - 1; i++) {
+            if('\\' != regex.charAt(i)) continue;
+            char next = regex.charAt(i + 1);
+            if((next >= '1' && next <= '9') || 'k' == next) return true;
+            i += 1;
+        }
+        return false;
+    }
+
+    private interface Segment {
+        RouteMatch match(String path);
+    }
+
+    private static class EntrySegment implements Segment {
+        private final RouteIndex single;
+
+        private EntrySegment(HandlersMappingEntry<?> entry) {
+            List<HandlersMappingEntry<?>> list = new ArrayList<HandlersMappingEntry<?>>();
+            list.add(entry);
+            this.single = new RouteIndex(list);
+        }
+
+        @Override
+        public RouteMatch match(String path) {
+            return single.match(path);
+        }
+    }
+
+    private static class AlternationSegment implements Segment {
+        private final Pattern pattern;
+        private final HandlersMappingEntry<?>[] entries;
+        // number of wrapping group for each entry
+        private final int[] offsets;
+        private final ThreadLocal<Matcher> matchers = new ThreadLocal<Matcher>();
+
+        private AlternationSegment(List<HandlersMappingEntry<?>> run) {
+            this.entries = run.toArray(new HandlersMappingEntry<?>[run.size()]);
+            this.offsets = new int[entries.length];
+            StringBuilder sb = new StringBuilder();
+            int group = 1;
+            for(int i = 0; i < entries.length; i++) {
+                NamedPattern np = entries[i].namedPattern();
+                if(i > 0) sb.append("|");
+                sb.append("(").append(np.standardPattern()).append(")");
+                offsets[i] = group;
+                group += 1 + np.pattern().matcher("").groupCount();
+            }
+            this.pattern = Pattern.compile(sb.toString());
+        }
+
+        @Override
+        public RouteMatch match(String path) {
+            Matcher matcher = matchers.get();
+            if(null == matcher) {
+                matcher = pattern.matcher(path);
+                matchers.set(matcher);
+            } else {
+                matcher.reset(path);
+            }
+            if(!matcher.matches()) return null;
+            for(int i = 0; i < entries.length; i++) {
+                if(matcher.start(offsets[i]) >= 0) {
+                    return new RouteMatch(entries[i], entries[i].params(path, matcher, offsets[i]));
+                }
+            }
+            // cannot happen, one of alternatives was matched
+            throw new IllegalStateException("Cannot find matched alternative for path: '" + path + "'");
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Response wrapper used by {@link CompressingTransportHandler}. Body is buffered until it reaches
+ * min size, then compression is started: {@code Content-Encoding} is set and {@code Content-Length}
+ * set by handler is suppressed. Gzip header and trailer are written around raw deflate data,
+ * so pooled deflaters are used for both encodings. Response is sent uncompressed if body turns out
+ * to be small, if handler sets small {@code Content-Length} or its own {@code Content-Encoding},
+ * or if content type is not compressible. Explicit flush before compression is started marks response
+ * as streamed, it is sent uncompressed, so flushed data reaches client immediately. Flushes after compression
+ * is started cannot push data held inside {@link Deflater} (sync flush is not available on Java 6),
+ * it is sent when more data is written or on finish, routes, that stream data slowly after writing
+ * min size bytes, should not be compressed.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class CompressingResponse extends HttpServletResponseWrapper {
+    private static final int BUFFERING = 0;
+    private static final int COMPRESSING = 1;
+    private static final int PASSTHROUGH = 2;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final HttpServletResponse response;
+    private final CompressingTransportHandler<?> owner;
+    private final int encoding;
+    private int state = BUFFERING;
+    private byte[] threshold;
+    private int count = 0;
+    private long declaredLength = -1;
+    private boolean finishing = false;
+    private Deflater deflater;
+    private CRC32 crc;
+    private byte[] output;
+    private ServletOutputStream target;
+    private Stream stream;
+    private PrintWriter writer;
+
+    /**
+     * Constructor
+     *
+     * @param response response to wrap
+     * @param owner transport handler, that provides settings and pools
+     * @param encoding negotiated encoding
+     */
+    CompressingResponse(HttpServletResponse response, CompressingTransportHandler<?> owner, int encoding) {
+        super(response);
+        this.response = response;
+        this.owner = owner;
+        this.encoding = encoding;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if(null == stream) stream = new Stream();
+        return stream;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(null == writer) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setContentLength(int len) {
+        contentLength(len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHeader(String name, String value) {
+        if(!header(name, value)) super.setHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(String name, String value) {
+        if(!header(name, value)) super.addHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setIntHeader(String name, int value) {
+        if("Content-Length".equalsIgnoreCase(name)) contentLength(value);
+        else super.setIntHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addIntHeader(String name, int value) {
+        if("Content-Length".equalsIgnoreCase(name)) contentLength(value);
+        else super.addIntHeader(name, value);
+    }
+
+    /**
+     * Commits response, body is sent uncompressed if compression was not started yet
+     *
+     * @throws IOException on I/O error
+     */
+    @Override
+    public void flushBuffer() throws IOException {
+        if(null != writer) writer.flush();
+        if(BUFFERING == state) decide(true);
+        super.flushBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendError(int sc) throws IOException {
+        passthroughDiscarding();
+        super.sendError(sc);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        passthroughDiscarding();
+        super.sendError(sc, msg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        passthroughDiscarding();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resetBuffer() {
+        if(BUFFERING == state) count = 0;
+        super.resetBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        if(COMPRESSING == state) throw new IllegalStateException("Compressed response body is already started");
+        count = 0;
+        declaredLength = -1;
+        state = BUFFERING;
+        super.reset();
+    }
+
+    /**
+     * Writes remaining body, finishes compressed stream, releases pooled resources
+     *
+     * @throws IOException on I/O error
+     */
+    void finish() throws IOException {
+        finishing = true;
+        try {
+            if(null != writer) writer.flush();
+            if(BUFFERING == state) {
+                // whole body is smaller than threshold
+                state = PASSTHROUGH;
+                if(count > 0 || declaredLength >= 0) {
+                    response.setContentLength(count);
+                    target().write(threshold, 0, count);
+                }
+            } else if(COMPRESSING == state) {
+                deflater.finish();
+                while(!deflater.finished()) {
+                    drain();
+                }
+                if(CompressingTransportHandler.GZIP == encoding) {
+                    writeIntLE(target, (int) crc.getValue());
+                    writeIntLE(target, (int) deflater.getBytesRead());
+                }
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Releases pooled resources on handler failure, resets compressed response if it is not committed,
+     * so exception handler may write its own response
+     */
+    void abort() {
+        if(COMPRESSING == state && !response.isCommitted()) {
+            response.reset();
+        }
+        release();
+    }
+
+    // returns true if header is handled
+    private boolean header(String name, String value) {
+        if("Content-Length".equalsIgnoreCase(name)) {
+            contentLength(parseLength(value));
+            return true;
+        }
+        if("Content-Encoding".equalsIgnoreCase(name) && BUFFERING == state) {
+            // body is encoded by handler
+            passthrough();
+        }
+        return false;
+    }
+
+    private void contentLength(long len) {
+        if(BUFFERING == state) {
+            if(len >= 0 && len < owner.getMinSize()) {
+                passthrough();
+                forwardLength(len);
+            } else {
+                declaredLength = len;
+            }
+        } else if(PASSTHROUGH == state) {
+            forwardLength(len);
+        }
+        // compressed length is not known
+    }
+
+    private void forwardLength(long len) {
+        if(len <= Integer.MAX_VALUE) response.setContentLength((int) len);
+        else response.setHeader("Content-Length", Long.toString(len));
+    }
+
+    private static long parseLength(String value) {
+        try {
+            return null != value ? Long.parseLong(value.trim()) : -1;
+        } catch(NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void write(byte[] buf, int off, int len) throws IOException {
+        if(BUFFERING == state) {
+            if(null == threshold) threshold = owner.getThresholdPool().acquire();
+            if(count + len < threshold.length) {
+                System.arraycopy(buf, off, threshold, count, len);
+                count += len;
+                return;
+            }
+            decide(false);
+        }
+        if(COMPRESSING == state) {
+            deflate(buf, off, len);
+        } else {
+            target().write(buf, off, len);
+        }
+    }
+
+    // called when threshold is reached or on explicit flush, flushed responses are streamed uncompressed
+    private void decide(boolean flushing) throws IOException {
+        int status = response.getStatus();
+        boolean compress = !flushing && isCompressible(status)
+                && CompressingTransportHandler.isCompressible(response.getContentType())
+                && (declaredLength < 0 || declaredLength >= owner.getMinSize());
+        if(compress) {
+            state = COMPRESSING;
+            response.setHeader("Content-Encoding", CompressingTransportHandler.GZIP == encoding ? "gzip" : "deflate");
+            deflater = owner.deflaterPool(encoding).acquire();
+            output = owner.getOutputPool().acquire();
+            if(CompressingTransportHandler.GZIP == encoding) {
+                crc = new CRC32();
+                target().write(GZIP_HEADER);
+            }
+            if(count > 0) deflate(threshold, 0, count);
+        } else {
+            state = PASSTHROUGH;
+            if(declaredLength >= 0) forwardLength(declaredLength);
+            if(count > 0) target().write(threshold, 0, count);
+        }
+        count = 0;
+        releaseThreshold();
+    }
+
+    private static boolean isCompressible(int status) {
+        return status >= 200 && HttpServletResponse.SC_NO_CONTENT != status
+                && HttpServletResponse.SC_NOT_MODIFIED != status;
+    }
+
+    private void passthrough() {
+        if(BUFFERING != state) return;
+        state = PASSTHROUGH;
+        if(count > 0) {
+            // cannot happen for well-behaved handlers, headers are set before body
+            try {
+                target().write(threshold, 0, count);
+            } catch(IOException e) {
+                throw new IllegalStateException(e);
+            }
+            count = 0;
+        }
+        releaseThreshold();
+    }
+
+    private void passthroughDiscarding() {
+        if(BUFFERING != state) return;
+        count = 0;
+        passthrough();
+    }
+
+    private void flush() throws IOException {
+        if(BUFFERING == state) {
+            // writer is flushed on finish, body is not streamed
+            if(finishing) return;
+            decide(true);
+        }
+        if(null != target) target.flush();
+    }
+
+    private void deflate(byte[] buf, int off, int len) throws IOException {
+        if(null != crc) crc.update(buf, off, len);
+        deflater.setInput(buf, off, len);
+        while(!deflater.needsInput()) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        int len = deflater.deflate(output, 0, output.length);
+        if(len > 0) target().write(output, 0, len);
+    }
+
+    // real stream is obtained lazily, so exception handler may still use writer
+    private ServletOutputStream target() throws IOException {
+        if(null == target) target = response.getOutputStream();
+        return target;
+    }
+
+    private static void writeIntLE(ServletOutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+
+    private void releaseThreshold() {
+        if(null != threshold) {
+            owner.getThresholdPool().release(threshold);
+            threshold = null;
+        }
+    }
+
+    private void release() {
+        releaseThreshold();
+        if(null != deflater) {
+            owner.deflaterPool(encoding).release(deflater);
+            deflater = null;
+        }
+        if(null != output) {
+            owner.getOutputPool().release(output);
+            output = null;
+        }
+    }
+
+    private class Stream extends ServletOutputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            CompressingResponse.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            CompressingResponse.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            CompressingResponse.this.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // finished by transport handler
+        }
+    }
+}
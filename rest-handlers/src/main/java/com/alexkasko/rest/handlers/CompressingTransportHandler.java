@@ -0,0 +1,257 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Decorator for any {@link TransportHandler}, that compresses response bodies with {@code gzip}
+ * or {@code deflate} encoding negotiated using {@code Accept-Encoding} request header.
+ * Response body is buffered until it reaches minimal size, smaller responses (also responses
+ * with smaller {@code Content-Length} set by handler) are sent uncompressed. Responses with already
+ * compressed content types (images, audio, video, archives), with {@code Content-Encoding} set by handler
+ * and responses to {@code HEAD} requests are not compressed. Responses flushed by handler before reaching
+ * minimal size are streamed uncompressed, compressed data cannot be flushed, so routes, that stream
+ * large responses slowly, should not be wrapped. {@link Deflater}s and buffers are pooled.
+ * Wrapped handler receives URL parameters the same way as without decorator and is notified about
+ * registration if it implements {@link RegistrationAware}.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class CompressingTransportHandler<T extends RestHandler> implements UrlParamsTransportHandler<T>, RegistrationAware {
+    static final int IDENTITY = 0;
+    static final int GZIP = 1;
+    static final int DEFLATE = 2;
+    private static final int DEFAULT_MIN_SIZE = 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+    private static final String[] COMPRESSED_TYPES = {"image/", "video/", "audio/", "font/woff",
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-bzip2",
+            "application/x-xz", "application/x-7z-compressed", "application/x-rar-compressed",
+            "application/octet-stream"};
+
+    private final TransportHandler<T> delegate;
+    private final int minSize;
+    private final DeflaterPool gzipPool;
+    private final DeflaterPool deflatePool;
+    private final BufferPool thresholdPool;
+    private final BufferPool outputPool;
+
+    /**
+     * Constructor, compresses responses of 1024 bytes and larger with default compression level
+     *
+     * @param delegate transport handler to wrap
+     */
+    public CompressingTransportHandler(TransportHandler<T> delegate) {
+        this(delegate, DEFAULT_MIN_SIZE, Deflater.DEFAULT_COMPRESSION, 64);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param delegate transport handler to wrap
+     * @param minSize min response body size in bytes to compress
+     * @param level compression level, from {@code 1} (fastest) to {@code 9} (best compression),
+     *              or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param maxPooled max number of idle deflaters and buffers kept in pools
+     */
+    public CompressingTransportHandler(TransportHandler<T> delegate, int minSize, int level, int maxPooled) {
+        if(null == delegate) throw new IllegalArgumentException("Provided transport handler is null");
+        if(minSize <= 0 || minSize > 1 << 20) throw new IllegalArgumentException("Invalid min size: [" + minSize + "]");
+        if((level < 1 || level > 9) && Deflater.DEFAULT_COMPRESSION != level) throw new IllegalArgumentException(
+                "Invalid compression level: [" + level + "]");
+        if(maxPooled <= 0) throw new IllegalArgumentException("Invalid max pooled: [" + maxPooled + "]");
+        this.delegate = delegate;
+        this.minSize = minSize;
+        this.gzipPool = new DeflaterPool(level, true, maxPooled);
+        this.deflatePool = new DeflaterPool(level, false, maxPooled);
+        this.thresholdPool = new BufferPool(minSize, maxPooled);
+        this.outputPool = new BufferPool(OUTPUT_BUFFER_SIZE, maxPooled);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handle(Class<? extends T> handlerClass, HttpServletRequest request, HttpServletResponse response,
+                       Map<String, String> urlParams) throws Exception {
+        handle(handlerClass, request, response, UrlParams.of(urlParams));
+    }
+
+    /**
+     * Calls wrapped handler with compressing response, if client accepts compressed responses,
+     * finishes compressed stream after handler returns
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any application exception
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Class<? extends T> handlerClass, HttpServletRequest request, HttpServletResponse response,
+                       UrlParams urlParams) throws Exception {
+        if("HEAD".equals(request.getMethod())) {
+            delegate(handlerClass, request, response, urlParams);
+            return;
+        }
+        // response depends on request header even if it is not compressed
+        response.addHeader("Vary", "Accept-Encoding");
+        int encoding = negotiate(request.getHeader("Accept-Encoding"));
+        if(IDENTITY == encoding) {
+            delegate(handlerClass, request, response, urlParams);
+            return;
+        }
+        CompressingResponse wrapper = new CompressingResponse(response, this, encoding);
+        boolean success = false;
+        try {
+            delegate(handlerClass, request, wrapper, urlParams);
+            wrapper.finish();
+            success = true;
+        } finally {
+            if(!success) wrapper.abort();
+        }
+    }
+
+    /**
+     * Notifies wrapped handler about registration, if it implements {@link RegistrationAware}
+     *
+     * @param entry registered mapping entry
+     */
+    @Override
+    public void registered(HandlersMappingEntry<?> entry) {
+        if(delegate instanceof RegistrationAware) ((RegistrationAware) delegate).registered(entry);
+    }
+
+    /**
+     * Returns wrapped handler
+     *
+     * @return wrapped handler
+     */
+    public TransportHandler<T> getDelegate() {
+        return delegate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void delegate(Class<? extends T> handlerClass, HttpServletRequest request, HttpServletResponse response,
+                          UrlParams urlParams) throws Exception {
+        if(delegate instanceof UrlParamsTransportHandler) {
+            ((UrlParamsTransportHandler<T>) delegate).handle(handlerClass, request, response, urlParams);
+        } else {
+            delegate.handle(handlerClass, request, response, urlParams.toMap());
+        }
+    }
+
+    /**
+     * Chooses encoding from {@code Accept-Encoding} header value, prefers gzip
+     * over deflate on equal quality values
+     *
+     * @param header header value, may be null
+     * @return chosen encoding
+     */
+    static int negotiate(String header) {
+        if(null == header) return IDENTITY;
+        int gzipQ = -1;
+        int deflateQ = -1;
+        int anyQ = -1;
+        int len = header.length();
+        int pos = 0;
+        while(pos < len) {
+            int end = header.indexOf(',', pos);
+            if(-1 == end) end = len;
+            int semi = header.indexOf(';', pos);
+            int nameEnd = -1 != semi && semi < end ? semi : end;
+            int ns = skipSpaces(header, pos, nameEnd);
+            int ne = trimEnd(header, ns, nameEnd);
+            int q = -1 != semi && semi < end ? quality(header, semi + 1, end) : 1000;
+            if(tokenEquals(header, ns, ne, "gzip") || tokenEquals(header, ns, ne, "x-gzip")) gzipQ = Math.max(gzipQ, q);
+            else if(tokenEquals(header, ns, ne, "deflate")) deflateQ = q;
+            else if(tokenEquals(header, ns, ne, "*")) anyQ = q;
+            pos = end + 1;
+        }
+        if(-1 == gzipQ) gzipQ = anyQ;
+        if(-1 == deflateQ) deflateQ = anyQ;
+        if(gzipQ > 0 && gzipQ >= deflateQ) return GZIP;
+        if(deflateQ > 0) return DEFLATE;
+        return IDENTITY;
+    }
+
+    /**
+     * Checks whether content type is compressible
+     *
+     * @param contentType response content type, may be null
+     * @return {@code false} for unknown and already compressed types
+     */
+    static boolean isCompressible(String contentType) {
+        if(null == contentType) return false;
+        if(contentType.regionMatches(true, 0, "image/svg", 0, 9)) return true;
+        for(String type : COMPRESSED_TYPES) {
+            if(contentType.regionMatches(true, 0, type, 0, type.length())) return false;
+        }
+        return true;
+    }
+
+    // q parameter in thousandths, params other than q are ignored
+    private static int quality(String header, int from, int to) {
+        int pos = skipSpaces(header, from, to);
+        if(pos + 1 >= to || 'q' != header.charAt(pos) || '=' != header.charAt(pos + 1)) return 1000;
+        pos += 2;
+        if(pos >= to) return 1000;
+        int res = header.charAt(pos) == '1' ? 1000 : 0;
+        pos += 1;
+        if(pos < to && '.' == header.charAt(pos)) {
+            pos += 1;
+            for(int mult = 100; mult > 0 && pos < to; mult /= 10, pos++) {
+                char ch = header.charAt(pos);
+                if(ch < '0' || ch > '9') break;
+                if(res < 1000) res += (ch - '0') * mult;
+            }
+        }
+        return res;
+    }
+
+    private static int skipSpaces(String str, int from, int to) {
+        while(from < to && str.charAt(from) <= ' ') from++;
+        return from;
+    }
+
+    private static int trimEnd(String str, int from, int to) {
+        while(to > from && str.charAt(to - 1) <= ' ') to--;
+        return to;
+    }
+
+    private static boolean tokenEquals(String str, int from, int to, String token) {
+        return to - from == token.length() && str.regionMatches(true, from, token, 0, token.length());
+    }
+
+    int getMinSize() {
+        return minSize;
+    }
+
+    DeflaterPool deflaterPool(int encoding) {
+        return GZIP == encoding ? gzipPool : deflatePool;
+    }
+
+    BufferPool getThresholdPool() {
+        return thresholdPool;
+    }
+
+    BufferPool getOutputPool() {
+        return outputPool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("CompressingTransportHandler");
+        sb.append("{delegate=").append(delegate);
+        sb.append(", minSize=").append(minSize);
+        sb.append('}');
+        return sb.toString();
+    }
+}
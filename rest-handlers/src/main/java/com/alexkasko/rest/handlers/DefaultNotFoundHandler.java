@@ -22,22 +22,22 @@ public class DefaultNotFoundHandler implements NotFoundHandler {
         response.setStatus(SC_NOT_FOUND);
         response.getWriter().write("Cannot find handler for request, path: '" + request.getPathInfo() + "'\n");
         response.getWriter().write("Registered handlers:\n");
-        for(HandlersMappingEntry en : dispatcher.getRegistryGet()) {
+        for(HandlersMappingEntry<?> en : dispatcher.getRegistryGet()) {
             response.getWriter().write("GET: ");
             response.getWriter().write(en.getPattern());
             response.getWriter().write("\n");
         }
-        for(HandlersMappingEntry en : dispatcher.getRegistryPost()) {
+        for(HandlersMappingEntry<?> en : dispatcher.getRegistryPost()) {
             response.getWriter().write("POST: ");
             response.getWriter().write(en.getPattern());
             response.getWriter().write("\n");
         }
-        for(HandlersMappingEntry en : dispatcher.getRegistryPut()) {
+        for(HandlersMappingEntry<?> en : dispatcher.getRegistryPut()) {
             response.getWriter().write("PUT: ");
             response.getWriter().write(en.getPattern());
             response.getWriter().write("\n");
         }
-        for(HandlersMappingEntry en : dispatcher.getRegistryDelete()) {
+        for(HandlersMappingEntry<?> en : dispatcher.getRegistryDelete()) {
             response.getWriter().write("DELETE: ");
             response.getWriter().write(en.getPattern());
             response.getWriter().write("\n");
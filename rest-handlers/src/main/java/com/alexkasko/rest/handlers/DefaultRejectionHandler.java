@@ -0,0 +1,25 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Default {@link RejectionHandler} implementation, returns plain-text response with status
+ * of rejection reason and with {@code Retry-After} header
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class DefaultRejectionHandler implements RejectionHandler {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handle(RejectionReason reason, long retryAfterSeconds, HttpServletRequest request,
+                       HttpServletResponse response) throws Exception {
+        response.setStatus(reason.getStatus());
+        if(retryAfterSeconds > 0) response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType("text/plain");
+        response.getWriter().write("Request rejected, reason: [" + reason + "], path: '" + request.getPathInfo() + "'\n");
+    }
+}
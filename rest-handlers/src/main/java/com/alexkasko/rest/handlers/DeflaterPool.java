@@ -0,0 +1,68 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.Deflater;
+
+/**
+ * Lock-free pool of reusable {@link Deflater}s with the same settings, same probing scheme
+ * as in {@link BufferPool}. Deflaters hold native memory, so released ones are reset and
+ * dropped ones are ended explicitly instead of waiting for finalization.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class DeflaterPool {
+    private final int level;
+    private final boolean nowrap;
+    private final AtomicReferenceArray<Deflater> slots;
+
+    /**
+     * Constructor
+     *
+     * @param level compression level
+     * @param nowrap {@code true} for raw deflate data (used in gzip), {@code false} for zlib format
+     * @param maxPooled max number of idle deflaters kept in pool
+     */
+    DeflaterPool(int level, boolean nowrap, int maxPooled) {
+        this.level = level;
+        this.nowrap = nowrap;
+        this.slots = new AtomicReferenceArray<Deflater>(maxPooled);
+    }
+
+    /**
+     * Returns pooled deflater or creates new one
+     *
+     * @return deflater ready for new stream
+     */
+    Deflater acquire() {
+        int len = slots.length();
+        int start = start(len);
+        for(int i = 0; i < len; i++) {
+            int idx = (start + i) % len;
+            Deflater def = slots.get(idx);
+            if(null != def && slots.compareAndSet(idx, def, null)) return def;
+        }
+        return new Deflater(level, nowrap);
+    }
+
+    /**
+     * Resets deflater and returns it to pool, ends it if pool is full
+     *
+     * @param def deflater obtained with {@link #acquire()}
+     */
+    void release(Deflater def) {
+        if(null == def) return;
+        def.reset();
+        int len = slots.length();
+        int start = start(len);
+        for(int i = 0; i < len; i++) {
+            int idx = (start + i) % len;
+            if(null == slots.get(idx) && slots.compareAndSet(idx, null, def)) return;
+        }
+        def.end();
+    }
+
+    private static int start(int len) {
+        return (int) (Thread.currentThread().getId() % len);
+    }
+}
@@ -0,0 +1,161 @@
+package com.alexkasko.rest.handlers;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Requests statistics of {@link HandlersDispatcher}: counters and latency percentiles for each route,
+ * not-found and rejected requests counters. Statistics are recorded only if enabled with
+ * {@link HandlersDispatcher.Builder#setMetricsEnabled(boolean)}. May be published to JMX
+ * with {@link #registerMBean(String)}. Instances are thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher#getMetrics()
+ */
+public class DispatcherMetrics implements DispatcherMetricsMXBean {
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private final List<List<HandlersMappingEntry<?>>> registries;
+    private final StripedCounter notFound = new StripedCounter();
+    private final StripedCounter rateLimited = new StripedCounter();
+    private final StripedCounter concurrencyLimited = new StripedCounter();
+    private volatile ObjectName mbeanName;
+
+    /**
+     * Package private constructor
+     *
+     * @param registries GET, POST, PUT and DELETE registries
+     */
+    DispatcherMetrics(List<List<HandlersMappingEntry<?>>> registries) {
+        this.registries = registries;
+    }
+
+    /**
+     * Records request, that did not match any route
+     */
+    void notFound() {
+        notFound.increment();
+    }
+
+    /**
+     * Records request rejected without calling transport handler
+     *
+     * @param reason rejection reason
+     */
+    void rejected(RejectionReason reason) {
+        if(RejectionReason.RATE_LIMIT == reason) rateLimited.increment();
+        else concurrencyLimited.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNotFoundCount() {
+        return notFound.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getConcurrencyLimitedCount() {
+        return concurrencyLimited.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRequestsCount() {
+        long res = 0;
+        for(RouteStats rs : getRoutes()) {
+            res += rs.getRequests();
+        }
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getErrorsCount() {
+        long res = 0;
+        for(RouteStats rs : getRoutes()) {
+            res += rs.getErrors();
+        }
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RouteStats> getRoutes() {
+        List<RouteStats> res = new ArrayList<RouteStats>();
+        for(int i = 0; i < METHODS.length; i++) {
+            for(HandlersMappingEntry<?> en : registries.get(i)) {
+                res.add(en.getMetrics().snapshot(METHODS[i], en.getPattern()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Registers this instance in platform MBean server
+     *
+     * @param objectName JMX object name, e.g. {@code com.myapp:type=HandlersDispatcher}
+     * @throws IllegalArgumentException on invalid name or name already registered by another instance
+     * @throws IllegalStateException if this instance is already registered
+     */
+    public synchronized void registerMBean(String objectName) {
+        if(null != mbeanName) throw new IllegalStateException("MBean is already registered: [" + mbeanName + "]");
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            this.mbeanName = name;
+        } catch(Exception e) {
+            throw new IllegalArgumentException("Cannot register MBean with name: [" + objectName + "]", e);
+        }
+    }
+
+    /**
+     * Unregisters this instance from platform MBean server, does nothing if it was not registered
+     */
+    public synchronized void unregisterMBean() {
+        if(null == mbeanName) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if(server.isRegistered(mbeanName)) server.unregisterMBean(mbeanName);
+        } catch(Exception e) {
+            throw new IllegalStateException("Cannot unregister MBean with name: [" + mbeanName + "]", e);
+        } finally {
+            mbeanName = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("DispatcherMetrics");
+        sb.append("{notFound=").append(notFound.get());
+        sb.append(", routes=").append(getRoutes());
+        sb.append('}');
+        return sb.toString();
+    }
+}
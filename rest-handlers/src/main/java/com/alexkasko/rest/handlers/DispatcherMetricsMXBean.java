@@ -0,0 +1,54 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.List;
+
+/**
+ * JMX interface of {@link DispatcherMetrics}, route statistics are exposed as composite data
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public interface DispatcherMetricsMXBean {
+
+    /**
+     * Returns number of requests, that did not match any route
+     *
+     * @return not-found requests count
+     */
+    long getNotFoundCount();
+
+    /**
+     * Returns number of requests rejected by dispatcher or route rate limiters
+     *
+     * @return rate-limited requests count
+     */
+    long getRateLimitedCount();
+
+    /**
+     * Returns number of requests rejected by route bulkheads
+     *
+     * @return concurrency-limited requests count
+     */
+    long getConcurrencyLimitedCount();
+
+    /**
+     * Returns number of requests to all routes
+     *
+     * @return requests count
+     */
+    long getRequestsCount();
+
+    /**
+     * Returns number of failed requests to all routes
+     *
+     * @return errors count
+     */
+    long getErrorsCount();
+
+    /**
+     * Returns statistics of all routes in registration order
+     *
+     * @return routes statistics
+     */
+    List<RouteStats> getRoutes();
+}
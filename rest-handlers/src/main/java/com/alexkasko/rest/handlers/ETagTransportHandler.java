@@ -0,0 +1,222 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * Decorator for {@link TransportHandler}s of {@code GET} routes, that adds {@code ETag} header to responses
+ * and answers conditional requests with {@code 304 Not Modified} if {@code If-None-Match} header matches.
+ * If application handler implements {@link VersionedHandler} and returns non-null version, version is used
+ * as entity tag and on match neither application handler nor wrapped transport handler is called.
+ * Otherwise successful response body is captured in memory and its 64-bit hash is used as entity tag,
+ * on match body is not sent. Weak entity tags are used, so decorator may be wrapped with
+ * {@link CompressingTransportHandler}: {@code new CompressingTransportHandler<T>(new ETagTransportHandler<T>(th))}.
+ * Requests with other methods are passed to wrapped handler as is.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class ETagTransportHandler<T extends RestHandler> implements UrlParamsTransportHandler<T>, RegistrationAware {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final TransportHandler<T> delegate;
+    private final HandlerProvider provider;
+    private final BufferPool pool;
+
+    /**
+     * Constructor, entity tags are computed from response bodies
+     *
+     * @param delegate transport handler to wrap
+     */
+    public ETagTransportHandler(TransportHandler<T> delegate) {
+        this(delegate, null, new BufferPool(8192, 64));
+    }
+
+    /**
+     * Constructor, versions of {@link VersionedHandler}s are used as entity tags
+     *
+     * @param delegate transport handler to wrap
+     * @param provider provider of application handlers, should be the same one, that is used by wrapped handler
+     */
+    public ETagTransportHandler(TransportHandler<T> delegate, HandlerProvider provider) {
+        this(delegate, provider, new BufferPool(8192, 64));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param delegate transport handler to wrap
+     * @param provider provider of application handlers, {@code null} to always compute entity tags
+     *                 from response bodies
+     * @param pool pool of buffers for response bodies capturing
+     */
+    public ETagTransportHandler(TransportHandler<T> delegate, HandlerProvider provider, BufferPool pool) {
+        if(null == delegate) throw new IllegalArgumentException("Provided transport handler is null");
+        if(null == pool) throw new IllegalArgumentException("Provided buffer pool is null");
+        this.delegate = delegate;
+        this.provider = provider;
+        this.pool = pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handle(Class<? extends T> handlerClass, HttpServletRequest request, HttpServletResponse response,
+                       Map<String, String> urlParams) throws Exception {
+        handle(handlerClass, request, response, UrlParams.of(urlParams));
+    }
+
+    /**
+     * Answers {@code 304} if handler version matches {@code If-None-Match}, otherwise calls wrapped
+     * handler and answers {@code 304} if hash of its response body matches
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any application exception
+     */
+    @Override
+    public void handle(Class<? extends T> handlerClass, HttpServletRequest request, HttpServletResponse response,
+                       UrlParams urlParams) throws Exception {
+        if(!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            delegate(handlerClass, request, response, urlParams);
+            return;
+        }
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if(null != provider && VersionedHandler.class.isAssignableFrom(handlerClass)) {
+            String version = version(handlerClass, urlParams);
+            if(null != version) {
+                response.setHeader("ETag", "W/\"" + version + "\"");
+                if(matches(ifNoneMatch, version)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                } else {
+                    delegate(handlerClass, request, response, urlParams);
+                }
+                return;
+            }
+        }
+        BufferingResponse wrapper = new BufferingResponse(response, pool);
+        try {
+            delegate(handlerClass, request, wrapper, urlParams);
+            wrapper.finishBody();
+            if(HttpServletResponse.SC_OK == response.getStatus()) {
+                String tag = hex(hash(wrapper.getBody(), wrapper.getBodyLength()));
+                response.setHeader("ETag", "W/\"" + tag + "\"");
+                if(matches(ifNoneMatch, tag)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+            wrapper.sendBody();
+        } finally {
+            wrapper.release();
+        }
+    }
+
+    /**
+     * Notifies wrapped handler about registration, registers versioned handlers in provider
+     *
+     * @param entry registered mapping entry
+     */
+    @Override
+    public void registered(HandlersMappingEntry<?> entry) {
+        if(delegate instanceof RegistrationAware) ((RegistrationAware) delegate).registered(entry);
+        if(null != provider && VersionedHandler.class.isAssignableFrom(entry.getRestHandlerClass())) {
+            provider.register(entry.getRestHandlerClass());
+        }
+    }
+
+    /**
+     * Returns wrapped handler
+     *
+     * @return wrapped handler
+     */
+    public TransportHandler<T> getDelegate() {
+        return delegate;
+    }
+
+    private String version(Class<? extends T> handlerClass, UrlParams urlParams) {
+        VersionedHandler ha = (VersionedHandler) provider.acquire(handlerClass);
+        try {
+            String version = ha.version(urlParams);
+            if(null != version && version.indexOf('"') >= 0) throw new IllegalStateException(
+                    "Invalid version: [" + version + "] returned by handler: [" + handlerClass.getName() + "]");
+            return version;
+        } finally {
+            provider.release(ha);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void delegate(Class<? extends T> handlerClass, HttpServletRequest request, HttpServletResponse response,
+                          UrlParams urlParams) throws Exception {
+        if(delegate instanceof UrlParamsTransportHandler) {
+            ((UrlParamsTransportHandler<T>) delegate).handle(handlerClass, request, response, urlParams);
+        } else {
+            delegate.handle(handlerClass, request, response, urlParams.toMap());
+        }
+    }
+
+    /**
+     * Checks whether {@code If-None-Match} header contains entity tag with specified opaque value,
+     * using weak comparison
+     *
+     * @param header header value, may be null
+     * @param opaque entity tag value without quotes
+     * @return whether tag matches
+     */
+    static boolean matches(String header, String opaque) {
+        if(null == header) return false;
+        int len = header.length();
+        int pos = 0;
+        while(pos < len) {
+            while(pos < len && (header.charAt(pos) <= ' ' || ',' == header.charAt(pos))) pos++;
+            if(pos >= len) return false;
+            if('*' == header.charAt(pos)) return true;
+            if(header.startsWith("W/", pos)) pos += 2;
+            if(pos >= len || '"' != header.charAt(pos)) return false;
+            int end = header.indexOf('"', pos + 1);
+            if(-1 == end) return false;
+            if(end - pos - 1 == opaque.length() && header.startsWith(opaque, pos + 1)) return true;
+            pos = end + 1;
+        }
+        return false;
+    }
+
+    // FNV-1a, changes of resource must change the tag, collisions resistance is not required
+    static long hash(byte[] data, int len) {
+        long hash = FNV_OFFSET;
+        for(int i = 0; i < len; i++) {
+            hash ^= data[i] & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String hex(long value) {
+        char[] chars = new char[16];
+        for(int i = 15; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("ETagTransportHandler");
+        sb.append("{delegate=").append(delegate);
+        sb.append(", provider=").append(provider);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,547 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport handler of {@code GET} routes, that serves files from root directory, e.g.
+ * {@code addGet("^/files/(?<path>.+)$", FileTransportHandler.builder(new File("/var/reports")).build(), RestHandler.class)}.
+ * File path relative to root is taken from named URL parameter ({@code path} by default), application handler
+ * class is not used. File contents are sent with {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ * directly to servlet output stream if container implements it as channel, otherwise through channel adapter,
+ * so no buffers are allocated for file contents on heap. Single byte range requests ({@code Range: bytes=...})
+ * are answered with {@code 206}, unsatisfiable ranges with {@code 416}, multiple ranges are ignored and whole
+ * file is sent. {@code Last-Modified} and {@code Accept-Ranges} headers are set, requests with
+ * {@code If-Modified-Since} not older than file modification time are answered with {@code 304},
+ * {@code If-Range} dates are supported. {@code Content-Type} is chosen by file extension.
+ * <p>
+ * Open file channels with file length, modification time and content type are kept in bounded LRU cache,
+ * file metadata is rechecked after revalidation interval and changed files are reopened. Channels are
+ * reference counted, channel evicted from cache is closed after its last transfer completes.
+ * Paths with {@code ..} segments, backslashes or {@code NUL} characters are rejected, canonical path of each
+ * file (with symbolic links resolved) must be inside canonical root, other paths, missing files
+ * and directories are answered with {@code 404}. {@link #close()} should be called on application shutdown.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class FileTransportHandler implements UrlParamsTransportHandler<RestHandler>, Closeable {
+    private static final Map<String, String> DEFAULT_CONTENT_TYPES = defaultContentTypes();
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private final File root;
+    private final String rootPrefix;
+    private final String paramName;
+    private final int cacheSize;
+    private final long revalidateNanos;
+    private final Map<String, String> contentTypes;
+    // access ordered, guarded by itself
+    private final LinkedHashMap<String, OpenFile> cache = new LinkedHashMap<String, OpenFile>(16, 0.75f, true);
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+    private volatile boolean closed = false;
+
+    private FileTransportHandler(Builder builder) {
+        try {
+            this.root = builder.root.getCanonicalFile();
+        } catch(IOException e) {
+            throw new IllegalArgumentException("Invalid root directory: [" + builder.root + "]", e);
+        }
+        if(!root.isDirectory()) throw new IllegalArgumentException("Invalid root directory: [" + builder.root + "]");
+        String path = root.getPath();
+        this.rootPrefix = path.endsWith(File.separator) ? path : path + File.separator;
+        this.paramName = builder.paramName;
+        this.cacheSize = builder.cacheSize;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(builder.revalidateMillis);
+        this.contentTypes = new HashMap<String, String>(builder.contentTypes);
+    }
+
+    /**
+     * Returns builder for {@code FileTransportHandler}
+     *
+     * @param root root directory of served files
+     * @return builder instance
+     */
+    public static Builder builder(File root) {
+        return new Builder(root);
+    }
+
+    /**
+     * Delegates to {@link #handle(Class, HttpServletRequest, HttpServletResponse, UrlParams)}
+     *
+     * @param handlerClass not used
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on I/O error
+     */
+    @Override
+    public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+        handle(handlerClass, request, response, UrlParams.of(urlParams));
+    }
+
+    /**
+     * Sends file, its part or {@code 304} response for file, that is specified with URL parameter
+     *
+     * @param handlerClass not used
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on I/O error
+     */
+    @Override
+    public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                       HttpServletResponse response, UrlParams urlParams) throws Exception {
+        if(closed) throw new IllegalStateException("File transport handler is closed");
+        OpenFile file = acquire(urlParams.get(paramName));
+        if(null == file) {
+            notFound(request, response);
+            return;
+        }
+        try {
+            send(file, request, response);
+        } catch(ClosedChannelException e) {
+            // channel is closed on interruption of any thread using it
+            invalidate(file);
+            throw e;
+        } finally {
+            file.release();
+        }
+    }
+
+    private void send(OpenFile file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setDateHeader("Last-Modified", file.lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        long ims = dateHeader(request, "If-Modified-Since");
+        if(ims >= 0 && file.lastModified / 1000 <= ims / 1000) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(file.contentType);
+        long start = 0;
+        long count = file.length;
+        String range = request.getHeader("Range");
+        if(null != range && ifRangeMatches(request, file)) {
+            long[] parsed = parseRange(range, file.length);
+            if(null == parsed) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + file.length);
+                response.setContentLength(0);
+                return;
+            }
+            if(parsed.length > 0) {
+                start = parsed[0];
+                count = parsed[1] - parsed[0] + 1;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + parsed[0] + "-" + parsed[1] + "/" + file.length);
+            }
+        }
+        if(count <= Integer.MAX_VALUE) response.setContentLength((int) count);
+        else response.setHeader("Content-Length", Long.toString(count));
+        if("HEAD".equals(request.getMethod())) return;
+        transfer(file, start, count, response.getOutputStream());
+    }
+
+    private static void transfer(OpenFile file, long start, long count, OutputStream out) throws IOException {
+        WritableByteChannel target = out instanceof WritableByteChannel ?
+                (WritableByteChannel) out : Channels.newChannel(out);
+        long pos = start;
+        long end = start + count;
+        while(pos < end) {
+            long written = file.channel.transferTo(pos, end - pos, target);
+            if(written <= 0) throw new IOException("File: [" + file.file + "] was truncated during transfer");
+            pos += written;
+        }
+        out.flush();
+    }
+
+    /**
+     * Parses single byte range of {@code Range} header
+     *
+     * @param header {@code Range} header value
+     * @param length file length
+     * @return first and last byte positions, {@code null} for unsatisfiable range,
+     *         empty array if range should be ignored
+     */
+    static long[] parseRange(String header, long length) {
+        String spec = header.trim();
+        if(!spec.regionMatches(true, 0, "bytes=", 0, 6)) return new long[0];
+        spec = spec.substring(6).trim();
+        // multiple ranges are not supported, whole file is sent
+        if(spec.indexOf(',') >= 0) return new long[0];
+        int dash = spec.indexOf('-');
+        if(dash < 0) return new long[0];
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if(0 == first.length()) {
+                // suffix range
+                if(0 == last.length()) return new long[0];
+                long suffix = Long.parseLong(last);
+                if(suffix < 0) return new long[0];
+                if(0 == suffix || 0 == length) return null;
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long from = Long.parseLong(first);
+            long to = 0 == last.length() ? Long.MAX_VALUE : Long.parseLong(last);
+            if(from < 0 || to < from) return new long[0];
+            if(from >= length) return null;
+            return new long[]{from, Math.min(to, length - 1)};
+        } catch(NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, OpenFile file) {
+        if(null == request.getHeader("If-Range")) return true;
+        // entity tags are not used, so only dates may match
+        long date = dateHeader(request, "If-Range");
+        return date >= 0 && file.lastModified / 1000 == date / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch(IllegalArgumentException e) {
+            // malformed date is ignored
+            return -1;
+        }
+    }
+
+    private OpenFile acquire(String path) throws IOException {
+        if(!isSafe(path)) return null;
+        long now = System.nanoTime();
+        synchronized(cache) {
+            OpenFile cached = cache.get(path);
+            if(null != cached && now - cached.checked < revalidateNanos) {
+                hits.increment();
+                cached.retain();
+                return cached;
+            }
+        }
+        File file = resolve(path);
+        if(null == file) {
+            misses.increment();
+            remove(path, null);
+            return null;
+        }
+        long length = file.length();
+        long lastModified = file.lastModified();
+        synchronized(cache) {
+            OpenFile cached = cache.get(path);
+            if(null != cached && cached.length == length && cached.lastModified == lastModified
+                    && cached.file.equals(file)) {
+                hits.increment();
+                cached.checked = now;
+                cached.retain();
+                return cached;
+            }
+        }
+        misses.increment();
+        final RandomAccessFile raf;
+        try {
+            raf = new RandomAccessFile(file, "r");
+        } catch(IOException e) {
+            // removed concurrently or not readable
+            return null;
+        }
+        OpenFile opened = new OpenFile(file, raf.getChannel(), length, lastModified, contentType(file.getName()), now);
+        opened.retain();
+        put(path, opened);
+        return opened;
+    }
+
+    // returns null if file is outside of root or is not a regular file
+    private File resolve(String path) throws IOException {
+        File file = new File(root, path).getCanonicalFile();
+        if(!file.getPath().startsWith(rootPrefix)) return null;
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Checks relative file path before resolving it against root directory
+     *
+     * @param path relative path from URL parameter
+     * @return {@code false} for empty paths, paths with {@code ..} segments, backslashes or {@code NUL} characters
+     */
+    static boolean isSafe(String path) {
+        if(null == path || 0 == path.length()) return false;
+        if(path.indexOf('\0') >= 0 || path.indexOf('\\') >= 0) return false;
+        int start = 0;
+        while(start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if(end < 0) end = path.length();
+            if(2 == end - start && path.startsWith("..", start)) return false;
+            start = end + 1;
+        }
+        return true;
+    }
+
+    private String contentType(String name) {
+        int dot = name.lastIndexOf('.');
+        if(dot < 0) return DEFAULT_CONTENT_TYPE;
+        String type = contentTypes.get(name.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+        return null != type ? type : DEFAULT_CONTENT_TYPE;
+    }
+
+    private void put(String path, OpenFile opened) {
+        List<OpenFile> evicted = new ArrayList<OpenFile>();
+        synchronized(cache) {
+            if(closed) {
+                // cache reference is dropped at once, channel is closed after transfer
+                evicted.add(opened);
+            } else {
+                OpenFile previous = cache.put(path, opened);
+                if(null != previous) evicted.add(previous);
+                Iterator<OpenFile> it = cache.values().iterator();
+                while(cache.size() > cacheSize && it.hasNext()) {
+                    evicted.add(it.next());
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        }
+        for(OpenFile of : evicted) {
+            of.release();
+        }
+    }
+
+    private void remove(String path, OpenFile expected) {
+        final OpenFile removed;
+        synchronized(cache) {
+            OpenFile existing = cache.get(path);
+            if(null == existing || (null != expected && expected != existing)) return;
+            removed = cache.remove(path);
+        }
+        removed.release();
+    }
+
+    private void invalidate(OpenFile file) {
+        List<String> keys = new ArrayList<String>();
+        synchronized(cache) {
+            for(Map.Entry<String, OpenFile> en : cache.entrySet()) {
+                if(en.getValue() == file) keys.add(en.getKey());
+            }
+        }
+        for(String key : keys) {
+            remove(key, file);
+        }
+    }
+
+    private static void notFound(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        response.setContentType("text/plain");
+        response.getWriter().write("File not found, path: '" + request.getPathInfo() + "'\n");
+    }
+
+    /**
+     * Returns statistics of open files cache
+     *
+     * @return cache statistics snapshot
+     */
+    public CacheStats getCacheStats() {
+        final int size;
+        synchronized(cache) {
+            size = cache.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    /**
+     * Closes cached file channels, channels used by transfers in progress are closed after transfers complete
+     */
+    @Override
+    public void close() {
+        List<OpenFile> files;
+        synchronized(cache) {
+            closed = true;
+            files = new ArrayList<OpenFile>(cache.values());
+            cache.clear();
+        }
+        for(OpenFile of : files) {
+            of.release();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("FileTransportHandler");
+        sb.append("{root=").append(root);
+        sb.append(", paramName=").append(paramName);
+        sb.append(", cacheSize=").append(cacheSize);
+        sb.append(", revalidateMillis=").append(TimeUnit.NANOSECONDS.toMillis(revalidateNanos));
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static Map<String, String> defaultContentTypes() {
+        Map<String, String> res = new HashMap<String, String>();
+        res.put("html", "text/html; charset=UTF-8");
+        res.put("htm", "text/html; charset=UTF-8");
+        res.put("txt", "text/plain; charset=UTF-8");
+        res.put("csv", "text/csv; charset=UTF-8");
+        res.put("css", "text/css; charset=UTF-8");
+        res.put("js", "application/javascript; charset=UTF-8");
+        res.put("json", "application/json; charset=UTF-8");
+        res.put("xml", "application/xml");
+        res.put("pdf", "application/pdf");
+        res.put("zip", "application/zip");
+        res.put("gz", "application/gzip");
+        res.put("wasm", "application/wasm");
+        res.put("png", "image/png");
+        res.put("jpg", "image/jpeg");
+        res.put("jpeg", "image/jpeg");
+        res.put("gif", "image/gif");
+        res.put("svg", "image/svg+xml");
+        res.put("ico", "image/x-icon");
+        res.put("woff", "font/woff");
+        res.put("woff2", "font/woff2");
+        res.put("mp4", "video/mp4");
+        return res;
+    }
+
+    /**
+     * Builder class for {@link FileTransportHandler}
+     */
+    public static class Builder {
+        private final File root;
+        private String paramName = "path";
+        private int cacheSize = 256;
+        private long revalidateMillis = 1000;
+        private final Map<String, String> contentTypes = new HashMap<String, String>(DEFAULT_CONTENT_TYPES);
+
+        /**
+         * Constructor
+         *
+         * @param root root directory of served files
+         */
+        public Builder(File root) {
+            if(null == root) throw new IllegalArgumentException("Provided root directory is null");
+            this.root = root;
+        }
+
+        /**
+         * Sets name of URL parameter with file path relative to root directory, {@code path} by default
+         *
+         * @param paramName URL parameter name
+         * @return builder itself
+         */
+        public Builder setParamName(String paramName) {
+            if(null == paramName || 0 == paramName.length()) throw new IllegalArgumentException(
+                    "Invalid param name: [" + paramName + "]");
+            this.paramName = paramName;
+            return this;
+        }
+
+        /**
+         * Sets max number of open files kept in cache, least recently used files are closed
+         * when it is reached, 256 by default
+         *
+         * @param cacheSize max number of cached open files
+         * @return builder itself
+         */
+        public Builder setCacheSize(int cacheSize) {
+            if(cacheSize < 0) throw new IllegalArgumentException("Invalid cache size: [" + cacheSize + "]");
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Sets interval of file length and modification time checks for cached files,
+         * {@code 0} checks them on each request, 1 second by default
+         *
+         * @param revalidateMillis revalidation interval in milliseconds
+         * @return builder itself
+         */
+        public Builder setRevalidate(long revalidateMillis) {
+            if(revalidateMillis < 0) throw new IllegalArgumentException(
+                    "Invalid revalidate interval: [" + revalidateMillis + "]");
+            this.revalidateMillis = revalidateMillis;
+            return this;
+        }
+
+        /**
+         * Adds or replaces content type for file extension
+         *
+         * @param extension file extension without dot, case insensitive
+         * @param contentType content type
+         * @return builder itself
+         */
+        public Builder addContentType(String extension, String contentType) {
+            if(null == extension || 0 == extension.length()) throw new IllegalArgumentException(
+                    "Invalid extension: [" + extension + "]");
+            if(null == contentType) throw new IllegalArgumentException("Provided content type is null");
+            contentTypes.put(extension.toLowerCase(Locale.ENGLISH), contentType);
+            return this;
+        }
+
+        /**
+         * Builds transport handler instance
+         *
+         * @return transport handler instance
+         * @throws IllegalArgumentException if root directory does not exist
+         */
+        public FileTransportHandler build() {
+            return new FileTransportHandler(this);
+        }
+    }
+
+    private static class OpenFile {
+        private final File file;
+        private final FileChannel channel;
+        private final long length;
+        private final long lastModified;
+        private final String contentType;
+        // guarded by cache lock
+        private long checked;
+        // one reference is held by cache
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private OpenFile(File file, FileChannel channel, long length, long lastModified, String contentType,
+                         long checked) {
+            this.file = file;
+            this.channel = channel;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.checked = checked;
+        }
+
+        private void retain() {
+            refs.incrementAndGet();
+        }
+
+        private void release() {
+            if(0 != refs.decrementAndGet()) return;
+            try {
+                channel.close();
+            } catch(IOException e) {
+                // read-only channel
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Response wrapper for async handler calls, that may be still running after request was completed
+ * on timeout. All writes, flushes and status and headers changes are done under the lock shared
+ * with the thread, that completes the request, and become no-ops once completion flag is set,
+ * so handler output cannot interleave with exception handler output and cannot reach the response
+ * after it was completed and possibly recycled by container.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class GuardedResponse extends HttpServletResponseWrapper {
+    private final Object lock;
+    private final AtomicBoolean completed;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    /**
+     * Constructor
+     *
+     * @param response response to wrap
+     * @param lock lock, that must be held by completing thread when it sets completion flag
+     *             and writes into wrapped response
+     * @param completed completion flag
+     */
+    GuardedResponse(HttpServletResponse response, Object lock, AtomicBoolean completed) {
+        super(response);
+        this.lock = lock;
+        this.completed = completed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        synchronized(lock) {
+            if(null == stream) stream = new Stream(super.getOutputStream());
+            return stream;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        synchronized(lock) {
+            if(null == writer) writer = new PrintWriter(new GuardedWriter(super.getWriter()));
+            return writer;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStatus(int sc) {
+        synchronized(lock) {
+            if(!completed.get()) super.setStatus(sc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        synchronized(lock) {
+            if(!completed.get()) super.setStatus(sc, sm);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendError(int sc) throws IOException {
+        synchronized(lock) {
+            if(!completed.get()) super.sendError(sc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        synchronized(lock) {
+            if(!completed.get()) super.sendError(sc, msg);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        synchronized(lock) {
+            if(!completed.get()) super.sendRedirect(location);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHeader(String name, String value) {
+        synchronized(lock) {
+            if(!completed.get()) super.setHeader(name, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(String name, String value) {
+        synchronized(lock) {
+            if(!completed.get()) super.addHeader(name, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setIntHeader(String name, int value) {
+        synchronized(lock) {
+            if(!completed.get()) super.setIntHeader(name, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addIntHeader(String name, int value) {
+        synchronized(lock) {
+            if(!completed.get()) super.addIntHeader(name, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDateHeader(String name, long date) {
+        synchronized(lock) {
+            if(!completed.get()) super.setDateHeader(name, date);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDateHeader(String name, long date) {
+        synchronized(lock) {
+            if(!completed.get()) super.addDateHeader(name, date);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addCookie(Cookie cookie) {
+        synchronized(lock) {
+            if(!completed.get()) super.addCookie(cookie);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setContentLength(int len) {
+        synchronized(lock) {
+            if(!completed.get()) super.setContentLength(len);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setContentType(String type) {
+        synchronized(lock) {
+            if(!completed.get()) super.setContentType(type);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCharacterEncoding(String charset) {
+        synchronized(lock) {
+            if(!completed.get()) super.setCharacterEncoding(charset);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLocale(Locale loc) {
+        synchronized(lock) {
+            if(!completed.get()) super.setLocale(loc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBufferSize(int size) {
+        synchronized(lock) {
+            if(!completed.get()) super.setBufferSize(size);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushBuffer() throws IOException {
+        synchronized(lock) {
+            if(!completed.get()) super.flushBuffer();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        synchronized(lock) {
+            if(!completed.get()) super.reset();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resetBuffer() {
+        synchronized(lock) {
+            if(!completed.get()) super.resetBuffer();
+        }
+    }
+
+    private class Stream extends ServletOutputStream {
+        private final ServletOutputStream target;
+
+        private Stream(ServletOutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.close();
+            }
+        }
+    }
+
+    private class GuardedWriter extends Writer {
+        private final Writer target;
+
+        private GuardedWriter(Writer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.write(cbuf, off, len);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.write(str, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized(lock) {
+                if(!completed.get()) target.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * Provides {@link RestHandler} instances to {@link TransportHandler}s, defines handler instances lifecycle.
+ * Handler classes should be registered on startup (e.g. from {@link RegistrationAware#registered(HandlersMappingEntry)}),
+ * instances obtained with {@link #acquire(Class)} must be returned with {@link #release(RestHandler)}.
+ * Implementations must be thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see SingletonHandlerProvider
+ * @see ThreadLocalHandlerProvider
+ * @see PooledHandlerProvider
+ * @see NewInstanceHandlerProvider
+ */
+public interface HandlerProvider {
+    /**
+     * Checks that handler class may be instantiated and prepares its instances,
+     * repeated registrations of the same class are ignored
+     *
+     * @param handlerClass handler class
+     * @throws IllegalArgumentException if handler class cannot be instantiated
+     */
+    void register(Class<? extends RestHandler> handlerClass);
+
+    /**
+     * Returns handler instance, not registered classes are registered on first access
+     *
+     * @param handlerClass handler class
+     * @param <T> handler type
+     * @return handler instance
+     */
+    <T extends RestHandler> T acquire(Class<T> handlerClass);
+
+    /**
+     * Returns handler instance obtained with {@link #acquire(Class)} back to provider
+     *
+     * @param handler handler instance
+     */
+    void release(RestHandler handler);
+}
@@ -1,18 +1,21 @@
 package com.alexkasko.rest.handlers;
 
-import com.google.code.regexp.NamedMatcher;
-
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static java.util.Collections.unmodifiableList;
 
 /**
  * Dispatches request using handlers registry matching with regular expression.
- * Contains separate registries for {@code GET}, {@code POST} and {@code PUT} requests.
+ * Contains separate registries for {@code GET}, {@code POST}, {@code PUT} and {@code DELETE} requests.
  * Registries are ordered in handlers registration order. First matched handler will be used.
+ * Each registry is indexed by literal prefixes of its patterns, so only handlers whose
+ * prefix matches the request path are checked against their full patterns.
+ * Optional features (async processing, metrics, caching, rate limiting etc) are enabled
+ * through {@link Builder} and {@link RouteOptions}.
  * Dispatcher must be created by application and placed into {@link javax.servlet.ServletContext}
  * using {@code dispatcherKeyInServletContext} parameter of {@link HandlersDispatcherServlet}
  * Handler patterns are registered using <a href="https://github.com/tony19/named-regexp">named-regexes</a>.
@@ -26,18 +29,61 @@ public class HandlersDispatcher {
     private final List<HandlersMappingEntry<?>> registryPost;
     private final List<HandlersMappingEntry<?>> registryPut;
     private final List<HandlersMappingEntry<?>> registryDelete;
+    private final RouteMatcher matcherGet;
+    private final RouteMatcher matcherPost;
+    private final RouteMatcher matcherPut;
+    private final RouteMatcher matcherDelete;
     private final NotFoundHandler notFoundHandler;
     private final ExceptionHandler exceptionHandler;
+    private final RejectionHandler rejectionHandler;
+    private final RateLimiter rateLimiter;
+    private final Executor executor;
+    private final long asyncTimeoutMillis;
+    private final boolean metricsEnabled;
+    private final DispatcherMetrics metrics;
+    private final RequestTracer tracer;
+    private final AccessLog accessLog;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer coalescer;
+    // whether request start time is needed
+    private final boolean clocked;
 
     private HandlersDispatcher(List<HandlersMappingEntry<?>> registryGet, List<HandlersMappingEntry<?>> registryPost,
                                List<HandlersMappingEntry<?>> registryPut, List<HandlersMappingEntry<?>> registryDelete,
-                               NotFoundHandler notFoundHandler, ExceptionHandler exceptionHandler) {
+                               NotFoundHandler notFoundHandler, ExceptionHandler exceptionHandler,
+                               RejectionHandler rejectionHandler, RateLimiter rateLimiter, boolean combinedMatching, int routeCacheSize,
+                               Executor executor, long asyncTimeoutMillis, boolean metricsEnabled,
+                               RequestTracer tracer, AccessLog accessLog, ResponseCache responseCache,
+                               RequestCoalescer coalescer) {
         this.registryGet = registryGet;
         this.registryPost = registryPost;
         this.registryPut = registryPut;
         this.registryDelete = registryDelete;
+        this.matcherGet = routeMatcher(registryGet, combinedMatching, routeCacheSize);
+        this.matcherPost = routeMatcher(registryPost, combinedMatching, routeCacheSize);
+        this.matcherPut = routeMatcher(registryPut, combinedMatching, routeCacheSize);
+        this.matcherDelete = routeMatcher(registryDelete, combinedMatching, routeCacheSize);
         this.notFoundHandler = notFoundHandler;
         this.exceptionHandler = exceptionHandler;
+        this.rejectionHandler = rejectionHandler;
+        this.rateLimiter = rateLimiter;
+        this.executor = executor;
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+        this.metricsEnabled = metricsEnabled;
+        List<List<HandlersMappingEntry<?>>> registries = registries(registryGet, registryPost, registryPut, registryDelete);
+        this.metrics = new DispatcherMetrics(registries);
+        this.tracer = tracer;
+        if(null != tracer) RequestTrace.enable();
+        this.accessLog = accessLog;
+        this.responseCache = responseCache;
+        this.coalescer = coalescer;
+        for(HandlersMappingEntry<?> en : registryPost) {
+            if(en.getTransportHandler() instanceof BatchTransportHandler) {
+                ((BatchTransportHandler) en.getTransportHandler()).bind(this);
+            }
+        }
+        this.clocked = metricsEnabled || null != accessLog
+                || hasAdaptiveBulkheads(registries);
     }
 
     /**
@@ -51,34 +97,250 @@ public class HandlersDispatcher {
 
     /**
      * Main dispatch method. Chooses registry using request method, than match {@code request.getPathInfo()}
-     * against patterns in registry. First matched handler will be used.
+     * against patterns in registry, that have matching literal prefixes. First matched handler will be used.
+     * Routes with async {@link RouteOptions} are processed asynchronously.
      *
      * @param req  request
      * @param resp response
      */
-    @SuppressWarnings("unchecked") // generic entries
     public void dispatch(HttpServletRequest req, HttpServletResponse resp) {
+        dispatch(req, resp, false);
+    }
+
+    /**
+     * Dispatch method, that may process all routes asynchronously. Matching is done on calling thread,
+     * then request is put into async mode and transport handler is called from route executor
+     * or from dispatcher executor. Async request is completed when transport handler returns,
+     * timeouts and exceptions are reported to exception handler. Requests, that do not support
+     * async mode, are processed synchronously.
+     *
+     * @param req  request
+     * @param resp response
+     * @param async whether to process all routes asynchronously, otherwise only routes with async options
+     *              are processed asynchronously
+     */
+    public void dispatch(HttpServletRequest req, HttpServletResponse resp, boolean async) {
+        long start = clocked ? System.nanoTime() : 0;
+        RequestTrace trace = null != tracer ? new RequestTrace(tracer) : RequestTrace.noop();
+        RouteMatch match = null;
+        boolean success = false;
+        boolean rejected = false;
+        // async requests are completed by AsyncDispatch
+        boolean completeHere = true;
         try {
-            final List<HandlersMappingEntry<?>> mapping;
-            if("GET".equals(req.getMethod()) || "HEAD".equals(req.getMethod())) mapping = registryGet;
-            else if("POST".equals(req.getMethod())) mapping = registryPost;
-            else if("PUT".equals(req.getMethod())) mapping = registryPut;
-            else if("DELETE".equals(req.getMethod())) mapping = registryDelete;
+            final RouteMatcher matcher;
+            if("GET".equals(req.getMethod()) || "HEAD".equals(req.getMethod())) matcher = matcherGet;
+            else if("POST".equals(req.getMethod())) matcher = matcherPost;
+            else if("PUT".equals(req.getMethod())) matcher = matcherPut;
+            else if("DELETE".equals(req.getMethod())) matcher = matcherDelete;
                 // cannot happen, methods are filtered in servlet
             else throw new IllegalArgumentException("Unsupported HTTP method: '" + req.getMethod() + "'");
-            for(HandlersMappingEntry en : mapping) {
-                NamedMatcher matcher = en.matcher(req.getPathInfo());
-                if(matcher.matches()) {
-                    en.getTransportHandler().handle(en.getRestHandlerClass(), req, resp, matcher.namedGroups());
-                    return;
+            rejected = null != rateLimiter && rateLimited(rateLimiter, req, resp);
+            if(!rejected) {
+                trace.begin(RequestPhase.MATCH);
+                match = matcher.match(req.getPathInfo());
+                trace.end(RequestPhase.MATCH);
+                rejected = null != match && !admit(match, req, resp);
+            }
+            if(rejected) {
+                // rejection is already sent
+            } else if(null != match) {
+                if(null != tracer) req.setAttribute(RequestTrace.ATTRIBUTE, trace);
+                if(metricsEnabled) match.getEntry().getMetrics().start();
+                RouteOptions options = match.getEntry().getOptions();
+                if((async || options.isAsync()) && req.isAsyncSupported()) {
+                    Executor ex = null != options.getExecutor() ? options.getExecutor() : executor;
+                    if(null == ex) throw new IllegalStateException(
+                            "Async dispatch requested, but no executor is configured, path: '" + req.getPathInfo() + "'");
+                    AsyncDispatch.start(this, req, resp, match, ex, asyncTimeoutMillis, start, trace);
+                    completeHere = false;
+                } else {
+                    invoke(req, resp, match);
                 }
+            } else {
+                if(metricsEnabled) metrics.notFound();
+                notFoundHandler.handle(this, req, resp);
             }
-            notFoundHandler.handle(this, req, resp);
+            success = true;
+        } catch(Exception e) {
+            exceptionHandler.handle(e, req, resp);
+        } finally {
+            if(completeHere) {
+                if(!rejected) releasePermit(match, start, !success);
+                completed(req, resp, match, start, trace, !success, !rejected);
+            }
+        }
+    }
+
+    // checks route limits, returns false if request is rejected
+    private boolean admit(RouteMatch match, HttpServletRequest req, HttpServletResponse resp) {
+        RouteOptions options = match.getEntry().getOptions();
+        if(null != options.getRateLimiter() && rateLimited(options.getRateLimiter(), req, resp)) return false;
+        Bulkhead bulkhead = options.getBulkhead();
+        if(null == bulkhead || bulkhead.tryAcquire()) return true;
+        reject(RejectionReason.CONCURRENCY_LIMIT, bulkhead.getRetryAfterSeconds(), req, resp);
+        return false;
+    }
+
+    private boolean rateLimited(RateLimiter limiter, HttpServletRequest req, HttpServletResponse resp) {
+        long wait = limiter.tryAcquire(req);
+        if(0 == wait) return false;
+        reject(RejectionReason.RATE_LIMIT, RateLimiter.retryAfterSeconds(wait), req, resp);
+        return true;
+    }
+
+    private void reject(RejectionReason reason, long retryAfterSeconds, HttpServletRequest req,
+                        HttpServletResponse resp) {
+        if(metricsEnabled) metrics.rejected(reason);
+        try {
+            rejectionHandler.handle(reason, retryAfterSeconds, req, resp);
         } catch(Exception e) {
             exceptionHandler.handle(e, req, resp);
         }
     }
 
+    /**
+     * Calls transport handler of matched route, answers cached routes from response cache,
+     * coalesces identical requests to coalesced routes
+     *
+     * @param req request
+     * @param resp response
+     * @param match matched route
+     * @throws Exception on any application exception
+     */
+    void invoke(HttpServletRequest req, HttpServletResponse resp, RouteMatch match) throws Exception {
+        HandlersMappingEntry<?> entry = match.getEntry();
+        RouteOptions options = entry.getOptions();
+        // HEAD responses may have no body, so they are not shared
+        RequestCoalescer co = options.isCoalesced() && "GET".equals(req.getMethod()) ? coalescer : null;
+        if(null != responseCache && options.getCacheTtlMillis() > 0
+                && ("GET".equals(req.getMethod()) || "HEAD".equals(req.getMethod()))) {
+            responseCache.handle(entry, req, resp, match.getParams(), co);
+        } else if(null != co) {
+            co.handle(entry, req, resp, match.getParams());
+        } else {
+            entry.handle(req, resp, match.getParams());
+        }
+    }
+
+    /**
+     * Reports exception to exception handler, used by async requests
+     *
+     * @param e exception
+     * @param req request
+     * @param resp response
+     */
+    void handleException(Exception e, HttpServletRequest req, HttpServletResponse resp) {
+        exceptionHandler.handle(e, req, resp);
+    }
+
+    /**
+     * Records metrics, trace and access log on request completion
+     *
+     * @param req request
+     * @param resp response
+     * @param match matched route, {@code null} if not found
+     * @param startNanos request start time, {@code 0} if neither metrics, access log nor adaptive bulkheads are enabled
+     * @param trace request trace context
+     * @param error whether request failed with exception
+     * @param admitted whether matched request was passed to transport handler, {@code false} if it was rejected
+     */
+    void completed(HttpServletRequest req, HttpServletResponse resp, RouteMatch match, long startNanos,
+                   RequestTrace trace, boolean error, boolean admitted) {
+        boolean handled = admitted && null != match;
+        if(!clocked && null == tracer) return;
+        long duration = clocked ? System.nanoTime() - startNanos : 0;
+        if(metricsEnabled && handled) match.getEntry().getMetrics().finish(startNanos, error);
+        trace.complete(req);
+        if(null != accessLog) {
+            accessLog.log(req.getMethod(), req.getPathInfo(), null != match ? match.getEntry().getPattern() : null,
+                    resp.getStatus(), contentLength(resp), duration);
+        }
+    }
+
+    /**
+     * Releases route bulkhead permit, must be called once for each admitted request,
+     * when its transport handler call returns or when it is known, that handler will not be called
+     *
+     * @param match matched route, {@code null} if not found
+     * @param startNanos request start time
+     * @param error whether request failed with exception
+     */
+    void releasePermit(RouteMatch match, long startNanos, boolean error) {
+        if(null == match) return;
+        Bulkhead bulkhead = match.getEntry().getOptions().getBulkhead();
+        if(null != bulkhead) bulkhead.release(startNanos, error);
+    }
+
+    // declared length, streamed responses are logged without it
+    private static long contentLength(HttpServletResponse resp) {
+        String header = resp.getHeader("Content-Length");
+        if(null == header) return -1;
+        try {
+            return Long.parseLong(header);
+        } catch(NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean hasAdaptiveBulkheads(List<List<HandlersMappingEntry<?>>> registries) {
+        for(List<HandlersMappingEntry<?>> registry : registries) {
+            for(HandlersMappingEntry<?> en : registry) {
+                Bulkhead bulkhead = en.getOptions().getBulkhead();
+                if(null != bulkhead && bulkhead.isAdaptive()) return true;
+            }
+        }
+        return false;
+    }
+
+    // avoids generic varargs array
+    private static List<List<HandlersMappingEntry<?>>> registries(List<HandlersMappingEntry<?>> get,
+            List<HandlersMappingEntry<?>> post, List<HandlersMappingEntry<?>> put, List<HandlersMappingEntry<?>> delete) {
+        List<List<HandlersMappingEntry<?>>> res = new ArrayList<List<HandlersMappingEntry<?>>>(4);
+        res.add(get);
+        res.add(post);
+        res.add(put);
+        res.add(delete);
+        return res;
+    }
+
+    private static RouteMatcher routeMatcher(List<HandlersMappingEntry<?>> registry, boolean combined, int cacheSize) {
+        RouteMatcher matcher = combined ? new CombinedRouteMatcher(registry) : new RouteIndex(registry);
+        return cacheSize > 0 ? new RouteCache(matcher, cacheSize) : matcher;
+    }
+
+    /**
+     * Returns statistics of path matching results cache summed over all registries
+     *
+     * @return cache stats, all zeros if cache is disabled
+     */
+    public CacheStats getRouteCacheStats() {
+        CacheStats res = new CacheStats(0, 0, 0, 0);
+        for(RouteMatcher rm : new RouteMatcher[]{matcherGet, matcherPost, matcherPut, matcherDelete}) {
+            if(rm instanceof RouteCache) res = res.plus(((RouteCache) rm).stats());
+        }
+        return res;
+    }
+
+    /**
+     * Returns statistics of response cache
+     *
+     * @return cache stats, all zeros if response cache is not set
+     */
+    public CacheStats getResponseCacheStats() {
+        return null != responseCache ? responseCache.getStats() : new CacheStats(0, 0, 0, 0);
+    }
+
+    /**
+     * Returns requests statistics, that may be published to JMX using
+     * {@link DispatcherMetrics#registerMBean(String)}
+     *
+     * @return metrics instance, statistics are all zeros if metrics are disabled
+     */
+    public DispatcherMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Returns registry for {@code GET} method
      *
@@ -139,6 +401,17 @@ public class HandlersDispatcher {
         private final List<HandlersMappingEntry<?>> mappingDelete = new ArrayList<HandlersMappingEntry<?>>();
         private NotFoundHandler notFoundHandler;
         private ExceptionHandler exceptionHandler;
+        private RejectionHandler rejectionHandler;
+        private RateLimiter rateLimiter;
+        private boolean combinedMatching = false;
+        private int routeCacheSize = 0;
+        private Executor executor;
+        private long asyncTimeoutMillis = 0;
+        private boolean metricsEnabled = false;
+        private RequestTracer tracer;
+        private AccessLog accessLog;
+        private ResponseCache responseCache;
+        private RequestCoalescer coalescer;
 
         /**
          * Constructor
@@ -155,10 +428,56 @@ public class HandlersDispatcher {
          * @param <T> app handler type
          * @return builder itself
          */
+        public <T extends RestHandler> Builder addGet(String pattern, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass) {
+            return addGet(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code GET} requests with options
+         *
+         * @param pattern named regex pattern
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
         @SuppressWarnings("unchecked")
         public <T extends RestHandler> Builder addGet(String pattern, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingGet.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+            return this;
+        }
+
+        /**
+         * Registers handler for {@code GET} requests using path template
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        public <T extends RestHandler> Builder addGet(PathTemplate template, TransportHandler<T> transportHandler,
                                                       Class<? extends T> appHandlerClass) {
-            mappingGet.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+            return addGet(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code GET} requests using path template with options
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        @SuppressWarnings("unchecked")
+        public <T extends RestHandler> Builder addGet(PathTemplate template, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingGet.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
             return this;
         }
 
@@ -171,10 +490,56 @@ public class HandlersDispatcher {
          * @param <T> app handler type
          * @return builder itself
          */
+        public <T extends RestHandler> Builder addPost(String pattern, TransportHandler<T> transportHandler,
+                                                       Class<? extends T> appHandlerClass) {
+            return addPost(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code POST} requests with options
+         *
+         * @param pattern named regex pattern
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
         @SuppressWarnings("unchecked")
         public <T extends RestHandler> Builder addPost(String pattern, TransportHandler<T> transportHandler,
+                                                       Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingPost.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+            return this;
+        }
+
+        /**
+         * Registers handler for {@code POST} requests using path template
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        public <T extends RestHandler> Builder addPost(PathTemplate template, TransportHandler<T> transportHandler,
                                                        Class<? extends T> appHandlerClass) {
-            mappingPost.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+            return addPost(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code POST} requests using path template with options
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        @SuppressWarnings("unchecked")
+        public <T extends RestHandler> Builder addPost(PathTemplate template, TransportHandler<T> transportHandler,
+                                                       Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingPost.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
             return this;
         }
 
@@ -187,15 +552,61 @@ public class HandlersDispatcher {
          * @param <T> app handler type
          * @return builder itself
          */
+        public <T extends RestHandler> Builder addPut(String pattern, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass) {
+            return addPut(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code PUT} requests with options
+         *
+         * @param pattern named regex pattern
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
         @SuppressWarnings("unchecked")
         public <T extends RestHandler> Builder addPut(String pattern, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingPut.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+            return this;
+        }
+
+        /**
+         * Registers handler for {@code PUT} requests using path template
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        public <T extends RestHandler> Builder addPut(PathTemplate template, TransportHandler<T> transportHandler,
                                                       Class<? extends T> appHandlerClass) {
-            mappingPut.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+            return addPut(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code PUT} requests using path template with options
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        @SuppressWarnings("unchecked")
+        public <T extends RestHandler> Builder addPut(PathTemplate template, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingPut.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
             return this;
         }
 
         /**
-         * Registers handler for {@code PUT} requests
+         * Registers handler for {@code DELETE} requests
          *
          * @param pattern named regex pattern
          * @param transportHandler transport handler instance
@@ -203,14 +614,75 @@ public class HandlersDispatcher {
          * @param <T> app handler type
          * @return builder itself
          */
+        public <T extends RestHandler> Builder addDelete(String pattern, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass) {
+            return addDelete(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code DELETE} requests with options
+         *
+         * @param pattern named regex pattern
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
         @SuppressWarnings("unchecked")
         public <T extends RestHandler> Builder addDelete(String pattern, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingDelete.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+            return this;
+        }
+
+        /**
+         * Registers handler for {@code DELETE} requests using path template
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        public <T extends RestHandler> Builder addDelete(PathTemplate template, TransportHandler<T> transportHandler,
                                                       Class<? extends T> appHandlerClass) {
-            mappingDelete.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+            return addDelete(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+        }
+
+        /**
+         * Registers handler for {@code DELETE} requests using path template with options
+         *
+         * @param template path template
+         * @param transportHandler transport handler instance
+         * @param appHandlerClass app handler class
+         * @param options route options
+         * @param <T> app handler type
+         * @return builder itself
+         */
+        @SuppressWarnings("unchecked")
+        public <T extends RestHandler> Builder addDelete(PathTemplate template, TransportHandler<T> transportHandler,
+                                                      Class<? extends T> appHandlerClass, RouteOptions options) {
+            mappingDelete.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
             return this;
         }
 
 
+        /**
+         * Registers batch route for {@code POST} requests, that executes JSON array of sub-requests
+         * against this dispatcher in-process and returns their results in single response,
+         * see {@link BatchOptions} for limits and parallel execution
+         *
+         * @param pattern named regex pattern
+         * @param options batch options
+         * @return builder itself
+         */
+        public Builder addBatch(String pattern, BatchOptions options) {
+            mappingPost.add(new HandlersMappingEntry<RestHandler>(pattern, new BatchTransportHandler(options),
+                    RestHandler.class, RouteOptions.defaults()));
+            return this;
+        }
+
         /**
          * Adds all GET, PUT and DELETE handlers from specified list to this builder
          * prepending specified prefix to all patterns from the list.
@@ -218,19 +690,33 @@ public class HandlersDispatcher {
          * @param list list of handlers mapping
          * @return builder itself
          */
-        @SuppressWarnings("unchecked")
         public Builder addList(String prefix, HandlersSubmapping list) {
+            return addList(prefix, list, RouteOptions.defaults());
+        }
+
+        /**
+         * Adds all GET, PUT and DELETE handlers from specified list to this builder
+         * prepending specified prefix to all patterns from the list. Provided options are applied
+         * to handlers registered in list without options, e.g. to run whole submodule
+         * on {@link VirtualThreadExecutor}.
+         *
+         * @param prefix patterns prefix
+         * @param list list of handlers mapping
+         * @param options options for handlers registered without options
+         * @return builder itself
+         */
+        public Builder addList(String prefix, HandlersSubmapping list, RouteOptions options) {
             for(HandlersMappingEntry<?> en : list.getMappingGet()) {
-                mappingGet.add(new HandlersMappingEntry(prefix, en));
+                mappingGet.add(HandlersMappingEntry.prefixed(prefix, en, options));
             }
             for(HandlersMappingEntry<?> en : list.getMappingPost()) {
-                mappingPost.add(new HandlersMappingEntry(prefix, en));
+                mappingPost.add(HandlersMappingEntry.prefixed(prefix, en, options));
             }
             for(HandlersMappingEntry<?> en : list.getMappingPut()) {
-                mappingPut.add(new HandlersMappingEntry(prefix, en));
+                mappingPut.add(HandlersMappingEntry.prefixed(prefix, en, options));
             }
             for(HandlersMappingEntry<?> en : list.getMappingDelete()) {
-                mappingDelete.add(new HandlersMappingEntry(prefix, en));
+                mappingDelete.add(HandlersMappingEntry.prefixed(prefix, en, options));
             }
             return this;
         }
@@ -258,14 +744,191 @@ public class HandlersDispatcher {
         }
 
         /**
-         * Builds dispatcher instance
+         * Sets handler to use when request is rejected without calling transport handler,
+         * e.g. by route {@link Bulkhead}. {@link DefaultRejectionHandler} is used by default.
+         *
+         * @param rejectionHandler rejection handler
+         * @return builder itself
+         */
+        public Builder setRejectionHandler(RejectionHandler rejectionHandler) {
+            if(null == rejectionHandler) throw new IllegalArgumentException("Provided rejection handler is null");
+            this.rejectionHandler = rejectionHandler;
+            return this;
+        }
+
+        /**
+         * Sets rate limiter, that is checked for all requests before path matching, requests over the limit
+         * are rejected with {@link RejectionReason#RATE_LIMIT}. Route rate limiters may be set
+         * in {@link RouteOptions}. Not set by default.
+         *
+         * @param rateLimiter dispatcher rate limiter
+         * @return builder itself
+         */
+        public Builder setRateLimiter(RateLimiter rateLimiter) {
+            if(null == rateLimiter) throw new IllegalArgumentException("Provided rate limiter is null");
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Enables matching of all patterns of each registry with single regex alternation
+         * compiled on {@link #build()}, instead of matching patterns one by one.
+         * Matched handler and its named groups are obtained from the single match,
+         * first matched handler in registration order is used as usual.
+         * May be beneficial for large generated registries. Disabled by default.
+         *
+         * @param combinedMatching whether to match registries with combined pattern
+         * @return builder itself
+         */
+        public Builder setCombinedMatching(boolean combinedMatching) {
+            this.combinedMatching = combinedMatching;
+            return this;
+        }
+
+        /**
+         * Enables cache of path matching results, each registry caches up to specified number
+         * of matched paths with their URL parameters, so requests to the same paths skip matching.
+         * Cache reads are lock-free, entries are evicted using CLOCK (second chance) policy.
+         * Disabled by default.
+         *
+         * @param routeCacheSize max number of cached paths for each registry, {@code 0} to disable cache
+         * @return builder itself
+         */
+        public Builder setRouteCacheSize(int routeCacheSize) {
+            if(routeCacheSize < 0) throw new IllegalArgumentException("Invalid route cache size: [" + routeCacheSize + "]");
+            this.routeCacheSize = routeCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets executor for async processing of requests, see {@link HandlersDispatcherServlet}
+         * {@code asyncDispatch} init parameter and {@link RouteOptions.Builder#setAsync(boolean)}.
+         * Executor is not managed by dispatcher and should be shut down by application.
+         *
+         * @param executor executor to call transport handlers from
+         * @return builder itself
+         */
+        public Builder setExecutor(Executor executor) {
+            if(null == executor) throw new IllegalArgumentException("Provided executor is null");
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets timeout for async requests, on timeout {@link java.util.concurrent.TimeoutException}
+         * is reported to exception handler and request is completed. Container default timeout
+         * is used if not set.
+         *
+         * @param asyncTimeoutMillis async timeout in milliseconds
+         * @return builder itself
+         */
+        public Builder setAsyncTimeout(long asyncTimeoutMillis) {
+            if(asyncTimeoutMillis <= 0) throw new IllegalArgumentException(
+                    "Invalid async timeout: [" + asyncTimeoutMillis + "]");
+            this.asyncTimeoutMillis = asyncTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Enables recording of per-route requests, errors and in-flight counters and latency histograms
+         * and of not-found requests counter, see {@link HandlersDispatcher#getMetrics()}.
+         * Recording is lock-free and does not allocate on request processing. Disabled by default.
+         *
+         * @param metricsEnabled whether to record requests statistics
+         * @return builder itself
+         */
+        public Builder setMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+            return this;
+        }
+
+        /**
+         * Sets tracer, that receives timings of request processing phases: path matching,
+         * and phases marked by transport handlers (e.g. body decoding, handler call, response encoding),
+         * see {@link RequestTrace}. Not set by default, trace contexts are not created in this case.
+         *
+         * @param tracer request tracer
+         * @return builder itself
+         */
+        public Builder setTracer(RequestTracer tracer) {
+            if(null == tracer) throw new IllegalArgumentException("Provided tracer is null");
+            this.tracer = tracer;
+            return this;
+        }
+
+        /**
+         * Sets access log, that records method, path, matched pattern, status, content length and duration
+         * of each request. Records are written to file from background thread. Access log is not managed
+         * by dispatcher and should be closed by application. Not set by default.
+         *
+         * @param accessLog access log
+         * @return builder itself
+         */
+        public Builder setAccessLog(AccessLog accessLog) {
+            if(null == accessLog) throw new IllegalArgumentException("Provided access log is null");
+            this.accessLog = accessLog;
+            return this;
+        }
+
+        /**
+         * Sets cache of encoded responses for {@code GET} routes with cache TTL set in {@link RouteOptions},
+         * see {@link RouteOptions.Builder#setCacheTtl(long)}. Not set by default.
+         *
+         * @param responseCache response cache, may be shared between dispatchers
+         * @return builder itself
+         */
+        public Builder setResponseCache(ResponseCache responseCache) {
+            if(null == responseCache) throw new IllegalArgumentException("Provided response cache is null");
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Sets coalescer of concurrent identical {@code GET} requests for routes with coalescing enabled
+         * in {@link RouteOptions}, see {@link RouteOptions.Builder#setCoalesced(boolean)}.
+         * For cached routes coalescing is applied on cache misses. Not set by default.
+         *
+         * @param coalescer request coalescer, may be shared between dispatchers
+         * @return builder itself
+         */
+        public Builder setRequestCoalescer(RequestCoalescer coalescer) {
+            if(null == coalescer) throw new IllegalArgumentException("Provided request coalescer is null");
+            this.coalescer = coalescer;
+            return this;
+        }
+
+        /**
+         * Builds dispatcher instance, notifies {@link RegistrationAware} transport handlers
+         * about all registered entries
          *
          * @return dispatcher instance
+         * @throws IllegalArgumentException if async routes are registered without executor
+         *         or cached or coalesced routes are registered without response cache or request coalescer
          */
         public HandlersDispatcher build() {
+            for(List<HandlersMappingEntry<?>> mapping : registries(mappingGet, mappingPost, mappingPut, mappingDelete)) {
+                for(HandlersMappingEntry<?> en : mapping) {
+                    if(en.getOptions().isAsync() && null == en.getOptions().getExecutor() && null == executor) {
+                        throw new IllegalArgumentException("Executor must be set for async route: '" + en.getPattern() + "'");
+                    }
+                    if(en.getOptions().getCacheTtlMillis() > 0 && null == responseCache) {
+                        throw new IllegalArgumentException("Response cache must be set for cached route: '" + en.getPattern() + "'");
+                    }
+                    if(en.getOptions().isCoalesced() && null == coalescer) {
+                        throw new IllegalArgumentException("Request coalescer must be set for coalesced route: '" + en.getPattern() + "'");
+                    }
+                    if(en.getTransportHandler() instanceof RegistrationAware) {
+                        ((RegistrationAware) en.getTransportHandler()).registered(en);
+                    }
+                }
+            }
             NotFoundHandler nfh = null != this.notFoundHandler ? this.notFoundHandler : new DefaultNotFoundHandler();
             ExceptionHandler eh = null != this.exceptionHandler ? this.exceptionHandler : new DefaultExceptionHandler();
-            return new HandlersDispatcher(mappingGet, mappingPost, mappingPut, mappingDelete, nfh, eh);
+            RejectionHandler rh = null != this.rejectionHandler ? this.rejectionHandler : new DefaultRejectionHandler();
+            return new HandlersDispatcher(new ArrayList<HandlersMappingEntry<?>>(mappingGet),
+                    new ArrayList<HandlersMappingEntry<?>>(mappingPost), new ArrayList<HandlersMappingEntry<?>>(mappingPut),
+                    new ArrayList<HandlersMappingEntry<?>>(mappingDelete), nfh, eh, rh, rateLimiter, combinedMatching, routeCacheSize,
+                    executor, asyncTimeoutMillis, metricsEnabled, tracer, accessLog, responseCache, coalescer);
         }
     }
 }
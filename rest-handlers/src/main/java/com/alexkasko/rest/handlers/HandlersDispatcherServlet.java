@@ -12,6 +12,9 @@ import java.io.UnsupportedEncodingException;
  * dispatching to {@link HandlersDispatcher}. Accesses dispatcher through {@link javax.servlet.ServletContext}
  * using mandatory init parameter {@code dispatcherKeyInServletContext}.
  * Uses {@code UTF-8} as default encoding for request and response.
+ * If optional init parameter {@code asyncDispatch} is set to {@code true}, all requests are processed
+ * asynchronously using executor provided to {@link HandlersDispatcher.Builder#setExecutor(java.util.concurrent.Executor)},
+ * servlet must be declared with {@code async-supported} enabled in this case.
  *
  * @author  alexkasko
  * Date: 3/18/12
@@ -20,9 +23,11 @@ import java.io.UnsupportedEncodingException;
 public class HandlersDispatcherServlet extends HttpServlet {
     private static final long serialVersionUID = 7041995029366447857L;
     private String dispatcherKey;
+    private boolean asyncDispatch;
 
     /**
-     * Checks availability of {@code dispatcherKeyInServletContext} init parameter
+     * Checks availability of {@code dispatcherKeyInServletContext} init parameter,
+     * reads optional {@code asyncDispatch} init parameter
      *
      * @throws ServletException on missed init parameter
      */
@@ -32,6 +37,10 @@ public class HandlersDispatcherServlet extends HttpServlet {
         if(null == key) throw new ServletException("Servlet init parameter 'dispatcherKeyInServletContext' " +
                 "must be provided. It will be using for accessing 'HandlersDispatcher' in 'ServletContext'");
         this.dispatcherKey = key;
+        String async = this.getServletConfig().getInitParameter("asyncDispatch");
+        if(null != async && !"true".equals(async) && !"false".equals(async)) throw new ServletException(
+                "Invalid value: '" + async + "' of servlet init parameter 'asyncDispatch', must be 'true' or 'false'");
+        this.asyncDispatch = "true".equals(async);
     }
 
     /**
@@ -89,7 +98,7 @@ public class HandlersDispatcherServlet extends HttpServlet {
     private void dispatch(HttpServletRequest req, HttpServletResponse resp) throws UnsupportedEncodingException, ServletException {
         req.setCharacterEncoding("UTF-8");
         resp.setCharacterEncoding("UTF-8");
-        dispatcher().dispatch(req, resp);
+        dispatcher().dispatch(req, resp, asyncDispatch);
     }
 
     private HandlersDispatcher dispatcher() throws ServletException {
@@ -1,8 +1,13 @@
 package com.alexkasko.rest.handlers;
 
-import com.google.code.regexp.NamedMatcher;
+import com.google.code.regexp.GroupInfo;
 import com.google.code.regexp.NamedPattern;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.regex.MatchResult;
+
 /**
  * Handler URL mapping entry, used in {@link com.alexkasko.rest.handlers.HandlersDispatcher#builder()}.
  * Made public for mappings introspection in {@link NotFoundHandler}
@@ -13,8 +18,17 @@ import com.google.code.regexp.NamedPattern;
  */
 public class HandlersMappingEntry<T extends RestHandler> {
     private final NamedPattern pattern;
+    private final PathTemplate template;
     private final TransportHandler<T> ra;
     private final Class<T> clazz;
+    private final RouteOptions options;
+    private final String literalPrefix;
+    private final boolean urlParamsAware;
+    // unique group names in order of appearance
+    private final String[] paramNames;
+    // group numbers for each name, more than one if name is used in multiple alternatives
+    private final int[][] paramGroups;
+    private final RouteMetrics metrics = new RouteMetrics();
 
     /**
      * Package private constructor
@@ -22,47 +36,175 @@ public class HandlersMappingEntry<T extends RestHandler> {
      * @param pattern named regex pattern
      * @param th transport handler
      * @param clazz app handler class
+     * @param options route options
      */
-    HandlersMappingEntry(String pattern, TransportHandler<T> th, Class<T> clazz) {
+    HandlersMappingEntry(String pattern, TransportHandler<T> th, Class<T> clazz, RouteOptions options) {
         if(null == pattern) throw new IllegalArgumentException("Provided pattern is null");
         if(null == th) throw new IllegalArgumentException("Provided transport handler is null");
         if(null == clazz) throw new IllegalArgumentException("Provided handler class is null");
+        if(null == options) throw new IllegalArgumentException("Provided route options are null");
         this.pattern = NamedPattern.compile(pattern);
+        this.template = null;
         this.ra = th;
         this.clazz = clazz;
+        this.options = options;
+        this.literalPrefix = literalPrefix(this.pattern.namedPattern());
+        this.urlParamsAware = th instanceof UrlParamsTransportHandler;
+        List<String> names = this.pattern.groupNames();
+        this.paramNames = names.toArray(new String[names.size()]);
+        this.paramGroups = new int[paramNames.length][];
+        for(int i = 0; i < paramNames.length; i++) {
+            List<GroupInfo> infos = this.pattern.groupInfo().get(paramNames[i]);
+            paramGroups[i] = new int[infos.size()];
+            for(int j = 0; j < infos.size(); j++) {
+                // GroupInfo indices are zero-based
+                paramGroups[i][j] = infos.get(j).groupIndex() + 1;
+            }
+        }
     }
 
     /**
-     * Constructor for creating new entries from existing ones with additional pattern prefix
+     * Package private constructor for path template entries
+     *
+     * @param template path template
+     * @param th transport handler
+     * @param clazz app handler class
+     * @param options route options
+     */
+    HandlersMappingEntry(PathTemplate template, TransportHandler<T> th, Class<T> clazz, RouteOptions options) {
+        if(null == template) throw new IllegalArgumentException("Provided template is null");
+        if(null == th) throw new IllegalArgumentException("Provided transport handler is null");
+        if(null == clazz) throw new IllegalArgumentException("Provided handler class is null");
+        if(null == options) throw new IllegalArgumentException("Provided route options are null");
+        this.pattern = null;
+        this.template = template;
+        this.ra = th;
+        this.clazz = clazz;
+        this.options = options;
+        this.literalPrefix = template.getLiteralPrefix();
+        this.urlParamsAware = th instanceof UrlParamsTransportHandler;
+        this.paramNames = null;
+        this.paramGroups = null;
+    }
+
+    /**
+     * Creates new entry from existing one with additional pattern prefix and with provided options
+     * if existing entry has default options. Prefix for template entries must be literal,
+     * leading {@code ^} anchor is ignored.
      *
      * @param prefix pattern prefix
      * @param en child mapping entry
+     * @param options options for child entries registered without options
+     * @param <T> app handler type
+     * @return prefixed entry
      */
-    HandlersMappingEntry(String prefix, HandlersMappingEntry<T> en) {
+    static <T extends RestHandler> HandlersMappingEntry<T> prefixed(String prefix, HandlersMappingEntry<T> en,
+                                                                     RouteOptions options) {
         if (null == prefix) throw new IllegalArgumentException("Provided prefix is null");
         if (null == en) throw new IllegalArgumentException("Provided entry is null");
-        this.pattern = NamedPattern.compile(prefix + en.pattern.namedPattern());
-        this.ra = en.ra;
-        this.clazz = en.clazz;
+        if (null == options) throw new IllegalArgumentException("Provided options are null");
+        RouteOptions opts = RouteOptions.defaults() == en.options ? options : en.options;
+        if(null != en.pattern) {
+            return new HandlersMappingEntry<T>(prefix + en.pattern.namedPattern(), en.ra, en.clazz, opts);
+        }
+        String literal = prefix.startsWith("^") ? prefix.substring(1) : prefix;
+        for(int i = 0; i < literal.length(); i++) {
+            if("[](){}.*+?|^$\\".indexOf(literal.charAt(i)) >= 0) throw new IllegalArgumentException(
+                    "Prefix: '" + prefix + "' must be literal for template: '" + en.template + "'");
+        }
+        return new HandlersMappingEntry<T>(en.template.prefixed(literal), en.ra, en.clazz, opts);
+    }
+
+    /**
+     * Matches request path against template, must be called for template entries only
+     *
+     * @param path request path
+     * @return named parameters view, {@code null} if path does not match
+     */
+    UrlParams matchTemplate(String path) {
+        return template.match(path);
+    }
+
+    /**
+     * Returns whether this entry uses path template instead of regex pattern
+     *
+     * @return {@code true} for template entries
+     */
+    boolean isTemplate() {
+        return null != template;
+    }
+
+    /**
+     * Returns compiled named regex pattern
+     *
+     * @return compiled pattern, {@code null} for template entries
+     */
+    NamedPattern namedPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns literal string, that every path matched by this entry must start with,
+     * used for indexing entries in {@link RouteIndex}
+     *
+     * @return literal prefix, may be empty
+     */
+    String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+    /**
+     * Reads named parameters positions from successful match result
+     *
+     * @param path matched request path
+     * @param match match result
+     * @param groupOffset number of group preceding entry pattern groups in match result
+     * @return named parameters view
+     */
+    UrlParams params(String path, MatchResult match, int groupOffset) {
+        if(0 == paramNames.length) return UrlParams.empty();
+        int[] bounds = new int[paramNames.length * 2];
+        for(int i = 0; i < paramNames.length; i++) {
+            int start = -1;
+            int end = -1;
+            for(int group : paramGroups[i]) {
+                start = match.start(groupOffset + group);
+                if(start >= 0) {
+                    end = match.end(groupOffset + group);
+                    break;
+                }
+            }
+            bounds[i * 2] = start;
+            bounds[i * 2 + 1] = end;
+        }
+        return new UrlParams(paramNames, path, bounds);
     }
 
     /**
-     * Matched request path info
+     * Delegates request to transport handler, uses params view for {@link UrlParamsTransportHandler}s
+     * and params map for others
      *
-     * @param input request path info
-     * @return matcher
+     * @param request request
+     * @param response response
+     * @param params named parameters from request path
+     * @throws Exception on any application exception
      */
-    NamedMatcher matcher(String input) {
-        return pattern.matcher(input);
+    @SuppressWarnings("unchecked")
+    void handle(HttpServletRequest request, HttpServletResponse response, UrlParams params) throws Exception {
+        if(urlParamsAware) {
+            ((UrlParamsTransportHandler<T>) ra).handle(clazz, request, response, params);
+        } else {
+            ra.handle(clazz, request, response, params.toMap());
+        }
     }
 
     /**
-     * Returns named regex pattern string
+     * Returns named regex pattern string or path template string
      *
-     * @return named regex pattern as it was provided to {@link HandlersDispatcher.Builder}
+     * @return named regex pattern or path template as it was provided to {@link HandlersDispatcher.Builder}
      */
     public String getPattern() {
-        return pattern.namedPattern();
+        return null != pattern ? pattern.namedPattern() : template.getTemplate();
     }
 
     /**
@@ -82,5 +224,82 @@ public class HandlersMappingEntry<T extends RestHandler> {
     public Class<T> getRestHandlerClass() {
         return clazz;
     }
-}
 
+    /**
+     * Returns route options
+     *
+     * @return route options
+     */
+    public RouteOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns route metrics
+     *
+     * @return route metrics
+     */
+    RouteMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Extracts literal prefix from regex pattern, stops on first regex construct.
+     * Returns empty prefix for patterns with top-level alternation.
+     *
+     * @param regex regex pattern
+     * @return literal prefix, may be empty
+     */
+    static String literalPrefix(String regex) {
+        if(hasTopLevelAlternation(regex)) return "";
+        StringBuilder sb = new StringBuilder();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while(i < regex.length()) {
+            char ch = regex.charAt(i);
+            final int next;
+            if('\\' == ch) {
+                if(i + 1 == regex.length()) break;
+                ch = regex.charAt(i + 1);
+                // escaped letters and digits are character classes, backreferences etc
+                if(Character.isLetterOrDigit(ch)) break;
+                next = i + 2;
+            } else if("[](){}.*+?|^$".indexOf(ch) >= 0) {
+                break;
+            } else {
+                next = i + 1;
+            }
+            // quantified character is optional or repeated
+            if(next < regex.length() && "?*+{".indexOf(regex.charAt(next)) >= 0) break;
+            sb.append(ch);
+            i = next;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks whether regex has alternation outside of groups and character classes
+     *
+     * @param regex regex pattern
+     * @return {@code true} if pattern has top-level alternation
+     */
+    static boolean hasTopLevelAlternation(String regex) {
+        int groups = 0;
+        int classes = 0;
+        for(int i = 0; i < regex.length(); i++) {
+            char ch = regex.charAt(i);
+            if('\\' == ch) {
+                if(i + 1 < regex.length() && 'Q' == regex.charAt(i + 1)) {
+                    int end = regex.indexOf("\\E", i + 2);
+                    if(end < 0) return false;
+                    i = end + 1;
+                } else i += 1;
+            } else if('[' == ch) classes += 1;
+            else if(']' == ch && classes > 0) classes -= 1;
+            else if(classes > 0) continue;
+            else if('(' == ch) groups += 1;
+            else if(')' == ch) groups -= 1;
+            else if('|' == ch && 0 == groups) return true;
+        }
+        return false;
+    }
+}
@@ -24,10 +24,56 @@ public class HandlersSubmapping {
      * @param <T>              app handler type
      * @return builder itself
      */
+    public <T extends RestHandler> HandlersSubmapping addGet(String pattern, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass) {
+        return addGet(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code GET} requests with options
+     *
+     * @param pattern          named regex pattern
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
     @SuppressWarnings("unchecked")
     public <T extends RestHandler> HandlersSubmapping addGet(String pattern, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingGet.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+        return this;
+    }
+
+    /**
+     * Registers handler for {@code GET} requests using path template
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    public <T extends RestHandler> HandlersSubmapping addGet(PathTemplate template, TransportHandler<T> transportHandler,
                                                               Class<? extends T> appHandlerClass) {
-        mappingGet.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+        return addGet(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code GET} requests using path template with options
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends RestHandler> HandlersSubmapping addGet(PathTemplate template, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingGet.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
         return this;
     }
 
@@ -40,10 +86,56 @@ public class HandlersSubmapping {
      * @param <T>              app handler type
      * @return builder itself
      */
+    public <T extends RestHandler> HandlersSubmapping addPost(String pattern, TransportHandler<T> transportHandler,
+                                                               Class<? extends T> appHandlerClass) {
+        return addPost(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code POST} requests with options
+     *
+     * @param pattern          named regex pattern
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
     @SuppressWarnings("unchecked")
     public <T extends RestHandler> HandlersSubmapping addPost(String pattern, TransportHandler<T> transportHandler,
+                                                               Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingPost.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+        return this;
+    }
+
+    /**
+     * Registers handler for {@code POST} requests using path template
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    public <T extends RestHandler> HandlersSubmapping addPost(PathTemplate template, TransportHandler<T> transportHandler,
                                                                Class<? extends T> appHandlerClass) {
-        mappingPost.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+        return addPost(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code POST} requests using path template with options
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends RestHandler> HandlersSubmapping addPost(PathTemplate template, TransportHandler<T> transportHandler,
+                                                               Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingPost.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
         return this;
     }
 
@@ -56,10 +148,56 @@ public class HandlersSubmapping {
      * @param <T>              app handler type
      * @return builder itself
      */
+    public <T extends RestHandler> HandlersSubmapping addPut(String pattern, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass) {
+        return addPut(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code PUT} requests with options
+     *
+     * @param pattern          named regex pattern
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
     @SuppressWarnings("unchecked")
     public <T extends RestHandler> HandlersSubmapping addPut(String pattern, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingPut.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+        return this;
+    }
+
+    /**
+     * Registers handler for {@code PUT} requests using path template
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    public <T extends RestHandler> HandlersSubmapping addPut(PathTemplate template, TransportHandler<T> transportHandler,
                                                               Class<? extends T> appHandlerClass) {
-        mappingPut.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+        return addPut(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code PUT} requests using path template with options
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends RestHandler> HandlersSubmapping addPut(PathTemplate template, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingPut.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
         return this;
     }
 
@@ -72,10 +210,56 @@ public class HandlersSubmapping {
      * @param <T>              app handler type
      * @return builder itself
      */
+    public <T extends RestHandler> HandlersSubmapping addDelete(String pattern, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass) {
+        return addDelete(pattern, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code DELETE} requests with options
+     *
+     * @param pattern          named regex pattern
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
     @SuppressWarnings("unchecked")
     public <T extends RestHandler> HandlersSubmapping addDelete(String pattern, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingDelete.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass, options));
+        return this;
+    }
+
+    /**
+     * Registers handler for {@code DELETE} requests using path template
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    public <T extends RestHandler> HandlersSubmapping addDelete(PathTemplate template, TransportHandler<T> transportHandler,
                                                               Class<? extends T> appHandlerClass) {
-        mappingDelete.add(new HandlersMappingEntry<T>(pattern, transportHandler, (Class) appHandlerClass));
+        return addDelete(template, transportHandler, appHandlerClass, RouteOptions.defaults());
+    }
+
+    /**
+     * Registers handler for {@code DELETE} requests using path template with options
+     *
+     * @param template         path template
+     * @param transportHandler transport handler instance
+     * @param appHandlerClass  app handler class
+     * @param options          route options
+     * @param <T>              app handler type
+     * @return builder itself
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends RestHandler> HandlersSubmapping addDelete(PathTemplate template, TransportHandler<T> transportHandler,
+                                                              Class<? extends T> appHandlerClass, RouteOptions options) {
+        mappingDelete.add(new HandlersMappingEntry<T>(template, transportHandler, (Class) appHandlerClass, options));
         return this;
     }
 
@@ -0,0 +1,131 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * Snapshot of micro-batching statistics, latencies are in microseconds
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see MicroBatcher#getStats()
+ */
+public class MicroBatchStats {
+    private final long batches;
+    private final long items;
+    private final long fullBatches;
+    private final long maxBatchSize;
+    private final double meanWaitMicros;
+    private final long maxWaitMicros;
+    private final long p99WaitMicros;
+
+    /**
+     * Constructor
+     *
+     * @param batches number of loader calls
+     * @param items number of inputs given to loader
+     * @param fullBatches number of batches, that were started because they reached max size
+     * @param maxBatchSize largest observed batch size
+     * @param meanWaitMicros mean time inputs waited for batch start
+     * @param maxWaitMicros max time inputs waited for batch start
+     * @param p99WaitMicros 99th percentile of time inputs waited for batch start
+     */
+    public MicroBatchStats(long batches, long items, long fullBatches, long maxBatchSize,
+                           double meanWaitMicros, long maxWaitMicros, long p99WaitMicros) {
+        this.batches = batches;
+        this.items = items;
+        this.fullBatches = fullBatches;
+        this.maxBatchSize = maxBatchSize;
+        this.meanWaitMicros = meanWaitMicros;
+        this.maxWaitMicros = maxWaitMicros;
+        this.p99WaitMicros = p99WaitMicros;
+    }
+
+    /**
+     * Returns number of loader calls
+     *
+     * @return number of batches
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Returns number of inputs given to loader
+     *
+     * @return number of items
+     */
+    public long getItems() {
+        return items;
+    }
+
+    /**
+     * Returns number of batches, that were started because they reached max size,
+     * other batches were started after max delay
+     *
+     * @return number of full batches
+     */
+    public long getFullBatches() {
+        return fullBatches;
+    }
+
+    /**
+     * Returns mean batch size
+     *
+     * @return mean batch size, {@code 0} if there were no batches
+     */
+    public double getMeanBatchSize() {
+        return 0 == batches ? 0 : (double) items / batches;
+    }
+
+    /**
+     * Returns largest observed batch size
+     *
+     * @return max batch size
+     */
+    public long getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns mean latency added by waiting for batch to fill
+     *
+     * @return mean wait time
+     */
+    public double getMeanWaitMicros() {
+        return meanWaitMicros;
+    }
+
+    /**
+     * Returns max latency added by waiting for batch to fill
+     *
+     * @return max wait time
+     */
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+
+    /**
+     * Returns 99th percentile of latency added by waiting for batch to fill
+     *
+     * @return 99th percentile of wait time
+     */
+    public long getP99WaitMicros() {
+        return p99WaitMicros;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("MicroBatchStats");
+        sb.append("{batches=").append(batches);
+        sb.append(", items=").append(items);
+        sb.append(", fullBatches=").append(fullBatches);
+        sb.append(", maxBatchSize=").append(maxBatchSize);
+        sb.append(", meanWaitMicros=").append(meanWaitMicros);
+        sb.append(", maxWaitMicros=").append(maxWaitMicros);
+        sb.append(", p99WaitMicros=").append(p99WaitMicros);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,257 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects inputs of concurrent calls into batches and loads results for each batch with single
+ * {@link BatchLoader} call (DataLoader-style). First call opens new batch and waits until batch
+ * reaches max size or max delay passes, then calls loader on its own thread with inputs of all calls
+ * joined the batch meanwhile, results are handed to waiting calls. Calls arriving after batch is started
+ * open next batch. Exception thrown by loader is rethrown to all calls of the batch. Calls, that joined
+ * the batch, wait for loader up to specified timeout and fail with {@link TimeoutException} after it,
+ * their inputs are still passed to loader. Call, that opened the batch, runs loader itself and is not limited.
+ * Works the same way on request threads and on executor threads of async routes: callers are blocked
+ * until results are ready, so for async routes executor should have at least max batch size threads,
+ * otherwise batch size is limited by number of executor threads. Batch sizes and latency added by waiting
+ * for batch to fill are recorded lock-free and are available through {@link #getStats()}.
+ * Instances are thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class MicroBatcher<I, O> {
+    private static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+
+    private final BatchLoader<I, O> loader;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long timeoutMillis;
+    private final Object lock = new Object();
+    // guarded by lock
+    private Batch<I, O> current;
+    private final StripedCounter batches = new StripedCounter();
+    private final StripedCounter items = new StripedCounter();
+    private final StripedCounter fullBatches = new StripedCounter();
+    private final StripedCounter timeouts = new StripedCounter();
+    private final AtomicLong largest = new AtomicLong();
+    // recorded once per input by batch starting threads, single stripe is enough
+    private final RouteMetrics waits = new RouteMetrics(1);
+
+    /**
+     * Constructor, calls joined the batch wait for loader up to 30 seconds
+     *
+     * @param loader loader of results for batches of inputs
+     * @param maxBatchSize max number of inputs in batch, batch is loaded immediately when it is reached
+     * @param maxDelayMicros max time in microseconds to wait for batch to fill after its first input
+     */
+    public MicroBatcher(BatchLoader<I, O> loader, int maxBatchSize, long maxDelayMicros) {
+        this(loader, maxBatchSize, maxDelayMicros, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param loader loader of results for batches of inputs
+     * @param maxBatchSize max number of inputs in batch, batch is loaded immediately when it is reached
+     * @param maxDelayMicros max time in microseconds to wait for batch to fill after its first input
+     * @param timeoutMillis max time in milliseconds for calls joined the batch to wait for its results
+     */
+    public MicroBatcher(BatchLoader<I, O> loader, int maxBatchSize, long maxDelayMicros, long timeoutMillis) {
+        if(null == loader) throw new IllegalArgumentException("Provided batch loader is null");
+        if(maxBatchSize <= 0) throw new IllegalArgumentException("Invalid max batch size: [" + maxBatchSize + "]");
+        if(maxDelayMicros < 0) throw new IllegalArgumentException("Invalid max delay: [" + maxDelayMicros + "]");
+        if(timeoutMillis <= 0) throw new IllegalArgumentException("Invalid timeout: [" + timeoutMillis + "]");
+        this.loader = loader;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Adds input to current batch and waits for its result
+     *
+     * @param input input, may be null
+     * @return result loaded for this input
+     * @throws Exception exception thrown by loader for this batch,
+     *         {@link IllegalStateException} if loader returned wrong number of results,
+     *         {@link TimeoutException} if results were not loaded in time
+     */
+    public O load(I input) throws Exception {
+        Item<I, O> item = new Item<I, O>(input);
+        Batch<I, O> batch;
+        boolean first = false;
+        synchronized(lock) {
+            batch = current;
+            if(null == batch) {
+                batch = new Batch<I, O>();
+                current = batch;
+                first = true;
+            }
+            batch.items.add(item);
+            if(batch.items.size() >= maxBatchSize) {
+                current = null;
+                batch.full = true;
+                batch.filled.countDown();
+            }
+        }
+        if(first) {
+            run(batch);
+            return item.result();
+        }
+        if(!item.latch.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            timeouts.increment();
+            throw new TimeoutException("Batched call timed out after: [" + timeoutMillis + "] ms," +
+                    " loader: [" + loader + "]");
+        }
+        return item.result();
+    }
+
+    private void run(Batch<I, O> batch) {
+        boolean interrupted = false;
+        try {
+            batch.filled.await(maxDelayNanos, TimeUnit.NANOSECONDS);
+        } catch(InterruptedException e) {
+            // batch is loaded anyway, other callers are waiting for it
+            interrupted = true;
+        }
+        synchronized(lock) {
+            if(current == batch) current = null;
+        }
+        // batch is detached, its items are not modified anymore
+        execute(batch);
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void execute(Batch<I, O> batch) {
+        List<Item<I, O>> list = batch.items;
+        int size = list.size();
+        List<I> inputs = new ArrayList<I>(size);
+        for(Item<I, O> it : list) {
+            inputs.add(it.input);
+            waits.start();
+            waits.finish(it.enqueuedNanos, false);
+        }
+        batches.increment();
+        items.add(size);
+        if(batch.full) fullBatches.increment();
+        for(;;) {
+            long max = largest.get();
+            if(size <= max || largest.compareAndSet(max, size)) break;
+        }
+        List<O> outs = null;
+        Exception error = null;
+        try {
+            outs = loader.load(Collections.unmodifiableList(inputs));
+            if(null == outs || outs.size() != size) error = new IllegalStateException(
+                    "Invalid number of results: [" + (null != outs ? outs.size() : null) + "]" +
+                    " returned by loader: [" + loader + "] for batch of size: [" + size + "]");
+        } catch(Exception e) {
+            error = e;
+        } finally {
+            // loader failed with error
+            if(null == outs && null == error) error = new IllegalStateException(
+                    "Batch loader: [" + loader + "] failed");
+            for(int i = 0; i < size; i++) {
+                list.get(i).complete(null == error ? outs.get(i) : null, error);
+            }
+        }
+    }
+
+    /**
+     * Returns max number of inputs in batch
+     *
+     * @return max batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns max time to wait for batch to fill
+     *
+     * @return max delay in microseconds
+     */
+    public long getMaxDelayMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxDelayNanos);
+    }
+
+    /**
+     * Returns max time for calls joined the batch to wait for its results
+     *
+     * @return timeout in milliseconds
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Returns number of calls, that timed out waiting for batch results
+     *
+     * @return number of timeouts
+     */
+    public long getTimeoutsCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * Returns snapshot of batch sizes and wait latency statistics
+     *
+     * @return statistics snapshot
+     */
+    public MicroBatchStats getStats() {
+        RouteStats wait = waits.snapshot(null, null);
+        return new MicroBatchStats(batches.get(), items.get(), fullBatches.get(), largest.get(),
+                wait.getMeanMicros(), wait.getMaxMicros(), wait.getP99Micros());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("MicroBatcher");
+        sb.append("{loader=").append(loader);
+        sb.append(", maxBatchSize=").append(maxBatchSize);
+        sb.append(", maxDelayMicros=").append(getMaxDelayMicros());
+        sb.append(", timeoutMillis=").append(timeoutMillis);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static class Batch<I, O> {
+        private final List<Item<I, O>> items = new ArrayList<Item<I, O>>();
+        private final CountDownLatch filled = new CountDownLatch(1);
+        // guarded by batcher lock
+        private boolean full = false;
+    }
+
+    private static class Item<I, O> {
+        private final I input;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile O result;
+        private volatile Exception error;
+
+        private Item(I input) {
+            this.input = input;
+        }
+
+        private void complete(O result, Exception error) {
+            this.result = result;
+            this.error = error;
+            latch.countDown();
+        }
+
+        private O result() throws Exception {
+            if(null != error) throw error;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * Source of monotonic time for components, that make decisions based on elapsed time,
+ * may be replaced in tests.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+abstract class NanoClock {
+    /**
+     * Clock backed by {@link System#nanoTime()}
+     */
+    static final NanoClock SYSTEM = new NanoClock() {
+        @Override
+        long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * Returns current value of time source
+     *
+     * @return time in nanoseconds, only differences between values are meaningful
+     */
+    abstract long nanoTime();
+}
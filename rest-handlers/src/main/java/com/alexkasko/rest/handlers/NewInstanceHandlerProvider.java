@@ -0,0 +1,39 @@
+package com.alexkasko.rest.handlers;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * {@link HandlerProvider} implementation, that creates new handler instance for each request
+ * using constructor resolved on registration. Handlers may keep per-request state.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class NewInstanceHandlerProvider extends AbstractHandlerProvider<Constructor<? extends RestHandler>> {
+    /**
+     * Checks that instance can be created
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected Constructor<? extends RestHandler> createState(Constructor<? extends RestHandler> constructor) throws Exception {
+        constructor.newInstance();
+        return constructor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RestHandler acquire(Constructor<? extends RestHandler> state) throws Exception {
+        return state.newInstance();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void release(Constructor<? extends RestHandler> state, RestHandler handler) {
+        // no-op
+    }
+}
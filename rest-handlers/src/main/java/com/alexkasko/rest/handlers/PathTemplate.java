@@ -0,0 +1,188 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Path template, alternative to named regex patterns for routes, that consist of literal
+ * segments and typed placeholders, e.g. {@code /users/{id:long}/orders}. Placeholder must occupy
+ * the whole path segment and has the form {@code {name}} or {@code {name:type}}, supported types:
+ *
+ * <ul>
+ *     <li>{@code string} (default) - any non-empty segment</li>
+ *     <li>{@code long} - decimal number in {@code long} range</li>
+ *     <li>{@code int} - decimal number in {@code int} range</li>
+ * </ul>
+ *
+ * Template is compiled into segment matcher that does not use regular expressions, typed values are
+ * validated during matching without allocation and may be parsed from {@link UrlParams} in place.
+ * Whole path must match the template, no anchors are required. Instances are immutable and thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#addGet(PathTemplate, TransportHandler, Class)
+ */
+public final class PathTemplate {
+    private static final int TYPE_STRING = 0;
+    private static final int TYPE_LONG = 1;
+    private static final int TYPE_INT = 2;
+
+    private final String template;
+    // literal text before each placeholder and after the last one
+    private final String[] literals;
+    private final String[] names;
+    private final int[] types;
+
+    private PathTemplate(String template, String[] literals, String[] names, int[] types) {
+        this.template = template;
+        this.literals = literals;
+        this.names = names;
+        this.types = types;
+    }
+
+    /**
+     * Compiles path template
+     *
+     * @param template path template string
+     * @return compiled template
+     * @throws IllegalArgumentException on invalid template
+     */
+    public static PathTemplate compile(String template) {
+        if(null == template) throw new IllegalArgumentException("Provided template is null");
+        List<String> literals = new ArrayList<String>();
+        List<String> names = new ArrayList<String>();
+        List<Integer> types = new ArrayList<Integer>();
+        int pos = 0;
+        for(;;) {
+            int open = template.indexOf('{', pos);
+            if(open < 0) {
+                literals.add(template.substring(pos));
+                break;
+            }
+            int close = template.indexOf('}', open);
+            if(close < 0) throw new IllegalArgumentException(
+                    "Unclosed placeholder at position: [" + open + "] in template: '" + template + "'");
+            if(0 == open || '/' != template.charAt(open - 1) ||
+                    (close + 1 < template.length() && '/' != template.charAt(close + 1))) {
+                throw new IllegalArgumentException("Placeholder must occupy whole path segment," +
+                        " position: [" + open + "], template: '" + template + "'");
+            }
+            literals.add(template.substring(pos, open));
+            String spec = template.substring(open + 1, close);
+            int colon = spec.indexOf(':');
+            String name = colon >= 0 ? spec.substring(0, colon) : spec;
+            String type = colon >= 0 ? spec.substring(colon + 1) : "string";
+            if(0 == name.length()) throw new IllegalArgumentException(
+                    "Empty placeholder name at position: [" + open + "] in template: '" + template + "'");
+            if(names.contains(name)) throw new IllegalArgumentException(
+                    "Duplicate placeholder name: '" + name + "' in template: '" + template + "'");
+            names.add(name);
+            types.add(parseType(type, template));
+            pos = close + 1;
+        }
+        int[] typesArr = new int[types.size()];
+        for(int i = 0; i < typesArr.length; i++) {
+            typesArr[i] = types.get(i);
+        }
+        return new PathTemplate(template, literals.toArray(new String[literals.size()]),
+                names.toArray(new String[names.size()]), typesArr);
+    }
+
+    private static int parseType(String type, String template) {
+        if("string".equals(type)) return TYPE_STRING;
+        if("long".equals(type)) return TYPE_LONG;
+        if("int".equals(type)) return TYPE_INT;
+        throw new IllegalArgumentException("Unsupported placeholder type: '" + type + "'," +
+                " supported types: 'string', 'long', 'int', template: '" + template + "'");
+    }
+
+    /**
+     * Returns template string
+     *
+     * @return template string as it was provided to {@link #compile(String)}
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Returns literal text before the first placeholder
+     *
+     * @return literal prefix, may be empty
+     */
+    String getLiteralPrefix() {
+        return literals[0];
+    }
+
+    /**
+     * Creates new template with literal prefix prepended to this one
+     *
+     * @param prefix literal prefix
+     * @return prefixed template
+     */
+    PathTemplate prefixed(String prefix) {
+        return compile(prefix + template);
+    }
+
+    /**
+     * Matches path against template
+     *
+     * @param path request path
+     * @return named parameters view, {@code null} if path does not match
+     */
+    UrlParams match(String path) {
+        int len = path.length();
+        String first = literals[0];
+        if(!path.startsWith(first)) return null;
+        int pos = first.length();
+        int[] bounds = null;
+        for(int i = 0; i < names.length; i++) {
+            int end = path.indexOf('/', pos);
+            if(end < 0) end = len;
+            if(end == pos || !valid(types[i], path, pos, end)) return null;
+            if(null == bounds) bounds = new int[names.length * 2];
+            bounds[i * 2] = pos;
+            bounds[i * 2 + 1] = end;
+            String lit = literals[i + 1];
+            if(!path.regionMatches(end, lit, 0, lit.length())) return null;
+            pos = end + lit.length();
+        }
+        if(pos != len) return null;
+        return null != bounds ? new UrlParams(names, path, bounds) : UrlParams.empty();
+    }
+
+    private static boolean valid(int type, String path, int start, int end) {
+        switch(type) {
+            case TYPE_STRING: return true;
+            case TYPE_LONG: return isNumber(path, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+            case TYPE_INT: return isNumber(path, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            default: throw new IllegalStateException("Unsupported type: [" + type + "]");
+        }
+    }
+
+    // same rules as UrlParams.parseLong, without exceptions
+    private static boolean isNumber(String path, int start, int end, long min, long max) {
+        boolean negative = '-' == path.charAt(start);
+        int i = negative || '+' == path.charAt(start) ? start + 1 : start;
+        if(i == end) return false;
+        long limit = negative ? min : -max;
+        long multmin = limit / 10;
+        long res = 0;
+        for(; i < end; i++) {
+            int digit = path.charAt(i) - '0';
+            if(digit < 0 || digit > 9 || res < multmin) return false;
+            res *= 10;
+            if(res < limit + digit) return false;
+            res -= digit;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,92 @@
+package com.alexkasko.rest.handlers;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link HandlerProvider} implementation, that keeps bounded pool of instances for each handler class.
+ * Each instance serves one request at a time, so handlers may keep non thread-safe state.
+ * Instances are created on demand up to the pool size, when all instances are in use, request
+ * waits for released instance up to specified timeout.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class PooledHandlerProvider extends AbstractHandlerProvider<PooledHandlerProvider.Pool> {
+    private final int maxInstances;
+    private final long acquireTimeoutMillis;
+
+    /**
+     * Constructor
+     *
+     * @param maxInstances max number of instances of each handler class
+     * @param acquireTimeoutMillis max time to wait for released instance
+     */
+    public PooledHandlerProvider(int maxInstances, long acquireTimeoutMillis) {
+        if(maxInstances <= 0) throw new IllegalArgumentException("Invalid max instances: [" + maxInstances + "]");
+        if(acquireTimeoutMillis < 0) throw new IllegalArgumentException("Invalid timeout: [" + acquireTimeoutMillis + "]");
+        this.maxInstances = maxInstances;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * Creates pool with one instance
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected Pool createState(Constructor<? extends RestHandler> constructor) throws Exception {
+        Pool pool = new Pool(constructor, maxInstances);
+        pool.created.incrementAndGet();
+        pool.idle.add(constructor.newInstance());
+        return pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RestHandler acquire(Pool state) throws Exception {
+        RestHandler res = state.idle.poll();
+        if(null != res) return res;
+        if(state.created.incrementAndGet() <= maxInstances) {
+            try {
+                return state.constructor.newInstance();
+            } catch(Exception e) {
+                state.created.decrementAndGet();
+                throw e;
+            }
+        }
+        state.created.decrementAndGet();
+        res = state.idle.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        if(null == res) throw new IllegalStateException("Timeout: [" + acquireTimeoutMillis + "] ms exceeded," +
+                " waiting for instance of handler: '" + state.constructor.getDeclaringClass().getName() + "'," +
+                " pool size: [" + maxInstances + "]");
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void release(Pool state, RestHandler handler) {
+        state.idle.offer(handler);
+    }
+
+    /**
+     * Per-class pool, made public only to be used as type parameter
+     */
+    public static class Pool {
+        private final Constructor<? extends RestHandler> constructor;
+        private final BlockingQueue<RestHandler> idle;
+        private final AtomicInteger created = new AtomicInteger();
+
+        private Pool(Constructor<? extends RestHandler> constructor, int size) {
+            this.constructor = constructor;
+            this.idle = new ArrayBlockingQueue<RestHandler>(size);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket rate limiter, may be set for whole dispatcher (checked before path matching)
+ * and for routes in {@link RouteOptions} (checked after matching). Requests without tokens are rejected
+ * through {@link RejectionHandler} with suggested retry delay. Single bucket is shared by all requests,
+ * or, if client key resolver is set, each client gets its own bucket.
+ * Bucket state is a single {@code long} "theoretical arrival time" (GCRA algorithm) updated with CAS,
+ * so check does not lock or allocate for known clients. Buckets are kept in concurrent map bounded
+ * by max number of clients, full (idle) buckets are equivalent to missing ones and are evicted
+ * when map is full, clients, that do not fit into the map, and clients without key share overflow bucket.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#setRateLimiter(RateLimiter)
+ * @see RouteOptions.Builder#setRateLimiter(RateLimiter)
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final ClientKeyResolver resolver;
+    private final int maxClients;
+    private final NanoClock clock;
+    private final AtomicLong shared;
+    private final ConcurrentHashMap<String, AtomicLong> buckets;
+    private final AtomicInteger clients = new AtomicInteger();
+    private final AtomicLong lastSweep;
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final StripedCounter rejected = new StripedCounter();
+    private final StripedCounter evicted = new StripedCounter();
+
+    private RateLimiter(Builder builder) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / builder.permitsPerSecond));
+        this.toleranceNanos = intervalNanos * builder.burst;
+        this.resolver = builder.resolver;
+        this.maxClients = builder.maxClients;
+        this.clock = builder.clock;
+        long now = clock.nanoTime();
+        this.shared = new AtomicLong(now);
+        this.buckets = null != resolver ? new ConcurrentHashMap<String, AtomicLong>() : null;
+        this.lastSweep = new AtomicLong(now);
+    }
+
+    /**
+     * Returns builder for {@code RateLimiter}
+     *
+     * @param permitsPerSecond sustained rate of requests for each bucket
+     * @param burst max number of requests, that may be made at once after bucket was idle
+     * @return builder instance
+     */
+    public static Builder builder(double permitsPerSecond, int burst) {
+        return new Builder(permitsPerSecond, burst);
+    }
+
+    /**
+     * Takes token for request from bucket
+     *
+     * @param request request
+     * @return {@code 0} if token is taken, otherwise time in nanoseconds until token will be available
+     */
+    long tryAcquire(HttpServletRequest request) {
+        long now = clock.nanoTime();
+        AtomicLong tat = null != resolver ? bucket(resolver.resolve(request), now) : shared;
+        for(;;) {
+            long cur = tat.get();
+            long next = (cur - now > 0 ? cur : now) + intervalNanos;
+            long wait = next - now - toleranceNanos;
+            if(wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if(tat.compareAndSet(cur, next)) return 0;
+        }
+    }
+
+    /**
+     * Converts wait time returned by {@link #tryAcquire(HttpServletRequest)} to {@code Retry-After} value
+     *
+     * @param waitNanos wait time in nanoseconds
+     * @return wait time in seconds rounded up
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return (waitNanos + second - 1) / second;
+    }
+
+    /**
+     * Returns number of rejected requests
+     *
+     * @return number of rejected requests
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns number of clients with own buckets
+     *
+     * @return number of clients
+     */
+    public int getClientsCount() {
+        return clients.get();
+    }
+
+    /**
+     * Returns number of evicted idle client buckets
+     *
+     * @return number of evicted buckets
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        if(null == key) return shared;
+        AtomicLong existing = buckets.get(key);
+        if(null != existing) return existing;
+        if(clients.get() >= maxClients) {
+            sweep(now);
+            if(clients.get() >= maxClients) return shared;
+        }
+        AtomicLong created = new AtomicLong(now);
+        existing = buckets.putIfAbsent(key, created);
+        if(null != existing) return existing;
+        clients.incrementAndGet();
+        return created;
+    }
+
+    // removes full buckets, at most once per bucket refill time
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if(now - last < toleranceNanos || !sweepLock.tryLock()) return;
+        try {
+            if(!lastSweep.compareAndSet(last, now)) return;
+            for(Map.Entry<String, AtomicLong> en : buckets.entrySet()) {
+                if(en.getValue().get() - now <= 0 && buckets.remove(en.getKey(), en.getValue())) {
+                    clients.decrementAndGet();
+                    evicted.increment();
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RateLimiter");
+        sb.append("{intervalNanos=").append(intervalNanos);
+        sb.append(", toleranceNanos=").append(toleranceNanos);
+        sb.append(", resolver=").append(resolver);
+        sb.append(", clients=").append(getClientsCount());
+        sb.append(", rejected=").append(getRejectedCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Builder class for {@link RateLimiter}
+     */
+    public static class Builder {
+        private final double permitsPerSecond;
+        private final int burst;
+        private ClientKeyResolver resolver;
+        private int maxClients = 100000;
+        private NanoClock clock = NanoClock.SYSTEM;
+
+        /**
+         * Constructor
+         *
+         * @param permitsPerSecond sustained rate of requests for each bucket
+         * @param burst max number of requests, that may be made at once after bucket was idle
+         */
+        public Builder(double permitsPerSecond, int burst) {
+            if(!(permitsPerSecond > 0)) throw new IllegalArgumentException(
+                    "Invalid permits per second: [" + permitsPerSecond + "]");
+            if(burst <= 0) throw new IllegalArgumentException("Invalid burst: [" + burst + "]");
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        /**
+         * Enables per-client buckets, client key is obtained using provided resolver
+         *
+         * @param resolver client key resolver
+         * @return builder itself
+         */
+        public Builder setClientKeyResolver(ClientKeyResolver resolver) {
+            if(null == resolver) throw new IllegalArgumentException("Provided resolver is null");
+            this.resolver = resolver;
+            return this;
+        }
+
+        /**
+         * Enables per-client buckets, value of specified request header is used as client key
+         *
+         * @param header request header name, e.g. {@code X-Api-Key}
+         * @return builder itself
+         */
+        public Builder setClientHeader(String header) {
+            if(null == header) throw new IllegalArgumentException("Provided header is null");
+            return setClientKeyResolver(new HeaderResolver(header));
+        }
+
+        /**
+         * Enables per-client buckets, {@link HttpServletRequest#getRemoteAddr()} is used as client key
+         *
+         * @return builder itself
+         */
+        public Builder setClientRemoteAddress() {
+            return setClientKeyResolver(new RemoteAddressResolver());
+        }
+
+        /**
+         * Sets max number of per-client buckets, 100000 by default
+         *
+         * @param maxClients max number of clients with own buckets
+         * @return builder itself
+         */
+        public Builder setMaxClients(int maxClients) {
+            if(maxClients <= 0) throw new IllegalArgumentException("Invalid max clients: [" + maxClients + "]");
+            this.maxClients = maxClients;
+            return this;
+        }
+
+        /**
+         * Sets time source, used in tests
+         *
+         * @param clock time source
+         * @return builder itself
+         */
+        Builder setClock(NanoClock clock) {
+            if(null == clock) throw new IllegalArgumentException("Provided clock is null");
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Builds rate limiter instance
+         *
+         * @return rate limiter instance
+         */
+        public RateLimiter build() {
+            return new RateLimiter(this);
+        }
+    }
+
+    private static class HeaderResolver implements ClientKeyResolver {
+        private final String header;
+
+        private HeaderResolver(String header) {
+            this.header = header;
+        }
+
+        @Override
+        public String resolve(HttpServletRequest request) {
+            return request.getHeader(header);
+        }
+
+        @Override
+        public String toString() {
+            return "header:" + header;
+        }
+    }
+
+    private static class RemoteAddressResolver implements ClientKeyResolver {
+        @Override
+        public String resolve(HttpServletRequest request) {
+            return request.getRemoteAddr();
+        }
+
+        @Override
+        public String toString() {
+            return "remoteAddress";
+        }
+    }
+}
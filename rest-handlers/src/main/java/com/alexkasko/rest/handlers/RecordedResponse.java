@@ -0,0 +1,88 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Immutable response produced by transport handler: status, content type, headers and body bytes,
+ * that may be sent any number of times to other responses. Created by {@link RecordingResponse}.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class RecordedResponse {
+    static final String SET = "set";
+    static final String ADD = "add";
+
+    private final int status;
+    private final String contentType;
+    // triples of operation, name and value
+    private final String[] headers;
+    private final byte[] body;
+    private final String etag;
+
+    /**
+     * Constructor
+     *
+     * @param status response status
+     * @param contentType content type, may be null
+     * @param headers triples of operation ({@link #SET} or {@link #ADD}), name and value
+     * @param body body bytes
+     */
+    RecordedResponse(int status, String contentType, String[] headers, byte[] body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.body = body;
+        String et = null;
+        for(int i = 0; i < headers.length; i += 3) {
+            if("ETag".equalsIgnoreCase(headers[i + 1])) et = headers[i + 2];
+        }
+        this.etag = et;
+    }
+
+    /**
+     * Sends status, headers and body to specified response, answers {@code 304}
+     * if {@code If-None-Match} request header matches recorded {@code ETag}
+     *
+     * @param request request
+     * @param response response
+     * @throws Exception on I/O error
+     */
+    void send(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        for(int i = 0; i < headers.length; i += 3) {
+            if(SET.equals(headers[i])) response.setHeader(headers[i + 1], headers[i + 2]);
+            else response.addHeader(headers[i + 1], headers[i + 2]);
+        }
+        if(HttpServletResponse.SC_OK == status && null != etag
+                && ETagTransportHandler.matches(request.getHeader("If-None-Match"), opaque(etag))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if(HttpServletResponse.SC_OK != status) response.setStatus(status);
+        if(null != contentType) response.setContentType(contentType);
+        response.setContentLength(body.length);
+        if(body.length > 0) response.getOutputStream().write(body);
+    }
+
+    /**
+     * Returns approximate size of this response in memory
+     *
+     * @return size in bytes
+     */
+    int size() {
+        int res = body.length + (null != contentType ? contentType.length() * 2 : 0);
+        for(int i = 0; i < headers.length; i += 3) {
+            res += (headers[i + 1].length() + headers[i + 2].length()) * 2;
+        }
+        return res;
+    }
+
+    private static String opaque(String etag) {
+        int start = etag.startsWith("W/") ? 2 : 0;
+        if(etag.length() - start >= 2 && '"' == etag.charAt(start) && '"' == etag.charAt(etag.length() - 1)) {
+            return etag.substring(start + 1, etag.length() - 1);
+        }
+        return etag;
+    }
+}
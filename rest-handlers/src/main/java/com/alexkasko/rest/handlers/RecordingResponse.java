@@ -0,0 +1,146 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buffering response wrapper, that also records headers set by transport handler,
+ * so the response may be stored as {@link RecordedResponse} and sent again.
+ * Headers set on wrapped response before the handler call are not recorded.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class RecordingResponse extends BufferingResponse {
+    private final HttpServletResponse response;
+    // triples of operation, name and value
+    private final List<String> headers = new ArrayList<String>();
+
+    /**
+     * Constructor
+     *
+     * @param response response to wrap
+     * @param pool pool of initial buffers
+     */
+    RecordingResponse(HttpServletResponse response, BufferPool pool) {
+        super(response, pool);
+        this.response = response;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHeader(String name, String value) {
+        super.setHeader(name, value);
+        record(RecordedResponse.SET, name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        record(RecordedResponse.ADD, name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setIntHeader(String name, int value) {
+        super.setIntHeader(name, value);
+        record(RecordedResponse.SET, name, Integer.toString(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addIntHeader(String name, int value) {
+        super.addIntHeader(name, value);
+        record(RecordedResponse.ADD, name, Integer.toString(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDateHeader(String name, long date) {
+        super.setDateHeader(name, date);
+        record(RecordedResponse.SET, name, response.getHeader(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDateHeader(String name, long date) {
+        super.addDateHeader(name, date);
+        record(RecordedResponse.ADD, name, response.getHeader(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        headers.clear();
+        super.reset();
+    }
+
+    /**
+     * Checks whether recorded response may be shared between clients: there is no {@code Set-Cookie} header,
+     * {@code Cache-Control} does not forbid storing, and {@code Vary} header names only specified request headers
+     *
+     * @param varyHeaders request headers, that are included into response key
+     * @return whether response may be shared
+     */
+    boolean isShareable(List<String> varyHeaders) {
+        for(int i = 0; i < headers.size(); i += 3) {
+            String name = headers.get(i + 1);
+            String value = headers.get(i + 2);
+            if("Set-Cookie".equalsIgnoreCase(name)) return false;
+            if("Cache-Control".equalsIgnoreCase(name)) {
+                String lower = value.toLowerCase();
+                if(lower.contains("no-store") || lower.contains("private")) return false;
+            }
+            if("Vary".equalsIgnoreCase(name)) {
+                for(String va : value.split(",")) {
+                    if(!containsIgnoreCase(varyHeaders, va.trim())) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies status, content type, recorded headers and captured body, must be called after
+     * {@link #finishBody()}
+     *
+     * @return recorded response
+     */
+    RecordedResponse toRecorded() {
+        byte[] body = Arrays.copyOf(getBody(), getBodyLength());
+        return new RecordedResponse(response.getStatus(), response.getContentType(),
+                headers.toArray(new String[headers.size()]), body);
+    }
+
+    private void record(String op, String name, String value) {
+        if(null == name || null == value || "Content-Length".equalsIgnoreCase(name)
+                || "Content-Type".equalsIgnoreCase(name)) return;
+        headers.add(op);
+        headers.add(name);
+        headers.add(value);
+    }
+
+    private static boolean containsIgnoreCase(List<String> list, String str) {
+        for(String st : list) {
+            if(st.equalsIgnoreCase(str)) return true;
+        }
+        return false;
+    }
+}
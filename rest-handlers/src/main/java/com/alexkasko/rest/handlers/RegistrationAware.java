@@ -0,0 +1,21 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * May be implemented by {@link TransportHandler}s, that need to prepare per-handler state
+ * (resolve handler instances, type adapters etc) before serving requests.
+ * Called by {@link HandlersDispatcher.Builder#build()} for each registered entry,
+ * so configuration errors are reported on startup instead of on first request.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlerProvider
+ */
+public interface RegistrationAware {
+    /**
+     * Called once for each mapping entry, that uses this transport handler,
+     * implementation may throw runtime exception to fail dispatcher building
+     *
+     * @param entry registered mapping entry
+     */
+    void registered(HandlersMappingEntry<?> entry);
+}
@@ -0,0 +1,26 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Used when request is rejected by dispatcher without calling transport handler,
+ * e.g. when route concurrency limit is reached. Should be fast, it is called under overload.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see DefaultRejectionHandler
+ */
+public interface RejectionHandler {
+    /**
+     * Implementation may send {@link RejectionReason#getStatus()} with {@code Retry-After} header to client
+     *
+     * @param reason rejection reason
+     * @param retryAfterSeconds suggested delay before retry in seconds
+     * @param request request
+     * @param response response
+     * @throws Exception on any exception
+     */
+    void handle(RejectionReason reason, long retryAfterSeconds, HttpServletRequest request,
+                HttpServletResponse response) throws Exception;
+}
@@ -0,0 +1,35 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reasons of rejecting requests without calling transport handler, reported to {@link RejectionHandler}
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public enum RejectionReason {
+    /**
+     * Route {@link Bulkhead} has no free permits
+     */
+    CONCURRENCY_LIMIT(HttpServletResponse.SC_SERVICE_UNAVAILABLE),
+    /**
+     * Dispatcher or route {@link RateLimiter} has no tokens for the request
+     */
+    RATE_LIMIT(429);
+
+    private final int status;
+
+    RejectionReason(int status) {
+        this.status = status;
+    }
+
+    /**
+     * Returns HTTP status, that should be sent for this reason
+     *
+     * @return HTTP status
+     */
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,164 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-flight execution of concurrent identical {@code GET} requests to routes with coalescing enabled
+ * in {@link RouteOptions}. Requests are identical if they are matched to the same route and have the same
+ * URL parameters values, query string and values of request headers listed in route options.
+ * First request calls transport handler and records its response, requests arriving while it is in flight
+ * wait for it and receive copy of recorded status, headers and body. Exception thrown by handler
+ * is rethrown to each waiting request, waiting requests fail with {@link TimeoutException} after timeout.
+ * Responses with {@code Set-Cookie}, with {@code Cache-Control: no-store} or {@code private}, or varying
+ * on not listed request headers are not shared, waiting requests call transport handler themselves.
+ * Should be used for routes, whose responses do not depend on the client. Instance may be shared between dispatchers.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#setRequestCoalescer(RequestCoalescer)
+ * @see RouteOptions.Builder#setCoalesced(boolean)
+ */
+public class RequestCoalescer {
+    private final long timeoutMillis;
+    private final ConcurrentHashMap<ResponseKey, Flight> flights = new ConcurrentHashMap<ResponseKey, Flight>();
+    private final BufferPool pool = new BufferPool(8192, 64);
+    private final StripedCounter executed = new StripedCounter();
+    private final StripedCounter coalesced = new StripedCounter();
+    private final StripedCounter timeouts = new StripedCounter();
+
+    /**
+     * Constructor
+     *
+     * @param timeoutMillis max time to wait for in-flight request in milliseconds
+     */
+    public RequestCoalescer(long timeoutMillis) {
+        if(timeoutMillis <= 0) throw new IllegalArgumentException("Invalid timeout: [" + timeoutMillis + "]");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Calls transport handler and shares its response with identical concurrent requests,
+     * or waits for identical request in flight
+     *
+     * @param entry matched entry with coalescing enabled
+     * @param request request
+     * @param response response
+     * @param params named parameters from request path
+     * @throws Exception on any application exception, or on exception thrown for in-flight request
+     */
+    void handle(HandlersMappingEntry<?> entry, HttpServletRequest request, HttpServletResponse response,
+                UrlParams params) throws Exception {
+        List<String> vary = entry.getOptions().getCacheVaryHeaders();
+        ResponseKey key = ResponseKey.of(entry, vary, request, params);
+        Flight flight = new Flight();
+        Flight inFlight = flights.putIfAbsent(key, flight);
+        if(null != inFlight) {
+            coalesced.increment();
+            RecordedResponse shared = await(inFlight, request);
+            if(null != shared) shared.send(request, response);
+            else entry.handle(request, response, params);
+            return;
+        }
+        executed.increment();
+        RecordingResponse rec = new RecordingResponse(response, pool);
+        RecordedResponse result = null;
+        Exception error = null;
+        try {
+            try {
+                entry.handle(request, rec, params);
+                rec.finishBody();
+                if(rec.isShareable(vary)) result = rec.toRecorded();
+            } catch(Exception e) {
+                error = e;
+                throw e;
+            } finally {
+                // waiters call handler themselves if there is neither result nor exception,
+                // they are released before sending own response, so its I/O errors are not shared
+                flight.complete(result, error);
+                flights.remove(key, flight);
+            }
+            rec.sendBody();
+        } finally {
+            rec.release();
+        }
+    }
+
+    private RecordedResponse await(Flight flight, HttpServletRequest request) throws Exception {
+        if(!flight.latch.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            timeouts.increment();
+            throw new TimeoutException("Coalesced request timed out after: [" + timeoutMillis + "] ms," +
+                    " path: '" + request.getPathInfo() + "'");
+        }
+        if(null != flight.error) throw flight.error;
+        return flight.result;
+    }
+
+    /**
+     * Returns number of requests, that called transport handler
+     *
+     * @return number of executed requests
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Returns number of requests, that waited for identical in-flight request
+     *
+     * @return number of coalesced requests
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns number of coalesced requests, that timed out
+     *
+     * @return number of timeouts
+     */
+    public long getTimeoutsCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * Returns number of distinct requests in flight
+     *
+     * @return number of in-flight requests
+     */
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RequestCoalescer");
+        sb.append("{timeoutMillis=").append(timeoutMillis);
+        sb.append(", executed=").append(getExecutedCount());
+        sb.append(", coalesced=").append(getCoalescedCount());
+        sb.append(", timeouts=").append(getTimeoutsCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static class Flight {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile RecordedResponse result;
+        private volatile Exception error;
+
+        private void complete(RecordedResponse result, Exception error) {
+            this.result = result;
+            this.error = error;
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * Request processing phases, that are timed by {@link RequestTrace}
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see RequestTracer
+ */
+public enum RequestPhase {
+    /**
+     * Matching request path against registered routes, timed by {@link HandlersDispatcher}
+     */
+    MATCH,
+    /**
+     * Reading and parsing request body, timed by transport handler
+     */
+    DECODE,
+    /**
+     * Application handler call, timed by transport handler
+     */
+    HANDLE,
+    /**
+     * Serializing and writing response body, timed by transport handler
+     */
+    ENCODE
+}
@@ -0,0 +1,150 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Per-request phase timings context. Created by {@link HandlersDispatcher} for each request
+ * if {@link RequestTracer} is set and passed to transport handlers as request attribute, transport handlers
+ * obtain it with {@link #of(HttpServletRequest)} and mark phase boundaries with {@link #begin(RequestPhase)}
+ * and {@link #end(RequestPhase)}. All timestamps are stored in array allocated with context, so marking
+ * does not allocate. If tracing is not used, shared no-op instance is returned, its methods do nothing
+ * and do not read the clock. Instances are not thread-safe, phases should be marked by the thread,
+ * that processes the request.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public final class RequestTrace {
+    /**
+     * Name of request attribute, that contains trace context
+     */
+    public static final String ATTRIBUTE = RequestTrace.class.getName();
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+    private static final RequestTrace NOOP = new RequestTrace(null);
+    // set when first dispatcher with tracer is created, allows to skip attributes lookup otherwise
+    private static volatile boolean used = false;
+
+    private final RequestTracer tracer;
+    private final long startNanos;
+    // begin and end timestamps for each phase
+    private final long[] marks;
+    // bit set of ended phases
+    private int ended;
+    private long totalNanos = -1;
+
+    /**
+     * Package private constructor
+     *
+     * @param tracer tracer to notify on completion, {@code null} for no-op instance
+     */
+    RequestTrace(RequestTracer tracer) {
+        this.tracer = tracer;
+        this.startNanos = null != tracer ? System.nanoTime() : 0;
+        this.marks = null != tracer ? new long[PHASES.length * 2] : null;
+    }
+
+    /**
+     * Returns no-op instance
+     *
+     * @return no-op instance
+     */
+    static RequestTrace noop() {
+        return NOOP;
+    }
+
+    /**
+     * Enables lookups of trace contexts in requests attributes
+     */
+    static void enable() {
+        used = true;
+    }
+
+    /**
+     * Returns trace context of specified request
+     *
+     * @param request request
+     * @return trace context, no-op instance if request is not traced
+     */
+    public static RequestTrace of(HttpServletRequest request) {
+        if(!used) return NOOP;
+        Object attr = request.getAttribute(ATTRIBUTE);
+        return attr instanceof RequestTrace ? (RequestTrace) attr : NOOP;
+    }
+
+    /**
+     * Marks beginning of specified phase
+     *
+     * @param phase request phase
+     */
+    public void begin(RequestPhase phase) {
+        if(null == marks) return;
+        marks[phase.ordinal() * 2] = System.nanoTime();
+    }
+
+    /**
+     * Marks end of specified phase
+     *
+     * @param phase request phase
+     */
+    public void end(RequestPhase phase) {
+        if(null == marks) return;
+        marks[phase.ordinal() * 2 + 1] = System.nanoTime();
+        ended |= 1 << phase.ordinal();
+    }
+
+    /**
+     * Returns duration of specified phase
+     *
+     * @param phase request phase
+     * @return phase duration in nanoseconds, {@code -1} if phase was not ended
+     */
+    public long getNanos(RequestPhase phase) {
+        if(0 == (ended & (1 << phase.ordinal()))) return -1;
+        return marks[phase.ordinal() * 2 + 1] - marks[phase.ordinal() * 2];
+    }
+
+    /**
+     * Returns time from request dispatching start to request completion
+     *
+     * @return total duration in nanoseconds, {@code -1} if request is not completed yet
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns whether this context records timings
+     *
+     * @return {@code false} for no-op instance
+     */
+    public boolean isEnabled() {
+        return null != marks;
+    }
+
+    /**
+     * Records total duration and notifies tracer
+     *
+     * @param request processed request
+     */
+    void complete(HttpServletRequest request) {
+        if(null == tracer) return;
+        totalNanos = System.nanoTime() - startNanos;
+        tracer.completed(request, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RequestTrace");
+        sb.append("{enabled=").append(isEnabled());
+        for(RequestPhase ph : PHASES) {
+            sb.append(", ").append(ph).append("=").append(getNanos(ph));
+        }
+        sb.append(", total=").append(totalNanos);
+        sb.append('}');
+        return sb.toString();
+    }
+}
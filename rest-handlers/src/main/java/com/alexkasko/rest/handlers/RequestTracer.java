@@ -0,0 +1,23 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Receives phase timings of processed requests, may be set using
+ * {@link HandlersDispatcher.Builder#setTracer(RequestTracer)}. Called once for each request
+ * after it is processed (for async requests - from the thread, that completed the request),
+ * implementations must be thread-safe, should be fast and must not throw exceptions.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see RequestTrace
+ */
+public interface RequestTracer {
+    /**
+     * Called after request is processed
+     *
+     * @param request processed request
+     * @param trace phase timings of request
+     */
+    void completed(HttpServletRequest request, RequestTrace trace);
+}
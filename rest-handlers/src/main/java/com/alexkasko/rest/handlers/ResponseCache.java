@@ -0,0 +1,227 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of encoded responses of {@code GET} routes, that have cache TTL set in {@link RouteOptions}.
+ * Responses are cached by matched route, URL parameters values, query string and values of request headers
+ * listed in route options. Cache hits are answered with stored status, headers and body bytes
+ * without calling transport handler, {@code If-None-Match} is checked against stored {@code ETag}.
+ * Only {@code 200} responses to {@code GET} requests are stored, responses with {@code Set-Cookie},
+ * with {@code Cache-Control: no-store} or {@code private}, or with {@code Vary} header naming request headers
+ * not listed in route options are not stored. Cache is bounded by approximate size of stored
+ * responses in bytes and is split into independently locked segments, each segment evicts
+ * least recently used responses. Expired responses are removed on access or evicted.
+ * Instance may be shared between dispatchers.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#setResponseCache(ResponseCache)
+ * @see RouteOptions.Builder#setCacheTtl(long)
+ */
+public class ResponseCache {
+    // approximate size of key, entry and map node objects
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final Segment[] segments;
+    private final BufferPool pool;
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+    private final NanoClock clock;
+
+    /**
+     * Constructor, uses 16 segments
+     *
+     * @param maxBytes max size of cached responses in bytes
+     */
+    public ResponseCache(long maxBytes) {
+        this(maxBytes, 16);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxBytes max size of cached responses in bytes, responses larger than
+     *                 {@code maxBytes / concurrency} are not cached
+     * @param concurrency number of segments, rounded up to power of two
+     */
+    public ResponseCache(long maxBytes, int concurrency) {
+        this(maxBytes, concurrency, NanoClock.SYSTEM);
+    }
+
+    /**
+     * Constructor with custom clock for TTL checks
+     *
+     * @param maxBytes max size of cached responses in bytes
+     * @param concurrency number of segments, rounded up to power of two
+     * @param clock time source
+     */
+    ResponseCache(long maxBytes, int concurrency, NanoClock clock) {
+        if(maxBytes <= 0) throw new IllegalArgumentException("Invalid max bytes: [" + maxBytes + "]");
+        if(concurrency <= 0 || concurrency > 1 << 16) throw new IllegalArgumentException(
+                "Invalid concurrency: [" + concurrency + "]");
+        int count = Integer.highestOneBit(concurrency);
+        if(count < concurrency) count <<= 1;
+        this.segments = new Segment[count];
+        for(int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxBytes / count);
+        }
+        this.pool = new BufferPool(8192, 64);
+        this.clock = clock;
+    }
+
+    /**
+     * Answers request from cache or calls transport handler and caches its response
+     *
+     * @param entry matched entry with cache TTL set
+     * @param request request
+     * @param response response
+     * @param params named parameters from request path
+     * @param coalescer coalescer to call transport handler through on cache miss, may be null
+     * @throws Exception on any application exception
+     */
+    void handle(HandlersMappingEntry<?> entry, HttpServletRequest request, HttpServletResponse response,
+                UrlParams params, RequestCoalescer coalescer) throws Exception {
+        RouteOptions options = entry.getOptions();
+        ResponseKey key = ResponseKey.of(entry, options.getCacheVaryHeaders(), request, params);
+        Segment seg = segments[key.hashCode() & (segments.length - 1)];
+        long now = clock.nanoTime();
+        Cached cached = seg.get(key, now);
+        if(null != cached) {
+            hits.increment();
+            cached.response.send(request, response);
+            return;
+        }
+        misses.increment();
+        RecordingResponse rec = new RecordingResponse(response, pool);
+        try {
+            if(null != coalescer) coalescer.handle(entry, request, rec, params);
+            else entry.handle(request, rec, params);
+            rec.finishBody();
+            if("GET".equals(request.getMethod()) && HttpServletResponse.SC_OK == rec.getStatus()
+                    && rec.isShareable(options.getCacheVaryHeaders())) {
+                long expires = now + TimeUnit.MILLISECONDS.toNanos(options.getCacheTtlMillis());
+                seg.put(key, new Cached(rec.toRecorded(), expires, key.size()));
+            }
+            rec.sendBody();
+        } finally {
+            rec.release();
+        }
+    }
+
+    /**
+     * Returns cache statistics, expired responses are counted as misses
+     *
+     * @return stats snapshot
+     */
+    public CacheStats getStats() {
+        long size = 0;
+        for(Segment seg : segments) {
+            size += seg.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    /**
+     * Returns approximate size of cached responses
+     *
+     * @return size in bytes
+     */
+    public long getSizeBytes() {
+        long res = 0;
+        for(Segment seg : segments) {
+            res += seg.bytes();
+        }
+        return res;
+    }
+
+    /**
+     * Removes all cached responses
+     */
+    public void clear() {
+        for(Segment seg : segments) {
+            seg.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("ResponseCache");
+        sb.append("{segments=").append(segments.length);
+        sb.append(", stats=").append(getStats());
+        sb.append(", sizeBytes=").append(getSizeBytes());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private class Segment {
+        private final long maxBytes;
+        // access ordered
+        private final LinkedHashMap<ResponseKey, Cached> map = new LinkedHashMap<ResponseKey, Cached>(16, 0.75f, true);
+        private long bytes = 0;
+
+        private Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized Cached get(ResponseKey key, long now) {
+            Cached res = map.get(key);
+            if(null == res) return null;
+            if(now - res.expires >= 0) {
+                map.remove(key);
+                bytes -= res.size;
+                return null;
+            }
+            return res;
+        }
+
+        private synchronized void put(ResponseKey key, Cached value) {
+            if(value.size > maxBytes) return;
+            Cached prev = map.put(key, value);
+            if(null != prev) bytes -= prev.size;
+            bytes += value.size;
+            Iterator<Cached> it = map.values().iterator();
+            while(bytes > maxBytes) {
+                Cached eldest = it.next();
+                it.remove();
+                bytes -= eldest.size;
+                evictions.increment();
+            }
+        }
+
+        private synchronized int size() {
+            return map.size();
+        }
+
+        private synchronized long bytes() {
+            return bytes;
+        }
+
+        private synchronized void clear() {
+            map.clear();
+            bytes = 0;
+        }
+    }
+
+    private static class Cached {
+        private final RecordedResponse response;
+        private final long expires;
+        private final int size;
+
+        private Cached(RecordedResponse response, long expires, int keySize) {
+            this.response = response;
+            this.expires = expires;
+            this.size = ENTRY_OVERHEAD + keySize + response.size();
+        }
+    }
+}
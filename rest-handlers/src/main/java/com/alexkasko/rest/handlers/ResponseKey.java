@@ -0,0 +1,92 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Identity of response of matched route: route entry, URL parameters values, query string and values
+ * of selected request headers. Used by {@link ResponseCache} and {@link RequestCoalescer}.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class ResponseKey {
+    private final HandlersMappingEntry<?> entry;
+    private final String[] values;
+    private final int hash;
+
+    private ResponseKey(HandlersMappingEntry<?> entry, String[] values) {
+        this.entry = entry;
+        this.values = values;
+        int h = System.identityHashCode(entry) * 31 + Arrays.hashCode(values);
+        this.hash = h ^ (h >>> 16);
+    }
+
+    /**
+     * Creates key for matched request, query string is compared as is, without parameters reordering
+     *
+     * @param entry matched entry
+     * @param headers names of request headers to include into key
+     * @param request request
+     * @param params named parameters from request path
+     * @return key instance
+     */
+    static ResponseKey of(HandlersMappingEntry<?> entry, List<String> headers, HttpServletRequest request,
+                          UrlParams params) {
+        String[] values = new String[params.size() + headers.size() + 1];
+        for(int i = 0; i < params.size(); i++) {
+            if(params.isMatched(i)) values[i] = params.value(i).toString();
+        }
+        for(int i = 0; i < headers.size(); i++) {
+            values[params.size() + i] = request.getHeader(headers.get(i));
+        }
+        values[values.length - 1] = request.getQueryString();
+        return new ResponseKey(entry, values);
+    }
+
+    /**
+     * Returns approximate size of key values
+     *
+     * @return size in bytes
+     */
+    int size() {
+        int res = 0;
+        for(String va : values) {
+            if(null != va) res += va.length() * 2;
+        }
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof ResponseKey)) return false;
+        ResponseKey other = (ResponseKey) o;
+        return hash == other.hash && entry == other.entry && Arrays.equals(values, other.values);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("ResponseKey");
+        sb.append("{pattern=").append(entry.getPattern());
+        sb.append(", values=").append(Arrays.toString(values));
+        sb.append('}');
+        return sb.toString();
+    }
+}
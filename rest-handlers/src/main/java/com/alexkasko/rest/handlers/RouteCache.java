@@ -0,0 +1,102 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of path matching results in front of registry {@link RouteMatcher}.
+ * Reads are lock-free, eviction uses CLOCK policy: hits only set reference bit of the entry,
+ * insertion sweeps the ring of entries clearing reference bits and replaces the first
+ * not referenced one. Insertion is skipped if another thread is inserting at the moment,
+ * so cache misses never block. Not found paths are not cached.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#setRouteCacheSize(int)
+ */
+class RouteCache implements RouteMatcher {
+    private final RouteMatcher delegate;
+    private final ConcurrentHashMap<String, Slot> map;
+    private final Slot[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+    // guarded by lock
+    private int hand = 0;
+
+    /**
+     * Constructor
+     *
+     * @param delegate registry matcher
+     * @param size max number of cached paths
+     */
+    RouteCache(RouteMatcher delegate, int size) {
+        if(size <= 0) throw new IllegalArgumentException("Invalid cache size: [" + size + "]");
+        this.delegate = delegate;
+        this.map = new ConcurrentHashMap<String, Slot>(size * 2);
+        this.ring = new Slot[size];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RouteMatch match(String path) {
+        Slot slot = map.get(path);
+        if(null != slot) {
+            // avoid writing shared cache line on every hit
+            if(!slot.referenced) slot.referenced = true;
+            hits.increment();
+            return slot.match;
+        }
+        misses.increment();
+        RouteMatch res = delegate.match(path);
+        if(null != res) put(path, res);
+        return res;
+    }
+
+    /**
+     * Returns cache statistics
+     *
+     * @return stats snapshot
+     */
+    CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), map.size());
+    }
+
+    private void put(String path, RouteMatch match) {
+        if(!lock.tryLock()) return;
+        try {
+            if(map.containsKey(path)) return;
+            for(;;) {
+                Slot victim = ring[hand];
+                if(null == victim || !victim.referenced) break;
+                victim.referenced = false;
+                hand = (hand + 1) % ring.length;
+            }
+            Slot victim = ring[hand];
+            if(null != victim) {
+                map.remove(victim.path);
+                evictions.increment();
+            }
+            Slot slot = new Slot(path, match);
+            ring[hand] = slot;
+            map.put(path, slot);
+            hand = (hand + 1) % ring.length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Slot {
+        private final String path;
+        private final RouteMatch match;
+        private volatile boolean referenced = false;
+
+        private Slot(String path, RouteMatch match) {
+            this.path = path;
+            this.match = match;
+        }
+    }
+}
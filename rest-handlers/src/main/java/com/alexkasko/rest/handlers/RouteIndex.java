@@ -0,0 +1,183 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * Radix tree over literal prefixes of registry entries patterns, built once on
+ * {@link HandlersDispatcher.Builder#build()}. Each node holds the ordinals of all entries
+ * whose literal prefix is a prefix of the node path, sorted in registration order,
+ * so lookup is a single walk down the tree and its cost depends on the path length only.
+ * Only returned candidates need to be matched against the full pattern.
+ * Regex matchers are cached per thread and reused between requests.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersMappingEntry#getLiteralPrefix()
+ */
+class RouteIndex implements RouteMatcher {
+    private static final int[] EMPTY = new int[0];
+
+    private final HandlersMappingEntry<?>[] entries;
+    private final Node root;
+    private final ThreadLocal<Matcher[]> matchers = new ThreadLocal<Matcher[]>();
+
+    /**
+     * Constructor
+     *
+     * @param registry entries in registration order
+     */
+    RouteIndex(List<HandlersMappingEntry<?>> registry) {
+        this.entries = registry.toArray(new HandlersMappingEntry<?>[registry.size()]);
+        this.root = new Node("");
+        for(int i = 0; i < entries.length; i++) {
+            insert(entries[i].getLiteralPrefix(), i);
+        }
+        root.seal(EMPTY);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RouteMatch match(String path) {
+        int[] candidates = candidates(path);
+        if(0 == candidates.length) return null;
+        Matcher[] cached = matchers.get();
+        if(null == cached) {
+            cached = new Matcher[entries.length];
+            matchers.set(cached);
+        }
+        for(int ordinal : candidates) {
+            HandlersMappingEntry<?> en = entries[ordinal];
+            if(en.isTemplate()) {
+                UrlParams params = en.matchTemplate(path);
+                if(null != params) return new RouteMatch(en, params);
+                continue;
+            }
+            Matcher matcher = cached[ordinal];
+            if(null == matcher) {
+                matcher = en.namedPattern().pattern().matcher(path);
+                cached[ordinal] = matcher;
+            } else {
+                matcher.reset(path);
+            }
+            if(matcher.matches()) return new RouteMatch(en, en.params(path, matcher, 0));
+        }
+        return null;
+    }
+
+    /**
+     * Returns ordinals of entries, whose literal prefixes match the start of the path,
+     * in registration order. Returned array must not be modified.
+     *
+     * @param path request path info
+     * @return candidate entries ordinals
+     */
+    int[] candidates(String path) {
+        Node node = root;
+        int pos = 0;
+        int len = path.length();
+        for(;;) {
+            if(pos == len) return node.candidates;
+            Node child = node.child(path.charAt(pos));
+            if(null == child) return node.candidates;
+            String label = child.label;
+            if(!path.regionMatches(pos, label, 0, label.length())) return node.candidates;
+            pos += label.length();
+            node = child;
+        }
+    }
+
+    private void insert(String prefix, int ordinal) {
+        Node node = root;
+        int pos = 0;
+        for(;;) {
+            if(pos == prefix.length()) {
+                node.own.add(ordinal);
+                return;
+            }
+            Node child = node.child(prefix.charAt(pos));
+            if(null == child) {
+                Node leaf = new Node(prefix.substring(pos));
+                leaf.own.add(ordinal);
+                node.addChild(leaf);
+                return;
+            }
+            String label = child.label;
+            int common = commonPrefixLength(label, prefix, pos);
+            if(common < label.length()) {
+                // split edge
+                Node middle = new Node(label.substring(0, common));
+                child.label = label.substring(common);
+                node.replaceChild(child, middle);
+                middle.addChild(child);
+                child = middle;
+            }
+            pos += common;
+            node = child;
+        }
+    }
+
+    private static int commonPrefixLength(String label, String prefix, int pos) {
+        int max = Math.min(label.length(), prefix.length() - pos);
+        int i = 0;
+        while(i < max && label.charAt(i) == prefix.charAt(pos + i)) i++;
+        return i;
+    }
+
+    private static class Node {
+        private String label;
+        private final List<Integer> own = new ArrayList<Integer>();
+        private Node[] children = new Node[0];
+        private char[] firsts = new char[0];
+        private int[] candidates;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            int idx = Arrays.binarySearch(firsts, first);
+            return idx >= 0 ? children[idx] : null;
+        }
+
+        private void addChild(Node child) {
+            char first = child.label.charAt(0);
+            int idx = -(Arrays.binarySearch(firsts, first) + 1);
+            Node[] nc = new Node[children.length + 1];
+            char[] nf = new char[firsts.length + 1];
+            System.arraycopy(children, 0, nc, 0, idx);
+            System.arraycopy(firsts, 0, nf, 0, idx);
+            nc[idx] = child;
+            nf[idx] = first;
+            System.arraycopy(children, idx, nc, idx + 1, children.length - idx);
+            System.arraycopy(firsts, idx, nf, idx + 1, firsts.length - idx);
+            this.children = nc;
+            this.firsts = nf;
+        }
+
+        private void replaceChild(Node existing, Node replacement) {
+            for(int i = 0; i < children.length; i++) {
+                if(existing == children[i]) children[i] = replacement;
+            }
+        }
+
+        // merges ancestors candidates with own entries, both sorted in registration order
+        private void seal(int[] inherited) {
+            int[] merged = new int[inherited.length + own.size()];
+            int i = 0, j = 0, k = 0;
+            while(i < inherited.length && j < own.size()) {
+                merged[k++] = inherited[i] < own.get(j) ? inherited[i++] : own.get(j++);
+            }
+            while(i < inherited.length) merged[k++] = inherited[i++];
+            while(j < own.size()) merged[k++] = own.get(j++);
+            this.candidates = merged;
+            for(Node ch : children) {
+                ch.seal(merged);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * Result of matching request path against registry
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see RouteMatcher
+ */
+class RouteMatch {
+    private final HandlersMappingEntry<?> entry;
+    private final UrlParams params;
+
+    /**
+     * Constructor
+     *
+     * @param entry matched entry
+     * @param params named parameters from request path
+     */
+    RouteMatch(HandlersMappingEntry<?> entry, UrlParams params) {
+        this.entry = entry;
+        this.params = params;
+    }
+
+    /**
+     * Returns matched entry
+     *
+     * @return matched entry
+     */
+    HandlersMappingEntry<?> getEntry() {
+        return entry;
+    }
+
+    /**
+     * Returns named parameters from request path
+     *
+     * @return named parameters view
+     */
+    UrlParams getParams() {
+        return params;
+    }
+}
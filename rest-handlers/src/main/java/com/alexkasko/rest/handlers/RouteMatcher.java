@@ -0,0 +1,21 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * Matches request path against the registry of one HTTP method, built once
+ * on {@link HandlersDispatcher.Builder#build()}. Implementations must preserve
+ * registration order: first matched entry wins.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see RouteIndex
+ * @see CombinedRouteMatcher
+ */
+interface RouteMatcher {
+    /**
+     * Matches request path against registry
+     *
+     * @param path request path info
+     * @return matched entry with named parameters, {@code null} if nothing matched
+     */
+    RouteMatch match(String path);
+}
@@ -0,0 +1,167 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Request counters and latency histogram of single {@link HandlersMappingEntry}.
+ * Recording is lock-free and does not allocate: values are added to the stripe selected by thread id,
+ * each stripe is a single array with counters and histogram buckets, stripes are allocated on first use
+ * by the threads mapped to them, so rarely used routes take little memory. Histogram is log-linear
+ * (HdrHistogram-style): latencies are recorded in microseconds with 16 linear sub-buckets for each power of two,
+ * so reported percentiles are within ~6% of exact values, values over ~2 hours are clamped.
+ * Stripe takes ~4KB, number of stripes is limited to 4 (or less, if set in constructor), so single route
+ * takes at most ~16KB.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class RouteMetrics {
+    private static final int MAX_STRIPES = 4;
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_MSB = 32;
+    private static final int BUCKETS = (MAX_MSB - SUB_BITS + 2) << SUB_BITS;
+    // leading padding separates counters of neighbour stripes
+    private static final int REQUESTS = 8;
+    private static final int COMPLETED = 9;
+    private static final int ERRORS = 10;
+    private static final int SUM = 11;
+    private static final int MAX = 12;
+    private static final int FIRST_BUCKET = 16;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+
+    /**
+     * Constructor, number of stripes depends on number of CPUs
+     */
+    RouteMetrics() {
+        this(MAX_STRIPES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxStripes max number of stripes, power of two, {@code 1} for metrics recorded from few threads
+     */
+    RouteMetrics(int maxStripes) {
+        this.stripes = new AtomicReferenceArray<AtomicLongArray>(stripes(maxStripes));
+    }
+
+    /**
+     * Records request start
+     */
+    void start() {
+        stripe().incrementAndGet(REQUESTS);
+    }
+
+    /**
+     * Records request completion
+     *
+     * @param startNanos request start time, obtained with {@link System#nanoTime()}
+     * @param error whether request failed
+     */
+    void finish(long startNanos, boolean error) {
+        record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos), error);
+    }
+
+    /**
+     * Records request completion with known latency
+     *
+     * @param micros request latency in microseconds, negative values are recorded as zero
+     * @param error whether request failed
+     */
+    void record(long micros, boolean error) {
+        if(micros < 0) micros = 0;
+        AtomicLongArray st = stripe();
+        st.incrementAndGet(FIRST_BUCKET + bucket(micros));
+        st.addAndGet(SUM, micros);
+        for(;;) {
+            long max = st.get(MAX);
+            if(micros <= max || st.compareAndSet(MAX, max, micros)) break;
+        }
+        if(error) st.incrementAndGet(ERRORS);
+        // completed is incremented last, so in-flight count is never negative
+        st.incrementAndGet(COMPLETED);
+    }
+
+    /**
+     * Sums all stripes into snapshot, values recorded concurrently with this call
+     * may be partially included
+     *
+     * @param method HTTP method of route
+     * @param pattern route pattern
+     * @return route statistics
+     */
+    RouteStats snapshot(String method, String pattern) {
+        long requests = 0;
+        long completed = 0;
+        long errors = 0;
+        long sum = 0;
+        long max = 0;
+        long[] buckets = new long[BUCKETS];
+        for(int i = 0; i < stripes.length(); i++) {
+            AtomicLongArray st = stripes.get(i);
+            if(null == st) continue;
+            completed += st.get(COMPLETED);
+            requests += st.get(REQUESTS);
+            errors += st.get(ERRORS);
+            sum += st.get(SUM);
+            max = Math.max(max, st.get(MAX));
+            for(int j = 0; j < BUCKETS; j++) {
+                buckets[j] += st.get(FIRST_BUCKET + j);
+            }
+        }
+        long count = 0;
+        for(long b : buckets) {
+            count += b;
+        }
+        return new RouteStats(method, pattern, requests, errors, Math.max(0, requests - completed),
+                0 == count ? 0 : (double) sum / count, max,
+                percentile(buckets, count, 0.5, max), percentile(buckets, count, 0.9, max),
+                percentile(buckets, count, 0.99, max), percentile(buckets, count, 0.999, max));
+    }
+
+    // upper bound of the bucket containing requested percentile
+    private static long percentile(long[] buckets, long count, double fraction, long max) {
+        if(0 == count) return 0;
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for(int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if(seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    static int bucket(long micros) {
+        if(micros < SUB) return (int) micros;
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        if(msb > MAX_MSB) return BUCKETS - 1;
+        int shift = msb - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((micros >>> shift) - SUB);
+    }
+
+    static long upperBound(int bucket) {
+        if(bucket < SUB) return bucket;
+        int shift = (bucket >> SUB_BITS) - 1;
+        long top = (bucket & (SUB - 1)) + SUB;
+        return ((top + 1) << shift) - 1;
+    }
+
+    private AtomicLongArray stripe() {
+        int idx = (int) (Thread.currentThread().getId() & (stripes.length() - 1));
+        AtomicLongArray st = stripes.get(idx);
+        if(null != st) return st;
+        stripes.compareAndSet(idx, null, new AtomicLongArray(FIRST_BUCKET + BUCKETS));
+        return stripes.get(idx);
+    }
+
+    private static int stripes(int max) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int res = 1;
+        while(res < cpus && res < max) res <<= 1;
+        return res;
+    }
+}
@@ -0,0 +1,268 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Per-route processing options, may be provided on handler registration in {@link HandlersDispatcher.Builder}
+ * and {@link HandlersSubmapping}. Instances are immutable and thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see HandlersDispatcher.Builder#addGet(String, TransportHandler, Class, RouteOptions)
+ */
+public final class RouteOptions {
+    private static final RouteOptions DEFAULTS = new Builder().build();
+
+    private final boolean async;
+    private final Executor executor;
+    private final long cacheTtlMillis;
+    private final List<String> cacheVaryHeaders;
+    private final boolean coalesced;
+    private final Bulkhead bulkhead;
+    private final RateLimiter rateLimiter;
+
+    private RouteOptions(Builder builder) {
+        this.async = builder.async;
+        this.executor = builder.executor;
+        this.cacheTtlMillis = builder.cacheTtlMillis;
+        this.cacheVaryHeaders = Collections.unmodifiableList(new ArrayList<String>(builder.cacheVaryHeaders));
+        this.coalesced = builder.coalesced;
+        this.bulkhead = builder.bulkhead;
+        this.rateLimiter = builder.rateLimiter;
+    }
+
+    /**
+     * Returns options with default values: synchronous processing on container thread
+     *
+     * @return default options
+     */
+    public static RouteOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns builder for {@code RouteOptions}
+     *
+     * @return builder instance
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns whether route is processed asynchronously
+     *
+     * @return {@code true} for async routes
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Returns executor for async processing of this route
+     *
+     * @return route executor, {@code null} if dispatcher executor should be used
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns time to live of cached responses of this route
+     *
+     * @return TTL in milliseconds, {@code 0} if responses are not cached
+     */
+    public long getCacheTtlMillis() {
+        return cacheTtlMillis;
+    }
+
+    /**
+     * Returns names of request headers, whose values are included into response cache
+     * and request coalescing keys
+     *
+     * @return header names, empty list by default
+     */
+    public List<String> getCacheVaryHeaders() {
+        return cacheVaryHeaders;
+    }
+
+    /**
+     * Returns whether concurrent identical requests to this route share single transport handler call
+     *
+     * @return {@code true} for coalesced routes
+     */
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Returns limit of concurrent requests to this route
+     *
+     * @return bulkhead, {@code null} if concurrency is not limited
+     */
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * Returns rate limit of requests to this route
+     *
+     * @return rate limiter, {@code null} if rate is not limited
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RouteOptions");
+        sb.append("{async=").append(async);
+        sb.append(", executor=").append(executor);
+        sb.append(", cacheTtlMillis=").append(cacheTtlMillis);
+        sb.append(", cacheVaryHeaders=").append(cacheVaryHeaders);
+        sb.append(", coalesced=").append(coalesced);
+        sb.append(", bulkhead=").append(bulkhead);
+        sb.append(", rateLimiter=").append(rateLimiter);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Builder class for {@link RouteOptions}
+     */
+    public static class Builder {
+        private boolean async = false;
+        private Executor executor;
+        private long cacheTtlMillis = 0;
+        private List<String> cacheVaryHeaders = Collections.emptyList();
+        private boolean coalesced = false;
+        private Bulkhead bulkhead;
+        private RateLimiter rateLimiter;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+        }
+
+        /**
+         * Enables async processing for route: request is put into async mode with
+         * {@link javax.servlet.ServletRequest#startAsync()} and transport handler is called from executor,
+         * container thread is released immediately. Requires servlet and filters with async support enabled,
+         * otherwise request is processed synchronously.
+         *
+         * @param async whether to process route asynchronously
+         * @return builder itself
+         * @see HandlersDispatcher.Builder#setExecutor(Executor)
+         */
+        public Builder setAsync(boolean async) {
+            this.async = async;
+            return this;
+        }
+
+        /**
+         * Sets executor to call transport handler from, overrides dispatcher executor, enables async processing
+         *
+         * @param executor route executor
+         * @return builder itself
+         */
+        public Builder setExecutor(Executor executor) {
+            if(null == executor) throw new IllegalArgumentException("Provided executor is null");
+            this.executor = executor;
+            this.async = true;
+            return this;
+        }
+
+        /**
+         * Enables caching of encoded responses of {@code GET} route for specified time, cache hits
+         * do not call transport handler. Requires response cache to be set in dispatcher.
+         *
+         * @param ttlMillis time to live of cached responses in milliseconds
+         * @return builder itself
+         * @see HandlersDispatcher.Builder#setResponseCache(ResponseCache)
+         */
+        public Builder setCacheTtl(long ttlMillis) {
+            if(ttlMillis <= 0) throw new IllegalArgumentException("Invalid cache TTL: [" + ttlMillis + "]");
+            this.cacheTtlMillis = ttlMillis;
+            return this;
+        }
+
+        /**
+         * Sets names of request headers, whose values are included into response cache key
+         * and request coalescing key, e.g. {@code Accept-Language}. Responses with {@code Vary} header are cached only if all
+         * varying headers are listed here, so {@code Accept-Encoding} should be listed for routes
+         * with {@link CompressingTransportHandler}.
+         *
+         * @param headers request header names
+         * @return builder itself
+         */
+        public Builder setCacheVaryHeaders(String... headers) {
+            if(null == headers) throw new IllegalArgumentException("Provided headers are null");
+            for(String he : headers) {
+                if(null == he) throw new IllegalArgumentException("Provided header name is null");
+            }
+            this.cacheVaryHeaders = Arrays.asList(headers.clone());
+            return this;
+        }
+
+        /**
+         * Enables coalescing of concurrent identical {@code GET} requests to route: only one of them calls
+         * transport handler, others receive copy of its response. Requires request coalescer to be set in dispatcher.
+         *
+         * @param coalesced whether to coalesce concurrent identical requests
+         * @return builder itself
+         * @see HandlersDispatcher.Builder#setRequestCoalescer(RequestCoalescer)
+         */
+        public Builder setCoalesced(boolean coalesced) {
+            this.coalesced = coalesced;
+            return this;
+        }
+
+        /**
+         * Limits number of concurrently processed requests to route, requests over the limit
+         * are rejected without calling transport handler. The same instance may be set
+         * for many routes to limit them together.
+         *
+         * @param bulkhead concurrency limit
+         * @return builder itself
+         * @see HandlersDispatcher.Builder#setRejectionHandler(RejectionHandler)
+         */
+        public Builder setBulkhead(Bulkhead bulkhead) {
+            if(null == bulkhead) throw new IllegalArgumentException("Provided bulkhead is null");
+            this.bulkhead = bulkhead;
+            return this;
+        }
+
+        /**
+         * Limits rate of requests to route, requests over the limit are rejected without calling
+         * transport handler. Rate limit is checked before concurrency limit. The same instance may be set
+         * for many routes to limit them together.
+         *
+         * @param rateLimiter rate limiter
+         * @return builder itself
+         * @see HandlersDispatcher.Builder#setRejectionHandler(RejectionHandler)
+         */
+        public Builder setRateLimiter(RateLimiter rateLimiter) {
+            if(null == rateLimiter) throw new IllegalArgumentException("Provided rate limiter is null");
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Builds options instance
+         *
+         * @return options instance
+         */
+        public RouteOptions build() {
+            return new RouteOptions(this);
+        }
+    }
+}
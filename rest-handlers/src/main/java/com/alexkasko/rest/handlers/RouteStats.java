@@ -0,0 +1,177 @@
+package com.alexkasko.rest.handlers;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of single route statistics, latencies are in microseconds
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see DispatcherMetrics#getRoutes()
+ */
+public class RouteStats {
+    private final String method;
+    private final String pattern;
+    private final long requests;
+    private final long errors;
+    private final long inFlight;
+    private final double meanMicros;
+    private final long maxMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+
+    /**
+     * Constructor
+     *
+     * @param method HTTP method
+     * @param pattern route pattern or template
+     * @param requests number of started requests
+     * @param errors number of requests failed with exception
+     * @param inFlight number of requests in progress
+     * @param meanMicros mean latency
+     * @param maxMicros max latency
+     * @param p50Micros median latency
+     * @param p90Micros 90th percentile latency
+     * @param p99Micros 99th percentile latency
+     * @param p999Micros 99.9th percentile latency
+     */
+    @ConstructorProperties({"method", "pattern", "requests", "errors", "inFlight", "meanMicros", "maxMicros",
+            "p50Micros", "p90Micros", "p99Micros", "p999Micros"})
+    public RouteStats(String method, String pattern, long requests, long errors, long inFlight, double meanMicros,
+                      long maxMicros, long p50Micros, long p90Micros, long p99Micros, long p999Micros) {
+        this.method = method;
+        this.pattern = pattern;
+        this.requests = requests;
+        this.errors = errors;
+        this.inFlight = inFlight;
+        this.meanMicros = meanMicros;
+        this.maxMicros = maxMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+    }
+
+    /**
+     * Returns HTTP method
+     *
+     * @return HTTP method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns route pattern or template
+     *
+     * @return route pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns number of started requests
+     *
+     * @return number of requests
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns number of requests failed with exception
+     *
+     * @return number of errors
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns number of requests in progress
+     *
+     * @return in-flight requests
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Returns mean latency of completed requests
+     *
+     * @return mean latency in microseconds
+     */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * Returns max latency of completed requests
+     *
+     * @return max latency in microseconds
+     */
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * Returns median latency of completed requests
+     *
+     * @return median latency in microseconds
+     */
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * Returns 90th percentile latency of completed requests
+     *
+     * @return 90th percentile latency in microseconds
+     */
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    /**
+     * Returns 99th percentile latency of completed requests
+     *
+     * @return 99th percentile latency in microseconds
+     */
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * Returns 99.9th percentile latency of completed requests
+     *
+     * @return 99.9th percentile latency in microseconds
+     */
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("RouteStats");
+        sb.append("{method='").append(method).append('\'');
+        sb.append(", pattern='").append(pattern).append('\'');
+        sb.append(", requests=").append(requests);
+        sb.append(", errors=").append(errors);
+        sb.append(", inFlight=").append(inFlight);
+        sb.append(", meanMicros=").append(meanMicros);
+        sb.append(", maxMicros=").append(maxMicros);
+        sb.append(", p50Micros=").append(p50Micros);
+        sb.append(", p90Micros=").append(p90Micros);
+        sb.append(", p99Micros=").append(p99Micros);
+        sb.append(", p999Micros=").append(p999Micros);
+        sb.append('}');
+        return sb.toString();
+    }
+}
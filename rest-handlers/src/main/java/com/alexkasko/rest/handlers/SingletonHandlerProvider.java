@@ -0,0 +1,36 @@
+package com.alexkasko.rest.handlers;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * {@link HandlerProvider} implementation, that creates single instance of each handler class
+ * on registration and shares it between all requests. Handlers must be thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class SingletonHandlerProvider extends AbstractHandlerProvider<RestHandler> {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RestHandler createState(Constructor<? extends RestHandler> constructor) throws Exception {
+        return constructor.newInstance();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RestHandler acquire(RestHandler state) {
+        return state;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void release(RestHandler state, RestHandler handler) {
+        // no-op
+    }
+}
@@ -0,0 +1,58 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter, that spreads concurrent increments over padded cells selected by thread id,
+ * so threads on different cores do not contend on the same cache line. Reading sums all cells.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+class StripedCounter {
+    // longs per cell, 128 bytes
+    private static final int PAD = 16;
+    private static final int STRIPES = stripes();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    /**
+     * Increments counter
+     */
+    void increment() {
+        cells.incrementAndGet(index());
+    }
+
+    /**
+     * Adds value to counter
+     *
+     * @param value value to add
+     */
+    void add(long value) {
+        cells.addAndGet(index(), value);
+    }
+
+    /**
+     * Returns sum of all cells
+     *
+     * @return counter value
+     */
+    long get() {
+        long res = 0;
+        for(int i = 0; i < STRIPES; i++) {
+            res += cells.get(i * PAD);
+        }
+        return res;
+    }
+
+    private static int index() {
+        return (int) (Thread.currentThread().getId() & (STRIPES - 1)) * PAD;
+    }
+
+    private static int stripes() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int res = 1;
+        while(res < cpus * 2) res <<= 1;
+        return res;
+    }
+}
@@ -0,0 +1,54 @@
+package com.alexkasko.rest.handlers;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * {@link HandlerProvider} implementation, that keeps one instance of each handler class
+ * per thread. Handlers may keep non thread-safe state (parsers, prepared statements etc)
+ * between requests, instance is created on first request served by each thread.
+ * Instances are reused only by pooled threads: with {@link VirtualThreadExecutor}, that runs each request
+ * on a new thread, this provider creates new instance for each request and keeps it until thread exits,
+ * {@link PooledHandlerProvider} should be used with such executors instead.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class ThreadLocalHandlerProvider extends AbstractHandlerProvider<ThreadLocal<RestHandler>> {
+    /**
+     * Checks that instance can be created, this instance is used by registering thread
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected ThreadLocal<RestHandler> createState(final Constructor<? extends RestHandler> constructor) throws Exception {
+        ThreadLocal<RestHandler> res = new ThreadLocal<RestHandler>() {
+            @Override
+            protected RestHandler initialValue() {
+                try {
+                    return constructor.newInstance();
+                } catch(Exception e) {
+                    throw new IllegalStateException("Cannot instantiate handler class: '" +
+                            constructor.getDeclaringClass().getName() + "'", e);
+                }
+            }
+        };
+        res.set(constructor.newInstance());
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RestHandler acquire(ThreadLocal<RestHandler> state) {
+        return state.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void release(ThreadLocal<RestHandler> state, RestHandler handler) {
+        // no-op
+    }
+}
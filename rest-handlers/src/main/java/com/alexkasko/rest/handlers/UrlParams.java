@@ -0,0 +1,300 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lightweight read-only view over named parameters matched from request path.
+ * Parameters are indexed by position, parameter names are resolved once for each
+ * {@link HandlersMappingEntry}. Values are not copied from request path, they may be
+ * read as {@link CharSequence} slices or parsed as numbers directly from path characters.
+ * Instances are immutable and thread-safe.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see UrlParamsTransportHandler
+ */
+public final class UrlParams {
+    private static final String[] NO_NAMES = new String[0];
+    private static final int[] NO_BOUNDS = new int[0];
+    private static final UrlParams EMPTY = new UrlParams(NO_NAMES, "", NO_BOUNDS);
+
+    private final String[] names;
+    private final CharSequence source;
+    // start and end for each parameter, -1 for not matched parameters
+    private final int[] bounds;
+
+    /**
+     * Package private constructor
+     *
+     * @param names parameters names, shared between instances, must not be modified
+     * @param source request path
+     * @param bounds start and end positions in path for each parameter, {@code -1} for not matched parameters
+     */
+    UrlParams(String[] names, CharSequence source, int[] bounds) {
+        this.names = names;
+        this.source = source;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Returns instance without parameters
+     *
+     * @return empty params
+     */
+    public static UrlParams empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates params view from map, may be used by {@link UrlParamsTransportHandler} implementations
+     * to delegate {@link TransportHandler#handle(Class, javax.servlet.http.HttpServletRequest,
+     * javax.servlet.http.HttpServletResponse, java.util.Map)} calls. Allocates new strings.
+     *
+     * @param map named parameters
+     * @return params view
+     */
+    public static UrlParams of(Map<String, String> map) {
+        if(null == map) throw new IllegalArgumentException("Provided map is null");
+        if(map.isEmpty()) return EMPTY;
+        String[] names = new String[map.size()];
+        int[] bounds = new int[map.size() * 2];
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        for(Map.Entry<String, String> en : map.entrySet()) {
+            names[i] = en.getKey();
+            if(null != en.getValue()) {
+                bounds[i * 2] = sb.length();
+                sb.append(en.getValue());
+                bounds[i * 2 + 1] = sb.length();
+            } else {
+                bounds[i * 2] = -1;
+                bounds[i * 2 + 1] = -1;
+            }
+            i += 1;
+        }
+        return new UrlParams(names, sb.toString(), bounds);
+    }
+
+    /**
+     * Returns parameters count
+     *
+     * @return parameters count
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns parameter name
+     *
+     * @param index parameter position
+     * @return parameter name
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns parameter position by its name, it is recommended to resolve positions
+     * once and to access values by position afterwards
+     *
+     * @param name parameter name
+     * @return parameter position, {@code -1} if no such parameter
+     */
+    public int indexOf(String name) {
+        for(int i = 0; i < names.length; i++) {
+            if(names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether parameter was matched
+     *
+     * @param index parameter position
+     * @return {@code false} if parameter is in optional group and was not matched
+     */
+    public boolean isMatched(int index) {
+        return bounds[index * 2] >= 0;
+    }
+
+    /**
+     * Returns start position of parameter value in request path
+     *
+     * @param index parameter position
+     * @return start position, {@code -1} if parameter was not matched
+     */
+    public int start(int index) {
+        return bounds[index * 2];
+    }
+
+    /**
+     * Returns end position (exclusive) of parameter value in request path
+     *
+     * @param index parameter position
+     * @return end position, {@code -1} if parameter was not matched
+     */
+    public int end(int index) {
+        return bounds[index * 2 + 1];
+    }
+
+    /**
+     * Returns parameter value as a slice of request path, characters are not copied
+     *
+     * @param index parameter position
+     * @return parameter value, {@code null} if parameter was not matched
+     */
+    public CharSequence value(int index) {
+        int start = bounds[index * 2];
+        if(start < 0) return null;
+        return new Slice(source, start, bounds[index * 2 + 1]);
+    }
+
+    /**
+     * Returns parameter value by name as a new string
+     *
+     * @param name parameter name
+     * @return parameter value, {@code null} if no such parameter or it was not matched
+     */
+    public String get(String name) {
+        int idx = indexOf(name);
+        if(idx < 0 || !isMatched(idx)) return null;
+        return source.subSequence(start(idx), end(idx)).toString();
+    }
+
+    /**
+     * Parses parameter value as decimal {@code long} directly from request path
+     *
+     * @param index parameter position
+     * @return parsed value
+     * @throws NumberFormatException if parameter was not matched or cannot be parsed
+     */
+    public long getLong(int index) {
+        if(!isMatched(index)) throw new NumberFormatException("Parameter was not matched: '" + names[index] + "'");
+        return parseLong(source, start(index), end(index));
+    }
+
+    /**
+     * Parses parameter value as decimal {@code int} directly from request path
+     *
+     * @param index parameter position
+     * @return parsed value
+     * @throws NumberFormatException if parameter was not matched or cannot be parsed
+     */
+    public int getInt(int index) {
+        long res = getLong(index);
+        if(res < Integer.MIN_VALUE || res > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Parameter value is out of int range: '" + value(index) + "'");
+        }
+        return (int) res;
+    }
+
+    /**
+     * Compares parameter value with provided string without copying
+     *
+     * @param index parameter position
+     * @param str string to compare
+     * @return {@code true} if parameter was matched and equals to provided string
+     */
+    public boolean valueEquals(int index, CharSequence str) {
+        int start = bounds[index * 2];
+        if(start < 0) return false;
+        int len = bounds[index * 2 + 1] - start;
+        if(len != str.length()) return false;
+        for(int i = 0; i < len; i++) {
+            if(source.charAt(start + i) != str.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies parameters to map, used for {@link TransportHandler}s that do not support params views.
+     * Not matched parameters are present with {@code null} values.
+     *
+     * @return new map of named parameters
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> res = new LinkedHashMap<String, String>();
+        for(int i = 0; i < names.length; i++) {
+            res.put(names[i], isMatched(i) ? source.subSequence(start(i), end(i)).toString() : null);
+        }
+        return res;
+    }
+
+    /**
+     * Parses decimal {@code long} from characters range
+     *
+     * @param cs characters
+     * @param start start position
+     * @param end end position, exclusive
+     * @return parsed value
+     * @throws NumberFormatException on invalid input or overflow
+     */
+    static long parseLong(CharSequence cs, int start, int end) {
+        if(start >= end) throw new NumberFormatException("Empty number");
+        boolean negative = '-' == cs.charAt(start);
+        int i = negative || '+' == cs.charAt(start) ? start + 1 : start;
+        if(i == end) throw new NumberFormatException("Invalid number: '" + cs.subSequence(start, end) + "'");
+        // accumulate negatively to cover Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long res = 0;
+        for(; i < end; i++) {
+            int digit = cs.charAt(i) - '0';
+            if(digit < 0 || digit > 9 || res < multmin) {
+                throw new NumberFormatException("Invalid number: '" + cs.subSequence(start, end) + "'");
+            }
+            res *= 10;
+            if(res < limit + digit) {
+                throw new NumberFormatException("Invalid number: '" + cs.subSequence(start, end) + "'");
+            }
+            res -= digit;
+        }
+        return negative ? res : -res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private static class Slice implements CharSequence {
+        private final CharSequence source;
+        private final int start;
+        private final int end;
+
+        private Slice(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if(index < 0 || index >= end - start) throw new IndexOutOfBoundsException(Integer.toString(index));
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if(from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("from: [" + from + "], to: [" + to + "]");
+            }
+            return new Slice(source, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, end).toString();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * {@link TransportHandler} that receives named parameters from request path
+ * as {@link UrlParams} view instead of map. {@link HandlersDispatcher} always uses this
+ * method for such handlers, so no map and no parameters strings are allocated on dispatching.
+ * Map-accepting method may delegate to this one using {@link UrlParams#of(java.util.Map)}.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see UrlParams
+ */
+public interface UrlParamsTransportHandler<T extends RestHandler> extends TransportHandler<T> {
+    /**
+     * Processes request transport (application level transport, not TCP) and
+     * delegate application processing to {@link RestHandler}
+     *
+     * @param handlerClass application handler class
+     * @param request request
+     * @param response response
+     * @param urlParams named parameters from request path
+     * @throws Exception on any application exception
+     */
+    void handle(Class<? extends T> handlerClass, HttpServletRequest request, HttpServletResponse response,
+                UrlParams urlParams) throws Exception;
+}
@@ -0,0 +1,24 @@
+package com.alexkasko.rest.handlers;
+
+/**
+ * May be implemented by application handlers, that can cheaply tell current version
+ * of the resource they return (e.g. last modification counter or timestamp), without producing it.
+ * {@link ETagTransportHandler} uses version as entity tag and answers conditional requests
+ * with matching {@code If-None-Match} header with {@code 304} without calling the handler
+ * and serializing response.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ * @see ETagTransportHandler
+ */
+public interface VersionedHandler extends RestHandler {
+    /**
+     * Returns current version of the resource, that will be returned by handler
+     * for specified URL parameters
+     *
+     * @param urlParams named parameters from request path
+     * @return version string without double quotes, {@code null} if version is unknown
+     *         and response body should be hashed instead
+     */
+    String version(UrlParams urlParams);
+}
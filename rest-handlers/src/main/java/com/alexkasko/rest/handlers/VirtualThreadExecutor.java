@@ -0,0 +1,141 @@
+package com.alexkasko.rest.handlers;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executor, that runs each task on a new virtual thread, intended for handlers with blocking I/O
+ * in async dispatch mode, see {@link HandlersDispatcher.Builder#setExecutor(Executor)} and
+ * {@link RouteOptions.Builder#setExecutor(Executor)}. Number of concurrently running tasks is limited,
+ * there is no queue: tasks over the limit are rejected with {@link RejectedExecutionException},
+ * async dispatch reports rejection to exception handler. Virtual threads are obtained through reflection, so library may be
+ * compiled for older Java versions, Java 21+ runtime is required to create instances.
+ * Instances are thread-safe and do not require shutdown.
+ *
+ * @author alexkasko
+ * Date: 10/18/26
+ */
+public class VirtualThreadExecutor implements Executor {
+    private final ThreadFactory factory;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    /**
+     * Constructor
+     *
+     * @param namePrefix prefix for virtual threads names, threads are numbered starting from zero
+     * @param maxConcurrency max number of concurrently running tasks
+     * @throws IllegalStateException if virtual threads are not supported by runtime
+     */
+    public VirtualThreadExecutor(String namePrefix, int maxConcurrency) {
+        if(null == namePrefix) throw new IllegalArgumentException("Provided name prefix is null");
+        if(maxConcurrency <= 0) throw new IllegalArgumentException("Invalid max concurrency: [" + maxConcurrency + "]");
+        this.factory = virtualThreadFactory(namePrefix);
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Returns whether runtime supports virtual threads
+     *
+     * @return {@code true} on Java 21+
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch(NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Obtains concurrency permit and starts new virtual thread, that runs provided task
+     *
+     * @param command task
+     * @throws RejectedExecutionException if all permits are taken or thread cannot be started
+     */
+    @Override
+    public void execute(Runnable command) {
+        if(null == command) throw new NullPointerException("Provided command is null");
+        if(!permits.tryAcquire()) throw new RejectedExecutionException(
+                "Concurrency limit reached, max concurrency: [" + maxConcurrency + "]");
+        try {
+            factory.newThread(new Permitted(command)).start();
+        } catch(RuntimeException e) {
+            permits.release();
+            if(e instanceof RejectedExecutionException) throw e;
+            throw new RejectedExecutionException("Cannot start virtual thread", e);
+        } catch(Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns number of tasks, that may be started without rejection
+     *
+     * @return available permits
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Returns max number of concurrently running tasks
+     *
+     * @return concurrency limit
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            Method factoryMethod = builderClass.getMethod("factory");
+            return (ThreadFactory) factoryMethod.invoke(builder);
+        } catch(NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads are not supported by runtime," +
+                    " Java 21+ is required, current version: [" + System.getProperty("java.version") + "]", e);
+        } catch(Exception e) {
+            throw new IllegalStateException("Cannot create virtual threads factory", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("VirtualThreadExecutor");
+        sb.append("{maxConcurrency=").append(maxConcurrency);
+        sb.append(", availablePermits=").append(permits.availablePermits());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private class Permitted implements Runnable {
+        private final Runnable task;
+
+        private Permitted(Runnable task) {
+            this.task = task;
+        }
+
+        // permit is acquired by execute()
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class AccessLogTest {
+
+    @Test
+    public void testFormat() throws Exception {
+        File file = tempFile();
+        AccessLog log = new AccessLog(file, 16);
+        assertTrue("Log fail", log.log("GET", "/foo bar", "^/foo$", 200, 42, TimeUnit.MILLISECONDS.toNanos(3)));
+        assertTrue("Log fail", log.log("POST", "/baz", null, 404, -1, 1000));
+        log.close();
+        List<String> lines = read(file);
+        assertEquals("Lines fail", 2, lines.size());
+        assertTrue("Line fail: " + lines.get(0),
+                lines.get(0).matches("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3} GET /foo%20bar \\^/foo\\$ 200 42 3000"));
+        assertTrue("Line fail: " + lines.get(1), lines.get(1).endsWith(" POST /baz - 404 - 1"));
+        assertEquals("Written fail", 2, log.getWrittenCount());
+        assertEquals("Dropped fail", 0, log.getDroppedCount());
+        // closed log drops records
+        assertFalse("Closed fail", log.log("GET", "/foo", null, 200, -1, 0));
+        assertEquals("Dropped fail", 1, log.getDroppedCount());
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        File file = tempFile();
+        // capacity is rounded up to 4
+        AccessLog log = new AccessLog(file, 3, false);
+        for(int i = 0; i < 4; i++) {
+            assertTrue("Log fail", log.log("GET", "/" + i, null, 200, i, 0));
+        }
+        assertFalse("Overflow fail", log.log("GET", "/4", null, 200, 4, 0));
+        assertEquals("Dropped fail", 1, log.getDroppedCount());
+        log.startWriter();
+        awaitWritten(log, 4);
+        // ring wraps around after slots are freed by writer
+        for(int i = 5; i < 9; i++) {
+            assertTrue("Wrap fail", log.log("GET", "/" + i, null, 200, i, 0));
+        }
+        log.close();
+        List<String> lines = read(file);
+        assertEquals("Lines fail", 8, lines.size());
+        assertTrue("Order fail", lines.get(3).contains(" GET /3 - 200 3 "));
+        assertTrue("Order fail", lines.get(4).contains(" GET /5 - 200 5 "));
+        assertEquals("Written fail", 8, log.getWrittenCount());
+        assertEquals("Dropped fail", 1, log.getDroppedCount());
+    }
+
+    @Test
+    public void testBackoff() throws Exception {
+        File file = tempFile();
+        AccessLog log = new AccessLog(file, 16);
+        // writer backs off to max park interval while idle and still picks up new records
+        Thread.sleep(200);
+        assertTrue("Log fail", log.log("GET", "/idle", null, 200, -1, 0));
+        awaitWritten(log, 1);
+        Thread.sleep(200);
+        // closing wakes up parked writer
+        long start = System.currentTimeMillis();
+        log.close();
+        assertTrue("Close fail", System.currentTimeMillis() - start < 1000);
+        assertEquals("Lines fail", 1, read(file).size());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        for(int iter = 0; iter < 20; iter++) {
+            File file = tempFile();
+            final AccessLog log = new AccessLog(file, 64);
+            final CountDownLatch go = new CountDownLatch(1);
+            final AtomicLong accepted = new AtomicLong();
+            List<Thread> producers = new ArrayList<Thread>();
+            final int perThread = 2000;
+            for(int i = 0; i < 4; i++) {
+                final int id = i;
+                Thread th = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            go.await();
+                        } catch(InterruptedException e) {
+                            return;
+                        }
+                        for(int j = 0; j < perThread; j++) {
+                            if(log.log("GET", "/" + id + "/" + j, null, 200, j, 0)) accepted.incrementAndGet();
+                        }
+                    }
+                });
+                th.start();
+                producers.add(th);
+            }
+            go.countDown();
+            // closed while producers are still logging, records must not be lost silently
+            if(iter % 2 == 0) Thread.sleep(1);
+            log.close();
+            for(Thread th : producers) {
+                th.join();
+            }
+            long total = 4 * perThread;
+            List<String> lines = read(file);
+            assertEquals("Written fail", accepted.get(), log.getWrittenCount());
+            assertEquals("Lines fail", log.getWrittenCount(), lines.size());
+            assertEquals("Count fail", total, log.getWrittenCount() + log.getDroppedCount());
+            // records of each producer are written in order
+            int[] last = {-1, -1, -1, -1};
+            for(String li : lines) {
+                String[] parts = li.split(" ")[3].split("/");
+                int id = Integer.parseInt(parts[1]);
+                int num = Integer.parseInt(parts[2]);
+                assertTrue("Order fail", num > last[id]);
+                last[id] = num;
+            }
+        }
+    }
+
+    private static void awaitWritten(AccessLog log, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while(log.getWrittenCount() < count) {
+            assertTrue("Write fail", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("access", ".log");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static List<String> read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            List<String> res = new ArrayList<String>();
+            String line;
+            while(null != (line = reader.readLine())) {
+                res.add(line);
+            }
+            return res;
+        } finally {
+            reader.close();
+        }
+    }
+}
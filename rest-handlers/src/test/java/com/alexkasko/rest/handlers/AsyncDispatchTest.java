@@ -0,0 +1,199 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class AsyncDispatchTest {
+
+    @Test
+    public void testCompleted() throws Exception {
+        Blocking th = new Blocking(false);
+        th.proceed.countDown();
+        Bulkhead bh = Bulkhead.builder(2).build();
+        MockRequest req = asyncRequest();
+        MockResponse resp = new MockResponse();
+        dispatcher(th, bh, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }).dispatch(req.proxy(), resp.proxy());
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertEquals("Status fail", HttpServletResponse.SC_CREATED, resp.status);
+        assertEquals("Body fail", "handler", resp.bodyString());
+        assertEquals("Header fail", "handler", resp.header("X-Source"));
+        assertEquals("Permit fail", 0, bh.getInFlight());
+        // late timeout event is ignored
+        req.async.timeout();
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertEquals("Body fail", "handler", resp.bodyString());
+    }
+
+    @Test
+    public void testTimeoutWhileRunning() throws Exception {
+        Blocking th = new Blocking(false);
+        Bulkhead bh = Bulkhead.builder(2).build();
+        Threads exec = new Threads();
+        MockRequest req = asyncRequest();
+        MockResponse resp = new MockResponse();
+        dispatcher(th, bh, exec).dispatch(req.proxy(), resp.proxy());
+        assertTrue("Start fail", th.started.await(10, TimeUnit.SECONDS));
+        req.async.timeout();
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertEquals("Status fail", HttpServletResponse.SC_INTERNAL_SERVER_ERROR, resp.status);
+        String error = resp.bodyString();
+        assertTrue("Error fail", error.contains("TimeoutException"));
+        // handler is still running and is counted by bulkhead
+        assertEquals("Permit fail", 1, bh.getInFlight());
+        th.proceed.countDown();
+        exec.join();
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertEquals("Permit fail", 0, bh.getInFlight());
+        // handler output after timeout is discarded
+        assertEquals("Status fail", HttpServletResponse.SC_INTERNAL_SERVER_ERROR, resp.status);
+        assertEquals("Body fail", error, resp.bodyString());
+        assertNull("Header fail", resp.header("X-Source"));
+        assertEquals("Calls fail", 1, th.calls.get());
+    }
+
+    @Test
+    public void testTimeoutBeforeStart() throws Exception {
+        Blocking th = new Blocking(false);
+        th.proceed.countDown();
+        Bulkhead bh = Bulkhead.builder(1).build();
+        final List<Runnable> queue = new ArrayList<Runnable>();
+        MockRequest req = asyncRequest();
+        MockResponse resp = new MockResponse();
+        dispatcher(th, bh, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queue.add(command);
+            }
+        }).dispatch(req.proxy(), resp.proxy());
+        assertEquals("Permit fail", 1, bh.getInFlight());
+        req.async.timeout();
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertEquals("Permit fail", 0, bh.getInFlight());
+        // queued task does not call handler and does not release permit again
+        queue.get(0).run();
+        assertEquals("Calls fail", 0, th.calls.get());
+        assertEquals("Permit fail", 0, bh.getInFlight());
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertTrue("Acquire fail", bh.tryAcquire());
+        assertFalse("Permit fail", bh.tryAcquire());
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        Blocking th = new Blocking(false);
+        Bulkhead bh = Bulkhead.builder(1).build();
+        MockRequest req = asyncRequest();
+        MockResponse resp = new MockResponse();
+        HandlersDispatcher dispatcher = dispatcher(th, bh, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException("Rejected");
+            }
+        });
+        dispatcher.dispatch(req.proxy(), resp.proxy());
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertEquals("Status fail", HttpServletResponse.SC_INTERNAL_SERVER_ERROR, resp.status);
+        assertTrue("Error fail", resp.bodyString().contains("RejectedExecutionException"));
+        assertEquals("Calls fail", 0, th.calls.get());
+        // released exactly once
+        assertEquals("Permit fail", 0, bh.getInFlight());
+        req.async.timeout();
+        assertEquals("Permit fail", 0, bh.getInFlight());
+        assertEquals("Complete fail", 1, req.async.completions.get());
+    }
+
+    @Test
+    public void testHandlerException() throws Exception {
+        Blocking th = new Blocking(true);
+        th.proceed.countDown();
+        Bulkhead bh = Bulkhead.builder(1).build();
+        Threads exec = new Threads();
+        MockRequest req = asyncRequest();
+        MockResponse resp = new MockResponse();
+        dispatcher(th, bh, exec).dispatch(req.proxy(), resp.proxy());
+        exec.join();
+        assertEquals("Complete fail", 1, req.async.completions.get());
+        assertEquals("Status fail", HttpServletResponse.SC_INTERNAL_SERVER_ERROR, resp.status);
+        assertTrue("Error fail", resp.bodyString().contains("Handler failure"));
+        assertEquals("Permit fail", 0, bh.getInFlight());
+    }
+
+    private static MockRequest asyncRequest() {
+        MockRequest req = new MockRequest();
+        req.asyncSupported = true;
+        return req;
+    }
+
+    private static HandlersDispatcher dispatcher(Blocking th, Bulkhead bh, Executor exec) {
+        RouteOptions options = RouteOptions.builder().setAsync(true).setExecutor(exec).setBulkhead(bh).build();
+        return HandlersDispatcher.builder()
+                .addGet("^/test$", th, RestHandler.class, options)
+                .build();
+    }
+
+    private static class Blocking implements TransportHandler<RestHandler> {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch proceed = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private final boolean fail;
+
+        private Blocking(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+            calls.incrementAndGet();
+            started.countDown();
+            if(!proceed.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Test timeout");
+            if(fail) throw new IllegalStateException("Handler failure");
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            response.setHeader("X-Source", "handler");
+            response.getWriter().write("handler");
+            response.getWriter().flush();
+        }
+    }
+
+    private static class Threads implements Executor {
+        private final List<Thread> threads = new ArrayList<Thread>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            Thread th = new Thread(command);
+            threads.add(th);
+            th.start();
+        }
+
+        synchronized void join() throws InterruptedException {
+            for(Thread th : threads) {
+                th.join(TimeUnit.SECONDS.toMillis(10));
+                assertFalse("Join fail", th.isAlive());
+            }
+        }
+    }
+}
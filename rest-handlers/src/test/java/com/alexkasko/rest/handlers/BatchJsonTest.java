@@ -0,0 +1,91 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class BatchJsonTest {
+
+    @Test
+    public void testParse() {
+        String body = "{\"x\": [1, -2.5e+3, true, false, null, \"s\\\"]\"], \"y\": {}}";
+        List<String[]> list = BatchJson.parse(" [ {\"method\": \"get\", \"path\": \"/a\"},\n" +
+                "{\"path\": \"/b\", \"extra\": {\"n\": [[]]}, \"method\": \"POST\", \"body\": " + body + "} ] ");
+        assertEquals("Size fail", 2, list.size());
+        assertEquals("Method fail", "GET", list.get(0)[0]);
+        assertEquals("Path fail", "/a", list.get(0)[1]);
+        assertNull("Body fail", list.get(0)[2]);
+        assertEquals("Method fail", "POST", list.get(1)[0]);
+        assertEquals("Path fail", "/b", list.get(1)[1]);
+        assertEquals("Raw body fail", body, list.get(1)[2]);
+        assertEquals("Empty fail", 0, BatchJson.parse("[]").size());
+        assertEquals("Scalar body fail", "\"text\"",
+                BatchJson.parse("[{\"method\":\"PUT\",\"path\":\"/c\",\"body\":\"text\"}]").get(0)[2]);
+    }
+
+    @Test
+    public void testEscapes() {
+        List<String[]> list = BatchJson.parse("[{\"method\":\"DELETE\",\"path\":\"\\/a\\u0062\\t\\\\\"}]");
+        assertEquals("Escape fail", "/ab\t\\", list.get(0)[1]);
+    }
+
+    @Test
+    public void testQuote() {
+        StringBuilder sb = new StringBuilder();
+        BatchJson.quote(sb, "a\"b\\c\n\r\t\u0001  /é");
+        assertEquals("Quote fail", "\"a\\\"b\\\\c\\n\\r\\t\\u0001\\u2028\\u2029/é\"", sb.toString());
+        String path = "/x\"y\\z\u001f ";
+        StringBuilder req = new StringBuilder("[{\"method\":\"GET\",\"path\":");
+        BatchJson.quote(req, path);
+        req.append("}]");
+        assertEquals("Round trip fail", path, BatchJson.parse(req.toString()).get(0)[1]);
+    }
+
+    @Test
+    public void testInvalid() {
+        assertInvalid("");
+        assertInvalid("{}");
+        assertInvalid("[");
+        assertInvalid("[{}]");
+        assertInvalid("[] x");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\"},]");
+        assertInvalid("[{\"path\":\"/a\"}]");
+        assertInvalid("[{\"method\":\"PATCH\",\"path\":\"/a\"}]");
+        assertInvalid("[{\"method\":\"GET\"}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"a\"}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\n\"}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\\x\"}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\\u12\"}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\\u12zz\"}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":-}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":1.}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":1e}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":tru}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":[1 2]}]");
+        assertInvalid("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":{\"k\" 1}}]");
+        StringBuilder deep = new StringBuilder("[{\"method\":\"GET\",\"path\":\"/a\",\"body\":");
+        for(int i = 0; i < 300; i++) deep.append('[');
+        for(int i = 0; i < 300; i++) deep.append(']');
+        deep.append("}]");
+        assertInvalid(deep.toString());
+    }
+
+    private static void assertInvalid(String json) {
+        try {
+            BatchJson.parse(json);
+            fail("Batch request must be rejected: '" + json + "'");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
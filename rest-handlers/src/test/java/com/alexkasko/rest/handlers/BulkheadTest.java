@@ -0,0 +1,122 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class BulkheadTest {
+    private static final long TARGET_MILLIS = 50;
+
+    @Test
+    public void testLimit() {
+        ManualClock clock = new ManualClock();
+        Bulkhead bh = Bulkhead.builder(2).setClock(clock).build();
+        assertFalse("Adaptive fail", bh.isAdaptive());
+        assertTrue("Acquire fail", bh.tryAcquire());
+        assertTrue("Acquire fail", bh.tryAcquire());
+        assertFalse("Limit fail", bh.tryAcquire());
+        assertEquals("In flight fail", 2, bh.getInFlight());
+        assertEquals("Rejected fail", 1, bh.getRejectedCount());
+        long start = clock.nanoTime();
+        clock.advanceMillis(1000);
+        bh.release(start, false);
+        assertEquals("In flight fail", 1, bh.getInFlight());
+        assertEquals("Static limit fail", 2, bh.getLimit());
+        assertTrue("Acquire fail", bh.tryAcquire());
+    }
+
+    @Test
+    public void testAdaptive() {
+        ManualClock clock = new ManualClock();
+        Bulkhead bh = Bulkhead.builder(10).setAdaptive(2, TARGET_MILLIS).setClock(clock).build();
+        assertTrue("Adaptive fail", bh.isAdaptive());
+        // first decrease is allowed after target latency interval since creation
+        call(bh, clock, TARGET_MILLIS * 2, false);
+        assertEquals("Decrease interval fail", 10, bh.getLimit());
+        clock.advanceMillis(TARGET_MILLIS);
+        call(bh, clock, TARGET_MILLIS * 2, false);
+        assertEquals("Decrease fail", 9, bh.getLimit());
+        // at most one decrease per target latency interval
+        clock.advanceMillis(TARGET_MILLIS - 1);
+        call(bh, clock, TARGET_MILLIS * 2, false);
+        assertEquals("Decrease interval fail", 9, bh.getLimit());
+        clock.advanceMillis(1);
+        call(bh, clock, TARGET_MILLIS * 2, false);
+        assertEquals("Decrease fail", 8, bh.getLimit());
+        // limit number of requests within target latency increase limit by one
+        for(int i = 0; i < 7; i++) {
+            call(bh, clock, TARGET_MILLIS, false);
+        }
+        assertEquals("Increase fail", 8, bh.getLimit());
+        call(bh, clock, TARGET_MILLIS, false);
+        assertEquals("Increase fail", 9, bh.getLimit());
+        for(int i = 0; i < 100; i++) {
+            call(bh, clock, 0, false);
+        }
+        assertEquals("Max limit fail", 10, bh.getLimit());
+        assertEquals("In flight fail", 0, bh.getInFlight());
+    }
+
+    @Test
+    public void testMinLimit() {
+        ManualClock clock = new ManualClock();
+        Bulkhead bh = Bulkhead.builder(3).setAdaptive(2, TARGET_MILLIS).setClock(clock).build();
+        for(int i = 0; i < 3; i++) {
+            clock.advanceMillis(TARGET_MILLIS);
+            call(bh, clock, TARGET_MILLIS * 2, false);
+            assertEquals("Min limit fail", 2, bh.getLimit());
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        ManualClock clock = new ManualClock();
+        Bulkhead bh = Bulkhead.builder(3).setAdaptive(1, TARGET_MILLIS).setClock(clock).build();
+        clock.advanceMillis(TARGET_MILLIS);
+        call(bh, clock, TARGET_MILLIS * 2, true);
+        assertEquals("Error fail", 3, bh.getLimit());
+        call(bh, clock, TARGET_MILLIS * 2, false);
+        assertEquals("Decrease fail", 2, bh.getLimit());
+        for(int i = 0; i < 10; i++) {
+            call(bh, clock, 0, true);
+        }
+        assertEquals("Error fail", 2, bh.getLimit());
+    }
+
+    @Test
+    public void testInvalid() {
+        try {
+            Bulkhead.builder(0);
+            fail("Zero limit must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            Bulkhead.builder(10).setAdaptive(11, TARGET_MILLIS);
+            fail("Min limit over limit must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            Bulkhead.builder(10).setAdaptive(1, 0);
+            fail("Zero target latency must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    // request, that completes now and took specified time
+    private static void call(Bulkhead bh, ManualClock clock, long millis, boolean error) {
+        assertTrue("Acquire fail", bh.tryAcquire());
+        bh.release(clock.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis), error);
+    }
+}
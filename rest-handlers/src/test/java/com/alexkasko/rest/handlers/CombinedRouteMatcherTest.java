@@ -0,0 +1,90 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.alexkasko.rest.handlers.RouteIndexTest.PATHS;
+import static com.alexkasko.rest.handlers.RouteIndexTest.assertMatch;
+import static com.alexkasko.rest.handlers.RouteIndexTest.permutations;
+import static com.alexkasko.rest.handlers.RouteIndexTest.regex;
+import static com.alexkasko.rest.handlers.RouteIndexTest.template;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class CombinedRouteMatcherTest {
+
+    @Test
+    public void testGroupScoping() {
+        List<HandlersMappingEntry<?>> registry = new ArrayList<HandlersMappingEntry<?>>();
+        registry.add(regex("^/a/(?<id>\\d+)$"));
+        registry.add(regex("^/x/((a)(b))?(?<n>\\d+)$"));
+        registry.add(regex("^/e/\\((?<p>[()]+)\\)$"));
+        registry.add(regex("^/(?:x/(?<v>\\d+)|y/(?<v>[a-z]+))$"));
+        registry.add(regex("^/b/(?<id>[a-z]+)/(?<n>\\w+)$"));
+        CombinedRouteMatcher matcher = new CombinedRouteMatcher(registry);
+        RouteMatch first = matcher.match("/a/42");
+        assertSame("Entry fail", registry.get(0), first.getEntry());
+        assertEquals("Params fail", "{id=42}", first.getParams().toMap().toString());
+        RouteMatch nested = matcher.match("/x/ab7");
+        assertSame("Entry fail", registry.get(1), nested.getEntry());
+        assertEquals("Params fail", "{n=7}", nested.getParams().toMap().toString());
+        RouteMatch escaped = matcher.match("/e/(())");
+        assertSame("Entry fail", registry.get(2), escaped.getEntry());
+        assertEquals("Params fail", "{p=()}", escaped.getParams().toMap().toString());
+        RouteMatch altDigits = matcher.match("/x/12");
+        assertSame("Entry fail", registry.get(1), altDigits.getEntry());
+        RouteMatch altLetters = matcher.match("/y/abc");
+        assertSame("Entry fail", registry.get(3), altLetters.getEntry());
+        assertEquals("Params fail", "{v=abc}", altLetters.getParams().toMap().toString());
+        // groups of previous alternatives are not visible
+        RouteMatch last = matcher.match("/b/bob/q");
+        assertSame("Entry fail", registry.get(4), last.getEntry());
+        assertEquals("Params fail", "{id=bob, n=q}", last.getParams().toMap().toString());
+        assertNull("Not found fail", matcher.match("/b/42/q"));
+    }
+
+    @Test
+    public void testBackreferences() {
+        HandlersMappingEntry<?> named = regex("^/c/(?<x>\\w+)$");
+        HandlersMappingEntry<?> backref = regex("^/c/(\\w)\\1$");
+        HandlersMappingEntry<?> rest = regex("^/(?<y>c)/(?<z>.*)$");
+        List<HandlersMappingEntry<?>> registry = new ArrayList<HandlersMappingEntry<?>>();
+        registry.add(backref);
+        registry.add(named);
+        registry.add(rest);
+        CombinedRouteMatcher matcher = new CombinedRouteMatcher(registry);
+        assertSame("Entry fail", backref, matcher.match("/c/aa").getEntry());
+        assertSame("Entry fail", named, matcher.match("/c/ab").getEntry());
+        RouteMatch tail = matcher.match("/c/a/b");
+        assertSame("Entry fail", rest, tail.getEntry());
+        assertEquals("Params fail", "{y=c, z=a/b}", tail.getParams().toMap().toString());
+    }
+
+    @Test
+    public void testRegistrationOrder() {
+        List<HandlersMappingEntry<?>> entries = new ArrayList<HandlersMappingEntry<?>>();
+        entries.add(regex("^/users/(?<id>\\d+)$"));
+        entries.add(regex("^/users/me$"));
+        entries.add(regex("^/users/(?<name>[a-z]+)$"));
+        entries.add(regex("^/us(?<rest>.*)$"));
+        entries.add(regex("^/a|/users/b$"));
+        entries.add(regex("^/users/(\\w)\\1$"));
+        entries.add(template("/users/{id:long}/orders"));
+        int orders = 0;
+        for(List<HandlersMappingEntry<?>> registry : permutations(entries)) {
+            CombinedRouteMatcher matcher = new CombinedRouteMatcher(registry);
+            for(String path : PATHS) {
+                assertMatch(registry, path, matcher.match(path));
+            }
+            orders += 1;
+        }
+        assertEquals("Permutations fail", 5040, orders);
+    }
+}
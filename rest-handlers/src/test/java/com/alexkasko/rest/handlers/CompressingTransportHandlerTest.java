@@ -0,0 +1,206 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class CompressingTransportHandlerTest {
+    private static final byte[] LARGE = body(5000);
+    private static final byte[] SMALL = body(100);
+
+    @Test
+    public void testNegotiate() {
+        assertEquals("Identity fail", CompressingTransportHandler.IDENTITY, CompressingTransportHandler.negotiate(null));
+        assertEquals("Gzip fail", CompressingTransportHandler.GZIP, CompressingTransportHandler.negotiate("gzip, deflate"));
+        assertEquals("Deflate fail", CompressingTransportHandler.DEFLATE, CompressingTransportHandler.negotiate("deflate"));
+        assertEquals("Quality fail", CompressingTransportHandler.DEFLATE,
+                CompressingTransportHandler.negotiate("gzip;q=0.5, deflate"));
+        assertEquals("Any fail", CompressingTransportHandler.GZIP, CompressingTransportHandler.negotiate("*"));
+        assertEquals("Refused fail", CompressingTransportHandler.IDENTITY,
+                CompressingTransportHandler.negotiate("gzip;q=0, br"));
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        MockResponse resp = call("gzip", new Writing(LARGE));
+        assertEquals("Encoding fail", "gzip", resp.header("Content-Encoding"));
+        assertEquals("Vary fail", "Accept-Encoding", resp.header("Vary"));
+        assertEquals("Length fail", -1, resp.contentLength);
+        assertTrue("Compression fail", resp.body.size() < LARGE.length / 2);
+        assertArrayEquals("Body fail", LARGE, read(new GZIPInputStream(new ByteArrayInputStream(resp.body.toByteArray()))));
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        MockResponse resp = call("deflate", new Writing(LARGE));
+        assertEquals("Encoding fail", "deflate", resp.header("Content-Encoding"));
+        assertArrayEquals("Body fail", LARGE, read(new InflaterInputStream(new ByteArrayInputStream(resp.body.toByteArray()))));
+    }
+
+    @Test
+    public void testSmall() throws Exception {
+        MockResponse resp = call("gzip", new Writing(SMALL));
+        assertNull("Encoding fail", resp.header("Content-Encoding"));
+        assertEquals("Length fail", SMALL.length, resp.contentLength);
+        assertArrayEquals("Body fail", SMALL, resp.body.toByteArray());
+        MockResponse empty = call("gzip", new Writing(new byte[0]));
+        assertNull("Encoding fail", empty.header("Content-Encoding"));
+        assertEquals("Body fail", 0, empty.body.size());
+    }
+
+    @Test
+    public void testDeclaredLength() throws Exception {
+        Writing small = new Writing(SMALL);
+        small.declaredLength = SMALL.length;
+        MockResponse resp = call("gzip", small);
+        assertNull("Encoding fail", resp.header("Content-Encoding"));
+        assertEquals("Length fail", SMALL.length, resp.contentLength);
+        assertArrayEquals("Body fail", SMALL, resp.body.toByteArray());
+        // large declared length is dropped, compressed length is not known
+        Writing large = new Writing(LARGE);
+        large.declaredLength = LARGE.length;
+        MockResponse compressed = call("gzip", large);
+        assertEquals("Encoding fail", "gzip", compressed.header("Content-Encoding"));
+        assertEquals("Length fail", -1, compressed.contentLength);
+        assertArrayEquals("Body fail", LARGE, read(new GZIPInputStream(new ByteArrayInputStream(compressed.body.toByteArray()))));
+    }
+
+    @Test
+    public void testOwnEncoding() throws Exception {
+        Writing encoded = new Writing(LARGE);
+        encoded.encoding = "br";
+        MockResponse resp = call("gzip", encoded);
+        assertEquals("Encoding fail", "br", resp.header("Content-Encoding"));
+        assertArrayEquals("Body fail", LARGE, resp.body.toByteArray());
+        Writing image = new Writing(LARGE);
+        image.contentType = "image/png";
+        MockResponse png = call("gzip", image);
+        assertNull("Encoding fail", png.header("Content-Encoding"));
+        assertArrayEquals("Body fail", LARGE, png.body.toByteArray());
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        Writing failing = new Writing(LARGE);
+        failing.fail = true;
+        MockResponse resp = new MockResponse();
+        try {
+            handler(failing).handle(RestHandler.class, request("gzip"), resp.proxy(), UrlParams.empty());
+            fail("Handler exception must be propagated");
+        } catch(IllegalStateException e) {
+            // expected
+        }
+        // compressed body and headers are reset, so exception handler may write its own response
+        assertFalse("Commit fail", resp.committed);
+        assertNull("Encoding fail", resp.header("Content-Encoding"));
+        assertEquals("Body fail", 0, resp.body.size());
+    }
+
+    @Test
+    public void testFlushBuffered() throws Exception {
+        Writing streaming = new Writing(SMALL);
+        streaming.flushBuffer = true;
+        streaming.tail = LARGE;
+        MockResponse resp = call("gzip", streaming);
+        assertNull("Encoding fail", resp.header("Content-Encoding"));
+        assertEquals("Length fail", -1, resp.contentLength);
+        assertTrue("Commit fail", resp.committed);
+        assertEquals("Body fail", SMALL.length + LARGE.length, resp.body.size());
+        Writing streamFlush = new Writing(SMALL);
+        streamFlush.flushStream = true;
+        streamFlush.tail = LARGE;
+        MockResponse flushed = call("gzip", streamFlush);
+        assertNull("Encoding fail", flushed.header("Content-Encoding"));
+        assertEquals("Body fail", SMALL.length + LARGE.length, flushed.body.size());
+        // writer is flushed on finish, small body written with it is not streamed
+        Writing writer = new Writing(SMALL);
+        writer.useWriter = true;
+        MockResponse written = call("gzip", writer);
+        assertEquals("Length fail", SMALL.length, written.contentLength);
+        assertArrayEquals("Body fail", SMALL, written.body.toByteArray());
+    }
+
+    private static MockResponse call(String acceptEncoding, Writing delegate) throws Exception {
+        MockResponse resp = new MockResponse();
+        handler(delegate).handle(RestHandler.class, request(acceptEncoding), resp.proxy(), UrlParams.empty());
+        return resp;
+    }
+
+    private static CompressingTransportHandler<RestHandler> handler(Writing delegate) {
+        return new CompressingTransportHandler<RestHandler>(delegate, 1024, 6, 4);
+    }
+
+    private static HttpServletRequest request(String acceptEncoding) {
+        return new MockRequest().header("Accept-Encoding", acceptEncoding).proxy();
+    }
+
+    private static byte[] body(int len) {
+        byte[] res = new byte[len];
+        for(int i = 0; i < len; i++) {
+            res[i] = (byte) ('a' + (i % 7));
+        }
+        return res;
+    }
+
+    private static byte[] read(InputStream is) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        int read;
+        while(-1 != (read = is.read(buf))) {
+            baos.write(buf, 0, read);
+        }
+        return baos.toByteArray();
+    }
+
+    private static class Writing implements TransportHandler<RestHandler> {
+        private final byte[] body;
+        private String contentType = "application/json";
+        private String encoding;
+        private int declaredLength = -1;
+        private boolean fail = false;
+        private boolean flushBuffer = false;
+        private boolean flushStream = false;
+        private boolean useWriter = false;
+        private byte[] tail = new byte[0];
+
+        private Writing(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+            response.setContentType(contentType);
+            if(null != encoding) response.setHeader("Content-Encoding", encoding);
+            if(declaredLength >= 0) response.setContentLength(declaredLength);
+            if(useWriter) {
+                response.getWriter().write(new String(body, "UTF-8"));
+            } else {
+                response.getOutputStream().write(body);
+            }
+            if(flushBuffer) response.flushBuffer();
+            if(flushStream) response.getOutputStream().flush();
+            if(tail.length > 0) response.getOutputStream().write(tail);
+            if(fail) throw new IllegalStateException("Handler failure");
+        }
+    }
+}
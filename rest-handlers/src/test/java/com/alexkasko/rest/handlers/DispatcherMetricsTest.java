@@ -0,0 +1,100 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class DispatcherMetricsTest {
+    private static final String NAME = "com.alexkasko.rest.handlers.test:type=DispatcherMetricsTest";
+
+    @Test
+    public void testCounters() {
+        HandlersMappingEntry<?> get = RouteIndexTest.regex("^/get$");
+        HandlersMappingEntry<?> delete = RouteIndexTest.regex("^/delete$");
+        DispatcherMetrics dm = new DispatcherMetrics(registries(get, delete));
+        get.getMetrics().start();
+        get.getMetrics().record(10, false);
+        delete.getMetrics().start();
+        delete.getMetrics().record(20, true);
+        dm.notFound();
+        dm.rejected(RejectionReason.RATE_LIMIT);
+        dm.rejected(RejectionReason.CONCURRENCY_LIMIT);
+        dm.rejected(RejectionReason.CONCURRENCY_LIMIT);
+        List<RouteStats> routes = dm.getRoutes();
+        assertEquals("Routes fail", 2, routes.size());
+        assertEquals("Method fail", "GET", routes.get(0).getMethod());
+        assertEquals("Pattern fail", "^/get$", routes.get(0).getPattern());
+        assertEquals("Method fail", "DELETE", routes.get(1).getMethod());
+        assertEquals("Requests fail", 2, dm.getRequestsCount());
+        assertEquals("Errors fail", 1, dm.getErrorsCount());
+        assertEquals("Not found fail", 1, dm.getNotFoundCount());
+        assertEquals("Rate limited fail", 1, dm.getRateLimitedCount());
+        assertEquals("Concurrency limited fail", 2, dm.getConcurrencyLimitedCount());
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(NAME);
+        DispatcherMetrics dm = new DispatcherMetrics(registries(RouteIndexTest.regex("^/get$"), null));
+        DispatcherMetrics other = new DispatcherMetrics(registries(null, null));
+        dm.notFound();
+        dm.registerMBean(NAME);
+        try {
+            assertTrue("Register fail", server.isRegistered(name));
+            assertEquals("Attribute fail", 1L, server.getAttribute(name, "NotFoundCount"));
+            try {
+                dm.registerMBean(NAME);
+                fail("Second registration must be rejected");
+            } catch(IllegalStateException e) {
+                // expected
+            }
+            try {
+                other.registerMBean(NAME);
+                fail("Duplicate name must be rejected");
+            } catch(IllegalArgumentException e) {
+                // expected
+            }
+        } finally {
+            dm.unregisterMBean();
+        }
+        assertFalse("Unregister fail", server.isRegistered(name));
+        // no-op when not registered
+        dm.unregisterMBean();
+        other.unregisterMBean();
+        try {
+            other.registerMBean("invalid name");
+            fail("Invalid name must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+        // may be registered again after unregistering
+        dm.registerMBean(NAME);
+        dm.unregisterMBean();
+        assertFalse("Unregister fail", server.isRegistered(name));
+    }
+
+    private static List<List<HandlersMappingEntry<?>>> registries(HandlersMappingEntry<?> get,
+                                                                  HandlersMappingEntry<?> delete) {
+        List<List<HandlersMappingEntry<?>>> res = new ArrayList<List<HandlersMappingEntry<?>>>();
+        for(int i = 0; i < 4; i++) {
+            res.add(new ArrayList<HandlersMappingEntry<?>>());
+        }
+        if(null != get) res.get(0).add(get);
+        if(null != delete) res.get(3).add(delete);
+        return res;
+    }
+}
@@ -0,0 +1,160 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class ETagTransportHandlerTest {
+
+    @Test
+    public void testMatches() {
+        assertTrue("Strong fail", ETagTransportHandler.matches("\"abc\"", "abc"));
+        assertTrue("Weak fail", ETagTransportHandler.matches("W/\"abc\"", "abc"));
+        assertTrue("List fail", ETagTransportHandler.matches("\"x\", W/\"abc\"", "abc"));
+        assertTrue("List fail", ETagTransportHandler.matches("\"x\",W/\"y\" ,\"abc\"", "abc"));
+        assertTrue("Any fail", ETagTransportHandler.matches("*", "abc"));
+        assertTrue("Any fail", ETagTransportHandler.matches(" *", "abc"));
+        assertTrue("Empty tag fail", ETagTransportHandler.matches("\"\"", ""));
+        assertFalse("Null fail", ETagTransportHandler.matches(null, "abc"));
+        assertFalse("Empty fail", ETagTransportHandler.matches("", "abc"));
+        assertFalse("Prefix fail", ETagTransportHandler.matches("\"abcd\"", "abc"));
+        assertFalse("Prefix fail", ETagTransportHandler.matches("\"ab\"", "abc"));
+        assertFalse("List fail", ETagTransportHandler.matches("\"x\", W/\"y\"", "abc"));
+        assertFalse("Unquoted fail", ETagTransportHandler.matches("abc", "abc"));
+        assertFalse("Unterminated fail", ETagTransportHandler.matches("\"abc", "abc"));
+        assertFalse("Unterminated fail", ETagTransportHandler.matches("W/", "abc"));
+        // malformed element stops parsing
+        assertFalse("Malformed fail", ETagTransportHandler.matches("x, \"abc\"", "abc"));
+    }
+
+    @Test
+    public void testHashed() throws Exception {
+        Counting delegate = new Counting("hello");
+        ETagTransportHandler<RestHandler> th = new ETagTransportHandler<RestHandler>(delegate);
+        MockResponse first = get(th, RestHandler.class, null);
+        assertEquals("Status fail", HttpServletResponse.SC_OK, first.status);
+        assertEquals("Body fail", "hello", first.bodyString());
+        assertEquals("Length fail", 5, first.contentLength);
+        String etag = first.header("ETag");
+        assertTrue("ETag fail", etag.startsWith("W/\"") && etag.endsWith("\""));
+        MockResponse second = get(th, RestHandler.class, etag);
+        assertEquals("Status fail", HttpServletResponse.SC_NOT_MODIFIED, second.status);
+        assertEquals("Body fail", 0, second.body.size());
+        assertEquals("ETag fail", etag, second.header("ETag"));
+        // body is still computed to get the hash
+        assertEquals("Calls fail", 2, delegate.calls.get());
+        delegate.body = "changed";
+        MockResponse changed = get(th, RestHandler.class, etag);
+        assertEquals("Status fail", HttpServletResponse.SC_OK, changed.status);
+        assertEquals("Body fail", "changed", changed.bodyString());
+        assertFalse("ETag fail", etag.equals(changed.header("ETag")));
+    }
+
+    @Test
+    public void testHashedError() throws Exception {
+        Counting delegate = new Counting("not found");
+        delegate.status = HttpServletResponse.SC_NOT_FOUND;
+        ETagTransportHandler<RestHandler> th = new ETagTransportHandler<RestHandler>(delegate);
+        MockResponse resp = get(th, RestHandler.class, "*");
+        assertEquals("Status fail", HttpServletResponse.SC_NOT_FOUND, resp.status);
+        assertEquals("Body fail", "not found", resp.bodyString());
+        assertNull("ETag fail", resp.header("ETag"));
+    }
+
+    @Test
+    public void testVersioned() throws Exception {
+        Counting delegate = new Counting("versioned");
+        SingletonHandlerProvider provider = new SingletonHandlerProvider();
+        ETagTransportHandler<RestHandler> th = new ETagTransportHandler<RestHandler>(delegate, provider);
+        provider.register(Versioned.class);
+        Versioned handler = provider.acquire(Versioned.class);
+        handler.version = "v1";
+        MockResponse first = get(th, Versioned.class, null);
+        assertEquals("Status fail", HttpServletResponse.SC_OK, first.status);
+        assertEquals("Body fail", "versioned", first.bodyString());
+        assertEquals("ETag fail", "W/\"v1\"", first.header("ETag"));
+        assertEquals("Calls fail", 1, delegate.calls.get());
+        MockResponse second = get(th, Versioned.class, "\"v0\", W/\"v1\"");
+        assertEquals("Status fail", HttpServletResponse.SC_NOT_MODIFIED, second.status);
+        assertEquals("Body fail", 0, second.body.size());
+        // neither transport nor application handler is called on match
+        assertEquals("Calls fail", 1, delegate.calls.get());
+        assertEquals("Version calls fail", 2, handler.versionCalls.get());
+        // null version falls back to body hash
+        handler.version = null;
+        MockResponse hashed = get(th, Versioned.class, "W/\"v1\"");
+        assertEquals("Status fail", HttpServletResponse.SC_OK, hashed.status);
+        assertEquals("Calls fail", 2, delegate.calls.get());
+        assertTrue("ETag fail", hashed.header("ETag").length() == 20);
+        handler.version = "in\"valid";
+        try {
+            get(th, Versioned.class, null);
+            fail("Quoted version must be rejected");
+        } catch(IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOtherMethods() throws Exception {
+        Counting delegate = new Counting("posted");
+        ETagTransportHandler<RestHandler> th = new ETagTransportHandler<RestHandler>(delegate);
+        MockRequest req = new MockRequest("POST", "/test").header("If-None-Match", "*");
+        MockResponse resp = new MockResponse();
+        th.handle(RestHandler.class, req.proxy(), resp.proxy(), UrlParams.empty());
+        assertEquals("Status fail", HttpServletResponse.SC_OK, resp.status);
+        assertEquals("Body fail", "posted", resp.bodyString());
+        assertNull("ETag fail", resp.header("ETag"));
+    }
+
+    private static MockResponse get(ETagTransportHandler<RestHandler> th, Class<? extends RestHandler> cls,
+                                    String ifNoneMatch) throws Exception {
+        MockRequest req = new MockRequest();
+        if(null != ifNoneMatch) req.header("If-None-Match", ifNoneMatch);
+        MockResponse resp = new MockResponse();
+        th.handle(cls, req.proxy(), resp.proxy(), UrlParams.empty());
+        return resp;
+    }
+
+    private static class Counting implements TransportHandler<RestHandler> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile String body;
+        private volatile int status = HttpServletResponse.SC_OK;
+
+        private Counting(String body) {
+            this.body = body;
+        }
+
+        @Override
+        public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+            calls.incrementAndGet();
+            response.setStatus(status);
+            response.getWriter().write(body);
+        }
+    }
+
+    static class Versioned implements VersionedHandler {
+        private final AtomicInteger versionCalls = new AtomicInteger();
+        private volatile String version;
+
+        @Override
+        public String version(UrlParams urlParams) {
+            versionCalls.incrementAndGet();
+            return version;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class FileTransportHandlerTest {
+    private File dir;
+    private File root;
+    private FileTransportHandler handler;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("rest-handlers-", "");
+        assertTrue("Temp dir fail", dir.delete() && dir.mkdir());
+        root = new File(dir, "root");
+        File sub = new File(root, "sub");
+        File sibling = new File(dir, "root-other");
+        assertTrue("Temp dir fail", sub.mkdirs() && sibling.mkdir());
+        write(new File(root, "a.txt"), "0123456789");
+        write(new File(sub, "b.txt"), "b");
+        write(new File(dir, "secret.txt"), "secret");
+        write(new File(sibling, "c.txt"), "c");
+        handler = FileTransportHandler.builder(root).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        handler.close();
+        delete(dir);
+    }
+
+    @Test
+    public void testIsSafe() {
+        assertTrue("Safe fail", FileTransportHandler.isSafe("a.txt"));
+        assertTrue("Safe fail", FileTransportHandler.isSafe("sub/b.txt"));
+        assertTrue("Safe fail", FileTransportHandler.isSafe("a..b/.../c."));
+        assertTrue("Safe fail", FileTransportHandler.isSafe("./a.txt"));
+        assertFalse("Null fail", FileTransportHandler.isSafe(null));
+        assertFalse("Empty fail", FileTransportHandler.isSafe(""));
+        assertFalse("Traversal fail", FileTransportHandler.isSafe(".."));
+        assertFalse("Traversal fail", FileTransportHandler.isSafe("../secret.txt"));
+        assertFalse("Traversal fail", FileTransportHandler.isSafe("sub/../../secret.txt"));
+        assertFalse("Traversal fail", FileTransportHandler.isSafe("sub/.."));
+        assertFalse("Traversal fail", FileTransportHandler.isSafe("/../secret.txt"));
+        assertFalse("Backslash fail", FileTransportHandler.isSafe("..\\secret.txt"));
+        assertFalse("Backslash fail", FileTransportHandler.isSafe("sub\\b.txt"));
+        assertFalse("NUL fail", FileTransportHandler.isSafe("a.txt\0.png"));
+    }
+
+    @Test
+    public void testParseRange() {
+        assertRange(0, 4, "bytes=0-4");
+        assertRange(5, 9, "bytes=5-");
+        assertRange(9, 9, "bytes=9-9");
+        assertRange(0, 9, "bytes=0-100");
+        assertRange(7, 9, "bytes=-3");
+        assertRange(0, 9, "bytes=-20");
+        assertRange(1, 2, " Bytes= 1 - 2 ");
+        assertRange(0, 9, "bytes=0-" + Long.MAX_VALUE);
+        // unsatisfiable
+        assertNull("Unsatisfiable fail", FileTransportHandler.parseRange("bytes=10-", 10));
+        assertNull("Unsatisfiable fail", FileTransportHandler.parseRange("bytes=10-20", 10));
+        assertNull("Unsatisfiable fail", FileTransportHandler.parseRange("bytes=-0", 10));
+        assertNull("Unsatisfiable fail", FileTransportHandler.parseRange("bytes=0-", 0));
+        assertNull("Unsatisfiable fail", FileTransportHandler.parseRange("bytes=-1", 0));
+        // ignored
+        assertIgnored("items=0-4");
+        assertIgnored("bytes=0-1,3-4");
+        assertIgnored("bytes=5-2");
+        assertIgnored("bytes=abc");
+        assertIgnored("bytes=-");
+        assertIgnored("bytes=4");
+        assertIgnored("bytes=-1-2");
+        assertIgnored("bytes=--1");
+        assertIgnored("bytes=0-99999999999999999999");
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        Resp full = get("a.txt", null);
+        assertEquals("Status fail", HttpServletResponse.SC_OK, full.status);
+        assertEquals("Body fail", "0123456789", full.body.toString("UTF-8"));
+        assertEquals("Length fail", 10, full.contentLength);
+        assertEquals("Accept ranges fail", "bytes", full.headers.get("Accept-Ranges"));
+        assertEquals("Content type fail", "text/plain; charset=UTF-8", full.contentType);
+        Resp part = get("a.txt", "bytes=2-4");
+        assertEquals("Status fail", HttpServletResponse.SC_PARTIAL_CONTENT, part.status);
+        assertEquals("Body fail", "234", part.body.toString("UTF-8"));
+        assertEquals("Range fail", "bytes 2-4/10", part.headers.get("Content-Range"));
+        assertEquals("Length fail", 3, part.contentLength);
+        Resp suffix = get("a.txt", "bytes=-2");
+        assertEquals("Body fail", "89", suffix.body.toString("UTF-8"));
+        Resp unsatisfiable = get("a.txt", "bytes=10-");
+        assertEquals("Status fail", HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, unsatisfiable.status);
+        assertEquals("Range fail", "bytes */10", unsatisfiable.headers.get("Content-Range"));
+        assertEquals("Body fail", 0, unsatisfiable.body.size());
+        Resp ignored = get("a.txt", "bytes=0-1,3-4");
+        assertEquals("Status fail", HttpServletResponse.SC_OK, ignored.status);
+        assertEquals("Body fail", "0123456789", ignored.body.toString("UTF-8"));
+        assertEquals("Nested fail", "b", get("sub/b.txt", null).body.toString("UTF-8"));
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        assertNotFound("missing.txt");
+        assertNotFound("sub");
+        assertNotFound("");
+        assertNotFound("../secret.txt");
+        assertNotFound("sub/../../secret.txt");
+        assertNotFound("..\\secret.txt");
+        assertNotFound("../root-other/c.txt");
+        assertNotFound("a.txt\0");
+        assertNotFound("/../secret.txt");
+        assertNotFound(dir.getAbsolutePath() + "/secret.txt");
+    }
+
+    @Test
+    public void testSymlinks() throws Exception {
+        if(!symlink("../secret.txt", new File(root, "link.txt")) ||
+                !symlink("../root-other", new File(root, "dirlink")) ||
+                !symlink("sub", new File(root, "sublink"))) {
+            // symbolic links are not supported on this platform
+            return;
+        }
+        assertNotFound("link.txt");
+        assertNotFound("dirlink/c.txt");
+        assertEquals("Link inside root fail", "b", get("sublink/b.txt", null).body.toString("UTF-8"));
+    }
+
+    private void assertNotFound(String path) throws Exception {
+        Resp resp = get(path, null);
+        assertEquals("Not found fail, path: '" + path + "'", HttpServletResponse.SC_NOT_FOUND, resp.status);
+        assertEquals("Body fail, path: '" + path + "'", 0, resp.body.size());
+    }
+
+    private Resp get(String path, String range) throws Exception {
+        Map<String, String> headers = new HashMap<String, String>();
+        if(null != range) headers.put("Range", range);
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("path", path);
+        Resp resp = new Resp();
+        handler.handle(RestHandler.class, request(headers), resp.proxy(), UrlParams.of(params));
+        return resp;
+    }
+
+    private static void assertRange(long first, long last, String header) {
+        assertArrayEquals("Range fail: '" + header + "'", new long[]{first, last},
+                FileTransportHandler.parseRange(header, 10));
+    }
+
+    private static void assertIgnored(String header) {
+        assertArrayEquals("Ignored range fail: '" + header + "'", new long[0],
+                FileTransportHandler.parseRange(header, 10));
+    }
+
+    private static HttpServletRequest request(final Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(FileTransportHandlerTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if("getMethod".equals(name)) return "GET";
+                        if("getHeader".equals(name)) return headers.get(args[0]);
+                        if("getDateHeader".equals(name)) return -1L;
+                        if("getPathInfo".equals(name)) return "/test";
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        OutputStream os = new FileOutputStream(file);
+        try {
+            os.write(contents.getBytes("UTF-8"));
+        } finally {
+            os.close();
+        }
+    }
+
+    private static boolean symlink(String target, File link) throws InterruptedException {
+        try {
+            Process pr = new ProcessBuilder("ln", "-s", target, link.getPath()).start();
+            return 0 == pr.waitFor();
+        } catch(IOException e) {
+            return false;
+        }
+    }
+
+    private static void delete(File file) throws IOException {
+        // symbolic links are deleted without following
+        File unresolved = new File(file.getParentFile().getCanonicalFile(), file.getName());
+        File[] children = file.listFiles();
+        if(null != children && unresolved.equals(unresolved.getCanonicalFile())) {
+            for(File ch : children) delete(ch);
+        }
+        file.delete();
+    }
+
+    private static class Resp implements InvocationHandler {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final Map<String, String> headers = new HashMap<String, String>();
+        private int status = HttpServletResponse.SC_OK;
+        private int contentLength = -1;
+        private String contentType;
+
+        private HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(FileTransportHandlerTest.class.getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if("setStatus".equals(name)) status = (Integer) args[0];
+            else if("setHeader".equals(name)) headers.put((String) args[0], (String) args[1]);
+            else if("setDateHeader".equals(name)) headers.put((String) args[0], args[1].toString());
+            else if("setContentLength".equals(name)) contentLength = (Integer) args[0];
+            else if("setContentType".equals(name)) contentType = (String) args[0];
+            else if("getOutputStream".equals(name)) return new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+            };
+            // not found message is not a part of file contents
+            else if("getWriter".equals(name)) return new PrintWriter(new StringWriter());
+            else throw new UnsupportedOperationException(name);
+            return null;
+        }
+    }
+}
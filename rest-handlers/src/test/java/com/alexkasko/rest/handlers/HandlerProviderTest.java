@@ -0,0 +1,162 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class HandlerProviderTest {
+
+    @Test
+    public void testSingleton() {
+        HandlerProvider provider = new SingletonHandlerProvider();
+        provider.register(Counted.class);
+        Counted first = provider.acquire(Counted.class);
+        provider.release(first);
+        assertSame("Singleton fail", first, provider.acquire(Counted.class));
+    }
+
+    @Test
+    public void testNewInstance() {
+        HandlerProvider provider = new NewInstanceHandlerProvider();
+        provider.register(Counted.class);
+        Counted first = provider.acquire(Counted.class);
+        Counted second = provider.acquire(Counted.class);
+        assertNotSame("New instance fail", first, second);
+        provider.release(first);
+        provider.release(second);
+    }
+
+    @Test
+    public void testThreadLocal() throws InterruptedException {
+        final HandlerProvider provider = new ThreadLocalHandlerProvider();
+        provider.register(Counted.class);
+        Counted own = provider.acquire(Counted.class);
+        assertSame("Thread local fail", own, provider.acquire(Counted.class));
+        final AtomicReference<Counted> other = new AtomicReference<Counted>();
+        Thread th = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                other.set(provider.acquire(Counted.class));
+            }
+        });
+        th.start();
+        th.join();
+        assertTrue("Thread local fail", null != other.get() && own != other.get());
+    }
+
+    @Test
+    public void testPooled() throws Exception {
+        final HandlerProvider provider = new PooledHandlerProvider(2, 0);
+        provider.register(Counted.class);
+        Counted first = provider.acquire(Counted.class);
+        Counted second = provider.acquire(Counted.class);
+        assertNotSame("Pool fail", first, second);
+        try {
+            provider.acquire(Counted.class);
+            fail("Exhausted pool must time out");
+        } catch(IllegalStateException e) {
+            assertTrue("Timeout fail", e.getMessage().contains("pool size: [2]"));
+        }
+        provider.release(second);
+        assertSame("Release fail", second, provider.acquire(Counted.class));
+        provider.release(first);
+        provider.release(second);
+        // released instances are reused, no instances are created over pool size
+        int created = Counted.CREATED.get();
+        for(int i = 0; i < 10; i++) {
+            Counted a = provider.acquire(Counted.class);
+            Counted b = provider.acquire(Counted.class);
+            provider.release(a);
+            provider.release(b);
+        }
+        assertEquals("Created fail", created, Counted.CREATED.get());
+    }
+
+    @Test
+    public void testPooledWait() throws Exception {
+        final HandlerProvider provider = new PooledHandlerProvider(1, 10000);
+        provider.register(Counted.class);
+        Counted taken = provider.acquire(Counted.class);
+        final AtomicReference<Object> waited = new AtomicReference<Object>();
+        Thread th = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    waited.set(provider.acquire(Counted.class));
+                } catch(RuntimeException e) {
+                    waited.set(e);
+                }
+            }
+        });
+        th.start();
+        while(Thread.State.TIMED_WAITING != th.getState() && th.isAlive()) {
+            Thread.yield();
+        }
+        provider.release(taken);
+        th.join();
+        assertSame("Wait fail", taken, waited.get());
+    }
+
+    @Test
+    public void testRegistrationFailure() {
+        HandlerProvider[] providers = {new SingletonHandlerProvider(), new NewInstanceHandlerProvider(),
+                new ThreadLocalHandlerProvider(), new PooledHandlerProvider(1, 0)};
+        for(HandlerProvider pr : providers) {
+            assertRegistrationFails(pr, NoDefault.class);
+            assertRegistrationFails(pr, Failing.class);
+            assertRegistrationFails(pr, Abstract.class);
+            assertRegistrationFails(pr, RestHandler.class);
+            assertRegistrationFails(pr, null);
+            try {
+                pr.release(new Counted());
+                fail("Release of not registered class must fail: " + pr.getClass().getSimpleName());
+            } catch(IllegalArgumentException e) {
+                // expected
+            }
+            // null release is ignored
+            pr.release(null);
+        }
+    }
+
+    private static void assertRegistrationFails(HandlerProvider provider, Class<? extends RestHandler> cls) {
+        try {
+            provider.register(cls);
+            fail("Registration must fail: " + provider.getClass().getSimpleName() + ", " + cls);
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    static class Counted implements RestHandler {
+        private static final AtomicInteger CREATED = new AtomicInteger();
+
+        Counted() {
+            CREATED.incrementAndGet();
+        }
+    }
+
+    static class NoDefault implements RestHandler {
+        NoDefault(String arg) {
+        }
+    }
+
+    static class Failing implements RestHandler {
+        Failing() {
+            throw new IllegalStateException("Constructor failure");
+        }
+    }
+
+    abstract static class Abstract implements RestHandler {
+    }
+}
@@ -0,0 +1,25 @@
+package com.alexkasko.rest.handlers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+class ManualClock extends NanoClock {
+    // arbitrary origin, nanoTime values may be negative
+    private volatile long now = -TimeUnit.DAYS.toNanos(1);
+
+    @Override
+    long nanoTime() {
+        return now;
+    }
+
+    void advanceMillis(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    void advanceNanos(long nanos) {
+        now += nanos;
+    }
+}
@@ -0,0 +1,208 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class MicroBatcherTest {
+
+    @Test
+    public void testFullBatch() throws Exception {
+        Doubling loader = new Doubling();
+        // batch is started only when filled
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<Integer, Integer>(loader, 3,
+                TimeUnit.SECONDS.toMicros(10));
+        List<Call> calls = start(batcher, 1, 2, 3);
+        for(Call ca : calls) {
+            ca.finish();
+            assertNull("Call fail", ca.error);
+            assertEquals("Result fail", Integer.valueOf(ca.input * 2), ca.result);
+        }
+        assertEquals("Batches fail", 1, loader.batches.size());
+        List<Integer> inputs = new ArrayList<Integer>(loader.batches.get(0));
+        Collections.sort(inputs);
+        assertEquals("Inputs fail", "[1, 2, 3]", inputs.toString());
+        MicroBatchStats stats = batcher.getStats();
+        assertEquals("Batches fail", 1, stats.getBatches());
+        assertEquals("Items fail", 3, stats.getItems());
+        assertEquals("Full fail", 1, stats.getFullBatches());
+        assertEquals("Max fail", 3, stats.getMaxBatchSize());
+        // next call opens new batch
+        List<Call> next = start(batcher, 4, 5, 6);
+        for(Call ca : next) {
+            ca.finish();
+            assertEquals("Result fail", Integer.valueOf(ca.input * 2), ca.result);
+        }
+        assertEquals("Batches fail", 2, loader.batches.size());
+    }
+
+    @Test
+    public void testDelay() throws Exception {
+        Doubling loader = new Doubling();
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<Integer, Integer>(loader, 100,
+                TimeUnit.MILLISECONDS.toMicros(20));
+        long start = System.nanoTime();
+        assertEquals("Result fail", Integer.valueOf(42), batcher.load(21));
+        assertTrue("Delay fail", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        MicroBatchStats stats = batcher.getStats();
+        assertEquals("Batches fail", 1, stats.getBatches());
+        assertEquals("Full fail", 0, stats.getFullBatches());
+        assertTrue("Wait fail", stats.getMaxWaitMicros() >= TimeUnit.MILLISECONDS.toMicros(20));
+        // calls joined not filled batch before delay get their results
+        List<Call> calls = start(batcher, 1, 2);
+        for(Call ca : calls) {
+            ca.finish();
+            assertEquals("Result fail", Integer.valueOf(ca.input * 2), ca.result);
+        }
+        assertEquals("Full fail", 0, batcher.getStats().getFullBatches());
+    }
+
+    @Test
+    public void testWrongCount() throws Exception {
+        Doubling loader = new Doubling();
+        loader.drop = true;
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<Integer, Integer>(loader, 2,
+                TimeUnit.SECONDS.toMicros(10));
+        List<Call> calls = start(batcher, 1, 2);
+        for(Call ca : calls) {
+            ca.finish();
+            assertTrue("Error fail", ca.error instanceof IllegalStateException);
+            assertTrue("Message fail", ca.error.getMessage().contains("Invalid number of results: [1]"));
+            assertNull("Result fail", ca.result);
+        }
+        assertSame("Fan out fail", calls.get(0).error, calls.get(1).error);
+    }
+
+    @Test
+    public void testException() throws Exception {
+        Doubling loader = new Doubling();
+        loader.fail = true;
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<Integer, Integer>(loader, 3,
+                TimeUnit.SECONDS.toMicros(10));
+        List<Call> calls = start(batcher, 1, 2, 3);
+        for(Call ca : calls) {
+            ca.finish();
+            assertTrue("Error fail", ca.error instanceof IllegalArgumentException);
+            assertSame("Fan out fail", calls.get(0).error, ca.error);
+        }
+        assertEquals("Batches fail", 1, batcher.getStats().getBatches());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        Doubling loader = new Doubling();
+        loader.proceed = new CountDownLatch(1);
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<Integer, Integer>(loader, 2,
+                TimeUnit.SECONDS.toMicros(10), 50);
+        Call leader = new Call(batcher, 1);
+        leader.start();
+        // leader opened the batch and waits for it to fill
+        while(Thread.State.TIMED_WAITING != leader.getState()) {
+            assertTrue("Start fail", leader.isAlive());
+            Thread.yield();
+        }
+        try {
+            batcher.load(2);
+            fail("Joined call must time out");
+        } catch(TimeoutException e) {
+            // expected
+        }
+        assertEquals("Timeouts fail", 1, batcher.getTimeoutsCount());
+        // opening call runs loader and gets its result
+        loader.proceed.countDown();
+        leader.finish();
+        assertNull("Leader fail", leader.error);
+        assertEquals("Leader fail", Integer.valueOf(2), leader.result);
+        assertEquals("Inputs fail", 2, loader.batches.get(0).size());
+    }
+
+    @Test
+    public void testInvalid() {
+        Doubling loader = new Doubling();
+        try {
+            new MicroBatcher<Integer, Integer>(loader, 0, 1000);
+            fail("Invalid size must fail");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new MicroBatcher<Integer, Integer>(loader, 10, 1000, 0);
+            fail("Invalid timeout must fail");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static List<Call> start(MicroBatcher<Integer, Integer> batcher, int... inputs) {
+        List<Call> res = new ArrayList<Call>();
+        for(int in : inputs) {
+            Call ca = new Call(batcher, in);
+            ca.start();
+            res.add(ca);
+        }
+        return res;
+    }
+
+    private static class Call extends Thread {
+        private final MicroBatcher<Integer, Integer> batcher;
+        private final int input;
+        private volatile Integer result;
+        private volatile Exception error;
+
+        private Call(MicroBatcher<Integer, Integer> batcher, int input) {
+            this.batcher = batcher;
+            this.input = input;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = batcher.load(input);
+            } catch(Exception e) {
+                error = e;
+            }
+        }
+
+        private void finish() throws InterruptedException {
+            join(TimeUnit.SECONDS.toMillis(20));
+            assertFalse("Join fail", isAlive());
+        }
+    }
+
+    private static class Doubling implements BatchLoader<Integer, Integer> {
+        private final List<List<Integer>> batches = new CopyOnWriteArrayList<List<Integer>>();
+        private volatile boolean fail = false;
+        private volatile boolean drop = false;
+        private volatile CountDownLatch proceed;
+
+        @Override
+        public List<Integer> load(List<Integer> inputs) throws Exception {
+            batches.add(new ArrayList<Integer>(inputs));
+            if(null != proceed && !proceed.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Test timeout");
+            if(fail) throw new IllegalArgumentException("Loader failure");
+            List<Integer> res = new ArrayList<Integer>();
+            for(Integer in : inputs) {
+                res.add(in * 2);
+            }
+            if(drop) res.remove(0);
+            return res;
+        }
+    }
+}
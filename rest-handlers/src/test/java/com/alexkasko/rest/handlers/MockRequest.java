@@ -0,0 +1,127 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+class MockRequest implements InvocationHandler {
+    final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    final Map<String, Object> attributes = new HashMap<String, Object>();
+    String method = "GET";
+    String pathInfo = "/test";
+    String queryString;
+    byte[] body = new byte[0];
+    boolean asyncSupported = false;
+    volatile Async async;
+
+    MockRequest() {
+    }
+
+    MockRequest(String method, String pathInfo) {
+        this.method = method;
+        this.pathInfo = pathInfo;
+    }
+
+    MockRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    HttpServletRequest proxy() {
+        return (HttpServletRequest) Proxy.newProxyInstance(MockRequest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method me, Object[] args) {
+        String name = me.getName();
+        if("getMethod".equals(name)) return method;
+        if("getPathInfo".equals(name)) return pathInfo;
+        if("getRequestURI".equals(name)) return pathInfo;
+        if("getServletPath".equals(name)) return "";
+        if("getContextPath".equals(name)) return "";
+        if("getQueryString".equals(name)) return queryString;
+        if("getRemoteAddr".equals(name)) return "127.0.0.1";
+        if("getHeader".equals(name)) return headers.get(args[0]);
+        if("getHeaders".equals(name)) return Collections.enumeration(null != headers.get(args[0]) ?
+                Collections.singletonList(headers.get(args[0])) : Collections.<String>emptyList());
+        if("getDateHeader".equals(name)) return -1L;
+        if("getContentLength".equals(name)) return body.length;
+        if("getContentType".equals(name)) return headers.get("Content-Type");
+        if("getCharacterEncoding".equals(name)) return "UTF-8";
+        if("getAttribute".equals(name)) return attributes.get(args[0]);
+        if("setAttribute".equals(name)) return attributes.put((String) args[0], args[1]);
+        if("removeAttribute".equals(name)) return attributes.remove(args[0]);
+        if("isAsyncSupported".equals(name)) return asyncSupported;
+        if("startAsync".equals(name)) {
+            if(!asyncSupported) throw new IllegalStateException("Async is not supported");
+            async = new Async();
+            return async.proxy();
+        }
+        if("getInputStream".equals(name)) {
+            final ByteArrayInputStream is = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return is.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return is.read(b, off, len);
+                }
+            };
+        }
+        if("toString".equals(name)) return method + " " + pathInfo;
+        throw new UnsupportedOperationException(name);
+    }
+
+    static class Async implements InvocationHandler {
+        final List<AsyncListener> listeners = new CopyOnWriteArrayList<AsyncListener>();
+        final AtomicInteger completions = new AtomicInteger();
+        volatile long timeout = 30000;
+        private AsyncContext proxy;
+
+        synchronized AsyncContext proxy() {
+            if(null == proxy) proxy = (AsyncContext) Proxy.newProxyInstance(MockRequest.class.getClassLoader(),
+                    new Class<?>[]{AsyncContext.class}, this);
+            return proxy;
+        }
+
+        // fires timeout as container would do
+        void timeout() throws IOException {
+            for(AsyncListener li : listeners) {
+                li.onTimeout(new AsyncEvent(proxy()));
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method me, Object[] args) {
+            String name = me.getName();
+            if("setTimeout".equals(name)) timeout = (Long) args[0];
+            else if("getTimeout".equals(name)) return timeout;
+            else if("addListener".equals(name)) listeners.add((AsyncListener) args[0]);
+            else if("complete".equals(name)) completions.incrementAndGet();
+            else throw new UnsupportedOperationException(name);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.alexkasko.rest.handlers;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+class MockResponse implements InvocationHandler {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    final Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+    int status = HttpServletResponse.SC_OK;
+    int contentLength = -1;
+    String contentType;
+    String characterEncoding = "UTF-8";
+    boolean committed = false;
+    int flushes = 0;
+    // fails all writes after this number of bytes, negative to never fail
+    int failAfter = -1;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    HttpServletResponse proxy() {
+        return (HttpServletResponse) Proxy.newProxyInstance(MockResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, this);
+    }
+
+    String header(String name) {
+        List<String> list = headers.get(name);
+        return null != list ? list.get(0) : null;
+    }
+
+    String bodyString() throws UnsupportedEncodingException {
+        if(null != writer) writer.flush();
+        return body.toString("UTF-8");
+    }
+
+    @Override
+    public synchronized Object invoke(Object proxy, Method me, Object[] args) throws IOException {
+        String name = me.getName();
+        if("getStatus".equals(name)) return status;
+        if("setStatus".equals(name)) {
+            if(!committed) status = (Integer) args[0];
+        } else if("sendError".equals(name)) {
+            if(committed) throw new IllegalStateException("Response is committed");
+            status = (Integer) args[0];
+            committed = true;
+        } else if("setHeader".equals(name) || "setIntHeader".equals(name) || "setDateHeader".equals(name)) {
+            if(!committed) {
+                List<String> list = new ArrayList<String>();
+                list.add(args[1].toString());
+                headers.put((String) args[0], list);
+            }
+        } else if("addHeader".equals(name) || "addIntHeader".equals(name) || "addDateHeader".equals(name)) {
+            if(!committed) {
+                if(!headers.containsKey(args[0])) headers.put((String) args[0], new ArrayList<String>());
+                headers.get(args[0]).add(args[1].toString());
+            }
+        } else if("getHeader".equals(name)) return header((String) args[0]);
+        else if("getHeaders".equals(name)) {
+            Collection<String> list = headers.get(args[0]);
+            return null != list ? list : new ArrayList<String>();
+        } else if("getHeaderNames".equals(name)) return new ArrayList<String>(headers.keySet());
+        else if("containsHeader".equals(name)) return headers.containsKey(args[0]);
+        else if("setContentLength".equals(name)) {
+            if(!committed) {
+                contentLength = (Integer) args[0];
+                List<String> list = new ArrayList<String>();
+                list.add(args[0].toString());
+                headers.put("Content-Length", list);
+            }
+        } else if("setContentType".equals(name)) {
+            if(!committed) contentType = (String) args[0];
+        } else if("getContentType".equals(name)) return contentType;
+        else if("setCharacterEncoding".equals(name)) characterEncoding = (String) args[0];
+        else if("getCharacterEncoding".equals(name)) return characterEncoding;
+        else if("getOutputStream".equals(name)) {
+            if(null == stream) stream = new Stream();
+            return stream;
+        } else if("getWriter".equals(name)) {
+            if(null == writer) writer = new PrintWriter(new OutputStreamWriter(new Stream(), characterEncoding));
+            return writer;
+        } else if("flushBuffer".equals(name)) {
+            if(null != writer) writer.flush();
+            committed = true;
+            flushes += 1;
+        } else if("isCommitted".equals(name)) return committed;
+        else if("resetBuffer".equals(name) || "reset".equals(name)) {
+            if(committed) throw new IllegalStateException("Response is committed");
+            body.reset();
+            if("reset".equals(name)) {
+                headers.clear();
+                status = HttpServletResponse.SC_OK;
+                contentLength = -1;
+                contentType = null;
+            }
+        } else if("setBufferSize".equals(name)) {
+            // no-op
+        } else if("getBufferSize".equals(name)) return 8192;
+        else if("toString".equals(name)) return "MockResponse";
+        else if("hashCode".equals(name)) return System.identityHashCode(proxy);
+        else if("equals".equals(name)) return proxy == args[0];
+        else throw new UnsupportedOperationException(name);
+        return null;
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        synchronized(this) {
+            if(failAfter >= 0 && body.size() + len > failAfter) throw new IOException("Broken pipe");
+            // buffer is unbounded, response is committed only on flush
+            body.write(b, off, len);
+        }
+    }
+
+    private class Stream extends ServletOutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            MockResponse.this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            MockResponse.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            synchronized(MockResponse.this) {
+                committed = true;
+                flushes += 1;
+            }
+        }
+    }
+}
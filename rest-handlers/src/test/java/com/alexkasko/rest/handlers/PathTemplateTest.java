@@ -0,0 +1,91 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class PathTemplateTest {
+
+    @Test
+    public void testMatch() {
+        PathTemplate pt = PathTemplate.compile("/users/{id:long}/orders/{name}");
+        UrlParams params = pt.match("/users/42/orders/first");
+        assertEquals("Params fail", "{id=42, name=first}", params.toMap().toString());
+        assertEquals("Long fail", 42, params.getLong(0));
+        assertEquals("Bounds fail", 7, params.start(0));
+        assertEquals("Bounds fail", 9, params.end(0));
+        assertNull("Type fail", pt.match("/users/x/orders/first"));
+        assertNull("Empty segment fail", pt.match("/users//orders/first"));
+        assertNull("Empty segment fail", pt.match("/users/42/orders/"));
+        assertNull("Segment fail", pt.match("/users/42/orders/a/b"));
+        assertNull("Trailing fail", pt.match("/users/42/orders/first/"));
+        assertNull("Literal fail", pt.match("/users/42/order/first"));
+        assertNull("Prefix fail", pt.match("/user/42/orders/first"));
+        assertNull("Short fail", pt.match("/users/42"));
+    }
+
+    @Test
+    public void testLiteral() {
+        PathTemplate pt = PathTemplate.compile("/static/index.html");
+        assertEquals("Size fail", 0, pt.match("/static/index.html").size());
+        assertNull("Literal fail", pt.match("/static/index.htm"));
+        assertNull("Literal fail", pt.match("/static/index.html/"));
+        assertEquals("Prefix fail", "/static/index.html", pt.getLiteralPrefix());
+    }
+
+    @Test
+    public void testNumbers() {
+        PathTemplate lt = PathTemplate.compile("/{v:long}");
+        assertEquals("Max fail", Long.MAX_VALUE, lt.match("/9223372036854775807").getLong(0));
+        assertEquals("Min fail", Long.MIN_VALUE, lt.match("/-9223372036854775808").getLong(0));
+        assertEquals("Sign fail", 5, lt.match("/+5").getLong(0));
+        assertNull("Overflow fail", lt.match("/9223372036854775808"));
+        assertNull("Overflow fail", lt.match("/-9223372036854775809"));
+        assertNull("Sign fail", lt.match("/-"));
+        assertNull("Sign fail", lt.match("/+"));
+        assertNull("Digit fail", lt.match("/1a"));
+        PathTemplate it = PathTemplate.compile("/{v:int}");
+        assertEquals("Max fail", Integer.MAX_VALUE, it.match("/2147483647").getInt(0));
+        assertEquals("Min fail", Integer.MIN_VALUE, it.match("/-2147483648").getInt(0));
+        assertNull("Overflow fail", it.match("/2147483648"));
+        assertNull("Overflow fail", it.match("/-2147483649"));
+    }
+
+    @Test
+    public void testPrefixed() {
+        PathTemplate pt = PathTemplate.compile("/users/{id:int}").prefixed("/api");
+        assertEquals("Template fail", "/api/users/{id:int}", pt.getTemplate());
+        assertEquals("Prefix fail", "/api/users/", pt.getLiteralPrefix());
+        assertEquals("Params fail", "{id=1}", pt.match("/api/users/1").toMap().toString());
+        assertNull("Prefix fail", pt.match("/users/1"));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertInvalid(null);
+        assertInvalid("/users/{id");
+        assertInvalid("{id}");
+        assertInvalid("/users{id}");
+        assertInvalid("/users/{id}x");
+        assertInvalid("/users/{}");
+        assertInvalid("/users/{:long}");
+        assertInvalid("/users/{id}/{id}");
+        assertInvalid("/users/{id:double}");
+    }
+
+    private static void assertInvalid(String template) {
+        try {
+            PathTemplate.compile(template);
+            fail("Template must be rejected: '" + template + "'");
+        } catch(IllegalArgumentException e) {
+            assertTrue("Message fail", e.getMessage().length() > 0);
+        }
+    }
+}
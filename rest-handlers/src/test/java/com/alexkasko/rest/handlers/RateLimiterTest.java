@@ -0,0 +1,137 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class RateLimiterTest {
+
+    @Test
+    public void testBurst() {
+        // one token per 100 seconds
+        RateLimiter rl = RateLimiter.builder(0.01, 3).setClock(new ManualClock()).build();
+        for(int i = 0; i < 3; i++) {
+            assertEquals("Burst fail", 0, rl.tryAcquire(null));
+        }
+        assertEquals("Wait fail", TimeUnit.SECONDS.toNanos(100), rl.tryAcquire(null));
+        assertEquals("Retry after fail", 100, RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(100)));
+        assertEquals("Rejected fail", 1, rl.getRejectedCount());
+        // rejected requests do not take tokens
+        assertTrue("Reject fail", rl.tryAcquire(null) > 0);
+        assertEquals("Rejected fail", 2, rl.getRejectedCount());
+    }
+
+    @Test
+    public void testRefill() {
+        ManualClock clock = new ManualClock();
+        // one token per 10 milliseconds
+        RateLimiter rl = RateLimiter.builder(100, 1).setClock(clock).build();
+        assertEquals("Acquire fail", 0, rl.tryAcquire(null));
+        assertEquals("Wait fail", TimeUnit.MILLISECONDS.toNanos(10), rl.tryAcquire(null));
+        clock.advanceMillis(9);
+        assertEquals("Wait fail", TimeUnit.MILLISECONDS.toNanos(1), rl.tryAcquire(null));
+        clock.advanceMillis(1);
+        assertEquals("Refill fail", 0, rl.tryAcquire(null));
+        // idle time over burst is not accumulated
+        clock.advanceMillis(50);
+        assertEquals("Refill fail", 0, rl.tryAcquire(null));
+        assertTrue("Burst fail", rl.tryAcquire(null) > 0);
+    }
+
+    @Test
+    public void testClients() {
+        KeyResolver keys = new KeyResolver();
+        RateLimiter rl = RateLimiter.builder(0.01, 1).setClientKeyResolver(keys).setMaxClients(2)
+                .setClock(new ManualClock()).build();
+        keys.key = "a";
+        assertEquals("Client fail", 0, rl.tryAcquire(null));
+        assertTrue("Client fail", rl.tryAcquire(null) > 0);
+        keys.key = "b";
+        assertEquals("Client fail", 0, rl.tryAcquire(null));
+        assertEquals("Clients count fail", 2, rl.getClientsCount());
+        // requests without key use overflow bucket
+        keys.key = null;
+        assertEquals("Overflow fail", 0, rl.tryAcquire(null));
+        assertTrue("Overflow fail", rl.tryAcquire(null) > 0);
+        // buckets are not full, so new client shares overflow bucket
+        keys.key = "c";
+        assertTrue("Overflow fail", rl.tryAcquire(null) > 0);
+        assertEquals("Clients count fail", 2, rl.getClientsCount());
+        assertEquals("Evicted fail", 0, rl.getEvictedCount());
+    }
+
+    @Test
+    public void testEviction() {
+        ManualClock clock = new ManualClock();
+        KeyResolver keys = new KeyResolver();
+        RateLimiter rl = RateLimiter.builder(1000, 1).setClientKeyResolver(keys).setMaxClients(1)
+                .setClock(clock).build();
+        keys.key = "a";
+        assertEquals("Client fail", 0, rl.tryAcquire(null));
+        // bucket of 'a' is not full yet
+        keys.key = "b";
+        assertEquals("Overflow fail", 0, rl.tryAcquire(null));
+        assertEquals("Evicted fail", 0, rl.getEvictedCount());
+        clock.advanceMillis(1);
+        keys.key = "c";
+        assertEquals("Client fail", 0, rl.tryAcquire(null));
+        assertEquals("Evicted fail", 1, rl.getEvictedCount());
+        assertEquals("Clients count fail", 1, rl.getClientsCount());
+        assertTrue("Own bucket fail", rl.tryAcquire(null) > 0);
+    }
+
+    @Test
+    public void testRetryAfter() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        assertEquals("Retry after fail", 0, RateLimiter.retryAfterSeconds(0));
+        assertEquals("Retry after fail", 1, RateLimiter.retryAfterSeconds(1));
+        assertEquals("Retry after fail", 1, RateLimiter.retryAfterSeconds(second));
+        assertEquals("Retry after fail", 2, RateLimiter.retryAfterSeconds(second + 1));
+    }
+
+    @Test
+    public void testInvalid() {
+        try {
+            RateLimiter.builder(0, 1);
+            fail("Zero rate must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            RateLimiter.builder(Double.NaN, 1);
+            fail("NaN rate must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            RateLimiter.builder(1, 0);
+            fail("Zero burst must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            RateLimiter.builder(1, 1).setMaxClients(0);
+            fail("Zero max clients must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static class KeyResolver implements ClientKeyResolver {
+        private String key;
+
+        @Override
+        public String resolve(HttpServletRequest request) {
+            return key;
+        }
+    }
+}
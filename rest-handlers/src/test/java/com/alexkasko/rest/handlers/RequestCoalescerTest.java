@@ -0,0 +1,260 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class RequestCoalescerTest {
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        Blocking th = new Blocking();
+        RequestCoalescer coalescer = new RequestCoalescer(10000);
+        HandlersMappingEntry<RestHandler> entry = entry(th);
+        Call leader = new Call(coalescer, entry, "a=1");
+        leader.start();
+        assertTrue("Start fail", th.started.await(10, TimeUnit.SECONDS));
+        List<Call> waiters = startWaiters(coalescer, entry, "a=1", 3);
+        // different query string is not coalesced
+        Call other = new Call(coalescer, entry, "a=2");
+        other.start();
+        other.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals("Query fail", "call 2, query a=2", other.resp.bodyString());
+        assertEquals("In flight fail", 1, coalescer.getInFlightCount());
+        th.proceed.countDown();
+        leader.finish();
+        assertNull("Leader fail", leader.error);
+        assertEquals("Leader fail", "call 1, query a=1", leader.resp.bodyString());
+        for(Call ca : waiters) {
+            ca.finish();
+            assertNull("Waiter fail", ca.error);
+            assertEquals("Waiter fail", "call 1, query a=1", ca.resp.bodyString());
+            assertEquals("Header fail", "shared", ca.resp.header("X-Shared"));
+            assertEquals("Status fail", HttpServletResponse.SC_OK, ca.resp.status);
+        }
+        assertEquals("Calls fail", 2, th.calls.get());
+        assertEquals("Executed fail", 2, coalescer.getExecutedCount());
+        assertEquals("Coalesced fail", 3, coalescer.getCoalescedCount());
+        assertEquals("In flight fail", 0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void testException() throws Exception {
+        Blocking th = new Blocking();
+        th.fail = true;
+        RequestCoalescer coalescer = new RequestCoalescer(10000);
+        HandlersMappingEntry<RestHandler> entry = entry(th);
+        Call leader = new Call(coalescer, entry, null);
+        leader.start();
+        assertTrue("Start fail", th.started.await(10, TimeUnit.SECONDS));
+        List<Call> waiters = startWaiters(coalescer, entry, null, 2);
+        th.proceed.countDown();
+        leader.finish();
+        assertTrue("Leader fail", leader.error instanceof IllegalStateException);
+        for(Call ca : waiters) {
+            ca.finish();
+            assertSame("Waiter fail", leader.error, ca.error);
+            assertEquals("Body fail", 0, ca.resp.body.size());
+        }
+        assertEquals("Calls fail", 1, th.calls.get());
+        assertEquals("In flight fail", 0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        Blocking th = new Blocking();
+        RequestCoalescer coalescer = new RequestCoalescer(50);
+        HandlersMappingEntry<RestHandler> entry = entry(th);
+        Call leader = new Call(coalescer, entry, null);
+        leader.start();
+        assertTrue("Start fail", th.started.await(10, TimeUnit.SECONDS));
+        MockRequest req = new MockRequest();
+        MockResponse resp = new MockResponse();
+        try {
+            coalescer.handle(entry, req.proxy(), resp.proxy(), UrlParams.empty());
+            fail("Waiter must time out");
+        } catch(TimeoutException e) {
+            // expected
+        }
+        assertEquals("Timeouts fail", 1, coalescer.getTimeoutsCount());
+        assertEquals("Body fail", 0, resp.body.size());
+        th.proceed.countDown();
+        leader.finish();
+        assertNull("Leader fail", leader.error);
+        assertEquals("Calls fail", 1, th.calls.get());
+    }
+
+    @Test
+    public void testReleasedBeforeSend() throws Exception {
+        Blocking th = new Blocking();
+        RequestCoalescer coalescer = new RequestCoalescer(10000);
+        HandlersMappingEntry<RestHandler> entry = entry(th);
+        // leader blocks sending its response until waiter is done, then fails with broken pipe
+        final CountDownLatch waiterDone = new CountDownLatch(1);
+        MockResponse leaderResp = new MockResponse();
+        leaderResp.failAfter = 0;
+        HttpServletResponse stalling = stalling(leaderResp.proxy(), waiterDone);
+        Call leader = new Call(coalescer, entry, null, stalling);
+        leader.start();
+        assertTrue("Start fail", th.started.await(10, TimeUnit.SECONDS));
+        List<Call> waiters = startWaiters(coalescer, entry, null, 1);
+        th.proceed.countDown();
+        Call waiter = waiters.get(0);
+        waiter.finish();
+        waiterDone.countDown();
+        assertNull("Waiter fail", waiter.error);
+        assertEquals("Waiter fail", "call 1, query null", waiter.resp.bodyString());
+        leader.finish();
+        assertTrue("Leader fail", leader.error instanceof IOException);
+        assertEquals("Calls fail", 1, th.calls.get());
+    }
+
+    @Test
+    public void testNotShareable() throws Exception {
+        Blocking th = new Blocking();
+        th.cookie = true;
+        RequestCoalescer coalescer = new RequestCoalescer(10000);
+        HandlersMappingEntry<RestHandler> entry = entry(th);
+        Call leader = new Call(coalescer, entry, null);
+        leader.start();
+        assertTrue("Start fail", th.started.await(10, TimeUnit.SECONDS));
+        List<Call> waiters = startWaiters(coalescer, entry, null, 2);
+        th.proceed.countDown();
+        leader.finish();
+        assertEquals("Leader fail", "call 1, query null", leader.resp.bodyString());
+        for(Call ca : waiters) {
+            ca.finish();
+            assertNull("Waiter fail", ca.error);
+            assertFalse("Waiter fail", "call 1, query null".equals(ca.resp.bodyString()));
+            assertEquals("Cookie fail", "id=42", ca.resp.header("Set-Cookie"));
+        }
+        assertEquals("Calls fail", 3, th.calls.get());
+        assertEquals("Executed fail", 1, coalescer.getExecutedCount());
+    }
+
+    // returns after all started requests are waiting for the one in flight
+    private static List<Call> startWaiters(RequestCoalescer coalescer, HandlersMappingEntry<RestHandler> entry,
+                                           String query, int count) throws InterruptedException {
+        long coalesced = coalescer.getCoalescedCount();
+        List<Call> res = new ArrayList<Call>();
+        for(int i = 0; i < count; i++) {
+            Call ca = new Call(coalescer, entry, query);
+            ca.start();
+            res.add(ca);
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while(coalescer.getCoalescedCount() < coalesced + count) {
+            assertTrue("Coalesce fail", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        return res;
+    }
+
+    private static HandlersMappingEntry<RestHandler> entry(Blocking th) {
+        return new HandlersMappingEntry<RestHandler>("^/test$", th, RestHandler.class,
+                RouteOptions.builder().setCoalesced(true).build());
+    }
+
+    private static HttpServletResponse stalling(final HttpServletResponse target, final CountDownLatch latch) {
+        return (HttpServletResponse) Proxy.newProxyInstance(RequestCoalescerTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if("setContentLength".equals(method.getName()) &&
+                        !latch.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Send is not stalled");
+                try {
+                    return method.invoke(target, args);
+                } catch(InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private static class Call extends Thread {
+        private final RequestCoalescer coalescer;
+        private final HandlersMappingEntry<RestHandler> entry;
+        private final MockRequest req = new MockRequest();
+        private final MockResponse resp;
+        private final HttpServletResponse target;
+        private volatile Exception error;
+
+        private Call(RequestCoalescer coalescer, HandlersMappingEntry<RestHandler> entry, String query) {
+            this.coalescer = coalescer;
+            this.entry = entry;
+            this.req.queryString = query;
+            this.resp = new MockResponse();
+            this.target = resp.proxy();
+        }
+
+        private Call(RequestCoalescer coalescer, HandlersMappingEntry<RestHandler> entry, String query,
+                     HttpServletResponse target) {
+            this.coalescer = coalescer;
+            this.entry = entry;
+            this.req.queryString = query;
+            this.resp = null;
+            this.target = target;
+        }
+
+        @Override
+        public void run() {
+            try {
+                coalescer.handle(entry, req.proxy(), target, UrlParams.empty());
+            } catch(Exception e) {
+                error = e;
+            }
+        }
+
+        private void finish() throws InterruptedException {
+            join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse("Join fail", isAlive());
+        }
+    }
+
+    private static class Blocking implements TransportHandler<RestHandler> {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch proceed = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean fail = false;
+        private volatile boolean cookie = false;
+
+        @Override
+        public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+            int call = calls.incrementAndGet();
+            started.countDown();
+            if(1 == call) {
+                if(!proceed.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Test timeout");
+            }
+            if(fail) throw new IllegalStateException("Handler failure");
+            if(cookie) response.setHeader("Set-Cookie", "id=42");
+            response.setHeader("X-Shared", "shared");
+            response.setContentType("text/plain");
+            response.getOutputStream().write(("call " + call + ", query " + request.getQueryString()).getBytes("UTF-8"));
+        }
+    }
+}
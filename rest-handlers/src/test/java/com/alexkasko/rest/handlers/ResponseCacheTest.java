@@ -0,0 +1,230 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class ResponseCacheTest {
+
+    @Test
+    public void testHit() throws Exception {
+        Producing th = new Producing();
+        HandlersMappingEntry<RestHandler> entry = entry(th, 1000);
+        ResponseCache cache = new ResponseCache(1 << 20, 1, new ManualClock());
+        MockResponse first = get(cache, entry, "a=1", null);
+        assertEquals("Body fail", "call 1, query a=1", first.bodyString());
+        MockResponse second = get(cache, entry, "a=1", null);
+        assertEquals("Body fail", "call 1, query a=1", second.bodyString());
+        assertEquals("Status fail", HttpServletResponse.SC_OK, second.status);
+        assertEquals("Content type fail", "text/plain", second.contentType);
+        assertEquals("Length fail", first.body.size(), second.contentLength);
+        assertEquals("Header fail", "W/\"v1\"", second.header("ETag"));
+        assertEquals("Calls fail", 1, th.calls.get());
+        assertEquals("Hits fail", 1, cache.getStats().getHits());
+        assertEquals("Misses fail", 1, cache.getStats().getMisses());
+        assertEquals("Size fail", 1, cache.getStats().getSize());
+        assertTrue("Bytes fail", cache.getSizeBytes() > 0);
+        cache.clear();
+        assertEquals("Clear fail", 0, cache.getSizeBytes());
+        assertEquals("Body fail", "call 2, query a=1", get(cache, entry, "a=1", null).bodyString());
+    }
+
+    @Test
+    public void testQueryString() throws Exception {
+        Producing th = new Producing();
+        HandlersMappingEntry<RestHandler> entry = entry(th, 1000);
+        ResponseCache cache = new ResponseCache(1 << 20, 1, new ManualClock());
+        assertEquals("Body fail", "call 1, query a=1", get(cache, entry, "a=1", null).bodyString());
+        assertEquals("Query fail", "call 2, query a=2", get(cache, entry, "a=2", null).bodyString());
+        assertEquals("Query fail", "call 3, query null", get(cache, entry, null, null).bodyString());
+        assertEquals("Hit fail", "call 2, query a=2", get(cache, entry, "a=2", null).bodyString());
+        assertEquals("Hit fail", "call 3, query null", get(cache, entry, null, null).bodyString());
+        assertEquals("Calls fail", 3, th.calls.get());
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        Producing th = new Producing();
+        HandlersMappingEntry<RestHandler> entry = entry(th, 1000);
+        ResponseCache cache = new ResponseCache(1 << 20, 1, new ManualClock());
+        get(cache, entry, null, null);
+        MockResponse hit = get(cache, entry, null, "\"v0\", W/\"v1\"");
+        assertEquals("Status fail", HttpServletResponse.SC_NOT_MODIFIED, hit.status);
+        assertEquals("Body fail", 0, hit.body.size());
+        assertEquals("ETag fail", "W/\"v1\"", hit.header("ETag"));
+        MockResponse other = get(cache, entry, null, "\"v2\"");
+        assertEquals("Status fail", HttpServletResponse.SC_OK, other.status);
+        assertEquals("Body fail", "call 1, query null", other.bodyString());
+        assertEquals("Calls fail", 1, th.calls.get());
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        ManualClock clock = new ManualClock();
+        Producing th = new Producing();
+        HandlersMappingEntry<RestHandler> entry = entry(th, 1000);
+        ResponseCache cache = new ResponseCache(1 << 20, 1, clock);
+        get(cache, entry, null, null);
+        clock.advanceMillis(999);
+        assertEquals("Hit fail", "call 1, query null", get(cache, entry, null, null).bodyString());
+        clock.advanceMillis(1);
+        assertEquals("Expiry fail", "call 2, query null", get(cache, entry, null, null).bodyString());
+        assertEquals("Misses fail", 2, cache.getStats().getMisses());
+        assertEquals("Hits fail", 1, cache.getStats().getHits());
+        assertEquals("Hit fail", "call 2, query null", get(cache, entry, null, null).bodyString());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        Producing th = new Producing();
+        th.padding = 1000;
+        HandlersMappingEntry<RestHandler> entry = entry(th, 100000);
+        // two responses fit
+        ResponseCache cache = new ResponseCache(3000, 1, new ManualClock());
+        get(cache, entry, "a=1", null);
+        get(cache, entry, "a=2", null);
+        assertEquals("Size fail", 2, cache.getStats().getSize());
+        // touch first, second becomes eldest
+        get(cache, entry, "a=1", null);
+        get(cache, entry, "a=3", null);
+        assertEquals("Evictions fail", 1, cache.getStats().getEvictions());
+        assertEquals("Size fail", 2, cache.getStats().getSize());
+        assertTrue("Bytes fail", cache.getSizeBytes() <= 3000);
+        assertEquals("Calls fail", 3, th.calls.get());
+        assertTrue("LRU fail", get(cache, entry, "a=1", null).bodyString().startsWith("call 1,"));
+        assertTrue("LRU fail", get(cache, entry, "a=2", null).bodyString().startsWith("call 4,"));
+        // response larger than segment is not cached
+        th.padding = 5000;
+        get(cache, entry, "a=5", null);
+        assertTrue("Large fail", get(cache, entry, "a=5", null).bodyString().startsWith("call 6,"));
+    }
+
+    @Test
+    public void testNotShareable() throws Exception {
+        assertNotCached("Set-Cookie", "id=42");
+        assertNotCached("Cache-Control", "private, max-age=60");
+        assertNotCached("Cache-Control", "no-store");
+        assertNotCached("Vary", "Accept-Language");
+        Producing error = new Producing();
+        error.status = HttpServletResponse.SC_NOT_FOUND;
+        HandlersMappingEntry<RestHandler> entry = entry(error, 1000);
+        ResponseCache cache = new ResponseCache(1 << 20, 1, new ManualClock());
+        get(cache, entry, null, null);
+        MockResponse second = get(cache, entry, null, null);
+        assertEquals("Status fail", HttpServletResponse.SC_NOT_FOUND, second.status);
+        assertEquals("Calls fail", 2, error.calls.get());
+        // vary header listed in options
+        Producing varying = new Producing();
+        varying.headers.put("Vary", "Accept-Language");
+        HandlersMappingEntry<RestHandler> listed = new HandlersMappingEntry<RestHandler>("^/test$", varying,
+                RestHandler.class, RouteOptions.builder().setCacheTtl(1000).setCacheVaryHeaders("Accept-Language").build());
+        get(cache, listed, null, null);
+        get(cache, listed, null, null);
+        assertEquals("Vary fail", 1, varying.calls.get());
+    }
+
+    @Test
+    public void testRecording() throws Exception {
+        MockResponse target = new MockResponse();
+        RecordingResponse rec = new RecordingResponse(target.proxy(), new BufferPool(16, 2));
+        rec.setContentType("text/plain");
+        rec.setHeader("X-Set", "1");
+        rec.addHeader("X-Add", "a");
+        rec.addHeader("X-Add", "b");
+        rec.setIntHeader("X-Int", 42);
+        rec.setContentLength(100500);
+        rec.getOutputStream().write("recorded body over initial buffer".getBytes("UTF-8"));
+        rec.finishBody();
+        assertTrue("Shareable fail", rec.isShareable(Collections.<String>emptyList()));
+        RecordedResponse recorded = rec.toRecorded();
+        rec.sendBody();
+        rec.release();
+        assertEquals("Body fail", "recorded body over initial buffer", target.bodyString());
+        MockResponse copy = new MockResponse();
+        recorded.send(new MockRequest().proxy(), copy.proxy());
+        assertEquals("Body fail", "recorded body over initial buffer", copy.bodyString());
+        assertEquals("Length fail", 33, copy.contentLength);
+        assertEquals("Content type fail", "text/plain", copy.contentType);
+        assertEquals("Header fail", "1", copy.header("X-Set"));
+        assertEquals("Header fail", Arrays.asList("a", "b"), copy.headers.get("X-Add"));
+        assertEquals("Header fail", "42", copy.header("X-Int"));
+        assertTrue("Size fail", recorded.size() >= 33);
+        // recording is reset with response
+        MockResponse resetTarget = new MockResponse();
+        RecordingResponse reset = new RecordingResponse(resetTarget.proxy(), new BufferPool(16, 2));
+        reset.setHeader("Set-Cookie", "id=42");
+        assertFalse("Shareable fail", reset.isShareable(Collections.<String>emptyList()));
+        reset.reset();
+        assertTrue("Reset fail", reset.isShareable(Collections.<String>emptyList()));
+        reset.setHeader("Vary", "accept-language, Accept-Encoding");
+        assertTrue("Vary case fail", reset.isShareable(Arrays.asList("Accept-Encoding", "Accept-Language")));
+        assertFalse("Vary fail", reset.isShareable(Arrays.asList("Accept-Encoding")));
+    }
+
+    private static void assertNotCached(String header, String value) throws Exception {
+        Producing th = new Producing();
+        th.headers.put(header, value);
+        HandlersMappingEntry<RestHandler> entry = entry(th, 1000);
+        ResponseCache cache = new ResponseCache(1 << 20, 1, new ManualClock());
+        get(cache, entry, null, null);
+        MockResponse second = get(cache, entry, null, null);
+        assertEquals("Not cached fail: " + header, "call 2, query null", second.bodyString());
+        assertEquals("Size fail: " + header, 0, cache.getStats().getSize());
+    }
+
+    private static HandlersMappingEntry<RestHandler> entry(Producing th, long ttlMillis) {
+        return new HandlersMappingEntry<RestHandler>("^/test$", th, RestHandler.class,
+                RouteOptions.builder().setCacheTtl(ttlMillis).build());
+    }
+
+    private static MockResponse get(ResponseCache cache, HandlersMappingEntry<RestHandler> entry, String query,
+                                    String ifNoneMatch) throws Exception {
+        MockRequest req = new MockRequest();
+        req.queryString = query;
+        if(null != ifNoneMatch) req.header("If-None-Match", ifNoneMatch);
+        MockResponse resp = new MockResponse();
+        cache.handle(entry, req.proxy(), resp.proxy(), UrlParams.empty(), null);
+        return resp;
+    }
+
+    private static class Producing implements TransportHandler<RestHandler> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Map<String, String> headers = new LinkedHashMap<String, String>();
+        private int status = HttpServletResponse.SC_OK;
+        private int padding = 0;
+
+        private Producing() {
+            headers.put("ETag", "W/\"v1\"");
+        }
+
+        @Override
+        public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) throws Exception {
+            int call = calls.incrementAndGet();
+            response.setStatus(status);
+            response.setContentType("text/plain");
+            for(Map.Entry<String, String> en : headers.entrySet()) {
+                response.setHeader(en.getKey(), en.getValue());
+            }
+            StringBuilder sb = new StringBuilder("call ").append(call).append(", query ").append(request.getQueryString());
+            for(int i = 0; i < padding; i++) {
+                sb.append(' ');
+            }
+            response.getOutputStream().write(sb.toString().getBytes("UTF-8"));
+        }
+    }
+}
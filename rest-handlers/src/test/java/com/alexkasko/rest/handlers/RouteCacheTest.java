@@ -0,0 +1,84 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class RouteCacheTest {
+
+    @Test
+    public void testHits() {
+        CountingMatcher delegate = new CountingMatcher();
+        RouteCache cache = new RouteCache(delegate, 2);
+        RouteMatch first = cache.match("/ok/a");
+        assertSame("Hit fail", first, cache.match("/ok/a"));
+        assertEquals("Delegate fail", 1, delegate.calls);
+        // not found paths are not cached
+        assertNull("Not found fail", cache.match("/missing"));
+        assertNull("Not found fail", cache.match("/missing"));
+        assertEquals("Delegate fail", 3, delegate.calls);
+        CacheStats stats = cache.stats();
+        assertEquals("Hits fail", 1, stats.getHits());
+        assertEquals("Misses fail", 3, stats.getMisses());
+        assertEquals("Evictions fail", 0, stats.getEvictions());
+        assertEquals("Size fail", 1, stats.getSize());
+    }
+
+    @Test
+    public void testClockEviction() {
+        CountingMatcher delegate = new CountingMatcher();
+        RouteCache cache = new RouteCache(delegate, 2);
+        cache.match("/ok/a");
+        cache.match("/ok/b");
+        // sets reference bit of 'a'
+        cache.match("/ok/a");
+        // hand passes referenced 'a' and evicts 'b'
+        cache.match("/ok/c");
+        assertEquals("Delegate fail", 3, delegate.calls);
+        cache.match("/ok/a");
+        assertEquals("Referenced entry evicted", 3, delegate.calls);
+        cache.match("/ok/b");
+        assertEquals("Not referenced entry kept", 4, delegate.calls);
+        CacheStats stats = cache.stats();
+        assertEquals("Evictions fail", 2, stats.getEvictions());
+        assertEquals("Size fail", 2, stats.getSize());
+    }
+
+    @Test
+    public void testAllReferenced() {
+        CountingMatcher delegate = new CountingMatcher();
+        RouteCache cache = new RouteCache(delegate, 2);
+        cache.match("/ok/a");
+        cache.match("/ok/b");
+        cache.match("/ok/a");
+        cache.match("/ok/b");
+        // full sweep clears all bits, first entry is evicted
+        cache.match("/ok/c");
+        cache.match("/ok/b");
+        assertEquals("Delegate fail", 3, delegate.calls);
+        cache.match("/ok/a");
+        assertEquals("Delegate fail", 4, delegate.calls);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new RouteCache(new CountingMatcher(), 0);
+    }
+
+    private static class CountingMatcher implements RouteMatcher {
+        private final HandlersMappingEntry<?> entry = RouteIndexTest.regex("^/ok/.*$");
+        private int calls = 0;
+
+        @Override
+        public RouteMatch match(String path) {
+            calls += 1;
+            return path.startsWith("/ok/") ? new RouteMatch(entry, UrlParams.empty()) : null;
+        }
+    }
+}
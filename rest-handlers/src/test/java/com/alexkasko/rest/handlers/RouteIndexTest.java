@@ -0,0 +1,172 @@
+package com.alexkasko.rest.handlers;
+
+import com.google.code.regexp.NamedMatcher;
+import com.google.code.regexp.NamedPattern;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class RouteIndexTest {
+    static final String[] PATHS = {"", "/", "/a", "/b", "/us", "/usx", "/users", "/users/", "/users/42",
+            "/users/me", "/users/bob", "/users/aa", "/users/b", "/users/zz9", "/users/42/orders",
+            "/users/-1/orders", "/users/x/orders", "/users/99999999999999999999/orders", "/other"};
+
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals("Prefix fail", "/users/", HandlersMappingEntry.literalPrefix("^/users/(?<id>\\d+)$"));
+        assertEquals("Prefix fail", "/static/x", HandlersMappingEntry.literalPrefix("/static/x"));
+        assertEquals("Prefix fail", "/a.b/c", HandlersMappingEntry.literalPrefix("^/a\\.b/c$"));
+        assertEquals("Prefix fail", "/a", HandlersMappingEntry.literalPrefix("^/ab?c$"));
+        assertEquals("Prefix fail", "/", HandlersMappingEntry.literalPrefix("^/a*$"));
+        assertEquals("Prefix fail", "/", HandlersMappingEntry.literalPrefix("^/a{2}$"));
+        assertEquals("Prefix fail", "/a", HandlersMappingEntry.literalPrefix("^/a\\d$"));
+        assertEquals("Prefix fail", "/", HandlersMappingEntry.literalPrefix("^/\\Qa\\E$"));
+        assertEquals("Prefix fail", "/", HandlersMappingEntry.literalPrefix("^/(a|b)/c$"));
+        assertEquals("Prefix fail", "/", HandlersMappingEntry.literalPrefix("^/[|]x$"));
+        assertEquals("Prefix fail", "", HandlersMappingEntry.literalPrefix("^/a|/b$"));
+        assertEquals("Prefix fail", "", HandlersMappingEntry.literalPrefix("^$"));
+        assertEquals("Prefix fail", "/a", HandlersMappingEntry.literalPrefix("^/a\\"));
+    }
+
+    @Test
+    public void testTopLevelAlternation() {
+        assertTrue("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("a|b"));
+        assertTrue("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("(a)|b"));
+        assertTrue("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("[(]|x"));
+        assertTrue("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("\\Q(\\E|x"));
+        assertFalse("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("(a|b)"));
+        assertFalse("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("/(?:a|(b|c))/d"));
+        assertFalse("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("[|]"));
+        assertFalse("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("[a[|]]"));
+        assertFalse("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("\\|"));
+        assertFalse("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("\\Q|\\E"));
+        assertFalse("Alternation fail", HandlersMappingEntry.hasTopLevelAlternation("\\Q|"));
+    }
+
+    @Test
+    public void testCandidates() {
+        List<HandlersMappingEntry<?>> registry = new ArrayList<HandlersMappingEntry<?>>();
+        registry.add(regex("^/users/(?<id>\\d+)$"));
+        registry.add(regex("^/a|/b$"));
+        registry.add(regex("^/us(?<rest>.*)$"));
+        registry.add(regex("^/users/me$"));
+        registry.add(regex("^/files/x$"));
+        RouteIndex index = new RouteIndex(registry);
+        assertEquals("Candidates fail", "[0, 1, 2, 3]", Arrays.toString(index.candidates("/users/me")));
+        assertEquals("Candidates fail", "[0, 1, 2]", Arrays.toString(index.candidates("/users/m")));
+        assertEquals("Candidates fail", "[1, 2]", Arrays.toString(index.candidates("/user")));
+        assertEquals("Candidates fail", "[1, 4]", Arrays.toString(index.candidates("/files/x")));
+        assertEquals("Candidates fail", "[1]", Arrays.toString(index.candidates("/files/")));
+        assertEquals("Candidates fail", "[1]", Arrays.toString(index.candidates("")));
+    }
+
+    @Test
+    public void testMatch() {
+        List<HandlersMappingEntry<?>> registry = new ArrayList<HandlersMappingEntry<?>>();
+        registry.add(regex("^/users/(?<id>\\d+)$"));
+        registry.add(template("/users/{name}/orders"));
+        RouteIndex index = new RouteIndex(registry);
+        RouteMatch re = index.match("/users/42");
+        assertSame("Entry fail", registry.get(0), re.getEntry());
+        assertEquals("Params fail", "42", re.getParams().get("id"));
+        RouteMatch te = index.match("/users/bob/orders");
+        assertSame("Entry fail", registry.get(1), te.getEntry());
+        assertEquals("Params fail", "bob", te.getParams().get("name"));
+        // cached matcher is reset
+        assertEquals("Params fail", "43", index.match("/users/43").getParams().get("id"));
+        assertNull("Not found fail", index.match("/users/bob"));
+        assertNull("Not found fail", index.match("/other"));
+    }
+
+    @Test
+    public void testRegistrationOrder() {
+        List<HandlersMappingEntry<?>> entries = new ArrayList<HandlersMappingEntry<?>>();
+        entries.add(regex("^/users/(?<id>\\d+)$"));
+        entries.add(regex("^/users/me$"));
+        entries.add(regex("^/users/(?<name>[a-z]+)$"));
+        entries.add(regex("^/us(?<rest>.*)$"));
+        entries.add(regex("^/a|/users/b$"));
+        entries.add(regex("^/users/(\\w)\\1$"));
+        entries.add(template("/users/{id:long}/orders"));
+        int orders = 0;
+        for(List<HandlersMappingEntry<?>> registry : permutations(entries)) {
+            RouteIndex index = new RouteIndex(registry);
+            for(String path : PATHS) {
+                assertMatch(registry, path, index.match(path));
+            }
+            orders += 1;
+        }
+        assertEquals("Permutations fail", 5040, orders);
+    }
+
+    static HandlersMappingEntry<RestHandler> regex(String pattern) {
+        return new HandlersMappingEntry<RestHandler>(pattern, new NoopTransportHandler(), RestHandler.class,
+                RouteOptions.defaults());
+    }
+
+    static HandlersMappingEntry<RestHandler> template(String template) {
+        return new HandlersMappingEntry<RestHandler>(PathTemplate.compile(template), new NoopTransportHandler(),
+                RestHandler.class, RouteOptions.defaults());
+    }
+
+    // linear first-match over registry, as dispatcher matched paths before index was introduced
+    static void assertMatch(List<HandlersMappingEntry<?>> registry, String path, RouteMatch actual) {
+        for(HandlersMappingEntry<?> en : registry) {
+            final Map<String, String> params;
+            if(en.isTemplate()) {
+                UrlParams up = en.matchTemplate(path);
+                if(null == up) continue;
+                params = up.toMap();
+            } else {
+                NamedMatcher matcher = NamedPattern.compile(en.namedPattern().namedPattern()).matcher(path);
+                if(!matcher.matches()) continue;
+                params = matcher.namedGroups();
+            }
+            String message = "Match fail, path: '" + path + "', registry: " + registry;
+            assertTrue(message, null != actual);
+            assertSame(message, en, actual.getEntry());
+            assertEquals(message, params, actual.getParams().toMap());
+            return;
+        }
+        assertNull("Not found fail, path: '" + path + "', registry: " + registry, actual);
+    }
+
+    static <T> List<List<T>> permutations(List<T> list) {
+        List<List<T>> res = new ArrayList<List<T>>();
+        if(list.isEmpty()) {
+            res.add(new ArrayList<T>());
+            return res;
+        }
+        for(int i = 0; i < list.size(); i++) {
+            List<T> rest = new ArrayList<T>(list);
+            T head = rest.remove(i);
+            for(List<T> tail : permutations(rest)) {
+                tail.add(0, head);
+                res.add(tail);
+            }
+        }
+        return res;
+    }
+
+    static class NoopTransportHandler implements TransportHandler<RestHandler> {
+        @Override
+        public void handle(Class<? extends RestHandler> handlerClass, HttpServletRequest request,
+                           HttpServletResponse response, Map<String, String> urlParams) {
+        }
+    }
+}
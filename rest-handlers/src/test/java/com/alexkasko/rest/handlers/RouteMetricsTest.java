@@ -0,0 +1,123 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class RouteMetricsTest {
+
+    @Test
+    public void testBuckets() {
+        for(long v = 0; v < 16; v++) {
+            assertEquals("Exact bucket fail", v, RouteMetrics.upperBound(RouteMetrics.bucket(v)));
+        }
+        int prev = -1;
+        for(long v = 0; v < (1L << 33); v = v < 4096 ? v + 1 : v + v / 97) {
+            int bucket = RouteMetrics.bucket(v);
+            assertTrue("Monotonic fail: [" + v + "]", bucket >= prev);
+            prev = bucket;
+            long upper = RouteMetrics.upperBound(bucket);
+            assertTrue("Upper bound fail: [" + v + "]", upper >= v);
+            assertTrue("Lower bound fail: [" + v + "]", 0 == bucket || RouteMetrics.upperBound(bucket - 1) < v);
+            // 16 sub-buckets for each power of two
+            assertTrue("Precision fail: [" + v + "]", upper - v <= v / 16);
+        }
+        for(int i = 0; i < 16; i++) {
+            long pow = 1L << (i + 4);
+            assertEquals("Power of two fail: [" + pow + "]", pow, RouteMetrics.upperBound(RouteMetrics.bucket(pow) - 1) + 1);
+        }
+        int last = RouteMetrics.bucket(Long.MAX_VALUE);
+        assertEquals("Clamp fail", last, RouteMetrics.bucket(1L << 33));
+        assertEquals("Clamp fail", last, RouteMetrics.bucket((1L << 33) - 1));
+    }
+
+    @Test
+    public void testSnapshot() {
+        RouteMetrics rm = new RouteMetrics(1);
+        for(int i = 0; i < 101; i++) {
+            rm.start();
+        }
+        for(int i = 0; i < 90; i++) {
+            rm.record(1000, false);
+        }
+        for(int i = 0; i < 10; i++) {
+            rm.record(100000, i < 3);
+        }
+        RouteStats rs = rm.snapshot("GET", "^/test$");
+        assertEquals("Method fail", "GET", rs.getMethod());
+        assertEquals("Pattern fail", "^/test$", rs.getPattern());
+        assertEquals("Requests fail", 101, rs.getRequests());
+        assertEquals("In flight fail", 1, rs.getInFlight());
+        assertEquals("Errors fail", 3, rs.getErrors());
+        assertEquals("Max fail", 100000, rs.getMaxMicros());
+        assertEquals("Mean fail", 10900, rs.getMeanMicros(), 0.001);
+        assertEquals("P50 fail", RouteMetrics.upperBound(RouteMetrics.bucket(1000)), rs.getP50Micros());
+        assertEquals("P90 fail", RouteMetrics.upperBound(RouteMetrics.bucket(1000)), rs.getP90Micros());
+        // upper bound of the bucket is clamped to max
+        assertEquals("P99 fail", 100000, rs.getP99Micros());
+        assertEquals("P999 fail", 100000, rs.getP999Micros());
+        assertTrue("P50 precision fail", rs.getP50Micros() - 1000 <= 1000 / 16);
+    }
+
+    @Test
+    public void testEmpty() {
+        RouteStats rs = new RouteMetrics().snapshot("POST", "^/empty$");
+        assertEquals("Requests fail", 0, rs.getRequests());
+        assertEquals("Mean fail", 0, rs.getMeanMicros(), 0);
+        assertEquals("P99 fail", 0, rs.getP99Micros());
+    }
+
+    @Test
+    public void testNegative() {
+        RouteMetrics rm = new RouteMetrics(1);
+        rm.start();
+        rm.record(-5, false);
+        RouteStats rs = rm.snapshot("GET", "^/$");
+        assertEquals("Max fail", 0, rs.getMaxMicros());
+        assertEquals("P50 fail", 0, rs.getP50Micros());
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        final RouteMetrics rm = new RouteMetrics();
+        final int threads = 8;
+        final int perThread = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++) {
+            final int micros = (t + 1) * 100;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                    for(int i = 0; i < perThread; i++) {
+                        rm.start();
+                        rm.record(micros, 0 == i % 10);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for(Thread th : workers) {
+            th.join();
+        }
+        RouteStats rs = rm.snapshot("GET", "^/$");
+        assertEquals("Requests fail", threads * perThread, rs.getRequests());
+        assertEquals("Errors fail", threads * perThread / 10, rs.getErrors());
+        assertEquals("In flight fail", 0, rs.getInFlight());
+        assertEquals("Max fail", threads * 100, rs.getMaxMicros());
+        assertEquals("Mean fail", 450, rs.getMeanMicros(), 0.001);
+    }
+}
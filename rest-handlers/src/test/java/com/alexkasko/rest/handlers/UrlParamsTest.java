@@ -0,0 +1,157 @@
+package com.alexkasko.rest.handlers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * User: alexkasko
+ * Date: 10/18/26
+ */
+public class UrlParamsTest {
+
+    @Test
+    public void testMatched() {
+        UrlParams params = match("^/items/(?<id>-?\\d+)(?:/(?<opt>[a-z]+))?$", "/items/-42/abc");
+        assertEquals("Size fail", 2, params.size());
+        assertEquals("Name fail", "id", params.name(0));
+        assertEquals("Index fail", 1, params.indexOf("opt"));
+        assertEquals("Index fail", -1, params.indexOf("missing"));
+        assertEquals("Bounds fail", 7, params.start(0));
+        assertEquals("Bounds fail", 10, params.end(0));
+        assertEquals("Long fail", -42, params.getLong(0));
+        assertEquals("Int fail", -42, params.getInt(0));
+        assertEquals("Get fail", "abc", params.get("opt"));
+        assertTrue("Equals fail", params.valueEquals(1, "abc"));
+        assertFalse("Equals fail", params.valueEquals(1, "abd"));
+        assertFalse("Equals fail", params.valueEquals(1, "ab"));
+        assertEquals("Map fail", "{id=-42, opt=abc}", params.toMap().toString());
+        assertEquals("String fail", "{id=-42, opt=abc}", params.toString());
+    }
+
+    @Test
+    public void testNotMatched() {
+        UrlParams params = match("^/items/(?<id>\\d+)(?:/(?<opt>[a-z]+))?$", "/items/42");
+        assertFalse("Matched fail", params.isMatched(1));
+        assertEquals("Bounds fail", -1, params.start(1));
+        assertEquals("Bounds fail", -1, params.end(1));
+        assertNull("Value fail", params.value(1));
+        assertNull("Get fail", params.get("opt"));
+        assertNull("Get fail", params.get("missing"));
+        assertFalse("Equals fail", params.valueEquals(1, ""));
+        assertEquals("Map fail", "{id=42, opt=null}", params.toMap().toString());
+        try {
+            params.getLong(1);
+            fail("Not matched parameter must not be parsed");
+        } catch(NumberFormatException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSlice() {
+        UrlParams params = match("^/files/(?<name>[^/]+)$", "/files/report.txt");
+        CharSequence value = params.value(0);
+        assertEquals("Length fail", 10, value.length());
+        assertEquals("Char fail", 'r', value.charAt(0));
+        assertEquals("Sub fail", "port", value.subSequence(2, 6).toString());
+        assertEquals("Sub fail", "or", value.subSequence(2, 6).subSequence(1, 3).toString());
+        assertEquals("Sub fail", "", value.subSequence(10, 10).toString());
+        assertEquals("String fail", "report.txt", value.toString());
+        try {
+            value.charAt(10);
+            fail("Slice must be bounded");
+        } catch(IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            value.subSequence(5, 11);
+            fail("Slice must be bounded");
+        } catch(IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            value.subSequence(3, 2);
+            fail("Slice must be bounded");
+        } catch(IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMap() {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        map.put("a", "1");
+        map.put("b", null);
+        map.put("c", "");
+        UrlParams params = UrlParams.of(map);
+        assertEquals("Size fail", 3, params.size());
+        assertEquals("Long fail", 1, params.getLong(0));
+        assertFalse("Matched fail", params.isMatched(1));
+        assertTrue("Matched fail", params.isMatched(2));
+        assertEquals("Empty value fail", "", params.get("c"));
+        assertEquals("Round trip fail", map, params.toMap());
+        assertSame("Empty fail", UrlParams.empty(), UrlParams.of(new LinkedHashMap<String, String>()));
+        assertEquals("Empty fail", 0, UrlParams.empty().toMap().size());
+        try {
+            UrlParams.of(null);
+            fail("Null map must be rejected");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testParseLong() {
+        assertEquals("Max fail", Long.MAX_VALUE, UrlParams.parseLong("9223372036854775807", 0, 19));
+        assertEquals("Min fail", Long.MIN_VALUE, UrlParams.parseLong("-9223372036854775808", 0, 20));
+        assertEquals("Sign fail", 7, UrlParams.parseLong("+7", 0, 2));
+        assertEquals("Range fail", 23, UrlParams.parseLong("x123y", 2, 4));
+        assertInvalidLong("");
+        assertInvalidLong("-");
+        assertInvalidLong("+");
+        assertInvalidLong("1a");
+        assertInvalidLong(" 1");
+        assertInvalidLong("9223372036854775808");
+        assertInvalidLong("-9223372036854775809");
+        assertInvalidLong("99999999999999999999");
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        map.put("big", "2147483648");
+        map.put("small", "-2147483648");
+        UrlParams params = UrlParams.of(map);
+        assertEquals("Int fail", Integer.MIN_VALUE, params.getInt(1));
+        try {
+            params.getInt(0);
+            fail("Int overflow must be rejected");
+        } catch(NumberFormatException e) {
+            // expected
+        }
+    }
+
+    private static void assertInvalidLong(String str) {
+        try {
+            UrlParams.parseLong(str, 0, str.length());
+            fail("Number must be rejected: '" + str + "'");
+        } catch(NumberFormatException e) {
+            // expected
+        }
+    }
+
+    private static UrlParams match(String pattern, String path) {
+        List<HandlersMappingEntry<?>> registry = new ArrayList<HandlersMappingEntry<?>>();
+        registry.add(RouteIndexTest.regex(pattern));
+        RouteMatch match = new RouteIndex(registry).match(path);
+        assertTrue("Match fail", null != match);
+        return match.getParams();
+    }
+}